@@ -0,0 +1,240 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * This class is the queue of actions waiting to be carried out by one
+ * elevator.
+ *
+ * Actions are added by the thread that handles messages from the scheduler
+ * and removed by the elevator's own thread. With exactly one producer and
+ * one consumer, neither side needs a lock: the producer only moves the tail
+ * and the consumer only moves the head. A consumer with nothing to do parks
+ * itself, and the producer only unparks that one thread, so adding an
+ * action never wakes any other elevator.
+ *
+ * The producer never waits. Actions that do not fit in the ring go into
+ * an unbounded overflow list, and keep going there until the consumer has
+ * emptied it, so actions still come out in the order they were added.
+ *
+ * The queue also records how deep it has been and how often it overflowed,
+ * so a backlog of actions for one car can be seen.
+ *
+ */
+public class ActionQueue {
+    private final Elevator.Action[] actions;
+    private final int mask;
+
+    // Actions added while the ring was full. Every action in it was added
+    // after every action in the ring.
+    private final ConcurrentLinkedQueue<Elevator.Action> overflow;
+
+    // Number of actions added to and removed from the overflow list
+    // (only written by the producer and the consumer respectively)
+    private volatile long numOverflowed;
+    private volatile long numOverflowRemoved;
+
+    // Index of the next action to remove (only written by the consumer)
+    private volatile long head;
+    // Index of the next action to add (only written by the producer)
+    private volatile long tail;
+
+    // Consumer parked waiting for an action, null if it is not waiting
+    private volatile Thread waiter;
+
+    private volatile int maxDepth;
+    private volatile long numAdded;
+
+    /**
+     * ActionQueue
+     *
+     * Constructor
+     *
+     * Creates a new empty queue
+     *
+     * @param capacity Most actions held at once (a power of two)
+     *
+     * @return None
+     */
+    public ActionQueue(int capacity) {
+        if ((capacity <= 0) || (Integer.bitCount(capacity) != 1)) {
+            throw new IllegalArgumentException("Queue capacity must be a power of two: " + capacity);
+        }
+
+        actions = new Elevator.Action[capacity];
+        mask = capacity - 1;
+        overflow = new ConcurrentLinkedQueue<Elevator.Action>();
+        numOverflowed = 0;
+        numOverflowRemoved = 0;
+        head = 0;
+        tail = 0;
+        waiter = null;
+        maxDepth = 0;
+        numAdded = 0;
+    }
+
+    /**
+     * add
+     *
+     * Adds an action to the end of the queue, and wakes the consumer if it
+     * is waiting. Must only be called by the producer. Never waits: if the
+     * ring is full, the action goes into the overflow list.
+     *
+     * @param action   The action to add
+     *
+     * @return None
+     */
+    public void add(Elevator.Action action) {
+        long currentTail = tail;
+
+        // Once actions overflow, later ones must follow them until the
+        // consumer catches up
+        if ((numOverflowed != numOverflowRemoved) || ((currentTail - head) >= actions.length)) {
+            // Publishes the action before the waiter is read, as below
+            overflow.add(action);
+            numOverflowed++;
+        } else {
+            actions[(int) (currentTail & mask)] = action;
+
+            // Publishes the action before the waiter is read, so either the
+            // consumer sees the action or the producer sees the consumer waiting
+            tail = currentTail + 1;
+        }
+
+        int depth = size();
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+        numAdded++;
+
+        Thread consumer = waiter;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * poll
+     *
+     * Removes the action at the front of the queue. Must only be called by
+     * the consumer.
+     *
+     * @param  None
+     *
+     * @return Elevator.Action The action, or null if the queue is empty
+     */
+    public Elevator.Action poll() {
+        long currentHead = head;
+
+        // Everything in the ring is older than everything in the overflow list
+        if (currentHead == tail) {
+            Elevator.Action action = overflow.poll();
+
+            if (action != null) {
+                numOverflowRemoved++;
+            }
+
+            return(action);
+        }
+
+        int index = (int) (currentHead & mask);
+        Elevator.Action action = actions[index];
+        actions[index] = null;
+
+        head = currentHead + 1;
+
+        return(action);
+    }
+
+    /**
+     * take
+     *
+     * Removes the action at the front of the queue, waiting for one to be
+     * added if the queue is empty. Must only be called by the consumer.
+     *
+     * @param  None
+     *
+     * @return Elevator.Action The action, or null if the thread was interrupted while waiting
+     */
+    public Elevator.Action take() {
+        Elevator.Action action = poll();
+
+        while (action == null) {
+            waiter = Thread.currentThread();
+
+            // Check again now that the producer can see this thread waiting
+            action = poll();
+
+            if (action == null) {
+                LockSupport.park(this);
+
+                if (Thread.currentThread().isInterrupted()) {
+                    waiter = null;
+                    return(null);
+                }
+
+                action = poll();
+            }
+
+            waiter = null;
+        }
+
+        return(action);
+    }
+
+    /**
+     * size
+     *
+     * Returns the number of actions waiting in the queue
+     *
+     * @param  None
+     *
+     * @return int Number of waiting actions
+     */
+    public int size() {
+        long currentHead = head;
+        long overflowRemoved = numOverflowRemoved;
+
+        return((int) ((tail - currentHead) + (numOverflowed - overflowRemoved)));
+    }
+
+    /**
+     * getMaxDepth
+     *
+     * Returns the most actions that have been waiting in the queue at once
+     *
+     * @param  None
+     *
+     * @return int The deepest the queue has been
+     */
+    public int getMaxDepth() {
+        return(maxDepth);
+    }
+
+    /**
+     * getNumAdded
+     *
+     * Returns the number of actions that have been added to the queue
+     *
+     * @param  None
+     *
+     * @return long    Number of actions added
+     */
+    public long getNumAdded() {
+        return(numAdded);
+    }
+
+    /**
+     * getNumOverflowed
+     *
+     * Returns the number of actions that did not fit in the ring and were
+     * added to the overflow list
+     *
+     * @param  None
+     *
+     * @return long    Number of actions that overflowed
+     */
+    public long getNumOverflowed() {
+        return(numOverflowed);
+    }
+}
@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class ActionQueueTest {
+
+	/**
+	 * Test that actions come out in the order they were added, and that the
+	 * depth of the queue is recorded
+	 */
+	@Test
+	void testOrderAndDepth() {
+		ActionQueue queue = new ActionQueue(4);
+
+		for (int round = 0; round < 3; round++) {
+			queue.add(Elevator.Action.MOVE_UP);
+			queue.add(Elevator.Action.STOP);
+			queue.add(Elevator.Action.OPEN_DOOR);
+
+			assertEquals(3, queue.size());
+			assertEquals(Elevator.Action.MOVE_UP, queue.poll());
+			assertEquals(Elevator.Action.STOP, queue.poll());
+			assertEquals(Elevator.Action.OPEN_DOOR, queue.take());
+		}
+
+		assertNull(queue.poll());
+		assertEquals(0, queue.size());
+		assertEquals(3, queue.getMaxDepth());
+		assertEquals(9, queue.getNumAdded());
+	}
+
+	/**
+	 * Test that a waiting consumer is woken for every action added by
+	 * another thread, and stops waiting when interrupted
+	 */
+	@Test
+	void testWakeup() throws Exception {
+		ActionQueue queue = new ActionQueue(2);
+		int numActions = 10000;
+		int[] received = new int[1];
+
+		Thread consumer = new Thread(() -> {
+			while (queue.take() != null) {
+				received[0]++;
+			}
+		});
+		consumer.start();
+
+		for (int i = 0; i < numActions; i++) {
+			queue.add(Elevator.Action.MOVE_DOWN);
+		}
+
+		while (queue.size() > 0) {
+			Thread.sleep(1);
+		}
+
+		consumer.interrupt();
+		consumer.join(5000);
+
+		assertEquals(numActions, received[0]);
+	}
+
+	/**
+	 * Test that adding to a full queue does not wait, and that actions that
+	 * overflowed still come out in the order they were added
+	 */
+	@Test
+	void testOverflow() {
+		ActionQueue queue = new ActionQueue(2);
+		Elevator.Action[] order = Elevator.Action.values();
+
+		for (int i = 0; i < 10; i++) {
+			queue.add(order[i % order.length]);
+		}
+
+		assertEquals(10, queue.size());
+		assertEquals(8, queue.getNumOverflowed());
+		assertEquals(10, queue.getMaxDepth());
+
+		// The ring has room again, but new actions must follow the overflow
+		assertEquals(order[0], queue.poll());
+		queue.add(order[10 % order.length]);
+
+		for (int i = 1; i <= 10; i++) {
+			assertEquals(order[i % order.length], queue.poll());
+		}
+		assertNull(queue.poll());
+
+		// Once the overflow is empty the ring is used again
+		queue.add(Elevator.Action.STOP);
+		assertEquals(9, queue.getNumOverflowed());
+		assertEquals(Elevator.Action.STOP, queue.take());
+	}
+
+	/**
+	 * Test that actions added by another thread come out in order while
+	 * the queue keeps overflowing
+	 */
+	@Test
+	void testOverflowOrderAcrossThreads() throws Exception {
+		ActionQueue queue = new ActionQueue(2);
+		Elevator.Action[] order = Elevator.Action.values();
+		int numActions = 10000;
+		int[] mismatches = new int[1];
+
+		Thread consumer = new Thread(() -> {
+			for (int i = 0; i < numActions; i++) {
+				if (queue.take() != order[i % order.length]) {
+					mismatches[0]++;
+				}
+			}
+		});
+		consumer.start();
+
+		for (int i = 0; i < numActions; i++) {
+			queue.add(order[i % order.length]);
+		}
+
+		consumer.join(10000);
+
+		assertFalse(consumer.isAlive());
+		assertEquals(0, mismatches[0]);
+		assertEquals(0, queue.size());
+	}
+}
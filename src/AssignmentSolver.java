@@ -0,0 +1,109 @@
+import java.util.Arrays;
+
+/**
+ *
+ * This class solves the assignment problem: given the cost of giving each
+ * job (row) to each worker (column), it gives every job a different worker
+ * so that the total cost is as low as possible.
+ *
+ * It uses the Hungarian method with potentials. Jobs are added one at a
+ * time, and each is placed by following the cheapest augmenting path
+ * through the workers already taken, so solving n jobs for m workers takes
+ * O(n * n * m) time.
+ *
+ */
+public class AssignmentSolver {
+    // Larger than any sum of costs the solver is given
+    private final static long INFINITY = Long.MAX_VALUE / 4;
+
+    /**
+     * solve
+     *
+     * Static method
+     *
+     * Returns the worker given each job, so that no two jobs share a
+     * worker and the total cost is as low as possible
+     *
+     * @param cost Cost of each job (row) for each worker (column), every
+     *             row the same length and every cost below Long.MAX_VALUE / 8
+     *
+     * @return int[]   The column chosen for each row
+     */
+    public static int[] solve(long[][] cost) {
+        int numJobs = cost.length;
+        int numWorkers = (numJobs > 0) ? cost[0].length : 0;
+
+        if (numJobs > numWorkers) {
+            throw new IllegalArgumentException("More jobs than workers: " + numJobs + " > " + numWorkers);
+        }
+
+        // Index 0 of the worker arrays is a dummy worker holding the job
+        // being added, so jobs and workers are numbered from 1
+        long[] jobPotential = new long[numJobs + 1];
+        long[] workerPotential = new long[numWorkers + 1];
+        int[] jobOfWorker = new int[numWorkers + 1];
+        int[] previousWorker = new int[numWorkers + 1];
+        long[] minSlack = new long[numWorkers + 1];
+        boolean[] visited = new boolean[numWorkers + 1];
+
+        for (int job = 1; job <= numJobs; job++) {
+            jobOfWorker[0] = job;
+            int worker = 0;
+
+            Arrays.fill(minSlack, INFINITY);
+            Arrays.fill(visited, false);
+
+            // Grow a tree of tight edges until it reaches a free worker
+            do {
+                visited[worker] = true;
+                int currJob = jobOfWorker[worker];
+                int nextWorker = 0;
+                long delta = INFINITY;
+
+                for (int j = 1; j <= numWorkers; j++) {
+                    if (!visited[j]) {
+                        long slack = cost[currJob - 1][j - 1] - jobPotential[currJob] - workerPotential[j];
+
+                        if (slack < minSlack[j]) {
+                            minSlack[j] = slack;
+                            previousWorker[j] = worker;
+                        }
+
+                        if (minSlack[j] < delta) {
+                            delta = minSlack[j];
+                            nextWorker = j;
+                        }
+                    }
+                }
+
+                for (int j = 0; j <= numWorkers; j++) {
+                    if (visited[j]) {
+                        jobPotential[jobOfWorker[j]] += delta;
+                        workerPotential[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+
+                worker = nextWorker;
+            } while (jobOfWorker[worker] != 0);
+
+            // Shift every job on the path over to its next worker
+            do {
+                int prev = previousWorker[worker];
+                jobOfWorker[worker] = jobOfWorker[prev];
+                worker = prev;
+            } while (worker != 0);
+        }
+
+        int[] workerOfJob = new int[numJobs];
+
+        for (int j = 1; j <= numWorkers; j++) {
+            if (jobOfWorker[j] != 0) {
+                workerOfJob[jobOfWorker[j] - 1] = j - 1;
+            }
+        }
+
+        return(workerOfJob);
+    }
+}
@@ -0,0 +1,82 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class AssignmentSolverTest {
+
+	/**
+	 * Test that jobs are not simply given their cheapest worker in order
+	 */
+	@Test
+	void testBetterThanGreedy() {
+		assertArrayEquals(new int[] { 1, 0 }, AssignmentSolver.solve(new long[][] { { 1, 2 }, { 1, 10 } }));
+		assertArrayEquals(new int[] { 1, 0 }, AssignmentSolver.solve(new long[][] { { 5, 1, 9 }, { 5, 2, 9 } }));
+		assertArrayEquals(new int[0], AssignmentSolver.solve(new long[0][0]));
+	}
+
+	/**
+	 * Test that there can not be more jobs than workers
+	 */
+	@Test
+	void testTooManyJobs() {
+		assertThrows(IllegalArgumentException.class, () -> AssignmentSolver.solve(new long[][] { { 1 }, { 2 } }));
+	}
+
+	/**
+	 * Test that the total cost matches the cheapest assignment found by
+	 * trying every one
+	 */
+	@Test
+	void testOptimal() {
+		Random random = new Random(3);
+
+		for (int trial = 0; trial < 50; trial++) {
+			int numJobs = 1 + random.nextInt(5);
+			long[][] cost = new long[numJobs][numJobs + random.nextInt(3)];
+
+			for (long[] row : cost) {
+				for (int j = 0; j < row.length; j++) {
+					row[j] = random.nextInt(100000);
+				}
+			}
+
+			int[] workers = AssignmentSolver.solve(cost);
+			boolean[] taken = new boolean[cost[0].length];
+			long total = 0;
+
+			for (int i = 0; i < numJobs; i++) {
+				assertEquals(false, taken[workers[i]]);
+				taken[workers[i]] = true;
+				total += cost[i][workers[i]];
+			}
+
+			assertEquals(cheapest(cost, 0, new boolean[cost[0].length]), total);
+		}
+	}
+
+	/**
+	 * Returns the lowest total cost of giving every job from the given one
+	 * on a worker that is not taken
+	 */
+	private long cheapest(long[][] cost, int job, boolean[] taken) {
+		if (job == cost.length) {
+			return (0);
+		}
+
+		long best = Long.MAX_VALUE;
+
+		for (int j = 0; j < taken.length; j++) {
+			if (!taken[j]) {
+				taken[j] = true;
+				best = Math.min(best, cost[job][j] + cheapest(cost, job + 1, taken));
+				taken[j] = false;
+			}
+		}
+
+		return (best);
+	}
+}
@@ -0,0 +1,241 @@
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * This class prints log messages on a background thread.
+ *
+ * Any number of threads can append messages. Messages are handed to the
+ * printing thread through a bounded lock-free ring buffer, so a thread that
+ * logs never waits for the console. If the ring is full the message is
+ * dropped and counted instead of blocking the caller. The printing thread
+ * writes everything waiting in the ring and flushes the output once the
+ * ring is empty.
+ *
+ */
+public class AsyncLogAppender implements Runnable {
+    // Time the printing thread parks for while the ring is empty (in nanoseconds)
+    private final static long IDLE_PARK_NANOS = 1000000;
+
+    // Ring buffer used to hand messages to the printing thread
+    private AtomicReferenceArray<String> ring;
+    private AtomicLongArray sequences;
+    private int mask;
+
+    // Next slot to be claimed by a producer
+    private AtomicLong tail;
+
+    // Next slot to be read by the printing thread (only used by that thread)
+    private long head;
+
+    // Number of messages dropped because the ring was full, and how
+    // many of those have been reported (only used by the printing thread)
+    private AtomicLong numDropped;
+    private long numDroppedReported;
+
+    private PrintStream out;
+
+    private volatile boolean run;
+
+    private Thread printingThread;
+
+    /**
+     * AsyncLogAppender
+     *
+     * Constructor
+     *
+     * Creates a new AsyncLogAppender that prints to the given stream.
+     * The printing thread is not started until start is called.
+     *
+     * @param capacity Maximum number of waiting messages (must be a power of 2)
+     * @param out  Stream to print messages to
+     *
+     * @return None
+     */
+    public AsyncLogAppender(int capacity, PrintStream out) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Log buffer size must be a power of 2");
+        }
+
+        this.out = out;
+
+        ring = new AtomicReferenceArray<String>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+
+        tail = new AtomicLong(0);
+        head = 0;
+        numDropped = new AtomicLong(0);
+        numDroppedReported = 0;
+    }
+
+    /**
+     * start
+     *
+     * Starts the printing thread. Messages still waiting when the
+     * JVM shuts down are printed by a shutdown hook.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void start() {
+        run = true;
+
+        printingThread = new Thread(this, "log");
+        printingThread.setDaemon(true);
+        printingThread.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "log shutdown"));
+    }
+
+    /**
+     * stop
+     *
+     * Stops the printing thread and prints every message still waiting.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void stop() {
+        run = false;
+
+        if (printingThread != null) {
+            LockSupport.unpark(printingThread);
+
+            try {
+                printingThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (this) {
+            printWaiting();
+        }
+    }
+
+    /**
+     * append
+     *
+     * Adds the given message to the messages waiting to be printed.
+     * Never blocks. The message is dropped if the ring is full.
+     *
+     * @param message  The message to print
+     *
+     * @return boolean True if the message was added, false if it was dropped
+     */
+    public boolean append(String message) {
+        while (true) {
+            long pos = tail.get();
+            int slot = (int) (pos & mask);
+            long diff = sequences.get(slot) - pos;
+
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    ring.lazySet(slot, message);
+
+                    // Publish the slot to the printing thread
+                    sequences.set(slot, pos + 1);
+                    return(true);
+                }
+            } else if (diff < 0) {
+                numDropped.incrementAndGet();
+                return(false);
+            }
+        }
+    }
+
+    /**
+     * getNumDropped
+     *
+     * Returns the number of messages dropped because too many
+     * messages were waiting to be printed.
+     *
+     * @param  None
+     *
+     * @return long    Number of dropped messages
+     */
+    public long getNumDropped() {
+        return(numDropped.get());
+    }
+
+    /**
+     * run
+     *
+     * Overridden
+     *
+     * Prints waiting messages until the appender is stopped.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    @Override
+    public void run() {
+        while (run) {
+            boolean printed;
+
+            synchronized (this) {
+                printed = printWaiting();
+            }
+
+            if (!printed) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * printWaiting
+     *
+     * Prints every message published in the ring buffer, then flushes
+     * the output. Must only be called by one thread at a time.
+     *
+     * @param  None
+     *
+     * @return boolean True if any messages were printed
+     */
+    private boolean printWaiting() {
+        boolean printed = false;
+
+        while (true) {
+            int slot = (int) (head & mask);
+
+            if (sequences.get(slot) != head + 1) {
+                break;
+            }
+
+            String message = ring.get(slot);
+            ring.lazySet(slot, null);
+
+            // Hand the slot back to the producers
+            sequences.set(slot, head + mask + 1);
+            head++;
+
+            out.println(message);
+            printed = true;
+        }
+
+        long dropped = numDropped.get();
+        if (dropped > numDroppedReported) {
+            out.println(String.format("(%d log messages dropped)", dropped - numDroppedReported));
+            numDroppedReported = dropped;
+            printed = true;
+        }
+
+        if (printed) {
+            out.flush();
+        }
+
+        return(printed);
+    }
+}
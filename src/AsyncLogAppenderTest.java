@@ -0,0 +1,105 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class AsyncLogAppenderTest {
+
+	/**
+	 * Split everything printed to the given stream into lines
+	 *
+	 * @param out The stream the appender printed to
+	 *
+	 * @return ArrayList<String> The printed lines
+	 */
+	private ArrayList<String> lines(ByteArrayOutputStream out) {
+		String printed = out.toString().replace("\r", "");
+
+		return (printed.isEmpty() ? new ArrayList<String>() : new ArrayList<String>(Arrays.asList(printed.split("\n"))));
+	}
+
+	/**
+	 * Test that messages appended to a full ring are dropped instead of
+	 * blocking, and that the number dropped is printed after the rest
+	 */
+	@Test
+	void testFullRingDrops() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AsyncLogAppender appender = new AsyncLogAppender(4, new PrintStream(out));
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(appender.append("message " + i));
+		}
+		assertFalse(appender.append("message 4"));
+		assertEquals(1, appender.getNumDropped());
+
+		// Stopping an appender that was never started prints what is waiting
+		appender.stop();
+
+		assertEquals(Arrays.asList("message 0", "message 1", "message 2", "message 3", "(1 log messages dropped)"),
+				lines(out));
+
+		// The ring can be used again once it has been printed
+		assertTrue(appender.append("message 5"));
+	}
+
+	/**
+	 * Test that every message appended by several threads is printed once,
+	 * in the order each thread appended them
+	 */
+	@Test
+	void testConcurrentAppend() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AsyncLogAppender appender = new AsyncLogAppender(1024, new PrintStream(out));
+		int numThreads = 4;
+		int numMessages = 200;
+		Thread[] threads = new Thread[numThreads];
+
+		appender.start();
+
+		for (int t = 0; t < numThreads; t++) {
+			int thread = t;
+
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < numMessages; i++) {
+					assertTrue(appender.append(thread + " " + i));
+				}
+			});
+			threads[t].start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		appender.stop();
+
+		int[] next = new int[numThreads];
+
+		for (String line : lines(out)) {
+			String[] parts = line.split(" ");
+			int thread = Integer.parseInt(parts[0]);
+
+			assertEquals(next[thread]++, Integer.parseInt(parts[1]));
+		}
+
+		for (int t = 0; t < numThreads; t++) {
+			assertEquals(numMessages, next[t]);
+		}
+		assertEquals(0, appender.getNumDropped());
+	}
+
+	/**
+	 * Test that the capacity must be a power of 2
+	 */
+	@Test
+	void testCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> new AsyncLogAppender(6, System.out));
+	}
+}
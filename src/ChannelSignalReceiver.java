@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ *
+ * This class is used to receive messages using a DatagramChannel.
+ *
+ * Datagrams are read from the channel into a single direct ByteBuffer
+ * owned by the receiver thread, so the kernel copies straight into native
+ * memory. The bytes are then copied into a packet taken from the
+ * ServerPattern's pool, so no buffers or packets are allocated per signal.
+ *
+ */
+class ChannelSignalReceiver extends SignalReceiver {
+    private volatile DatagramChannel receiveChannel;
+
+    private ByteBuffer receiveBuffer;
+
+    private int localPort;
+
+    /**
+     * ChannelSignalReceiver
+     *
+     * Creates a new ChannelSignalReceiver object
+     *
+     * @param portNum  The port number to receive messages on
+     * @param controller   The ServerPattern that controls this SignalReceiver object
+     * @param name The name of this ServerPattern object
+     *
+     * @return None
+     */
+    public ChannelSignalReceiver(int portNum, ServerPattern controller, String name) {
+        super(controller, name);
+
+        receiveBuffer = ByteBuffer.allocateDirect(UtilityInformation.MAX_BYTE_ARRAY_SIZE);
+
+        // Initialize the DatagramChannel
+        try {
+            receiveChannel = DatagramChannel.open();
+            receiveChannel.bind(new InetSocketAddress(portNum));
+            localPort = ((InetSocketAddress) receiveChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            e.printStackTrace();
+            this.teardown();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * teardown
+     *
+     * Tears down this SignalReceiver object
+     */
+    public void teardown() {
+        run = false;
+
+        if (receiveChannel != null) {
+            try {
+                receiveChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            receiveChannel = null;
+        }
+    }
+
+    /**
+     * getLocalPort
+     *
+     * Returns the port the channel is bound to
+     *
+     * @param  None
+     *
+     * @return int The port number
+     */
+    public int getLocalPort() {
+        return(localPort);
+    }
+
+    /**
+     * waitForSignal
+     *
+     * Waits for a datagram to arrive on the channel. The datagram is copied
+     * into a packet from the pool. When the packet is received, information
+     * about the packet is printed. The packet is then returned.
+     *
+     * @param  None
+     *
+     * @return The received DatagramPacket, null if the receiver was torn down
+     */
+    public DatagramPacket waitForSignal() {
+        DatagramChannel channel = receiveChannel;
+
+        if (channel == null) {
+            return(null);
+        }
+
+        Log.debug(() -> String.format("%s: Waiting for message...", name));
+
+        InetSocketAddress sender = null;
+        receiveBuffer.clear();
+
+        try {
+            // Block until a datagram is received
+            sender = (InetSocketAddress) channel.receive(receiveBuffer);
+        } catch (IOException e) {
+            if (run) {
+                e.printStackTrace();
+                this.teardown();
+                System.exit(1);
+            }
+
+            return(null);
+        }
+
+        receiveBuffer.flip();
+
+        // Copy the datagram into a pooled packet
+        DatagramPacket receivePacket = controller.getBufferPool().acquire();
+        int len = receiveBuffer.remaining();
+
+        receiveBuffer.get(receivePacket.getData(), 0, len);
+        receivePacket.setLength(len);
+        receivePacket.setAddress(sender.getAddress());
+        receivePacket.setPort(sender.getPort());
+
+        // Clear anything left in the pooled buffer from a previous signal
+        SignalBufferPool.clearUnused(receivePacket);
+
+        // Print out information about the response
+        printSignal(receivePacket);
+
+        return(receivePacket);
+    }
+}
@@ -0,0 +1,134 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ChannelSignalReceiverTest {
+
+	private ServerPattern receiver;
+	private DatagramSocket sendSocket;
+
+	/**
+	 * Create a ServerPattern that receives with a ChannelSignalReceiver, and
+	 * a socket to send to it from
+	 *
+	 * @throws Exception
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		receiver = new ServerPattern(0, "receiver", UtilityInformation.TransportType.UDP,
+				UtilityInformation.ReceiverType.CHANNEL, UtilityInformation.WaitStrategy.BLOCKING) {
+		};
+		sendSocket = new DatagramSocket();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		receiver.teardown();
+		sendSocket.close();
+	}
+
+	/**
+	 * Test that packets handed back after handling are reused for later
+	 * signals, so many more signals than the pool holds are received without
+	 * the pool growing, and that a reused buffer holds nothing from the
+	 * longer signal it held before
+	 */
+	@Test
+	void testPacketsReused() throws Exception {
+		SignalBufferPool pool = receiver.getBufferPool();
+		int capacity = pool.getNumFree();
+		Set<byte[]> buffers = Collections.newSetFromMap(new IdentityHashMap<byte[], Boolean>());
+
+		for (int i = 0; i < capacity * 3; i++) {
+			byte[] message = message(i);
+			send(message);
+
+			DatagramPacket received = receiver.getNextRequest();
+
+			assertArrayEquals(message, Arrays.copyOf(received.getData(), received.getLength()));
+			assertTrue(isClearAfter(received.getData(), received.getLength()));
+
+			buffers.add(received.getData());
+			receiver.releaseRequest(received);
+		}
+
+		assertTrue(buffers.size() <= capacity);
+		assertEquals(capacity, pool.getNumFree());
+	}
+
+	/**
+	 * Test that a burst of more signals than the pool holds is still received
+	 * in order, and that the pool keeps no more than its capacity once every
+	 * packet is handed back
+	 */
+	@Test
+	void testBurstLargerThanPool() throws Exception {
+		SignalBufferPool pool = receiver.getBufferPool();
+		int capacity = pool.getNumFree();
+		int numMessages = capacity + 20;
+		ArrayList<DatagramPacket> received = new ArrayList<DatagramPacket>();
+
+		for (int i = 0; i < numMessages; i++) {
+			send(message(i));
+		}
+
+		for (int i = 0; i < numMessages; i++) {
+			DatagramPacket packet = receiver.getNextRequest();
+
+			assertArrayEquals(message(i), Arrays.copyOf(packet.getData(), packet.getLength()));
+			received.add(packet);
+		}
+
+		assertEquals(0, pool.getNumFree());
+
+		for (DatagramPacket packet : received) {
+			receiver.releaseRequest(packet);
+		}
+
+		assertEquals(capacity, pool.getNumFree());
+	}
+
+	/**
+	 * Creates a floor request message numbered i. The length changes with
+	 * i, so a shorter message often reuses a buffer that held a longer one.
+	 */
+	private static byte[] message(int i) {
+		byte[] message = new byte[4 + (i % 5) * 3];
+
+		Arrays.fill(message, (byte) (i + 1));
+		message[UtilityInformation.MODE_BYTE_IND] = UtilityInformation.FLOOR_REQUEST_MODE;
+		message[1] = (byte) (i >> 8);
+		message[2] = (byte) i;
+		message[message.length - 1] = UtilityInformation.END_OF_MESSAGE;
+
+		return (message);
+	}
+
+	private void send(byte[] message) throws Exception {
+		sendSocket.send(new DatagramPacket(message, message.length, InetAddress.getLoopbackAddress(),
+				receiver.getLocalPort()));
+	}
+
+	private static boolean isClearAfter(byte[] data, int length) {
+		for (int i = length; i < data.length; i++) {
+			if (data[i] != 0) {
+				return (false);
+			}
+		}
+
+		return (true);
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ *
+ * This class is used to collect several commands going to the same
+ * destination so they can be sent in a single MULTI_COMMAND_MODE datagram.
+ *
+ * Format:
+ *     {MULTI_COMMAND_MODE, Number of commands,
+ *      Length of command 1, Command 1...,
+ *      Length of command 2, Command 2..., ..., -1}
+ *
+ * A frame holding only one command is sent as that command on its own,
+ * so receivers that do not understand frames still work.
+ *
+ */
+public class CommandFrame {
+    private byte[] frame;
+
+    // Index in frame where the next command will be written
+    private int end;
+
+    // Index in frame and length of the first command added
+    private int firstCommandInd;
+    private int firstCommandLength;
+
+    private int numCommands;
+
+    /**
+     * CommandFrame
+     *
+     * Constructor
+     *
+     * Creates a new empty CommandFrame that fits in a datagram of the
+     * given size.
+     *
+     * @param maxSize  Maximum number of bytes in the frame
+     *
+     * @return None
+     */
+    public CommandFrame(int maxSize) {
+        frame = new byte[maxSize];
+        frame[UtilityInformation.MODE_BYTE_IND] = UtilityInformation.MULTI_COMMAND_MODE;
+
+        clear();
+    }
+
+    /**
+     * add
+     *
+     * Adds the given command to the frame if there is space for it.
+     *
+     * @param command  Array containing the command
+     * @param length   Number of bytes in the command
+     *
+     * @return boolean True if the command was added, false if it does not fit
+     */
+    public boolean add(byte[] command, int length) {
+        return(add(command, 0, length));
+    }
+
+    /**
+     * add
+     *
+     * Adds the command starting at the given index of the array to the
+     * frame if there is space for it.
+     *
+     * @param command  Array containing the command
+     * @param offset   Index of the first byte of the command
+     * @param length   Number of bytes in the command
+     *
+     * @return boolean True if the command was added, false if it does not fit
+     */
+    public boolean add(byte[] command, int offset, int length) {
+        // Leave room for the length byte and the end of message byte
+        if ((length > 0xFF) || (end + 1 + length + 1 > frame.length)) {
+            return(false);
+        }
+
+        frame[end] = (byte) length;
+        end += 1;
+
+        if (numCommands == 0) {
+            firstCommandInd = end;
+            firstCommandLength = length;
+        }
+
+        System.arraycopy(command, offset, frame, end, length);
+        end += length;
+
+        numCommands += 1;
+        frame[UtilityInformation.FRAME_COUNT_IND] = (byte) numCommands;
+
+        return(true);
+    }
+
+    /**
+     * clear
+     *
+     * Removes all commands from the frame
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void clear() {
+        end = UtilityInformation.FRAME_HEADER_SIZE;
+        numCommands = 0;
+        frame[UtilityInformation.FRAME_COUNT_IND] = 0;
+    }
+
+    /**
+     * getNumCommands
+     *
+     * Returns the number of commands in the frame
+     *
+     * @param  None
+     *
+     * @return int Number of commands in the frame
+     */
+    public int getNumCommands() {
+        return(numCommands);
+    }
+
+    /**
+     * getData
+     *
+     * Returns the array holding the bytes to send. Use getOffset and
+     * getLength to find the bytes within it.
+     *
+     * @param  None
+     *
+     * @return byte[]  Array holding the frame
+     */
+    public byte[] getData() {
+        return(frame);
+    }
+
+    /**
+     * getOffset
+     *
+     * Returns the index of the first byte to send. If only one command
+     * is in the frame this is the start of that command.
+     *
+     * @param  None
+     *
+     * @return int Index of the first byte to send
+     */
+    public int getOffset() {
+        if (numCommands == 1) {
+            return(firstCommandInd);
+        }
+
+        return(0);
+    }
+
+    /**
+     * getLength
+     *
+     * Returns the number of bytes to send. If only one command
+     * is in the frame this is the length of that command.
+     *
+     * @param  None
+     *
+     * @return int Number of bytes to send
+     */
+    public int getLength() {
+        if (numCommands == 1) {
+            return(firstCommandLength);
+        }
+
+        frame[end] = UtilityInformation.END_OF_MESSAGE;
+
+        return(end + 1);
+    }
+}
@@ -0,0 +1,99 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CommandFrameTest {
+
+	private CommandFrame frame;
+
+	private byte[] doorCommand = { UtilityInformation.ELEVATOR_DOOR_MODE, 1, 0, UtilityInformation.END_OF_MESSAGE };
+	private byte[] directionCommand = { UtilityInformation.ELEVATOR_DIRECTION_MODE, 3, 0, 1,
+			UtilityInformation.END_OF_MESSAGE };
+
+	/**
+	 * Create an empty frame
+	 *
+	 * @throws Exception
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		frame = new CommandFrame(UtilityInformation.MAX_BYTE_ARRAY_SIZE);
+	}
+
+	/**
+	 * Returns the bytes the frame would send
+	 *
+	 * @return byte[] The bytes to send
+	 */
+	private byte[] sentBytes() {
+		return (Arrays.copyOfRange(frame.getData(), frame.getOffset(), frame.getOffset() + frame.getLength()));
+	}
+
+	/**
+	 * Test that a frame with one command sends that command unchanged
+	 */
+	@Test
+	void testSingleCommandSentRaw() {
+		assertTrue(frame.add(doorCommand, doorCommand.length));
+
+		assertEquals(1, frame.getNumCommands());
+		assertArrayEquals(doorCommand, sentBytes());
+	}
+
+	/**
+	 * Test that a command is copied from its offset in the given array
+	 */
+	@Test
+	void testCommandAtOffset() {
+		byte[] buffer = new byte[doorCommand.length + 3];
+		System.arraycopy(doorCommand, 0, buffer, 3, doorCommand.length);
+
+		assertTrue(frame.add(buffer, 3, doorCommand.length));
+
+		assertArrayEquals(doorCommand, sentBytes());
+	}
+
+	/**
+	 * Test the layout of a frame holding several commands
+	 */
+	@Test
+	void testMultipleCommands() {
+		frame.add(doorCommand, doorCommand.length);
+		frame.add(directionCommand, directionCommand.length);
+
+		byte[] expected = { UtilityInformation.MULTI_COMMAND_MODE, 2, 4, UtilityInformation.ELEVATOR_DOOR_MODE, 1, 0,
+				UtilityInformation.END_OF_MESSAGE, 5, UtilityInformation.ELEVATOR_DIRECTION_MODE, 3, 0, 1,
+				UtilityInformation.END_OF_MESSAGE, UtilityInformation.END_OF_MESSAGE };
+
+		assertEquals(2, frame.getNumCommands());
+		assertArrayEquals(expected, sentBytes());
+	}
+
+	/**
+	 * Test that commands are refused once the frame is full, and that
+	 * clearing the frame makes room again
+	 */
+	@Test
+	void testFullFrame() {
+		byte[] bigCommand = new byte[UtilityInformation.MAX_BYTE_ARRAY_SIZE];
+
+		assertFalse(frame.add(bigCommand, bigCommand.length));
+
+		while (frame.add(directionCommand, directionCommand.length)) {
+		}
+
+		assertTrue(frame.getLength() <= UtilityInformation.MAX_BYTE_ARRAY_SIZE);
+		assertFalse(frame.add(directionCommand, directionCommand.length));
+
+		frame.clear();
+
+		assertEquals(0, frame.getNumCommands());
+		assertTrue(frame.add(doorCommand, doorCommand.length));
+	}
+}
@@ -0,0 +1,1418 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ *
+ * This class runs a whole simulation in a single thread, without sockets
+ * and without sleeping.
+ *
+ * Everything that happens is an event in one queue ordered by simulated
+ * time (events at the same time are handled in the order they were added).
+ * Requests from a trace, messages to the scheduler and the end of each
+ * physical action of an elevator are all events. Handling an event moves a
+ * manual clock to the time of the event, so the times measured by the
+ * scheduler are simulated times.
+ *
+ * The real Scheduler and SchedulerAlgorithm handle every message. Commands
+ * the scheduler sends are handled right away by a model of the elevator and
+ * floor subsystems that behaves like the real ones:
+ *     A direction command for a floor the elevator is not on is ignored
+ *     Moving one floor takes TIME_UP_ONE_FLOOR or TIME_DOWN_ONE_FLOOR
+ *     Stopping takes TIME_STOP_AT_FLOOR
+ *     Each is followed by a floor sensor message
+ *     A stuck door is fixed after a random number of attempts
+ *     A stuck elevator ignores every command until it is fixed
+ * Messages take no time to be delivered. Timers the scheduler starts are
+ * events at the time they expire.
+ *
+ * The simulated floor subsystem offers the latest version of the message
+ * format, so buildings too large for one byte floor and elevator numbers
+ * can be simulated.
+ *
+ */
+public class DiscreteEventSimulator {
+    // Fake ports that tell the scheduler's commands apart (nothing is bound)
+    private final static int ELEVATOR_PORT = 1;
+    private final static int FLOOR_PORT = 2;
+    private final static int SCHEDULER_PORT = 3;
+
+    // Types of event that are not messages to the scheduler
+    // (a message is an event whose type is its mode)
+    private final static int ACTION_DONE_EVENT = UtilityInformation.NUM_MODES;
+    private final static int TRACE_EVENT = UtilityInformation.NUM_MODES + 1;
+
+    // Physical actions of an elevator
+    private final static int MOVE_UP = 0;
+    private final static int MOVE_DOWN = 1;
+    private final static int STOP = 2;
+    private final static int FIX_DOOR = 3;
+
+    // Time between attempts to fix a stuck door, and the chance each works
+    private final static int DOOR_FIX_ATTEMPT_TIME = 1000;
+    private final static float DOOR_FIX_CHANCE = 0.4f;
+
+    // Time until an operator fixes a stuck elevator (in simulated ms)
+    public final static long DEFAULT_REPAIR_TIME = 30000;
+
+    private final static int INITIAL_CAPACITY = 64;
+
+    private final static UtilityInformation.ElevatorDirection[] DIRECTIONS = UtilityInformation.ElevatorDirection.values();
+    private final static UtilityInformation.ErrorType[] ERROR_TYPES = UtilityInformation.ErrorType.values();
+
+    private int numElevators;
+    private int numFloors;
+    private Random random;
+    private long repairTime;
+
+    // Dispatch policy chosen in the CONFIG message, null to use the scheduler's default
+    private UtilityInformation.DispatchPolicy dispatchPolicy;
+
+    private SimulationClock.ManualClock clock;
+    private long now;
+    private SimulatedScheduler scheduler;
+
+    // Message given to the scheduler, and codec used to read its commands
+    private MessageCodec sendCodec;
+    private DatagramPacket sendPacket;
+    private MessageCodec receiveCodec;
+
+    // Event queue: a binary heap of event ids, ordered by (time, seq),
+    // with the fields of each event kept in arrays indexed by id
+    private int[] heap;
+    private int heapSize;
+    private long[] eventTime;
+    private long[] eventSeq;
+    private int[] eventType;
+    private int[] eventArg1;
+    private int[] eventArg2;
+    private int[] eventArg3;
+    private int[] freeIds;
+    private int numFree;
+    private int numIds;
+    private long nextSeq;
+
+    // Requests and errors to make, in order of time
+    private long[] traceTime;
+    private int[] traceMode;
+    private int[] traceArg1;
+    private int[] traceArg2;
+    private int[] traceArg3;
+    private int traceSize;
+    private long traceStart;
+
+    // State of each elevator, and the actions waiting to be done by it
+    private int[] carFloor;
+    private boolean[] carBroken;
+    private boolean[] carBusy;
+    private int[] carAction;
+    private int[] carGeneration;
+    private int[][] carQueue;
+    private int[] carQueueHead;
+    private int[] carQueueSize;
+
+    private long numEvents;
+    private long numMessages;
+    private int numFinishedSignals;
+    private int numInvalidMoves;
+
+    /**
+     * DiscreteEventSimulator
+     *
+     * Constructor
+     *
+     * Creates a new simulation of a building with the given number of
+     * elevators and floors. The simulation is configured (as the floor
+     * subsystem would) before any request is made.
+     *
+     * @param numElevators Number of elevators in the building
+     * @param numFloors    Number of floors in the building
+     * @param seed Seed of every random choice made by the simulation
+     *
+     * @return None
+     */
+    public DiscreteEventSimulator(int numElevators, int numFloors, long seed) {
+        if ((numElevators < 1) || (numElevators > UtilityInformation.MAX_NUM_ELEVATORS) ||
+            (numFloors < 2) || (numFloors > UtilityInformation.MAX_NUM_FLOORS)) {
+            throw new IllegalArgumentException("Invalid building: " + numElevators +
+                                               " elevators, " + numFloors + " floors");
+        }
+
+        this.numElevators = numElevators;
+        this.numFloors = numFloors;
+        random = new Random(seed);
+        repairTime = DEFAULT_REPAIR_TIME;
+
+        heap = new int[INITIAL_CAPACITY];
+        eventTime = new long[INITIAL_CAPACITY];
+        eventSeq = new long[INITIAL_CAPACITY];
+        eventType = new int[INITIAL_CAPACITY];
+        eventArg1 = new int[INITIAL_CAPACITY];
+        eventArg2 = new int[INITIAL_CAPACITY];
+        eventArg3 = new int[INITIAL_CAPACITY];
+        freeIds = new int[INITIAL_CAPACITY];
+
+        traceTime = new long[INITIAL_CAPACITY];
+        traceMode = new int[INITIAL_CAPACITY];
+        traceArg1 = new int[INITIAL_CAPACITY];
+        traceArg2 = new int[INITIAL_CAPACITY];
+        traceArg3 = new int[INITIAL_CAPACITY];
+        traceStart = -1;
+
+        carFloor = new int[numElevators];
+        carBroken = new boolean[numElevators];
+        carBusy = new boolean[numElevators];
+        carAction = new int[numElevators];
+        carGeneration = new int[numElevators];
+        carQueue = new int[numElevators][8];
+        carQueueHead = new int[numElevators];
+        carQueueSize = new int[numElevators];
+
+        sendCodec = new MessageCodec();
+        sendPacket = new DatagramPacket(sendCodec.getBuffer(), 0);
+        receiveCodec = new MessageCodec();
+
+        // Version offered in the CONFIG message
+        sendCodec.setVersion(MessageCodec.LATEST_VERSION);
+
+        Properties properties = new Properties();
+        properties.setProperty("scheduler.port", Integer.toString(SCHEDULER_PORT));
+        properties.setProperty("elevator.port", Integer.toString(ELEVATOR_PORT));
+        properties.setProperty("floor.port", Integer.toString(FLOOR_PORT));
+        properties.setProperty("scheduler.host", "127.0.0.1");
+        properties.setProperty("elevator.host", "127.0.0.1");
+        properties.setProperty("floor.host", "127.0.0.1");
+
+        clock = SimulationClock.manual();
+        now = 0;
+
+        scheduler = new SimulatedScheduler(new SimulationConfig(properties), this);
+        scheduler.setClock(clock);
+
+        schedule(0, UtilityInformation.CONFIG_MODE, numElevators, numFloors, 0);
+    }
+
+    /**
+     * setRepairTime
+     *
+     * Changes how long after an elevator gets stuck an operator fixes it
+     *
+     * @param millis   Time to fix a stuck elevator (in simulated ms),
+     *                 negative if stuck elevators are never fixed
+     *
+     * @return None
+     */
+    public void setRepairTime(long millis) {
+        repairTime = millis;
+    }
+
+    /**
+     * setDispatchPolicy
+     *
+     * Chooses the dispatch policy the scheduler is configured with.
+     * Must be called before the simulation is run.
+     *
+     * @param policy   The policy, null to use the scheduler's default
+     *
+     * @return None
+     */
+    public void setDispatchPolicy(UtilityInformation.DispatchPolicy policy) {
+        dispatchPolicy = policy;
+    }
+
+    /**
+     * setAssignmentWindow
+     *
+     * Changes how long the scheduler collects requests for before giving
+     * them to elevators all at once
+     *
+     * @param millis   Length of the window (in simulated ms), 0 to give
+     *                 each request out as soon as it is made
+     *
+     * @return None
+     */
+    public void setAssignmentWindow(long millis) {
+        scheduler.setAssignmentWindow(millis);
+    }
+
+    /**
+     * setRebalanceInterval
+     *
+     * Changes how often the scheduler moves waiting requests to elevators
+     * that would pick them up sooner
+     *
+     * @param millis   Time between checks (in simulated ms), 0 to never
+     *                 move a request
+     *
+     * @return None
+     */
+    public void setRebalanceInterval(long millis) {
+        scheduler.setRebalanceInterval(millis);
+    }
+
+    /**
+     * addRequest
+     *
+     * Adds a request made at the given time. Requests and errors must be
+     * added in order of time.
+     *
+     * @param timeMillis   Time of the request, after the simulation is configured (in ms)
+     * @param sourceFloor  Floor the request is made at
+     * @param destFloor    Floor the passenger wants to go to
+     *
+     * @return None
+     */
+    public void addRequest(long timeMillis, int sourceFloor, int destFloor) {
+        UtilityInformation.ElevatorDirection dir = (destFloor > sourceFloor) ?
+                UtilityInformation.ElevatorDirection.UP : UtilityInformation.ElevatorDirection.DOWN;
+
+        addRequest(timeMillis, sourceFloor, destFloor, dir);
+    }
+
+    /**
+     * addRequest
+     *
+     * Adds a request made at the given time, for the given direction.
+     * Requests and errors must be added in order of time.
+     *
+     * @param timeMillis   Time of the request, after the simulation is configured (in ms)
+     * @param sourceFloor  Floor the request is made at
+     * @param destFloor    Floor the passenger wants to go to
+     * @param dir  Direction button pressed at the source floor
+     *
+     * @return None
+     */
+    public void addRequest(long timeMillis, int sourceFloor, int destFloor, UtilityInformation.ElevatorDirection dir) {
+        if ((sourceFloor < 0) || (sourceFloor >= numFloors) || (destFloor < 0) || (destFloor >= numFloors)) {
+            throw new IllegalArgumentException("Invalid request: " + sourceFloor + " to " + destFloor);
+        }
+
+        addTraceEntry(timeMillis, UtilityInformation.FLOOR_REQUEST_MODE, sourceFloor, dir.ordinal(), destFloor);
+    }
+
+    /**
+     * addError
+     *
+     * Adds an error that happens to the given elevator at the given time.
+     * Requests and errors must be added in order of time.
+     *
+     * @param timeMillis   Time of the error, after the simulation is configured (in ms)
+     * @param type The type of error
+     * @param elevatorNum  The elevator the error happens to
+     *
+     * @return None
+     */
+    public void addError(long timeMillis, UtilityInformation.ErrorType type, int elevatorNum) {
+        if ((elevatorNum < 0) || (elevatorNum >= numElevators)) {
+            throw new IllegalArgumentException("Invalid elevator: " + elevatorNum);
+        }
+
+        addTraceEntry(timeMillis, UtilityInformation.ERROR_MESSAGE_MODE, type.ordinal(), elevatorNum, 0);
+    }
+
+    /**
+     * loadTrace
+     *
+     * Adds every request and error in the given input file, in the format
+     * read by the FloorSubsystem. Times are relative to the first line, 
+     * lines are made in order of time, and each error happens to a
+     * random elevator. The file is added after any requests already added.
+     *
+     * @param pathToFile   Path to the input file
+     *
+     * @return int Number of lines read
+     *
+     * @throws IOException If the file could not be read
+     */
+    public int loadTrace(String pathToFile) throws IOException {
+        ArrayList<int[]> lines = new ArrayList<int[]>();
+
+        try (BufferedReader input = new BufferedReader(new FileReader(pathToFile))) {
+            String line;
+
+            while ((line = input.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(FloorSubsystem.parseInputFileLine(line.trim()));
+                }
+            }
+        }
+
+        if (lines.isEmpty()) {
+            return(0);
+        }
+
+        long offset = (traceSize > 0) ? traceTime[traceSize - 1] : 0;
+        int timeOfFirstRequest = lines.get(0)[0];
+
+        lines.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        for (int[] vals : lines) {
+            long time = offset + Math.max(vals[0] - timeOfFirstRequest, 0);
+
+            if (vals[2] == -1) {
+                addError(time, ERROR_TYPES[vals[1]], random.nextInt(numElevators));
+            } else {
+                addRequest(time, vals[1], vals[2], DIRECTIONS[vals[3]]);
+            }
+        }
+
+        return(lines.size());
+    }
+
+    /**
+     * addRandomRequests
+     *
+     * Adds the given number of requests between random floors. The time
+     * between requests is random, with the given mean.
+     *
+     * @param count    Number of requests to add
+     * @param meanInterval Mean time between requests (in ms)
+     *
+     * @return None
+     */
+    public void addRandomRequests(int count, double meanInterval) {
+        double time = (traceSize > 0) ? traceTime[traceSize - 1] : 0;
+
+        for (int i = 0; i < count; i++) {
+            int source = random.nextInt(numFloors);
+            int dest = random.nextInt(numFloors - 1);
+
+            if (dest >= source) {
+                dest++;
+            }
+
+            addRequest((long) time, source, dest);
+
+            time += -meanInterval * Math.log(1.0 - random.nextDouble());
+        }
+    }
+
+    /**
+     * getScheduler
+     *
+     * Returns the scheduler driven by this simulation
+     *
+     * @param  None
+     *
+     * @return Scheduler   The scheduler
+     */
+    public Scheduler getScheduler() {
+        return(scheduler);
+    }
+
+    /**
+     * run
+     *
+     * Handles events in order of time until there are none left
+     *
+     * @param  None
+     *
+     * @return Statistics  Statistics of the run
+     */
+    public Statistics run() {
+        long startTime = System.nanoTime();
+
+        while (heapSize > 0) {
+            int id = poll();
+            long time = eventTime[id];
+            int type = eventType[id];
+            int arg1 = eventArg1[id];
+            int arg2 = eventArg2[id];
+            int arg3 = eventArg3[id];
+
+            freeIds[numFree++] = id;
+
+            if (time > now) {
+                clock.advance(time - now);
+                now = time;
+            }
+
+            numEvents++;
+
+            if (type == ACTION_DONE_EVENT) {
+                actionDone(arg1, arg2);
+            } else if (type == TRACE_EVENT) {
+                traceEntryDue(arg1);
+            } else {
+                deliverToScheduler(type, arg1, arg2, arg3);
+            }
+        }
+
+        return(new Statistics(System.nanoTime() - startTime));
+    }
+
+    /**
+     * deliverToScheduler
+     *
+     * Encodes the given message and has the scheduler handle it
+     *
+     * @param mode The mode of the message
+     * @param arg1 First field of the message
+     * @param arg2 Second field of the message
+     * @param arg3 Third field of the message
+     *
+     * @return None
+     */
+    private void deliverToScheduler(int mode, int arg1, int arg2, int arg3) {
+        int length;
+
+        switch (mode) {
+        case UtilityInformation.CONFIG_MODE:
+            length = sendCodec.config.encode(arg1, arg2, dispatchPolicy);
+            break;
+        case UtilityInformation.FLOOR_SENSOR_MODE:
+            length = sendCodec.floorSensor.encode(arg1, arg2);
+            break;
+        case UtilityInformation.FLOOR_REQUEST_MODE:
+            length = sendCodec.floorRequest.encode(arg1, DIRECTIONS[arg2], arg3);
+            break;
+        case UtilityInformation.CONFIG_CONFIRM_MODE:
+            length = sendCodec.configConfirm.encode();
+            break;
+        case UtilityInformation.ERROR_MESSAGE_MODE:
+            length = sendCodec.error.encode(ERROR_TYPES[arg1], arg2);
+            break;
+        case UtilityInformation.FIX_ERROR_MODE:
+            length = sendCodec.fixError.encode(ERROR_TYPES[arg1], arg2);
+            break;
+        case UtilityInformation.FIX_DOOR_MODE:
+            length = sendCodec.fixDoor.encode(arg1);
+            break;
+        case UtilityInformation.TIMER_MODE:
+            length = sendCodec.timer.encode(arg1);
+            break;
+        default:
+            throw new IllegalStateException("Can not deliver message with mode " + mode);
+        }
+
+        numMessages++;
+
+        sendPacket.setData(sendCodec.getBuffer(), 0, length);
+        scheduler.handleMessage(sendPacket);
+    }
+
+    /**
+     * commandSent
+     *
+     * Handles a command sent by the scheduler, as the subsystem it was
+     * sent to would. Replies to the scheduler are added as events at the
+     * current time, since the scheduler is still handling its message.
+     *
+     * @param data Array containing the command
+     * @param offset   Index of the first byte of the command
+     * @param port Port the command was sent to
+     *
+     * @return None
+     */
+    private void commandSent(byte[] data, int offset, int port) {
+        byte mode = data[offset + UtilityInformation.MODE_BYTE_IND];
+
+        if (port == FLOOR_PORT) {
+            if (mode == UtilityInformation.ALL_REQUESTS_FINISHED_MODE) {
+                numFinishedSignals++;
+            } else if ((mode == UtilityInformation.CONFIG_CONFIRM_MODE) && (traceStart < 0)) {
+                startTrace();
+            }
+
+            return;
+        }
+
+        switch (mode) {
+        case UtilityInformation.CONFIG_MODE:
+            receiveCodec.config.wrap(data, offset);
+            int version = Math.min(receiveCodec.config.getVersion(), MessageCodec.LATEST_VERSION);
+
+            // Both simulated subsystems use the version the scheduler offered
+            sendCodec.setVersion(version);
+            receiveCodec.setVersion(version);
+            schedule(now, UtilityInformation.CONFIG_CONFIRM_MODE, 0, 0, 0);
+            break;
+        case UtilityInformation.ELEVATOR_DIRECTION_MODE:
+            MessageCodec.DirectionMessage direction = receiveCodec.direction;
+            direction.wrap(data, offset);
+            int car = direction.getElevatorNum();
+
+            if (carBroken[car] || (direction.getFloorNum() != carFloor[car])) {
+                break;
+            }
+
+            switch (direction.getDirection()) {
+            case UP:
+                addAction(car, MOVE_UP);
+                break;
+            case DOWN:
+                addAction(car, MOVE_DOWN);
+                break;
+            default:
+                addAction(car, STOP);
+                break;
+            }
+            break;
+        case UtilityInformation.ERROR_MESSAGE_MODE:
+            MessageCodec.ErrorMessage error = receiveCodec.error;
+            error.wrap(data, offset);
+
+            if (error.getErrorType() == UtilityInformation.ErrorType.DOOR_STUCK_ERROR) {
+                if (!carBroken[error.getElevatorNum()]) {
+                    addAction(error.getElevatorNum(), FIX_DOOR);
+                }
+            } else {
+                breakElevator(error.getElevatorNum());
+            }
+            break;
+        case UtilityInformation.FIX_ERROR_MODE:
+            receiveCodec.fixError.wrap(data, offset);
+            car = receiveCodec.fixError.getElevatorNum();
+
+            if (carBroken[car]) {
+                carBroken[car] = false;
+                schedule(now, UtilityInformation.FLOOR_SENSOR_MODE, carFloor[car], car, 0);
+            }
+            break;
+        default:
+            // Doors, destinations and lamps do not change what the elevator does
+            break;
+        }
+    }
+
+    /**
+     * startTrace
+     *
+     * Called once the simulation is configured. Requests are timed from now.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    private void startTrace() {
+        traceStart = now;
+
+        if (traceSize > 0) {
+            schedule(traceStart + traceTime[0], TRACE_EVENT, 0, 0, 0);
+        }
+    }
+
+    /**
+     * traceEntryDue
+     *
+     * Makes the given request or error, and adds the next one as an event
+     *
+     * @param index    Index of the entry in the trace
+     *
+     * @return None
+     */
+    private void traceEntryDue(int index) {
+        if (index + 1 < traceSize) {
+            schedule(traceStart + traceTime[index + 1], TRACE_EVENT, index + 1, 0, 0);
+        }
+
+        int mode = traceMode[index];
+
+        deliverToScheduler(mode, traceArg1[index], traceArg2[index], traceArg3[index]);
+
+        if ((mode == UtilityInformation.ERROR_MESSAGE_MODE) &&
+            (traceArg1[index] == UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR.ordinal()) &&
+            (repairTime >= 0)) {
+            // An operator fixes the elevator through the floor subsystem
+            schedule(now + repairTime, UtilityInformation.FIX_ERROR_MODE, traceArg1[index], traceArg2[index], 0);
+        }
+    }
+
+    /**
+     * breakElevator
+     *
+     * Stops the given elevator where it is. Actions waiting to be done and
+     * the action in progress are dropped.
+     *
+     * @param car  Number of the elevator
+     *
+     * @return None
+     */
+    private void breakElevator(int car) {
+        carBroken[car] = true;
+        carBusy[car] = false;
+        carQueueSize[car] = 0;
+        carGeneration[car]++;
+    }
+
+    /**
+     * addAction
+     *
+     * Adds an action to be done by the given elevator after the actions
+     * already waiting for it
+     *
+     * @param car  Number of the elevator
+     * @param action   The action to add
+     *
+     * @return None
+     */
+    private void addAction(int car, int action) {
+        int[] queue = carQueue[car];
+
+        if (carQueueSize[car] == queue.length) {
+            int[] bigger = new int[queue.length * 2];
+
+            for (int i = 0; i < carQueueSize[car]; i++) {
+                bigger[i] = queue[(carQueueHead[car] + i) % queue.length];
+            }
+
+            carQueue[car] = queue = bigger;
+            carQueueHead[car] = 0;
+        }
+
+        queue[(carQueueHead[car] + carQueueSize[car]) % queue.length] = action;
+        carQueueSize[car]++;
+
+        startNextAction(car);
+    }
+
+    /**
+     * startNextAction
+     *
+     * Starts the next action of the given elevator if it is not busy
+     *
+     * @param car  Number of the elevator
+     *
+     * @return None
+     */
+    private void startNextAction(int car) {
+        int action;
+
+        // The real elevator exits on a move past the top or bottom floor
+        // (which only happens when a command was queued twice), 
+        // so count and skip those moves instead
+        do {
+            if (carBusy[car] || (carQueueSize[car] == 0)) {
+                return;
+            }
+
+            action = carQueue[car][carQueueHead[car]];
+            carQueueHead[car] = (carQueueHead[car] + 1) % carQueue[car].length;
+            carQueueSize[car]--;
+
+            if (((action == MOVE_UP) && (carFloor[car] == numFloors - 1)) ||
+                ((action == MOVE_DOWN) && (carFloor[car] == 0))) {
+                numInvalidMoves++;
+                action = -1;
+            }
+        } while (action == -1);
+
+        long duration;
+
+        switch (action) {
+        case MOVE_UP:
+            duration = UtilityInformation.TIME_UP_ONE_FLOOR;
+            break;
+        case MOVE_DOWN:
+            duration = UtilityInformation.TIME_DOWN_ONE_FLOOR;
+            break;
+        case STOP:
+            duration = UtilityInformation.TIME_STOP_AT_FLOOR;
+            break;
+        default:
+            // Attempt to fix the door until it works, then open or close it
+            int attempts = 1;
+            while (random.nextFloat() > DOOR_FIX_CHANCE) {
+                attempts++;
+            }
+            duration = (long) attempts * DOOR_FIX_ATTEMPT_TIME + UtilityInformation.OPEN_DOOR_TIME;
+            break;
+        }
+
+        carBusy[car] = true;
+        carAction[car] = action;
+        schedule(now + duration, ACTION_DONE_EVENT, car, carGeneration[car], 0);
+    }
+
+    /**
+     * actionDone
+     *
+     * Finishes the action in progress of the given elevator and starts
+     * its next action
+     *
+     * @param car  Number of the elevator
+     * @param generation   Number of times the elevator had broken when the action started
+     *
+     * @return None
+     */
+    private void actionDone(int car, int generation) {
+        if (generation != carGeneration[car]) {
+            // The elevator broke while doing the action
+            return;
+        }
+
+        carBusy[car] = false;
+
+        if (carAction[car] == MOVE_UP) {
+            carFloor[car]++;
+        } else if (carAction[car] == MOVE_DOWN) {
+            carFloor[car]--;
+        } else if (carAction[car] == FIX_DOOR) {
+            schedule(now, UtilityInformation.FIX_DOOR_MODE, car, 0, 0);
+        }
+
+        schedule(now, UtilityInformation.FLOOR_SENSOR_MODE, carFloor[car], car, 0);
+
+        startNextAction(car);
+    }
+
+    /**
+     * addTraceEntry
+     *
+     * Adds a message to send to the scheduler at the given time
+     *
+     * @param timeMillis   Time to send the message at (in ms)
+     * @param mode The mode of the message
+     * @param arg1 First field of the message
+     * @param arg2 Second field of the message
+     * @param arg3 Third field of the message
+     *
+     * @return None
+     */
+    private void addTraceEntry(long timeMillis, int mode, int arg1, int arg2, int arg3) {
+        if ((timeMillis < 0) || ((traceSize > 0) && (timeMillis < traceTime[traceSize - 1]))) {
+            throw new IllegalArgumentException("Requests must be added in order of time: " + timeMillis);
+        }
+
+        if (traceSize == traceTime.length) {
+            int capacity = traceSize * 2;
+            traceTime = Arrays.copyOf(traceTime, capacity);
+            traceMode = Arrays.copyOf(traceMode, capacity);
+            traceArg1 = Arrays.copyOf(traceArg1, capacity);
+            traceArg2 = Arrays.copyOf(traceArg2, capacity);
+            traceArg3 = Arrays.copyOf(traceArg3, capacity);
+        }
+
+        traceTime[traceSize] = timeMillis;
+        traceMode[traceSize] = mode;
+        traceArg1[traceSize] = arg1;
+        traceArg2[traceSize] = arg2;
+        traceArg3[traceSize] = arg3;
+        traceSize++;
+    }
+
+    /**
+     * schedule
+     *
+     * Adds an event to the queue
+     *
+     * @param time Time of the event (in simulated ms)
+     * @param type The type of event
+     * @param arg1 First field of the event
+     * @param arg2 Second field of the event
+     * @param arg3 Third field of the event
+     *
+     * @return None
+     */
+    private void schedule(long time, int type, int arg1, int arg2, int arg3) {
+        int id;
+
+        if (numFree > 0) {
+            id = freeIds[--numFree];
+        } else {
+            if (numIds == eventTime.length) {
+                int capacity = numIds * 2;
+                heap = Arrays.copyOf(heap, capacity);
+                eventTime = Arrays.copyOf(eventTime, capacity);
+                eventSeq = Arrays.copyOf(eventSeq, capacity);
+                eventType = Arrays.copyOf(eventType, capacity);
+                eventArg1 = Arrays.copyOf(eventArg1, capacity);
+                eventArg2 = Arrays.copyOf(eventArg2, capacity);
+                eventArg3 = Arrays.copyOf(eventArg3, capacity);
+                freeIds = Arrays.copyOf(freeIds, capacity);
+            }
+
+            id = numIds++;
+        }
+
+        eventTime[id] = time;
+        eventSeq[id] = nextSeq++;
+        eventType[id] = type;
+        eventArg1[id] = arg1;
+        eventArg2[id] = arg2;
+        eventArg3[id] = arg3;
+
+        // Sift up
+        int ind = heapSize++;
+        while (ind > 0) {
+            int parent = (ind - 1) >>> 1;
+
+            if (!before(id, heap[parent])) {
+                break;
+            }
+
+            heap[ind] = heap[parent];
+            ind = parent;
+        }
+        heap[ind] = id;
+    }
+
+    /**
+     * poll
+     *
+     * Removes the earliest event from the queue
+     *
+     * @param  None
+     *
+     * @return int Id of the earliest event
+     */
+    private int poll() {
+        int first = heap[0];
+        int last = heap[--heapSize];
+
+        // Sift down
+        int ind = 0;
+        int half = heapSize >>> 1;
+        while (ind < half) {
+            int child = (ind << 1) + 1;
+
+            if ((child + 1 < heapSize) && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+
+            if (!before(heap[child], last)) {
+                break;
+            }
+
+            heap[ind] = heap[child];
+            ind = child;
+        }
+        heap[ind] = last;
+
+        return(first);
+    }
+
+    /**
+     * before
+     *
+     * Returns whether the first event is handled before the second.
+     * Events at the same time are handled in the order they were scheduled.
+     *
+     * @param a    Index of the first event
+     * @param b    Index of the second event
+     *
+     * @return boolean True if the first event comes first
+     */
+    private boolean before(int a, int b) {
+        if (eventTime[a] != eventTime[b]) {
+            return(eventTime[a] < eventTime[b]);
+        }
+
+        return(eventSeq[a] < eventSeq[b]);
+    }
+
+    /**
+     *
+     * Statistics of one run of the simulation
+     *
+     */
+    public class Statistics {
+        private long wallTime;
+        private int numRequests;
+        private int numCompleted;
+        private double averageWaitTime;
+        private double averageTravelTime;
+        private int maxOutstanding;
+        private UtilityInformation.DispatchPolicy policy;
+        private long assignmentWindow;
+        private double averageAssignmentDelay;
+        private double maxAssignmentDelay;
+        private long rebalanceInterval;
+        private int numRebalanced;
+        private int numRequestsRebalanced;
+        private double waitTimePercentile95;
+
+        /**
+         * Statistics
+         *
+         * Constructor
+         *
+         * Gathers the statistics of the run that just finished
+         *
+         * @param wallTime Wall-clock time the run took (in nanoseconds)
+         *
+         * @return None
+         */
+        private Statistics(long wallTime) {
+            this.wallTime = wallTime;
+
+            SchedulerAlgorithm algor = scheduler.getAlgorithm();
+            maxOutstanding = algor.getMaxOutstandingRequests();
+            policy = algor.getDispatchStrategy().getPolicy();
+            assignmentWindow = scheduler.getAssignmentWindow();
+            averageAssignmentDelay = algor.getAverageAssignmentDelay();
+            maxAssignmentDelay = algor.getMaxAssignmentDelay();
+            rebalanceInterval = scheduler.getRebalanceInterval();
+            numRebalanced = algor.getNumRebalancedRequests();
+            numRequestsRebalanced = algor.getNumDistinctRebalancedRequests();
+            long totalWait = 0;
+            long totalTravel = 0;
+            ArrayList<Long> waits = new ArrayList<Long>();
+
+            for (int i = 0; i < numElevators; i++) {
+                for (Request req : algor.getRequests(i)) {
+                    numRequests++;
+
+                    if ((req.getElevatorPickupTime() != -1) && (req.getElevatorArrivedDestinationTime() != -1)) {
+                        numCompleted++;
+                        totalWait += req.getElevatorPickupTime() - req.getElevatorRequestTime();
+                        waits.add(req.getElevatorPickupTime() - req.getElevatorRequestTime());
+                        totalTravel += req.getElevatorArrivedDestinationTime() - req.getElevatorPickupTime();
+                    }
+                }
+            }
+
+            if (numCompleted > 0) {
+                averageWaitTime = totalWait / 1e6 / numCompleted;
+                averageTravelTime = totalTravel / 1e6 / numCompleted;
+
+                // Nearest rank: 95% of the requests waited this long or less
+                Collections.sort(waits);
+                waitTimePercentile95 = waits.get((numCompleted * 95 + 99) / 100 - 1) / 1e6;
+            }
+        }
+
+        /**
+         * getNumEvents
+         *
+         * Returns the number of events the simulation handled
+         *
+         * @param  None
+         *
+         * @return long    Number of events
+         */
+        public long getNumEvents() {
+            return(numEvents);
+        }
+
+        /**
+         * getNumMessages
+         *
+         * Returns the number of messages given to the scheduler
+         *
+         * @param  None
+         *
+         * @return long    Number of messages
+         */
+        public long getNumMessages() {
+            return(numMessages);
+        }
+
+        /**
+         * getSimulatedTime
+         *
+         * Returns the simulated time when the last event was handled
+         *
+         * @param  None
+         *
+         * @return long    Simulated time (in simulated ms)
+         */
+        public long getSimulatedTime() {
+            return(now);
+        }
+
+        /**
+         * getWallTime
+         *
+         * Returns the real time the simulation took to run
+         *
+         * @param  None
+         *
+         * @return long    Real time taken (in nanoseconds)
+         */
+        public long getWallTime() {
+            return(wallTime);
+        }
+
+        /**
+         * getEventsPerSecond
+         *
+         * Returns the number of events handled per second of real time
+         *
+         * @param  None
+         *
+         * @return double  Events handled per second
+         */
+        public double getEventsPerSecond() {
+            return(numEvents / (wallTime / 1e9));
+        }
+
+        /**
+         * getNumRequests
+         *
+         * Returns the number of requests the scheduler gave to elevators
+         *
+         * @param  None
+         *
+         * @return int Number of requests given to elevators
+         */
+        public int getNumRequests() {
+            return(numRequests);
+        }
+
+        /**
+         * getNumCompleted
+         *
+         * Returns the number of requests that were picked up and dropped off
+         *
+         * @param  None
+         *
+         * @return int Number of completed requests
+         */
+        public int getNumCompleted() {
+            return(numCompleted);
+        }
+
+        /**
+         * getNumFinishedSignals
+         *
+         * Returns the number of ALL_REQUESTS_FINISHED_MODE messages the
+         * scheduler sent to the floors
+         *
+         * @param  None
+         *
+         * @return int Number of finished signals
+         */
+        public int getNumFinishedSignals() {
+            return(numFinishedSignals);
+        }
+
+        /**
+         * getNumInvalidMoves
+         *
+         * Returns the number of moves past the top or bottom of the shaft
+         * that were skipped
+         *
+         * @param  None
+         *
+         * @return int Number of skipped moves
+         */
+        public int getNumInvalidMoves() {
+            return(numInvalidMoves);
+        }
+
+        /**
+         * getMaxOutstandingRequests
+         *
+         * Returns the most requests that were waiting or riding at once
+         *
+         * @param  None
+         *
+         * @return int Highest number of outstanding requests
+         */
+        public int getMaxOutstandingRequests() {
+            return(maxOutstanding);
+        }
+
+        /**
+         * getDispatchPolicy
+         *
+         * Returns the dispatch policy the scheduler was using. It is not used
+         * while there is an assignment window.
+         *
+         * @param  None
+         *
+         * @return DispatchPolicy  The dispatch policy
+         */
+        public UtilityInformation.DispatchPolicy getDispatchPolicy() {
+            return(policy);
+        }
+
+        /**
+         * getAssignmentWindow
+         *
+         * Returns how long the scheduler collected requests for before giving
+         * them to elevators all at once
+         *
+         * @param  None
+         *
+         * @return long    Length of the window (in simulated ms), 0 if there was none
+         */
+        public long getAssignmentWindow() {
+            return(assignmentWindow);
+        }
+
+        /**
+         * getAverageAssignmentDelay
+         *
+         * Returns the mean time requests were held by the scheduler before
+         * being given to an elevator. This is part of the wait time.
+         *
+         * @param  None
+         *
+         * @return double  Mean time held (in simulated ms), 0 without an assignment window
+         */
+        public double getAverageAssignmentDelay() {
+            return(averageAssignmentDelay);
+        }
+
+        /**
+         * getMaxAssignmentDelay
+         *
+         * Returns the longest time a request was held by the scheduler before
+         * being given to an elevator
+         *
+         * @param  None
+         *
+         * @return double  Longest time held (in simulated ms), 0 without an assignment window
+         */
+        public double getMaxAssignmentDelay() {
+            return(maxAssignmentDelay);
+        }
+
+        /**
+         * getRebalanceInterval
+         *
+         * Returns how often the scheduler checked for waiting requests that
+         * another elevator would pick up sooner
+         *
+         * @param  None
+         *
+         * @return long    Time between checks (in simulated ms), 0 if requests were never moved
+         */
+        public long getRebalanceInterval() {
+            return(rebalanceInterval);
+        }
+
+        /**
+         * getNumRebalancedRequests
+         *
+         * Returns the number of times a waiting request was moved to an
+         * elevator that would pick it up sooner
+         *
+         * @param  None
+         *
+         * @return int Number of moves
+         */
+        public int getNumRebalancedRequests() {
+            return(numRebalanced);
+        }
+
+        /**
+         * getNumDistinctRebalancedRequests
+         *
+         * Returns the number of different waiting requests that were moved
+         * to another elevator at least once
+         *
+         * @param  None
+         *
+         * @return int Number of requests moved
+         */
+        public int getNumDistinctRebalancedRequests() {
+            return(numRequestsRebalanced);
+        }
+
+        /**
+         * getAverageWaitTime
+         *
+         * Returns the mean time from a request being made until it is picked up
+         *
+         * @param  None
+         *
+         * @return double  Mean wait time of completed requests (in simulated ms)
+         */
+        public double getAverageWaitTime() {
+            return(averageWaitTime);
+        }
+
+        /**
+         * getWaitTimePercentile95
+         *
+         * Returns the time that 95% of requests waited at most from being
+         * made until being picked up
+         *
+         * @param  None
+         *
+         * @return double  95th percentile wait time of completed requests (in simulated ms)
+         */
+        public double getWaitTimePercentile95() {
+            return(waitTimePercentile95);
+        }
+
+        /**
+         * getAverageTravelTime
+         *
+         * Returns the mean time from a request being picked up until it
+         * reaches its destination
+         *
+         * @param  None
+         *
+         * @return double  Mean travel time of completed requests (in simulated ms)
+         */
+        public double getAverageTravelTime() {
+            return(averageTravelTime);
+        }
+
+        /**
+         * toString
+         *
+         * Returns a summary of the run, one statistic per line
+         *
+         * @param  None
+         *
+         * @return String  The summary
+         */
+        @Override
+        public String toString() {
+            return(String.format("%d events (%d messages) in %.3f s, %.0f events/s%n" +
+                                 "Simulated time: %d ms%n" +
+                                 "Requests completed: %d of %d (%d moves past the end of the shaft skipped)%n" +
+                                 "Dispatch policy: %s%n" +
+                                 "Assignment window: %d ms (requests held %.1f ms on average, %.1f ms at most)%n" +
+                                 "Rebalance interval: %d ms (%d requests moved, %d moves)%n" +
+                                 "Peak outstanding requests: %d%n" +
+                                 "Average wait: %.1f ms (95th percentile %.1f ms), average travel: %.1f ms",
+                                 numEvents, numMessages, wallTime / 1e9, getEventsPerSecond(),
+                                 now, numCompleted, numRequests, numInvalidMoves,
+                                 (assignmentWindow > 0) ? policy + " (not used with an assignment window)" : policy,
+                                 assignmentWindow, averageAssignmentDelay, maxAssignmentDelay,
+                                 rebalanceInterval, numRequestsRebalanced, numRebalanced, maxOutstanding,
+                                 averageWaitTime, waitTimePercentile95, averageTravelTime));
+        }
+    }
+
+    /**
+     *
+     * Scheduler that hands every command it sends back to the simulation
+     * instead of sending it over a socket, and whose timers expire in
+     * simulated time
+     *
+     */
+    private static class SimulatedScheduler extends Scheduler {
+        private DiscreteEventSimulator simulator;
+
+        /**
+         * SimulatedScheduler
+         *
+         * Constructor
+         *
+         * Creates a scheduler without a transport that sends its commands
+         * to the given simulation
+         *
+         * @param config   Configuration of the simulation
+         * @param simulator    The simulation driving the scheduler
+         *
+         * @return None
+         */
+        public SimulatedScheduler(SimulationConfig config, DiscreteEventSimulator simulator) {
+            super(config, UtilityInformation.ReceiverType.NONE);
+
+            this.simulator = simulator;
+        }
+
+        /**
+         * transmit
+         *
+         * Hands the command to the simulation instead of sending it
+         *
+         * @param responseData Array containing the command
+         * @param offset   Index of the first byte of the command
+         * @param packetLength Length of the command
+         * @param destAddress  Not used
+         * @param destPortNum  Port of the subsystem the command is for
+         *
+         * @return None
+         */
+        @Override
+        protected void transmit(byte[] responseData, int offset, int packetLength,
+                                InetAddress destAddress, int destPortNum) {
+            simulator.commandSent(responseData, offset, destPortNum);
+        }
+
+        /**
+         * startTimer
+         *
+         * Schedules the timer to expire after the given simulated delay
+         *
+         * @param timer    The timer to start
+         * @param delayMillis  Simulated time until the timer expires (in milliseconds)
+         *
+         * @return None
+         */
+        @Override
+        protected void startTimer(int timer, long delayMillis) {
+            simulator.schedule(simulator.now + delayMillis, UtilityInformation.TIMER_MODE, timer, 0, 0);
+        }
+    }
+
+    /**
+     * main
+     *
+     * Main method
+     *
+     * Runs every input file given, or a random trace.
+     *
+     * Arguments:
+     *     --elevators=N   Number of elevators (default 4)
+     *     --floors=N      Number of floors (default 22)
+     *     --seed=N        Seed of random choices (default 0)
+     *     --synthetic=N   Add N random requests
+     *     --interval=N    Mean time between random requests (in ms, default 5000)
+     *     --dispatch=P    Dispatch policy to configure (default is the scheduler's,
+     *                     not used with --window)
+     *     --window=N      Time requests are collected for before being given
+     *                     to elevators all at once (in ms, default 0)
+     *     --rebalance=N   Time between checks for waiting requests that another
+     *                     elevator would pick up sooner (in ms, default 0)
+     *     Anything else is the path to an input file
+     *
+     * @param args Command line arguments
+     *
+     * @return None
+     */
+    public static void main(String[] args) throws IOException {
+        int numElevators = UtilityInformation.DEFAULT_NUM_ELEVATORS;
+        int numFloors = UtilityInformation.DEFAULT_NUM_FLOORS;
+        long seed = 0;
+        int numSynthetic = 0;
+        double interval = 5000;
+        UtilityInformation.DispatchPolicy policy = null;
+        long window = 0;
+        long rebalance = 0;
+        ArrayList<String> files = new ArrayList<String>();
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            if (arg.startsWith("--elevators=")) {
+                numElevators = Integer.parseInt(value);
+            } else if (arg.startsWith("--floors=")) {
+                numFloors = Integer.parseInt(value);
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else if (arg.startsWith("--synthetic=")) {
+                numSynthetic = Integer.parseInt(value);
+            } else if (arg.startsWith("--interval=")) {
+                interval = Double.parseDouble(value);
+            } else if (arg.startsWith("--dispatch=")) {
+                policy = UtilityInformation.DispatchPolicy.valueOf(value.trim().toUpperCase());
+            } else if (arg.startsWith("--window=")) {
+                window = Long.parseLong(value);
+            } else if (arg.startsWith("--rebalance=")) {
+                rebalance = Long.parseLong(value);
+            } else {
+                files.add(arg);
+            }
+        }
+
+        DiscreteEventSimulator simulator = new DiscreteEventSimulator(numElevators, numFloors, seed);
+        simulator.setDispatchPolicy(policy);
+        simulator.setAssignmentWindow(window);
+        simulator.setRebalanceInterval(rebalance);
+
+        for (String file : files) {
+            simulator.loadTrace(file);
+        }
+
+        simulator.addRandomRequests(numSynthetic, interval);
+
+        System.out.println(simulator.run());
+    }
+}
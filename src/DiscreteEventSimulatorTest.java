@@ -0,0 +1,93 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DiscreteEventSimulatorTest {
+
+	/**
+	 * Test that every request is completed, and that runs with the same seed
+	 * give the same results
+	 */
+	@Test
+	void testRandomRequestsCompleted() {
+		DiscreteEventSimulator first = new DiscreteEventSimulator(4, 22, 7);
+		first.addRandomRequests(200, 2000);
+		DiscreteEventSimulator.Statistics stats = first.run();
+
+		assertEquals(200, stats.getNumRequests());
+		assertEquals(200, stats.getNumCompleted());
+
+		DiscreteEventSimulator second = new DiscreteEventSimulator(4, 22, 7);
+		second.addRandomRequests(200, 2000);
+		DiscreteEventSimulator.Statistics again = second.run();
+
+		assertEquals(stats.getNumEvents(), again.getNumEvents());
+		assertEquals(stats.getSimulatedTime(), again.getSimulatedTime());
+		assertEquals(stats.getAverageWaitTime(), again.getAverageWaitTime());
+	}
+
+	/**
+	 * Test that requests given to a stuck elevator are still completed
+	 */
+	@Test
+	void testElevatorStuck() {
+		DiscreteEventSimulator simulator = new DiscreteEventSimulator(2, 10, 0);
+		simulator.addRequest(0, 0, 9);
+		simulator.addRequest(1000, 5, 1);
+		simulator.addError(7000, UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR, 0);
+		simulator.addRequest(8000, 3, 8);
+
+		DiscreteEventSimulator.Statistics stats = simulator.run();
+
+		assertEquals(stats.getNumRequests(), stats.getNumCompleted());
+	}
+
+	/**
+	 * Test that requests held for the assignment window are all completed,
+	 * and are held no longer than the window
+	 */
+	@Test
+	void testAssignmentWindow() {
+		DiscreteEventSimulator simulator = new DiscreteEventSimulator(3, 10, 0);
+		simulator.setAssignmentWindow(100);
+
+		for (int i = 0; i < 10; i++) {
+			simulator.addRequest(i * 5, i % 10, (i + 4) % 10);
+		}
+		simulator.addError(60, UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR, 1);
+		simulator.addRandomRequests(50, 1000);
+
+		DiscreteEventSimulator.Statistics stats = simulator.run();
+
+		assertEquals(60, stats.getNumRequests());
+		assertEquals(60, stats.getNumCompleted());
+		assertEquals(100, stats.getAssignmentWindow());
+		assertTrue(stats.getAverageAssignmentDelay() > 0);
+		assertTrue(stats.getMaxAssignmentDelay() <= 100);
+	}
+
+	/**
+	 * Test that every request is completed while waiting requests are moved
+	 * between elevators, including away from an elevator with a stuck door
+	 */
+	@Test
+	void testRebalancing() {
+		DiscreteEventSimulator simulator = new DiscreteEventSimulator(3, 10, 0);
+		simulator.setRebalanceInterval(1000);
+
+		for (int i = 0; i < 10; i++) {
+			simulator.addRequest(i * 5, 0, 9 - (i % 3));
+		}
+		simulator.addError(60, UtilityInformation.ErrorType.DOOR_STUCK_ERROR, 0);
+		simulator.addRandomRequests(50, 1000);
+
+		DiscreteEventSimulator.Statistics stats = simulator.run();
+
+		assertEquals(60, stats.getNumRequests());
+		assertEquals(60, stats.getNumCompleted());
+		assertEquals(1000, stats.getRebalanceInterval());
+		assertTrue(stats.getNumRebalancedRequests() > 0);
+		assertTrue(stats.getWaitTimePercentile95() >= stats.getAverageWaitTime());
+	}
+}
@@ -0,0 +1,366 @@
+/**
+ *
+ * This class decides which elevator is given each new request.
+ *
+ * The SchedulerAlgorithm asks its strategy to choose an elevator every time
+ * a request is made, and then gives the request to that elevator. A
+ * strategy only reads the state of the elevators through the algorithm, so
+ * it can be changed between requests. Which strategy is used is chosen
+ * with dispatch.policy in the SimulationConfig of the Scheduler, or by the
+ * CONFIG_MODE message. While the Scheduler has an assignment window, requests
+ * are given out together by the SchedulerAlgorithm and no strategy is used.
+ *
+ * Policies:
+ *     GREEDY          The elevator that would pick the request up soonest,
+ *                     unless another has fewer requests
+ *     NEAREST_CAR     The closest elevator, preferring elevators moving
+ *                     towards the request in its direction
+ *     COLLECTIVE_LOOK The soonest of the elevators that can collect the
+ *                     request on their current sweep (idle, or moving
+ *                     towards it in the direction of the request), or
+ *                     the soonest elevator if none can
+ *     ESTIMATED_TIME  The elevator that would drop the request off soonest
+ *
+ */
+public abstract class DispatchStrategy {
+
+    /**
+     * chooseElevator
+     *
+     * Chooses the elevator that should be given the request
+     *
+     * @param algor    The algorithm holding the state of the elevators
+     * @param request  The new request
+     *
+     * @return int The number of the chosen elevator, -1 if no elevator is usable
+     */
+    public abstract int chooseElevator(SchedulerAlgorithm algor, Request request);
+
+    /**
+     * getPolicy
+     *
+     * Returns the policy this strategy follows
+     *
+     * @param  None
+     *
+     * @return DispatchPolicy  The policy
+     */
+    public abstract UtilityInformation.DispatchPolicy getPolicy();
+
+    /**
+     * create
+     *
+     * Creates a strategy that follows the given policy
+     *
+     * @param policy   The policy to follow
+     *
+     * @return DispatchStrategy    The new strategy
+     */
+    public static DispatchStrategy create(UtilityInformation.DispatchPolicy policy) {
+        switch (policy) {
+        case NEAREST_CAR:
+            return(new NearestCarStrategy());
+        case COLLECTIVE_LOOK:
+            return(new CollectiveLookStrategy());
+        case ESTIMATED_TIME:
+            return(new EstimatedTimeStrategy());
+        default:
+            return(new GreedyStrategy());
+        }
+    }
+
+    /**
+     * getSweepDirection
+     *
+     * Returns the direction the given elevator is working in. An elevator
+     * that has stopped at a floor on its way keeps the direction it was
+     * moving in, and an elevator with no requests is STATIONARY.
+     *
+     * @param algor    The algorithm holding the state of the elevators
+     * @param elevatorNum  The number of the elevator
+     *
+     * @return ElevatorDirection   The direction of the elevator
+     */
+    protected static UtilityInformation.ElevatorDirection getSweepDirection(SchedulerAlgorithm algor, int elevatorNum) {
+        UtilityInformation.ElevatorDirection dir = algor.getDirection(elevatorNum);
+
+        if (!algor.somewhereToGo(elevatorNum)) {
+            return(UtilityInformation.ElevatorDirection.STATIONARY);
+        } else if (dir == UtilityInformation.ElevatorDirection.STATIONARY) {
+            return(algor.getPreviousDirection(elevatorNum));
+        }
+
+        return(dir);
+    }
+
+    /**
+     * isAhead
+     *
+     * Returns whether the given floor is ahead of the given elevator in
+     * the direction it is working in. A moving elevator has already left
+     * its current floor.
+     *
+     * @param algor    The algorithm holding the state of the elevators
+     * @param elevatorNum  The number of the elevator
+     * @param dir  The direction the elevator is working in
+     * @param floorNum The floor to check
+     *
+     * @return boolean True if the elevator reaches the floor before turning around
+     */
+    protected static boolean isAhead(SchedulerAlgorithm algor, int elevatorNum,
+                                     UtilityInformation.ElevatorDirection dir, int floorNum) {
+        int currFloor = algor.getCurrentFloor(elevatorNum);
+        boolean moving = (algor.getDirection(elevatorNum) != UtilityInformation.ElevatorDirection.STATIONARY);
+
+        if ((floorNum == currFloor) && !moving) {
+            return(true);
+        }
+
+        return(((dir == UtilityInformation.ElevatorDirection.UP) && (floorNum > currFloor)) ||
+               ((dir == UtilityInformation.ElevatorDirection.DOWN) && (floorNum < currFloor)));
+    }
+
+    /**
+     *
+     * Strategy that gives each request to the usable elevator with the
+     * lowest cost, or the lowest numbered one if several are equal
+     *
+     */
+    private static abstract class CostStrategy extends DispatchStrategy {
+        /**
+         * chooseElevator
+         *
+         * Returns the usable elevator with the lowest cost
+         *
+         * @param algor    The algorithm holding the state of the elevators
+         * @param request  The new request
+         *
+         * @return int The number of the chosen elevator, -1 if no elevator is usable
+         */
+        public int chooseElevator(SchedulerAlgorithm algor, Request request) {
+            int chosenElevator = -1;
+            long lowestCost = Long.MAX_VALUE;
+
+            for (int i = 0; i < algor.getNumberOfElevators(); i++) {
+                if (algor.isUsable(i)) {
+                    long cost = getCost(algor, i, request);
+
+                    if ((chosenElevator == -1) || (cost < lowestCost)) {
+                        chosenElevator = i;
+                        lowestCost = cost;
+                    }
+                }
+            }
+
+            return(chosenElevator);
+        }
+
+        /**
+         * getCost
+         *
+         * Returns the cost of giving the request to the given elevator
+         *
+         * @param algor    The algorithm holding the state of the elevators
+         * @param elevatorNum  The number of the elevator
+         * @param request  The new request
+         *
+         * @return long    The cost, lower is better
+         */
+        protected abstract long getCost(SchedulerAlgorithm algor, int elevatorNum, Request request);
+    }
+
+    /**
+     *
+     * Gives the request to the elevator that would pick it up soonest,
+     * unless another elevator has fewer requests
+     *
+     */
+    private static class GreedyStrategy extends DispatchStrategy {
+        /**
+         * chooseElevator
+         *
+         * Returns the usable elevator that would pick the request up
+         * soonest without having more requests than another
+         *
+         * @param algor    The algorithm holding the state of the elevators
+         * @param request  The new request
+         *
+         * @return int The number of the chosen elevator, -1 if no elevator is usable
+         */
+        public int chooseElevator(SchedulerAlgorithm algor, Request request) {
+            int chosenElevator = -1;
+            long shortestTime = -1;
+            int smallestQueue = -1;
+
+            for (int i = 0; i < algor.getNumberOfElevators(); i++) {
+                if (algor.isUsable(i)) {
+                    long time = algor.getEstimatedPickupTime(i, request.getSourceFloor());
+                    int queue = algor.getOutstandingRequests(i);
+
+                    if (((shortestTime == -1) ||
+                        ((time < shortestTime) && (queue <= smallestQueue)) ||
+                         (queue < smallestQueue))) {
+                        chosenElevator = i;
+                        shortestTime = time;
+                        smallestQueue = queue;
+                    }
+                }
+            }
+
+            return(chosenElevator);
+        }
+
+        /**
+         * getPolicy
+         *
+         * Returns GREEDY
+         *
+         * @param  None
+         *
+         * @return DispatchPolicy  The policy this strategy carries out
+         */
+        public UtilityInformation.DispatchPolicy getPolicy() {
+            return(UtilityInformation.DispatchPolicy.GREEDY);
+        }
+    }
+
+    /**
+     *
+     * Gives the request to the closest elevator. An elevator moving towards
+     * the request in its direction is closer by one floor, and an elevator
+     * moving away from the request is only chosen if every elevator is.
+     *
+     */
+    private static class NearestCarStrategy extends CostStrategy {
+        // Added to the cost of elevators moving away from the request
+        private final static long MOVING_AWAY_COST = 1L << 32;
+
+        /**
+         * getCost
+         *
+         * Returns the distance from the elevator to the request, adjusted
+         * for the direction the elevator is moving in
+         *
+         * @param algor    The algorithm holding the state of the elevators
+         * @param elevatorNum  The number of the elevator
+         * @param request  The new request
+         *
+         * @return long    The cost, lower is better
+         */
+        protected long getCost(SchedulerAlgorithm algor, int elevatorNum, Request request) {
+            int sourceFloor = request.getSourceFloor();
+            long distance = Math.abs(sourceFloor - algor.getCurrentFloor(elevatorNum));
+            UtilityInformation.ElevatorDirection dir = getSweepDirection(algor, elevatorNum);
+
+            if (dir == UtilityInformation.ElevatorDirection.STATIONARY) {
+                return(distance + 1);
+            } else if (!isAhead(algor, elevatorNum, dir, sourceFloor)) {
+                return(MOVING_AWAY_COST + distance);
+            } else if (dir == request.getRequestDirection()) {
+                return(distance);
+            }
+
+            return(distance + 1);
+        }
+
+        /**
+         * getPolicy
+         *
+         * Returns NEAREST_CAR
+         *
+         * @param  None
+         *
+         * @return DispatchPolicy  The policy this strategy carries out
+         */
+        public UtilityInformation.DispatchPolicy getPolicy() {
+            return(UtilityInformation.DispatchPolicy.NEAREST_CAR);
+        }
+    }
+
+    /**
+     *
+     * Gives the request to the elevator that would pick it up soonest of
+     * the elevators that can collect it on their current sweep: idle
+     * elevators, and elevators moving towards the request in the direction
+     * it is going. If no elevator can, the request waits for the elevator
+     * that would pick it up soonest after turning around.
+     *
+     */
+    private static class CollectiveLookStrategy extends CostStrategy {
+        // Added to the cost of elevators that can not collect the request on this sweep
+        private final static long NEXT_SWEEP_COST = Long.MAX_VALUE / 2;
+
+        /**
+         * getCost
+         *
+         * Returns the estimated pickup time of the request, plus
+         * NEXT_SWEEP_COST if the elevator can not collect it on this sweep
+         *
+         * @param algor    The algorithm holding the state of the elevators
+         * @param elevatorNum  The number of the elevator
+         * @param request  The new request
+         *
+         * @return long    The cost, lower is better
+         */
+        protected long getCost(SchedulerAlgorithm algor, int elevatorNum, Request request) {
+            int sourceFloor = request.getSourceFloor();
+            long time = algor.getEstimatedPickupTime(elevatorNum, sourceFloor);
+            UtilityInformation.ElevatorDirection dir = getSweepDirection(algor, elevatorNum);
+
+            if ((dir == UtilityInformation.ElevatorDirection.STATIONARY) ||
+                ((dir == request.getRequestDirection()) && isAhead(algor, elevatorNum, dir, sourceFloor))) {
+                return(time);
+            }
+
+            return(NEXT_SWEEP_COST + time);
+        }
+
+        /**
+         * getPolicy
+         *
+         * Returns COLLECTIVE_LOOK
+         *
+         * @param  None
+         *
+         * @return DispatchPolicy  The policy this strategy carries out
+         */
+        public UtilityInformation.DispatchPolicy getPolicy() {
+            return(UtilityInformation.DispatchPolicy.COLLECTIVE_LOOK);
+        }
+    }
+
+    /**
+     *
+     * Gives the request to the elevator that would drop it off soonest
+     *
+     */
+    private static class EstimatedTimeStrategy extends CostStrategy {
+        /**
+         * getCost
+         *
+         * Returns the estimated time until the request is dropped off
+         *
+         * @param algor    The algorithm holding the state of the elevators
+         * @param elevatorNum  The number of the elevator
+         * @param request  The new request
+         *
+         * @return long    The cost, lower is better
+         */
+        protected long getCost(SchedulerAlgorithm algor, int elevatorNum, Request request) {
+            return(algor.getEstimatedDropOffTime(elevatorNum, request.getSourceFloor(), request.getDestinationFloor()));
+        }
+
+        /**
+         * getPolicy
+         *
+         * Returns ESTIMATED_TIME
+         *
+         * @param  None
+         *
+         * @return DispatchPolicy  The policy this strategy carries out
+         */
+        public UtilityInformation.DispatchPolicy getPolicy() {
+            return(UtilityInformation.DispatchPolicy.ESTIMATED_TIME);
+        }
+    }
+}
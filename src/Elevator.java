@@ -32,6 +32,9 @@ public class Elevator implements Runnable {
 	// The lamps indicate the floor(s) which will be visited by the elevator
 	private UtilityInformation.LampState[] allButtons;
 	
+	// The last destination whose lamp was turned on, turned off when the elevator stops
+	private int destinationFloor = 0;
+	
 	private Elevator_Subsystem controller;
 	
 	/*
@@ -68,70 +71,82 @@ public class Elevator implements Runnable {
 	public int getElevatorNumber() {return this.elevatorNumber;}
 	public int getCurrentFloor() {return this.currentFloor;}
 	public UtilityInformation.DoorState getDoorState() {return this.door;}
+	public int getDestinationFloor() {return this.destinationFloor;}
+	public UtilityInformation.LampState getDestButton(int floorNum) {return this.allButtons[floorNum];}
 	
 	/*
 	 * Method to print out each elevators data.
 	 */
 	public void display() {
 		// Simply display 
-		System.out.println("Elevator Number: " + this.getElevatorNumber());
-		System.out.println("Floor Number: " + this.getCurrentFloor() + "\n");
-		for(int i=0; i<allButtons.length; i++) {
-			System.out.println("Floor Number " + i + ": " +allButtons[i]);
-		}
-		System.out.println("\n");
+		Log.debug(() -> {
+			StringBuilder toPrint = new StringBuilder();
+			toPrint.append("Elevator Number: " + this.getElevatorNumber() + "\n");
+			toPrint.append("Floor Number: " + this.getCurrentFloor() + "\n\n");
+			for(int i=0; i<allButtons.length; i++) {
+				toPrint.append("Floor Number " + i + ": " +allButtons[i] + "\n");
+			}
+			return(toPrint.toString());
+		});
 	}
 	
 	/*
 	 * Method to make the elevator move up one floor.
 	 */
 	public void move(UtilityInformation.ElevatorDirection dir) {		
-    	System.out.println(String.format("Elevator Moving %s One Floor", dir.toString()));
+    	Log.debug(() -> String.format("Elevator Moving %s One Floor", dir.toString()));
     	
     	if (dir.equals(UtilityInformation.ElevatorDirection.UP)) {
     	    if ((currentFloor == controller.getNumFloors() - 1)) {
-    	        System.out.println("Error: Invalid Movement Instruction");
+    	        Log.error("Error: Invalid Movement Instruction");
                 System.exit(1);
     	    }
     	    
-    		try  { 
-                Thread.sleep(UtilityInformation.TIME_UP_ONE_FLOOR);
-            } catch (InterruptedException ie)  {
-
-            }              
+    		pause(UtilityInformation.TIME_UP_ONE_FLOOR);
             
             currentFloor++;
     	} else if (dir.equals(UtilityInformation.ElevatorDirection.DOWN)) {
     	    if (currentFloor == 0) {
-    	        System.out.println("Error: Invalid Movement Instruction");
+    	        Log.error("Error: Invalid Movement Instruction");
                 System.exit(1);
     	    }
     	    
-    		try  { 
-                Thread.sleep(UtilityInformation.TIME_DOWN_ONE_FLOOR);
-            } catch (InterruptedException ie)  {
-
-            }              
+    		pause(UtilityInformation.TIME_DOWN_ONE_FLOOR);
             
             currentFloor--;
     	} else if (dir.equals(UtilityInformation.ElevatorDirection.STATIONARY)) {
-    	    try  { 
-                Thread.sleep(UtilityInformation.TIME_STOP_AT_FLOOR);
-            } catch (InterruptedException ie)  {
-
-            }  
+    	    pause(UtilityInformation.TIME_STOP_AT_FLOOR);
     	}
         
         controller.sendFloorSensorMessage(elevatorNumber);
         
-        System.out.println("Elevator arrives on floor");
+        Log.debug("Elevator arrives on floor");
+	}
+	
+	/**
+	 * pause
+	 * 
+	 * Waits for the given amount of simulated time on the controller's clock.
+	 * If the thread is interrupted, stops waiting and keeps the interrupt 
+	 * so the elevator can stop.
+	 * 
+	 * @param millis   Simulated time to wait (in milliseconds)
+	 * 
+	 * @return None
+	 */
+	private void pause(long millis) {
+	    try {
+	        controller.getClock().sleep(millis);
+	    } catch (InterruptedException e) {
+	        Thread.currentThread().interrupt();
+	    }
 	}
 	
 	/*
 	 * Method to make the elevator stop moving.
 	 */
 	public void Stop() {
-        System.out.println("The elevator has stopped moving");
+        Log.debug("The elevator has stopped moving");
 	}
 
 	/*
@@ -139,23 +154,15 @@ public class Elevator implements Runnable {
 	 */
 	public void changeDoorState(UtilityInformation.DoorState newState) {
 		if (newState.equals(UtilityInformation.DoorState.OPEN)) {
-			try  { 
-	            Thread.sleep(UtilityInformation.OPEN_DOOR_TIME);
-	        } catch (InterruptedException ie)  {
-
-	        }
+			pause(UtilityInformation.OPEN_DOOR_TIME);
 		} else if (newState.equals(UtilityInformation.DoorState.CLOSE)) {
-			try  { 
-	            Thread.sleep(UtilityInformation.CLOSE_DOOR_TIME);
-	        } catch (InterruptedException ie)  {
-
-	        }
+			pause(UtilityInformation.CLOSE_DOOR_TIME);
 		}        
         
-        System.out.println(String.format("Elevator Door %s", newState.toString()));
+        Log.debug(String.format("Elevator Door %s", newState.toString()));
         
 		door = newState;
-		System.out.println("Door: " + door + " on floor: " + currentFloor);
+		Log.debug("Door: " + door + " on floor: " + currentFloor);
 	}
 	
 	/**
@@ -168,7 +175,7 @@ public class Elevator implements Runnable {
 	 * @return None
 	 */
 	public void brokenElevator() {
-		System.out.println("Elevator is Broken");
+		Log.info("Elevator is Broken");
 	}
 	
 	/**
@@ -181,7 +188,7 @@ public class Elevator implements Runnable {
 	 * @return None
 	 */
 	public void elevatorFixed() {
-		System.out.println("Elevator is Fixed");
+		Log.info("Elevator is Fixed");
 	}
 	
 	/**
@@ -206,14 +213,9 @@ public class Elevator implements Runnable {
         
         int sleepTimeBetweenAttempts = 1000;
         
-        while(broken) {
-            try {
-                Thread.sleep(sleepTimeBetweenAttempts);
-            } catch (InterruptedException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
-            System.out.println("Attempting to fix door...");
+        while(broken && !Thread.currentThread().isInterrupted()) {
+            pause(sleepTimeBetweenAttempts);
+            Log.info("Attempting to fix door...");
             chance = r.nextFloat();
             if(chance <= percentChanceFixDoor){
                 broken = false;
@@ -226,7 +228,7 @@ public class Elevator implements Runnable {
 	    } else if (door == UtilityInformation.DoorState.CLOSE) {
 	    	changeDoorState(UtilityInformation.DoorState.OPEN);
 	    } else {
-	        System.out.println("Error: Unknown error type in Elevator fixDoorStuckError.");
+	        Log.error("Error: Unknown error type in Elevator fixDoorStuckError.");
 	        System.exit(1);
 	    }
 	    
@@ -300,7 +302,7 @@ public class Elevator implements Runnable {
 		case WAITING:
 			break;
 		default:
-			System.out.println("Error: Unknown Action.");
+			Log.error("Error: Unknown Action.");
 			System.exit(1);
 		}
 		
@@ -312,7 +314,7 @@ public class Elevator implements Runnable {
 	 * 
 	 * override
 	 * 
-	 * Infinitely repeats the following:
+	 * Repeats the following until the thread is interrupted:
 	 *     Get the next action for the elevator from the controller
 	 *     Execute the retrieved action
 	 *     
@@ -322,8 +324,13 @@ public class Elevator implements Runnable {
 	 */
 	@Override
 	public void run() {		
-		while (true) {
+		while (!Thread.currentThread().isInterrupted()) {
 			Action nextAction = controller.getNextActionForElevator(elevatorNumber);
+			
+			if (nextAction == null) {
+			    break;
+			}
+			
 			changeAction(nextAction);
 		}
 		
@@ -345,7 +352,8 @@ public class Elevator implements Runnable {
     /**
      * turnOnDestButton
      * 
-     * Turns on the destination button corresponding to the given destination
+     * Turns on the destination button corresponding to the given destination,
+     * which becomes the destination turned off when the elevator stops
      * 
      * @param destinationFloor Number of button to turn on
      * 
@@ -353,6 +361,7 @@ public class Elevator implements Runnable {
      */
     public void turnOnDestButton(int destinationFloor) {
         allButtons[destinationFloor] = UtilityInformation.LampState.ON; 
+        this.destinationFloor = destinationFloor;
     }
 	
 }
\ No newline at end of file
@@ -1,4 +1,7 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.io.IOException;
+import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import org.junit.jupiter.api.*;
@@ -76,4 +79,71 @@ public class ElevatorSubsystemTests {
         
         elevatorSubsystem.receiveData();
 	}
+	
+    /**
+     * testDecode
+     * 
+     * Tests that messages from the scheduler are decoded into the right commands
+     * 
+     * @input   None
+     * 
+     * @return  None
+     */
+	@Test
+	public void testDecode()
+	{
+        MessageCodec codec = new MessageCodec();
+        int length = codec.config.encode(2, 5);
+        
+        elevatorSubsystem.handleData(new DatagramPacket(codec.getBuffer(), length));
+        
+        codec.direction.encode(0, 1, UtilityInformation.ElevatorDirection.UP);
+        assertEquals(Elevator_Subsystem.Command.MOVE_UP, elevatorSubsystem.decode(codec.getBuffer()));
+        
+        // Direction for a floor the elevator is not at
+        codec.direction.encode(3, 1, UtilityInformation.ElevatorDirection.DOWN);
+        assertEquals(Elevator_Subsystem.Command.IGNORE, elevatorSubsystem.decode(codec.getBuffer()));
+        
+        codec.destination.encode(4, 1);
+        assertEquals(Elevator_Subsystem.Command.DESTINATION, elevatorSubsystem.decode(codec.getBuffer()));
+        
+        codec.fixDoor.encode(1);
+        assertEquals(Elevator_Subsystem.Command.INVALID, elevatorSubsystem.decode(codec.getBuffer()));
+	}
+	
+    /**
+     * testDestinationLamps
+     * 
+     * Tests that a destination taken away from an elevator turns its lamp off,
+     * and that stopping turns off the lamp of that elevator's own destination
+     * 
+     * @input   None
+     * 
+     * @return  None
+     */
+	@Test
+	public void testDestinationLamps()
+	{
+        MessageCodec codec = new MessageCodec();
+        
+        // Only version 3 of the message format can clear a destination
+        codec.setVersion(MessageCodec.VERSION_3);
+        elevatorSubsystem.handleData(new DatagramPacket(codec.getBuffer(), codec.config.encode(2, 10)));
+        elevatorSubsystem.handleData(new DatagramPacket(codec.getBuffer(), codec.destination.encode(5, 0)));
+        elevatorSubsystem.handleData(new DatagramPacket(codec.getBuffer(), codec.destination.encode(3, 1)));
+        assertEquals(UtilityInformation.LampState.ON, elevatorSubsystem.allElevators.get(0).getDestButton(5));
+        assertEquals(UtilityInformation.LampState.ON, elevatorSubsystem.allElevators.get(1).getDestButton(3));
+        
+        // The request moved from elevator 0 to elevator 1
+        elevatorSubsystem.handleData(new DatagramPacket(codec.getBuffer(), codec.destination.encode(5, 0, true)));
+        elevatorSubsystem.handleData(new DatagramPacket(codec.getBuffer(), codec.destination.encode(5, 1)));
+        assertEquals(UtilityInformation.LampState.OFF, elevatorSubsystem.allElevators.get(0).getDestButton(5));
+        assertEquals(UtilityInformation.LampState.ON, elevatorSubsystem.allElevators.get(1).getDestButton(5));
+        
+        // Elevator 0 stopping leaves the lamps of elevator 1 alone
+        elevatorSubsystem.handleData(new DatagramPacket(codec.getBuffer(), 
+                                     codec.direction.encode(0, 0, UtilityInformation.ElevatorDirection.STATIONARY)));
+        assertEquals(UtilityInformation.LampState.ON, elevatorSubsystem.allElevators.get(1).getDestButton(5));
+        assertEquals(UtilityInformation.LampState.ON, elevatorSubsystem.allElevators.get(1).getDestButton(3));
+	}
 }
@@ -12,6 +12,9 @@ public class ElevatorTests {
         int numFloors = 10;
         
         controller = new Elevator_Subsystem();
+        
+        // Run simulated delays 1000 times faster than real time
+        controller.setClock(SimulationClock.scaled(1000));
         controller.configSubsystem(numFloors, 1);
         
         elevator = new Elevator(controller, 0, numFloors); //Elevator #0
@@ -3,11 +3,11 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
-import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
 
 /*
  * SYSC 3303 Elevator Group Project
@@ -39,23 +39,43 @@ public class Elevator_Subsystem extends ServerPattern {
 	private int numberOfElevators = 0;
 	private int numberOfFloors = 0;
 	
-	// The destination floor
-	private int destinationFloor;
-
 	// The current elevator number being accessed
-	private static byte currentElevatorToWork = 0;
+	private static int currentElevatorToWork = 0;
 
-	// Datagram Packets and Sockets for sending and receiving data
+	// Datagram Packets for sending and receiving data
 	private DatagramPacket sendPacket, receivePacket;
-	private DatagramSocket sendSocket;
+	
+	// Codec that messages are encoded into before being sent 
+	// (locked while a message is encoded and sent, since every
+	// elevator thread sends messages), and codec used to read 
+	// received messages
+	private MessageCodec sendCodec;
+	private MessageCodec receiveCodec;
 
 	// Information for System
 	private InetAddress schedulerIP;
+	private int schedulerPort;
+	
+	// Actions waiting for each elevator. Each queue is only added to by the
+	// thread handling messages and only read by its elevator's thread.
+	private volatile ActionQueue[] nextActions;
+	
+	// Runs the elevators once they are configured
+	private ExecutorService elevatorExecutor;
 	
-	private ArrayList<LinkedList<Elevator.Action>> nextActions;
+	// Held while a message is encoded and sent
+	private ReentrantLock sendLock;
+	
+	// Clock that elevator delays are measured with
+	private volatile SimulationClock clock;
 	
     private ArrayList<ArrayList<Long>> frequencyTimes;
     private ArrayList<ArrayList<Long>> executionDurationTimes;
+    
+    // Timing information for each batch of handled messages
+    private ArrayList<Long> batchFrequencyTimes;
+    private ArrayList<Long> batchDurationTimes;
+    private ArrayList<Integer> batchSizes;
 
 	// USED ENUMS:
 	// State machine states
@@ -63,47 +83,86 @@ public class Elevator_Subsystem extends ServerPattern {
 		ANALYZING_MESSAGE, CURRENTLY_MOVING, ARRIVE_AT_FLOOR
 	}
 
-	// All events taking place in the elevator
-	public enum Event {
-		CONFIG_RECIEVED, BUTTON_PUSHED_IN_ELEVATOR, ELEVATOR_MOVING, STOP_ELEVATOR, UPDATE_DEST, OPEN_DOOR, 
-		CLOSE_DOOR, ISSUE_OCCURING, ISSUE_FIXED, DOOR_ISSUE
+	// Commands decoded from messages sent by the scheduler, each with the
+	// state the subsystem moves to when it is received (null to stay)
+	public enum Command {
+		CONFIG(State.ANALYZING_MESSAGE), BUTTON_CLICKED(State.ANALYZING_MESSAGE),
+		MOVE_UP(State.CURRENTLY_MOVING), MOVE_DOWN(State.CURRENTLY_MOVING), STOP(State.CURRENTLY_MOVING),
+		OPEN_DOOR(null), CLOSE_DOOR(null), DESTINATION(State.ANALYZING_MESSAGE), TEARDOWN(null),
+		DOOR_STUCK(State.ANALYZING_MESSAGE), ELEVATOR_STUCK(State.ANALYZING_MESSAGE),
+		ISSUE_FIXED(State.ANALYZING_MESSAGE), IGNORE(null), INVALID(null);
+		
+		private final State nextState;
+		
+		Command(State nextState) {
+			this.nextState = nextState;
+		}
+		
+		public State getNextState() {
+			return(nextState);
+		}
 	}
+	
+	// Carries out one command. The fields of the message have already
+	// been read into the flyweight of the receive codec for its mode.
+	private interface CommandHandler {
+		void handle(byte[] data);
+	}
+	
+	// Handler of each command, indexed by the command's ordinal
+	private CommandHandler[] handlers;
 
 	// Start off stationary
 	public static State currentState = State.ANALYZING_MESSAGE;
 
 	// General Constructor for Elevator Subsystem class.
 	public Elevator_Subsystem() {
-	    super(UtilityInformation.ELEVATOR_PORT_NUM, "Elevator_Subsystem");
+	    this(SimulationConfig.getDefault());
+	}
+	
+	// Constructor for an Elevator Subsystem that uses the endpoints in the given
+	// configuration. Waits for the scheduler to publish its port if it binds any free port.
+	public Elevator_Subsystem(SimulationConfig config) {
+	    super(config.getPort(SimulationConfig.Role.ELEVATOR), "Elevator_Subsystem",
+	          config.getTransportType(), UtilityInformation.DEFAULT_RECEIVER_TYPE,
+	          UtilityInformation.ELEVATOR_WAIT_STRATEGY);
+	    
+	    publishEndpoint(config, SimulationConfig.Role.ELEVATOR);
 	    
         frequencyTimes = new ArrayList<ArrayList<Long>>();      
-        for (int i = 0; i < 14; i++) {
+        for (int i = 0; i < UtilityInformation.NUM_MODES; i++) {
             frequencyTimes.add(new ArrayList<Long>());
         }
         
         executionDurationTimes = new ArrayList<ArrayList<Long>>();
-        for (int i = 0; i < 14; i++) {
+        for (int i = 0; i < UtilityInformation.NUM_MODES; i++) {
             executionDurationTimes.add(new ArrayList<Long>());
         }
+        
+        batchFrequencyTimes = new ArrayList<Long>();
+        batchDurationTimes = new ArrayList<Long>();
+        batchSizes = new ArrayList<Integer>();
+	    
+	    nextActions = new ActionQueue[0];
+	    
+	    elevatorExecutor = SimulationExecutors.create(config.getThreadMode(), "elevator");
+	    clock = config.getClock();
+	    sendLock = new ReentrantLock();
+	    
+	    sendCodec = new MessageCodec();
+	    receiveCodec = new MessageCodec();
+	    handlers = createHandlers();
 	    
-	    nextActions = new ArrayList<LinkedList<Elevator.Action>>();
+	    // Packet reused for every message sent
+	    sendPacket = new DatagramPacket(sendCodec.getBuffer(), 0);
 	    
 		try {
-			schedulerIP = InetAddress.getLocalHost();
+			schedulerIP = config.getAddress(SimulationConfig.Role.SCHEDULER);
 		} catch (UnknownHostException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
-
-		try {
-			// Construct a Datagram socket and bind it to any available port on the local
-			// host machine. This socket will be used to
-			// send UDP Datagram packets.
-			sendSocket = new DatagramSocket();
-		} catch (SocketException se) {
-			se.printStackTrace();
-			System.exit(1);
-		}
+		schedulerPort = config.resolvePort(SimulationConfig.Role.SCHEDULER);
 	}
 	
 
@@ -117,28 +176,50 @@ public class Elevator_Subsystem extends ServerPattern {
 	 * @param port the port number on the destination computer
 	 */
 	public void sendData(byte[] data, InetAddress IP, int port) {
-		sendPacket = new DatagramPacket(data, data.length, IP, UtilityInformation.SCHEDULER_PORT_NUM);
-		System.out.println("Elevator: Sending packet:");
-		System.out.println("To host: " + sendPacket.getAddress());
-		System.out.println("Destination host port: " + sendPacket.getPort());
-		int len = sendPacket.getLength();
-		System.out.println("Length: " + len);
-		System.out.print("Containing: ");
-		System.out.println(Arrays.toString(data)); // or could print "s"
+		sendLock.lock();
+		try {
+			sendData(data, data.length, IP, port);
+		} finally {
+			sendLock.unlock();
+		}
+	}
+	
+	/*
+	 * This method sends the first length bytes of an array to a specific Ip 
+	 * address and port number. The same packet is reused for every message 
+	 * sent, so sendLock must be held while calling this.
+	 * 
+	 * @param data the array of bytes being sent
+	 * 
+	 * @param length the number of bytes to send
+	 * 
+	 * @param IP the target IP address for the destination of the data
+	 * 
+	 * @param port the port number on the destination computer
+	 */
+	private void sendData(byte[] data, int length, InetAddress IP, int port) {
+		sendPacket.setData(data, 0, length);
+		sendPacket.setAddress(IP);
+		sendPacket.setPort(port);
+		Log.debug(() -> String.format("Elevator: Sending packet:\nTo host: %s\nDestination host port: %d\n" +
+		                              "Length: %d\nContaining: %s", 
+		                              IP, port, length, 
+		                              Arrays.toString(Arrays.copyOf(data, length))));
 		try {
-			sendSocket.send(sendPacket);
+			transmit(sendPacket);
 		} catch (IOException e) {
 			e.printStackTrace();
 			System.exit(1);
 		}
-		System.out.println("Elevator: Packet sent.\n");
+		Log.debug("Elevator: Packet sent.\n");
 	}
 	/*
 	 * Returns true if the System is in an error state and
 	 */
 	public boolean checkERROR(byte[] data) {
 		// Check if elevator in error state, elevator subsystem in error state, and if the message is not the fixer.
-		if(allElevators.get(data[2]).isInErrorState() == true && data[0]!=11) {
+		if(allElevators.get(MessageCodec.ElevatorMessage.getElevatorNum(data, receiveCodec.getVersion())).isInErrorState() == true && 
+		   data[UtilityInformation.MODE_BYTE_IND] != UtilityInformation.FIX_DOOR_MODE) {
 			return true;
 		}else {
 			return false;
@@ -157,187 +238,139 @@ public class Elevator_Subsystem extends ServerPattern {
 	 */
 	public DatagramPacket receiveData() {
 		receivePacket = this.getNextRequest();
+		
+		handleData(receivePacket);
+		
+		return(receivePacket);
+	}
+
+	/*
+	 * Decodes the given received packet and carries out its command.
+	 * 
+	 * @param packet DatagramPacket received from the scheduler
+	 */
+	public void handleData(DatagramPacket packet) {
+		receivePacket = packet;
 		byte data[] = receivePacket.getData();
 		
-		// ALL messages except config have the current elevator in data[2]
-		if(data[0]!= UtilityInformation.CONFIG_MODE) {
-			currentElevatorToWork = data[2];
+		// ALL messages except config have the current elevator number
+		if(data[UtilityInformation.MODE_BYTE_IND] != UtilityInformation.CONFIG_MODE) {
+			currentElevatorToWork = MessageCodec.ElevatorMessage.getElevatorNum(data, receiveCodec.getVersion());
 			
 			// CHECK IF THE ELEVATOR CORRESPONDING TO THE REQUEST IS IN AN ERROR STATE
 			if(this.checkERROR(data)) {
-				return(receivePacket); // leave method if it is an error state	
+				return; // leave method if it is an error state	
 			} // If the message received while in error state is not the fixing message, then simply
 				// return and receive the next message (doing nothing)
 			
 		}
 		
-		String check = this.validPacket(data);
-		if (check.equals("invalid")) {
-			System.out.println("Invalid packet received");
-			System.exit(1);
-		}
-
-		// Depending on the type of message, a certain event will be raised
-		if (check.equals("config")) {
-			currentState = State.ANALYZING_MESSAGE;
-			eventOccured(Event.CONFIG_RECIEVED, receivePacket, check, data);
-		}
-		if (check.equals("button clicked")) {
-			currentState = State.ANALYZING_MESSAGE;
-			eventOccured(Event.BUTTON_PUSHED_IN_ELEVATOR, receivePacket, check, data);
-		}
-		if (check.equals("destination")) {
-			currentState = State.ANALYZING_MESSAGE;
-			eventOccured(Event.UPDATE_DEST, receivePacket, check, data);
-		}
-		if (check.equals("go up") | check.equals("go down") | check.equals("stay")) {
-			currentState = State.CURRENTLY_MOVING;
-			
-			if (check.equals("stay")) {
-				eventOccured(Event.STOP_ELEVATOR, receivePacket, check, data);
-			}
-			
-			if (check.equals("go up") | check.equals("go down")) {
-				eventOccured(Event.ELEVATOR_MOVING, receivePacket, check, data);
-			}
-		}
-		if (check.equals("open door") | check.equals("close door")) {
-			// if not, the elevator is not at the floor yet
-			if (currentState.equals(State.ARRIVE_AT_FLOOR)) {
-				eventOccured(Event.ELEVATOR_MOVING, receivePacket, check, data);
-			}
-		}
+		Command command = this.decode(data);
 		
-		if(check.equals("door stuck")) {
-			currentState = State.ANALYZING_MESSAGE;
-			eventOccured(Event.DOOR_ISSUE, receivePacket, check, data);
-		}
-		if(check.equals("elevator stuck")){
-			currentState = State.ANALYZING_MESSAGE;
-			eventOccured(Event.ISSUE_OCCURING, receivePacket, check, data);
-		}
-		if(check.equals("issue fixed")) {
-			currentState = State.ANALYZING_MESSAGE;
-			eventOccured(Event.ISSUE_FIXED, receivePacket, check, data);
+		if (command.getNextState() != null) {
+			currentState = command.getNextState();
 		}
 		
-		return(receivePacket);
+		handlers[command.ordinal()].handle(data);
 	}
 
 	/*
-	 * Separately analyzing the different events that occur in the elevator subsystem.
-	 * 
-	 * @param event the event that occurred
+	 * Creates the table of handlers, one for each command.
 	 * 
-	 * @param packet DatagramPacket received and analyzed
-	 * 
-	 * @param valid the type of message received (valid messages only)
-	 * 
-	 * @param data array of bytes received and analyzed
+	 * @return the handler of each command, indexed by its ordinal
 	 */
-	public void eventOccured(Event event, DatagramPacket packet, String valid, byte[] data) {
-		switch (currentState) {
-		case ANALYZING_MESSAGE:
-			if (event.equals(Event.CONFIG_RECIEVED)) {
-				this.performAction("config", data);
-			}
-			if (event.equals(Event.BUTTON_PUSHED_IN_ELEVATOR)) {
-				this.performAction("button clicked", data);
-			}
-			if (event.equals(Event.UPDATE_DEST)) {
-				performAction("destination", data);
-			}
-			if(event.equals(Event.ISSUE_OCCURING)) {
-				performAction("error", data);
-			}
-			if(event.equals(Event.DOOR_ISSUE)) {
-				performAction("door issue", data);
-			}
-			if(event.equals(Event.ISSUE_FIXED)) {
-				performAction("issue fixed", data);
-			}
-			break;
-
-		case CURRENTLY_MOVING:
-			if (event.equals(Event.ELEVATOR_MOVING)) {
-				if (valid.equals("go up")) {
-					this.performAction("go up", data);
-				}
-				if (valid.equals("go down")) {
-					this.performAction("go down", data);
-				}
-			}
-			if (event.equals(Event.STOP_ELEVATOR)) {
-				this.performAction("stop", data);
+	private CommandHandler[] createHandlers() {
+		CommandHandler[] table = new CommandHandler[Command.values().length];
+		
+		// Setting up our "Building" with configurable number of elevators and floors
+		table[Command.CONFIG.ordinal()] = data -> {
+			numberOfElevators = receiveCodec.config.getNumElevators();
+			numberOfFloors = receiveCodec.config.getNumFloors();
+			
+			// Accept the newest version of the message format both sides know,
+			// which is sent back in the confirmation
+			int version = Math.min(receiveCodec.config.getVersion(), MessageCodec.LATEST_VERSION);
+			receiveCodec.setVersion(version);
+			sendLock.lock();
+			try {
+				sendCodec.setVersion(version);
+			} finally {
+				sendLock.unlock();
 			}
-			break;
-
-		case ARRIVE_AT_FLOOR: // represents the sensor in the elevator
-			if (event.equals(Event.OPEN_DOOR)) {
-				performAction("open door", data);
+			
+			configSubsystem(numberOfFloors, numberOfElevators);
+		};
+		
+		table[Command.BUTTON_CLICKED.ordinal()] = data -> {
+			// Lamps are lit when the destination arrives from the scheduler
+		};
+		
+		table[Command.MOVE_UP.ordinal()] = data -> addActionToQueue(currentElevatorToWork, Elevator.Action.MOVE_UP);
+		table[Command.MOVE_DOWN.ordinal()] = data -> addActionToQueue(currentElevatorToWork, Elevator.Action.MOVE_DOWN);
+		
+		table[Command.STOP.ordinal()] = data -> {
+			Elevator elevator = allElevators.get(currentElevatorToWork);
+			elevator.turnOffDestButton(elevator.getDestinationFloor());
+			addActionToQueue(currentElevatorToWork, Elevator.Action.STOP);
+		};
+		
+		// The doors are only worked by the elevator once it is at a floor
+		CommandHandler door = data -> {
+			if (currentState == State.ARRIVE_AT_FLOOR) {
+				currentState = State.ANALYZING_MESSAGE;
 			}
-			if (event.equals(Event.CLOSE_DOOR)) {
-				performAction("close door", data);
+		};
+		table[Command.OPEN_DOOR.ordinal()] = door;
+		table[Command.CLOSE_DOOR.ordinal()] = door;
+		
+		// getting destination from scheduler for each input, or a destination
+		// the scheduler has taken away from the elevator
+		table[Command.DESTINATION.ordinal()] = data -> {
+			int destinationFloor = receiveCodec.destination.getDestFloor();
+			currentElevatorToWork = receiveCodec.destination.getElevatorNum();
+			
+			if (receiveCodec.destination.isClear()) {
+				allElevators.get(currentElevatorToWork).turnOffDestButton(destinationFloor);
+			} else {
+				allElevators.get(currentElevatorToWork).turnOnDestButton(destinationFloor);
 			}
-			currentState = State.ANALYZING_MESSAGE;
-			break;
+		};
+		
+		table[Command.TEARDOWN.ordinal()] = data -> {
+			Log.info("Tear-Down Mode");
+			teardown();
 			
-		}
-	}
-
-	/*
-	 * Takes the validated String values from valid packet and performs the actions
-	 * necessary
-	 * 
-	 * @param str the string indicating what type of message was received
-	 * 
-	 * @param data the array of bytes received to be decoded
-	 */
-	public void performAction(String str, byte[] data) {
-		// Setting up our "Building" with configurable number of elevators and floors
-		if (str.equals("config")) {
-			numberOfElevators = data[1];
-			numberOfFloors = data[2];
+			printTimingInformation();
+			printFrequencyInformation();
 			
-			configSubsystem(numberOfFloors, numberOfElevators);
-		}
-
-		if (str.equals("open door")) {
-			addActionToQueue(currentElevatorToWork, Elevator.Action.OPEN_DOOR);
-		}
-		if (str.equals("close door")) {
-			addActionToQueue(currentElevatorToWork, Elevator.Action.CLOSE_DOOR);
-		}
-		if (str.equals("go up")) {
-			addActionToQueue(currentElevatorToWork, Elevator.Action.MOVE_UP);
-		}
-		if (str.equals("go down")) {
-			addActionToQueue(currentElevatorToWork, Elevator.Action.MOVE_DOWN);
-		}
-		if (str.equals("stop")) {
-			allElevators.get(currentElevatorToWork).turnOffDestButton(destinationFloor);
-			addActionToQueue(currentElevatorToWork, Elevator.Action.STOP);
-		}
-		// getting destination from scheduler for each input
-		if (str.equals("destination")) {
-			destinationFloor = data[1];
-			currentElevatorToWork = data[2];
-			allElevators.get(currentElevatorToWork).turnOnDestButton(destinationFloor);
-		}
-		if(str.equals("error")) {
-			System.out.print(currentElevatorToWork + " ");
+			System.exit(0);
+		};
+		
+		table[Command.DOOR_STUCK.ordinal()] = data -> {
+			Log.warn("Message from Elevator " + currentElevatorToWork + ": DOOR STUCK");
+			addActionToQueue(currentElevatorToWork, Elevator.Action.DAMAGED);
+		};
+		
+		table[Command.ELEVATOR_STUCK.ordinal()] = data -> {
+			Log.warn("Message from Elevator " + currentElevatorToWork + ": I AM STUCK");
 			addActionToQueue(currentElevatorToWork, Elevator.Action.BROKEN);
-		}
-		if(str.equals("door issue")) {
-			if (data[1] == UtilityInformation.ErrorType.DOOR_STUCK_ERROR.ordinal()) {
-			    addActionToQueue(currentElevatorToWork, Elevator.Action.DAMAGED);	
-			}
-		}
-		if(str.equals("issue fixed")) {
-			System.out.print(currentElevatorToWork + " ");
+		};
+		
+		table[Command.ISSUE_FIXED.ordinal()] = data -> {
+			Log.info("Message from Elevator " + currentElevatorToWork + ": FIXED");
 			addActionToQueue(currentElevatorToWork, Elevator.Action.FIXED);
-		}
-
+		};
+		
+		table[Command.IGNORE.ordinal()] = data -> {
+			// Sent for a floor the elevator has already left
+		};
+		
+		table[Command.INVALID.ordinal()] = data -> {
+			Log.error("Invalid packet received");
+			System.exit(1);
+		};
+		
+		return(table);
 	}
 	
 	/**
@@ -354,8 +387,13 @@ public class Elevator_Subsystem extends ServerPattern {
 	 * @return None
 	 */
 	public void sendElevatorDoorFixedMessage(int elevatorNum) {
-	    byte[] issConf = {UtilityInformation.FIX_DOOR_MODE, (byte) elevatorNum, -1};
-        this.sendData(issConf, schedulerIP, UtilityInformation.SCHEDULER_PORT_NUM);
+	    sendLock.lock();
+	    try {
+	        int length = sendCodec.fixDoor.encode(elevatorNum);
+	        this.sendData(sendCodec.getBuffer(), length, schedulerIP, schedulerPort);
+	    } finally {
+	        sendLock.unlock();
+	    }
 	}
 	
 	/**
@@ -371,90 +409,104 @@ public class Elevator_Subsystem extends ServerPattern {
 	 * @return None
 	 */
     public void sendFloorSensorMessage(int elevatorNum) {
-        byte[] returnMessage = { UtilityInformation.FLOOR_SENSOR_MODE,
-                (byte) allElevators.get(elevatorNum).getCurrentFloor(),
-                (byte) allElevators.get(elevatorNum).getElevatorNumber(), -1 };
-        this.sendData(returnMessage, schedulerIP, UtilityInformation.SCHEDULER_PORT_NUM);
+        Elevator elevator = allElevators.get(elevatorNum);
+        
+        sendLock.lock();
+        try {
+            int length = sendCodec.floorSensor.encode(elevator.getCurrentFloor(), elevator.getElevatorNumber());
+            this.sendData(sendCodec.getBuffer(), length, schedulerIP, schedulerPort);
+        } finally {
+            sendLock.unlock();
+        }
     }
 
 	/*
-	 * Method to validate the form of the array of bytes received from the Scheduler
+	 * Decodes the array of bytes received from the Scheduler into a command.
+	 * The fields of the message are read into the receive codec, and
+	 * currentElevatorToWork is set for messages about one elevator.
 	 * 
 	 * @param data array of bytes received and analyzed
+	 * 
+	 * @return the command in the message, INVALID if it is not understood
 	 */
-	public String validPacket(byte[] data) {
-		if (data[0] == UtilityInformation.CONFIG_MODE) {
-			return "config";
-		} else if (data[0] == UtilityInformation.ELEVATOR_BUTTON_HIT_MODE) {// send the number of floor clicked
-			return "button clicked";
-		} else if (data[0] == UtilityInformation.ELEVATOR_DIRECTION_MODE) {
-			currentElevatorToWork = data[2];
+	public Command decode(byte[] data) {
+		switch (data[UtilityInformation.MODE_BYTE_IND]) {
+		case UtilityInformation.CONFIG_MODE:
+			receiveCodec.config.wrap(data, 0);
+			return(Command.CONFIG);
 			
-			byte checkFloor = data[1];
+		case UtilityInformation.ELEVATOR_BUTTON_HIT_MODE: // send the number of floor clicked
+			return(Command.BUTTON_CLICKED);
 			
-			if (checkFloor != allElevators.get(currentElevatorToWork).getCurrentFloor()) {				
-				return "ignore";
-			}
+		case UtilityInformation.ELEVATOR_DIRECTION_MODE: {
+			MessageCodec.DirectionMessage direction = receiveCodec.direction;
+			direction.wrap(data, 0);
 			
-			byte moveDirection = data[3];
+			currentElevatorToWork = direction.getElevatorNum();
 			
-			if (moveDirection == 0) {
-				return "stay";
-			} // stop
-			if (moveDirection == 1) {
-				return "go up";
+			if (direction.getFloorNum() != allElevators.get(currentElevatorToWork).getCurrentFloor()) {
+				return(Command.IGNORE);
 			}
-			if (moveDirection == 2) {
-				return "go down";
+			
+			switch (direction.getDirection()) {
+			case STATIONARY:
+				return(Command.STOP);
+			case UP:
+				return(Command.MOVE_UP);
+			case DOWN:
+				return(Command.MOVE_DOWN);
+			default:
+				return(Command.INVALID);
 			}
+		}
 			
-			return "invalid";
-		} else if (data[0] == UtilityInformation.ELEVATOR_DOOR_MODE) {
-			byte doorState = data[1];
-			currentElevatorToWork = data[2];
-			if (doorState == 1) {
-				return "open door";
+		case UtilityInformation.ELEVATOR_DOOR_MODE: {
+			MessageCodec.DoorMessage door = receiveCodec.door;
+			door.wrap(data, 0);
+			
+			currentElevatorToWork = door.getElevatorNum();
+			
+			if (door.getDoorState() == UtilityInformation.DoorState.OPEN) {
+				return(Command.OPEN_DOOR);
 			}
-			if (doorState == 0) {
-				return "close door";
+			if (door.getDoorState() == UtilityInformation.DoorState.CLOSE) {
+				return(Command.CLOSE_DOOR);
 			}
-		} else if (data[0] == UtilityInformation.SEND_DESTINATION_TO_ELEVATOR_MODE) {
-			return "destination";
-		} else if (data[0] == UtilityInformation.TEARDOWN_MODE) {
-			System.out.println("Tear-Down Mode");
-			teardown();
 			
-			printTimingInformation();
-			printFrequencyInformation();
+			return(Command.INVALID);
+		}
 			
-			System.exit(0);
-		} 
-		
-		
-		// ITERATION 3 ASK THEM WHAT BYTE IS THE TYPE OF ERROR
-		else if (data[0] == UtilityInformation.ERROR_MESSAGE_MODE) {
-			if (data[1] == UtilityInformation.ErrorType.DOOR_STUCK_ERROR.ordinal()) {	
-				System.out.println("Message from Elevator " + currentElevatorToWork + ": DOOR STUCK");
-				return "door stuck";
-			} else if(data[1] == UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR.ordinal()) {
-				System.out.println("Message from Elevator " + currentElevatorToWork + ": I AM STUCK");
-				return "elevator stuck";
+		case UtilityInformation.SEND_DESTINATION_TO_ELEVATOR_MODE:
+			receiveCodec.destination.wrap(data, 0);
+			return(Command.DESTINATION);
+			
+		case UtilityInformation.TEARDOWN_MODE:
+			return(Command.TEARDOWN);
+			
+		case UtilityInformation.ERROR_MESSAGE_MODE:
+			receiveCodec.error.wrap(data, 0);
+			
+			if (receiveCodec.error.getErrorType() == UtilityInformation.ErrorType.DOOR_STUCK_ERROR) {
+				return(Command.DOOR_STUCK);
+			} else if (receiveCodec.error.getErrorType() == UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR) {
+				return(Command.ELEVATOR_STUCK);
 			}
+			
+			return(Command.INVALID);
+			
+		case UtilityInformation.FIX_ERROR_MODE:
+			return(Command.ISSUE_FIXED);
+			
+		default:
+			return(Command.INVALID); // anything else is an invalid request.
 		}
-		
-		else if( data[0] == UtilityInformation.FIX_ERROR_MODE) {
-			return "issue fixed";
-		}
-		
-		
-		return "invalid"; // anything else is an invalid request.
 	}
 
 	/*
 	 * Main method for starting the elevator. 
 	 */
 	public static void main(String[] args) {
-		Elevator_Subsystem elvSub = new Elevator_Subsystem();
+		Elevator_Subsystem elvSub = new Elevator_Subsystem(SimulationConfig.load(args));
 		elvSub.runElevatorSubsystem();
 		
 	}
@@ -464,11 +516,13 @@ public class Elevator_Subsystem extends ServerPattern {
 	 * 
 	 * Runs the subsystem
 	 * Repeats the following loop indefinitely:
-	 *     Start Timer
-	 *     Receive packet
-	 *     Handle Packet
-	 *     Stop Timer
-	 *     Save Time
+	 *     Receive every queued packet (up to MAX_BATCH_SIZE)
+	 *     For each packet:
+	 *         Start Timer
+	 *         Handle Packet
+	 *         Stop Timer
+	 *         Save Time
+	 *     Save Batch Time
 	 *     Display current information
 	 *     
 	 * @input  None
@@ -476,14 +530,27 @@ public class Elevator_Subsystem extends ServerPattern {
 	 * @return void
 	 */
 	public void runElevatorSubsystem() {
+	    ArrayList<DatagramPacket> batch = new ArrayList<DatagramPacket>();
+	    
 	 // receive the config message
         for(;;) {
-            long startTime = System.nanoTime();
+            this.getNextRequests(batch, UtilityInformation.MAX_BATCH_SIZE);
             
-            DatagramPacket nextReq = receiveData();
+            long batchStartTime = System.nanoTime();
             
-            long finishTime = System.nanoTime();
-            saveTimes(startTime, finishTime, nextReq.getData()[0]);
+            for (DatagramPacket nextReq : batch) {
+                long startTime = System.nanoTime();
+                
+                byte mode = MessageCodec.getMode(nextReq);
+                handleData(nextReq);
+                
+                long finishTime = System.nanoTime();
+                saveTimes(startTime, finishTime, mode);
+                
+                this.releaseRequest(nextReq);
+            }
+            
+            saveBatchTimes(batchStartTime, System.nanoTime(), batch.size());
             
             allElevators.get(currentElevatorToWork).display();
         }
@@ -505,6 +572,23 @@ public class Elevator_Subsystem extends ServerPattern {
         executionDurationTimes.get(mode).add(finishTime - startTime);
     }
     
+    /**
+     * saveBatchTimes
+     * 
+     * Save the given timing information for a batch of handled messages.
+     * 
+     * @param startTime    Start time of handling the batch
+     * @param finishTime   End time of handling the batch
+     * @param size The number of messages in the batch
+     * 
+     * @return void
+     */
+    public void saveBatchTimes(long startTime, long finishTime, int size) {
+        batchFrequencyTimes.add(startTime);
+        batchDurationTimes.add(finishTime - startTime);
+        batchSizes.add(size);
+    }
+    
     /**
      * printTimingInformation
      * 
@@ -564,6 +648,22 @@ public class Elevator_Subsystem extends ServerPattern {
             writer.println("");
         }
         
+        writer.println("BATCHES (size, duration)");
+        
+        for (int i = 0; i < batchDurationTimes.size(); i++) {
+            writer.println(batchSizes.get(i) + " " + batchDurationTimes.get(i));
+        }
+        
+        writer.println("");
+        
+        writer.println("ACTION QUEUES (elevator, actions added, max depth)");
+        
+        for (int i = 0; i < nextActions.length; i++) {
+            writer.println(i + " " + nextActions[i].getNumAdded() + " " + nextActions[i].getMaxDepth());
+        }
+        
+        writer.println("");
+        
         writer.close();     
     }
     
@@ -626,54 +726,121 @@ public class Elevator_Subsystem extends ServerPattern {
             writer.println("");
         }
         
+        writer.println("BATCHES");
+        
+        for (Long time : batchFrequencyTimes) {
+            writer.println(time);
+        }
+        
+        writer.println("");
+        
         writer.close();     
     }
 	
     /**
      * addActionToQueue
      * 
-     * synchronized
-     * 
      * Adds the given action type to the queue for the given elevator
+     * and wakes that elevator. Only called by the thread handling
+     * messages, the single producer of every queue. Never waits, even
+     * if the elevator has fallen behind.
      * 
      * @param elevatorNumber    Number of elevator to add the action for
      * @param stateToAdd        Next action to add to queue
      * 
      * @return  void
      */
-	public synchronized void addActionToQueue(int elevatorNumber, Elevator.Action actionToAdd) {
-		nextActions.get(elevatorNumber).add(actionToAdd);
-		
-		notifyAll();
+	public void addActionToQueue(int elevatorNumber, Elevator.Action actionToAdd) {
+		nextActions[elevatorNumber].add(actionToAdd);
 	}
 
 	/**
 	 * getNextActionForElevator
 	 * 
-	 * synchronized
-	 * 
 	 * Returns the next action in the queue for the given elevator.
-	 * Waits until an action is available,
+	 * Waits until an action is available. Parking does not pin a
+	 * virtual thread to its carrier thread.
 	 * 
 	 * @param elevatorNumber   Elevator number to get the next action for
 	 * 
-	 * @return Action  The next action for the elevator
+	 * @return Action  The next action for the elevator, null if the thread was interrupted
 	 */
-	public synchronized Elevator.Action getNextActionForElevator(int elevatorNumber) {
-		while (nextActions.get(elevatorNumber).isEmpty()) {
-			try {
-				wait();
-			} catch (InterruptedException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-		}
-		
-		Elevator.Action nextAction = nextActions.get(elevatorNumber).remove();
+	public Elevator.Action getNextActionForElevator(int elevatorNumber) {
+		return(nextActions[elevatorNumber].take());
+	}
+	
+	/**
+	 * getActionQueueDepth
+	 * 
+	 * Returns the number of actions waiting for the given elevator
+	 * 
+	 * @param elevatorNumber   Elevator number to get the queue depth of
+	 * 
+	 * @return int Number of waiting actions
+	 */
+	public int getActionQueueDepth(int elevatorNumber) {
+		return(nextActions[elevatorNumber].size());
+	}
+	
+	/**
+	 * getMaxActionQueueDepths
+	 * 
+	 * Returns the most actions that have been waiting for each elevator
+	 * at once
+	 * 
+	 * @param  None
+	 * 
+	 * @return int[]   The deepest each elevator's queue has been, indexed by elevator number
+	 */
+	public int[] getMaxActionQueueDepths() {
+		ActionQueue[] queues = nextActions;
+		int[] depths = new int[queues.length];
 		
-		notifyAll();
+		for (int i = 0; i < queues.length; i++) {
+			depths[i] = queues[i].getMaxDepth();
+		}
 		
-		return(nextAction);
+		return(depths);
+	}
+
+	/**
+	 * getClock
+	 * 
+	 * Returns the clock that elevator delays are measured with
+	 * 
+	 * @param  None
+	 * 
+	 * @return SimulationClock The clock
+	 */
+	public SimulationClock getClock() {
+	    return(clock);
+	}
+
+	/**
+	 * setClock
+	 * 
+	 * Changes the clock that elevator delays are measured with
+	 * 
+	 * @param newClock The new clock
+	 * 
+	 * @return None
+	 */
+	public void setClock(SimulationClock newClock) {
+	    clock = newClock;
+	}
+
+	/**
+	 * setExecutor
+	 * 
+	 * Changes the executor that elevators are run on once the subsystem
+	 * is configured. The previous executor is not shut down.
+	 * 
+	 * @param executor The executor to run elevators on
+	 * 
+	 * @return void
+	 */
+	public void setExecutor(ExecutorService executor) {
+	    elevatorExecutor = executor;
 	}
 
 	/**
@@ -699,9 +866,9 @@ public class Elevator_Subsystem extends ServerPattern {
      * @return  void
      */
     public void teardown() {
+        elevatorExecutor.shutdownNow();
         sendPacket = null;
         receivePacket = null;
-        sendSocket.close();
         super.teardown();
     }
     
@@ -717,19 +884,33 @@ public class Elevator_Subsystem extends ServerPattern {
      */
     public void configSubsystem(int numFloors, int numElevators) {
         // Based on the config message, set up the elevators and their lights.
+        ActionQueue[] queues = Arrays.copyOf(nextActions, nextActions.length + numElevators);
+        
+        // Room for a move to every floor and back before actions overflow
+        // (queue sizes must be a power of two)
+        int queueCapacity = Integer.highestOneBit(Math.max(2 * numFloors - 1, 1)) << 1;
+        queueCapacity = Math.max(queueCapacity, UtilityInformation.ACTION_QUEUE_CAPACITY);
+        
         for (int i = 0; i < numElevators; i++) {
             Elevator hold = new Elevator(this, i, numFloors);
             // add to elevator subsystem ArrayList of elevators
             allElevators.add(hold);
-            nextActions.add(new LinkedList<Elevator.Action>());
+            queues[queues.length - numElevators + i] = new ActionQueue(queueCapacity);
         }
+        
+        // Published before the elevators are started
+        nextActions = queues;
         // allButtons = new lampState[numberOfFloors];
-        byte[] response = { UtilityInformation.CONFIG_CONFIRM_MODE, 1, -1 };
-        this.sendData(response, schedulerIP, UtilityInformation.SCHEDULER_PORT_NUM);
+        sendLock.lock();
+        try {
+            int length = sendCodec.configConfirm.encode();
+            this.sendData(sendCodec.getBuffer(), length, schedulerIP, schedulerPort);
+        } finally {
+            sendLock.unlock();
+        }
         
         for (Elevator ele : allElevators) {
-            Thread t = new Thread(ele);
-            t.start();
+            elevatorExecutor.execute(ele);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,583 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ *
+ * This class estimates how long each elevator will take to reach a floor.
+ *
+ * The estimate comes from simulating the elevator's planned stops in the
+ * same order the SchedulerAlgorithm will send it to them: keep going in the
+ * current direction while there are stops ahead, then turn around. Every
+ * stop costs the time to open the doors, wait at the floor and close the
+ * doors again, and people picked up along the way add their destinations
+ * to the plan.
+ *
+ * The simulated plan of each elevator is kept until the elevator's plan
+ * version changes (a request is added or served, or its direction or
+ * condition changes). Moving along the first leg of the plan does not
+ * change the plan, so the cached times are only moved forward. Finding the
+ * time an elevator would reach a floor is then one pass over its stops.
+ *
+ */
+public class EtaEngine {
+    // Time spent at each stop (in milliseconds)
+    public final static int STOP_TIME = UtilityInformation.OPEN_DOOR_TIME + UtilityInformation.TIME_STOP_AT_FLOOR +
+                                        UtilityInformation.CLOSE_DOOR_TIME;
+
+    private Plan[] plans;
+
+    // Stops left to serve while a plan is being simulated
+    private long[] pickups;
+    private long[] dropOffs;
+
+    private int numPlansBuilt;
+
+    /**
+     * EtaEngine
+     *
+     * Constructor
+     *
+     * Creates a new EtaEngine with no plans
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public EtaEngine() {
+        plans = new Plan[0];
+        pickups = new long[0];
+        dropOffs = new long[0];
+        numPlansBuilt = 0;
+    }
+
+    /**
+     * getPickupTime
+     *
+     * Returns how long the given elevator would take to reach the given
+     * floor if a stop were added there now
+     *
+     * @param elevator The elevator to check
+     * @param floorNum The floor to reach
+     *
+     * @return long    Time until the elevator reaches the floor (in milliseconds)
+     */
+    public long getPickupTime(SchedulerAlgorithm.AlgorithmElevator elevator, int floorNum) {
+        Plan plan = getPlan(elevator);
+        int stop = findStop(plan, 0, elevator.getCurrFloor(), floorNum, isMoving(elevator));
+
+        return(getTimeAt(plan, stop, elevator.getCurrFloor(), 0, floorNum));
+    }
+
+    /**
+     * getDropOffTime
+     *
+     * Returns how long someone waiting at the given floor would take to
+     * reach their destination if they were given to the given elevator now.
+     * The new stop at the source floor delays every stop after it.
+     *
+     * @param elevator The elevator to check
+     * @param sourceFloor  The floor the person is waiting on
+     * @param destFloor    The floor the person is going to
+     *
+     * @return long    Time until the person is dropped off (in milliseconds)
+     */
+    public long getDropOffTime(SchedulerAlgorithm.AlgorithmElevator elevator, int sourceFloor, int destFloor) {
+        Plan plan = getPlan(elevator);
+        int stop = findStop(plan, 0, elevator.getCurrFloor(), sourceFloor, isMoving(elevator));
+        long pickupTime = getTimeAt(plan, stop, elevator.getCurrFloor(), 0, sourceFloor);
+        long delay = 0;
+
+        // A stop already planned at the source floor is not made twice
+        if ((stop == plan.numStops) || (plan.floors[stop] != sourceFloor)) {
+            delay = STOP_TIME;
+        }
+
+        int destStop = findStop(plan, stop, sourceFloor, destFloor, true);
+
+        return(getTimeAt(plan, destStop, sourceFloor, pickupTime + STOP_TIME - delay, destFloor) + delay);
+    }
+
+    /**
+     * getFinishTime
+     *
+     * Returns how long the given elevator would take to serve every stop
+     * it has now
+     *
+     * @param elevator The elevator to check
+     *
+     * @return long    Time until the elevator has nothing left to do (in milliseconds)
+     */
+    public long getFinishTime(SchedulerAlgorithm.AlgorithmElevator elevator) {
+        Plan plan = getPlan(elevator);
+
+        if (plan.numStops == 0) {
+            return(0);
+        }
+
+        return(plan.arrivals[plan.numStops - 1] - plan.offset + STOP_TIME);
+    }
+
+    /**
+     * getNumPlansBuilt
+     *
+     * Returns the number of times a plan has been simulated, rather than
+     * reused from the cache
+     *
+     * @param  None
+     *
+     * @return int Number of plans simulated
+     */
+    public int getNumPlansBuilt() {
+        return(numPlansBuilt);
+    }
+
+    /**
+     * getTravelTime
+     *
+     * Returns how long moving between the two given floors takes, without
+     * stopping
+     *
+     * @param fromFloor    The floor the elevator starts on
+     * @param toFloor  The floor the elevator moves to
+     *
+     * @return long    Time to move between the floors (in milliseconds)
+     */
+    public static long getTravelTime(int fromFloor, int toFloor) {
+        if (toFloor > fromFloor) {
+            return((long) (toFloor - fromFloor) * UtilityInformation.TIME_UP_ONE_FLOOR);
+        }
+
+        return((long) (fromFloor - toFloor) * UtilityInformation.TIME_DOWN_ONE_FLOOR);
+    }
+
+    /**
+     * getPlan
+     *
+     * Returns the plan of the given elevator, simulating it again if it
+     * has changed. If the elevator has only moved along the first leg of
+     * its plan, the cached plan is moved forward instead.
+     *
+     * @param elevator The elevator to get the plan of
+     *
+     * @return Plan    The elevator's plan
+     */
+    private Plan getPlan(SchedulerAlgorithm.AlgorithmElevator elevator) {
+        int elevatorNum = elevator.elevatorNum;
+
+        if (elevatorNum >= plans.length) {
+            plans = Arrays.copyOf(plans, elevatorNum + 1);
+        }
+
+        Plan plan = plans[elevatorNum];
+
+        if (plan == null) {
+            plan = new Plan();
+            plans[elevatorNum] = plan;
+        }
+
+        int currFloor = elevator.getCurrFloor();
+
+        if ((plan.elevator != elevator) || (plan.version != elevator.planVersion) || !plan.isOnFirstLeg(currFloor)) {
+            buildPlan(plan, elevator);
+        }
+
+        plan.offset = getTravelTime(plan.startFloor, currFloor);
+
+        return(plan);
+    }
+
+    /**
+     * buildPlan
+     *
+     * Simulates the given elevator serving every stop it has now, and
+     * records when it would arrive at each one
+     *
+     * @param plan The plan to fill in
+     * @param elevator The elevator to simulate
+     *
+     * @return None
+     */
+    private void buildPlan(Plan plan, SchedulerAlgorithm.AlgorithmElevator elevator) {
+        int floor = elevator.getCurrFloor();
+        UtilityInformation.ElevatorDirection dir = elevator.getDir();
+        UtilityInformation.ElevatorDirection previousDir = elevator.getPreviousDir();
+        long time = 0;
+
+        numPlansBuilt++;
+        plan.elevator = elevator;
+        plan.version = elevator.planVersion;
+        plan.startFloor = floor;
+        plan.numStops = 0;
+
+        copyStops(elevator);
+
+        // Every stop clears at least one bit, so the simulation always ends
+        while (hasStops()) {
+            int next;
+
+            if (dir == UtilityInformation.ElevatorDirection.UP) {
+                next = getNextStop(floor, getStopAbove(floor), getStopBelow(floor));
+            } else if (dir == UtilityInformation.ElevatorDirection.DOWN) {
+                next = getNextStop(floor, getStopBelow(floor), getStopAbove(floor));
+            } else {
+                next = getNextStationaryStop(floor, previousDir, elevator);
+            }
+
+            time += getTravelTime(floor, next);
+            plan.addStop(next, time);
+            time += STOP_TIME;
+
+            serveStop(next, elevator);
+
+            if (next > floor) {
+                previousDir = UtilityInformation.ElevatorDirection.UP;
+            } else if (next < floor) {
+                previousDir = UtilityInformation.ElevatorDirection.DOWN;
+            }
+
+            dir = UtilityInformation.ElevatorDirection.STATIONARY;
+            floor = next;
+        }
+    }
+
+    /**
+     * getNextStop
+     *
+     * Returns the next stop of a moving elevator: the next stop ahead of
+     * it, or the next stop behind it if there is nothing ahead
+     *
+     * @param floor    The floor the elevator is on
+     * @param ahead    The next stop in the direction the elevator is moving, -1 if none
+     * @param behind   The next stop in the other direction, -1 if none
+     *
+     * @return int The next floor to stop at
+     */
+    private int getNextStop(int floor, int ahead, int behind) {
+        if (ahead != -1) {
+            return(ahead);
+        } else if (behind != -1) {
+            return(behind);
+        }
+
+        return(floor);
+    }
+
+    /**
+     * getNextStationaryStop
+     *
+     * Returns the next stop of an elevator that has stopped: the next stop
+     * in the direction it was last moving, or the stop on its floor, or the
+     * closest stop on either side
+     *
+     * @param floor    The floor the elevator is on
+     * @param previousDir  The direction the elevator was last moving in
+     * @param elevator The elevator being simulated
+     *
+     * @return int The next floor to stop at
+     */
+    private int getNextStationaryStop(int floor, UtilityInformation.ElevatorDirection previousDir,
+                                      SchedulerAlgorithm.AlgorithmElevator elevator) {
+        int above = getStopAbove(floor);
+        int below = getStopBelow(floor);
+
+        if ((previousDir == UtilityInformation.ElevatorDirection.UP) && (above != -1)) {
+            return(above);
+        } else if ((previousDir == UtilityInformation.ElevatorDirection.DOWN) && (below != -1)) {
+            return(below);
+        } else if (isSet(pickups, floor) || isSet(dropOffs, floor)) {
+            return(floor);
+        } else if ((above == -1) || ((below != -1) && ((floor - below) < (above - floor)))) {
+            return(below);
+        } else if ((below == -1) || ((above - floor) < (floor - below))) {
+            return(above);
+        }
+
+        return(elevator.getFirstRequestedFloor(below, above));
+    }
+
+    /**
+     * findStop
+     *
+     * Finds the leg of the given plan that passes the given floor. Leg i
+     * ends at stop i, and starts at stop i - 1 (or at the given starting
+     * floor for the first leg searched).
+     *
+     * @param plan The plan to search
+     * @param firstStop    Index of the stop the first leg searched ends at
+     * @param startFloor   The floor the first leg searched starts at
+     * @param floorNum The floor to find
+     * @param leftStart    True if the elevator has already left the starting floor
+     *
+     * @return int Index of the stop the leg ends at, the number of stops if no leg passes the floor
+     */
+    private int findStop(Plan plan, int firstStop, int startFloor, int floorNum, boolean leftStart) {
+        int from = startFloor;
+
+        if (!leftStart && (floorNum == startFloor)) {
+            return(firstStop);
+        }
+
+        for (int i = firstStop; i < plan.numStops; i++) {
+            int to = plan.floors[i];
+
+            if (((from < floorNum) && (floorNum <= to)) || ((from > floorNum) && (floorNum >= to))) {
+                return(i);
+            }
+
+            from = to;
+        }
+
+        return(plan.numStops);
+    }
+
+    /**
+     * getTimeAt
+     *
+     * Returns when the elevator reaches the given floor on the leg ending
+     * at the given stop, or after the last stop if the index is the
+     * number of stops
+     *
+     * @param plan The plan to check
+     * @param stop Index of the stop the leg ends at
+     * @param startFloor   The floor the first leg searched starts at
+     * @param startTime    When the elevator leaves the starting floor
+     * @param floorNum The floor to reach
+     *
+     * @return long    Time until the elevator reaches the floor (in milliseconds)
+     */
+    private long getTimeAt(Plan plan, int stop, int startFloor, long startTime, int floorNum) {
+        int from = startFloor;
+        long leaveTime = startTime;
+
+        // The leg starts at the stop before, unless that stop is before the starting floor
+        if ((stop > 0) && ((plan.arrivals[stop - 1] - plan.offset + STOP_TIME) > startTime)) {
+            from = plan.floors[stop - 1];
+            leaveTime = plan.arrivals[stop - 1] - plan.offset + STOP_TIME;
+        }
+
+        return(leaveTime + getTravelTime(from, floorNum));
+    }
+
+    /**
+     * isMoving
+     *
+     * Returns whether the given elevator is travelling between floors
+     *
+     * @param elevator The elevator
+     *
+     * @return boolean True if the elevator is moving
+     */
+    private boolean isMoving(SchedulerAlgorithm.AlgorithmElevator elevator) {
+        return(elevator.getDir() != UtilityInformation.ElevatorDirection.STATIONARY);
+    }
+
+    /**
+     * copyStops
+     *
+     * Copies the stops of the given elevator into the scratch bitsets,
+     * growing them to fit the destinations of waiting requests
+     *
+     * @param elevator The elevator
+     *
+     * @return None
+     */
+    private void copyStops(SchedulerAlgorithm.AlgorithmElevator elevator) {
+        int words = elevator.pickupStops.length;
+
+        // Destinations of waiting requests may be above every current stop
+        for (Request req : elevator.getActiveRequests()) {
+            words = Math.max(words, (req.getDestinationFloor() >> 6) + 1);
+        }
+
+        if (pickups.length < words) {
+            pickups = new long[words];
+            dropOffs = new long[words];
+        }
+
+        Arrays.fill(pickups, 0);
+        Arrays.fill(dropOffs, 0);
+        System.arraycopy(elevator.pickupStops, 0, pickups, 0, elevator.pickupStops.length);
+        System.arraycopy(elevator.dropOffStops, 0, dropOffs, 0, elevator.dropOffStops.length);
+    }
+
+    /**
+     * serveStop
+     *
+     * Clears the given stop from the scratch bitsets, adding the
+     * destinations of the requests picked up there
+     *
+     * @param floorNum The floor stopped at
+     * @param elevator The elevator
+     *
+     * @return None
+     */
+    private void serveStop(int floorNum, SchedulerAlgorithm.AlgorithmElevator elevator) {
+        dropOffs[floorNum >> 6] &= ~(1L << floorNum);
+
+        if (isSet(pickups, floorNum)) {
+            pickups[floorNum >> 6] &= ~(1L << floorNum);
+
+            ArrayList<Request> waiting = elevator.pickupsByFloor.get(floorNum);
+
+            for (int i = 0; i < waiting.size(); i++) {
+                int dest = waiting.get(i).getDestinationFloor();
+                dropOffs[dest >> 6] |= (1L << dest);
+            }
+        }
+    }
+
+    /**
+     * hasStops
+     *
+     * Returns whether any stop is left in the scratch bitsets
+     *
+     * @param  None
+     *
+     * @return boolean True if there is a stop left
+     */
+    private boolean hasStops() {
+        for (int i = 0; i < pickups.length; i++) {
+            if ((pickups[i] | dropOffs[i]) != 0) {
+                return(true);
+            }
+        }
+
+        return(false);
+    }
+
+    /**
+     * isSet
+     *
+     * Returns whether the given floor is set in the given bitset
+     *
+     * @param stops    The bitset of floors
+     * @param floorNum The floor to check
+     *
+     * @return boolean True if the floor is set
+     */
+    private boolean isSet(long[] stops, int floorNum) {
+        return(((floorNum >> 6) < stops.length) && ((stops[floorNum >> 6] & (1L << floorNum)) != 0));
+    }
+
+    /**
+     * getStopAbove
+     *
+     * Returns the nearest stop above the given floor in the scratch bitsets
+     *
+     * @param floorNum The floor to search from
+     *
+     * @return int The floor of the stop, -1 if there is none
+     */
+    private int getStopAbove(int floorNum) {
+        int from = floorNum + 1;
+        int word = from >> 6;
+
+        if (word >= pickups.length) {
+            return(-1);
+        }
+
+        long stops = (pickups[word] | dropOffs[word]) & (-1L << from);
+
+        while (stops == 0) {
+            if (++word == pickups.length) {
+                return(-1);
+            }
+
+            stops = pickups[word] | dropOffs[word];
+        }
+
+        return((word << 6) + Long.numberOfTrailingZeros(stops));
+    }
+
+    /**
+     * getStopBelow
+     *
+     * Returns the nearest stop below the given floor in the scratch bitsets
+     *
+     * @param floorNum The floor to search from
+     *
+     * @return int The floor of the stop, -1 if there is none
+     */
+    private int getStopBelow(int floorNum) {
+        int from = Math.min(floorNum - 1, (pickups.length << 6) - 1);
+
+        if (from < 0) {
+            return(-1);
+        }
+
+        int word = from >> 6;
+        long stops = (pickups[word] | dropOffs[word]) & (-1L >>> (63 - (from & 63)));
+
+        while (stops == 0) {
+            if (--word < 0) {
+                return(-1);
+            }
+
+            stops = pickups[word] | dropOffs[word];
+        }
+
+        return((word << 6) + 63 - Long.numberOfLeadingZeros(stops));
+    }
+
+    /**
+     * Plan
+     *
+     * The simulated stops of one elevator, with the time it would arrive
+     * at each one measured from when the plan was simulated
+     *
+     */
+    private static class Plan {
+        SchedulerAlgorithm.AlgorithmElevator elevator;
+        int version;
+        int startFloor;
+
+        int numStops;
+        int[] floors = new int[8];
+        long[] arrivals = new long[8];
+
+        // Time the elevator has spent moving along the first leg since the plan was simulated
+        long offset;
+
+        /**
+         * addStop
+         *
+         * Adds a stop to the end of the plan
+         *
+         * @param floorNum The floor of the stop
+         * @param arrival  Time the elevator arrives at the stop (in milliseconds)
+         *
+         * @return None
+         */
+        void addStop(int floorNum, long arrival) {
+            if (numStops == floors.length) {
+                floors = Arrays.copyOf(floors, numStops * 2);
+                arrivals = Arrays.copyOf(arrivals, numStops * 2);
+            }
+
+            floors[numStops] = floorNum;
+            arrivals[numStops] = arrival;
+            numStops++;
+        }
+
+        /**
+         * isOnFirstLeg
+         *
+         * Returns whether the given floor is passed before the first stop,
+         * so the elevator reaching it does not change the plan
+         *
+         * @param floorNum The floor to check
+         *
+         * @return boolean True if the floor is on the first leg
+         */
+        boolean isOnFirstLeg(int floorNum) {
+            if (floorNum == startFloor) {
+                return(true);
+            }
+
+            // Reaching the first stop always changes the plan
+            return((numStops > 0) &&
+                   (((startFloor < floorNum) && (floorNum < floors[0])) ||
+                    ((startFloor > floorNum) && (floorNum > floors[0]))));
+        }
+    }
+}
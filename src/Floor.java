@@ -379,21 +379,24 @@ public class Floor implements Runnable {
 	 * sendRequest
 	 * 
 	 * Send the next request in the list of requests at the appropriate time.
+	 * Not synchronized, so a virtual thread sleeping here does not hold 
+	 * on to its carrier thread.
 	 * 
 	 * @param  None
 	 * 
 	 * @return None
 	 */
-	public synchronized void sendRequest() {
+	public void sendRequest() {
 	    // Wait until the proper time to send the request
 		long timeToSleep = serviceRequests.get(0)[0] - timeOfPreviousRequest;
 		timeOfPreviousRequest = serviceRequests.get(0)[0];
 
 		try {
-			Thread.sleep(timeToSleep);
+			controller.getClock().sleep(timeToSleep);
 		} catch (InterruptedException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			// The floor is being stopped, so do not send the request
+			Thread.currentThread().interrupt();
+			return;
 		}
 	    
 	    Integer[] request = serviceRequests.get(0);
@@ -426,7 +429,7 @@ public class Floor implements Runnable {
 	 */
     @Override
     public void run() {        
-        while (serviceRequests.size() > 0) {
+        while ((serviceRequests.size() > 0) && !Thread.currentThread().isInterrupted()) {
             this.sendRequest();
         }
     }
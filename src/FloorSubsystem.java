@@ -6,30 +6,39 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
-import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 public class FloorSubsystem extends ServerPattern{
-	// Sockets and packets used for UDP
+	// Packet reused for every message sent
 	private DatagramPacket sendPacket;
-	private DatagramSocket sendSocket;
 
 	// Important floor indices
 	private int numFloors; // Number of floors that the elevator services
 
 	private int numElevators; // The current number of elevators
 
-	// Size of service requests
-	private final int CONFIG_SIZE = 4;
-	private final int REQUEST_SIZE = 5;
-	private final int TEARDOWN_SIZE = 10;
+	// Codec that messages are encoded into before being sent 
+	// (locked while a message is encoded and sent), 
+	// and codec used to read received messages
+	private MessageCodec sendCodec;
+	private MessageCodec receiveCodec;
 	
-	private int requestCount;
+	// Version of the message format offered when configuring the system,
+	// and dispatch policy chosen for the Scheduler (null to leave it be)
+	private int wireVersion;
+	private UtilityInformation.DispatchPolicy dispatchPolicy;
+	
+	// Most floors and elevators that version of the format can describe
+	private int maxNumFloors;
+	private int maxNumElevators;
+	
+	private volatile int requestCount;
 
 	private FloorSubsystemGUI gui;
 	
@@ -38,11 +47,25 @@ public class FloorSubsystem extends ServerPattern{
 
 	// Address to send messages to
 	private InetAddress schedulerIP;
+	private int schedulerPort;
+	
+	
+	// Runs the floors once they are started
+	private ExecutorService floorExecutor;
 	
-	private ArrayList<Thread> floorThreads;
+	// Held while a message is encoded and sent
+	private ReentrantLock sendLock;
+	
+	// Clock that the time between requests is measured with
+	private volatile SimulationClock clock;
 	
     private ArrayList<ArrayList<Long>> frequencyTimes;
     private ArrayList<ArrayList<Long>> executionDurationTimes;
+    
+    // Timing information for each batch of handled messages
+    private ArrayList<Long> batchFrequencyTimes;
+    private ArrayList<Long> batchDurationTimes;
+    private ArrayList<Integer> batchSizes;
 
 	/**
 	 * FloorSubsystem
@@ -61,44 +84,77 @@ public class FloorSubsystem extends ServerPattern{
 	 * @return None
 	 */
 	public FloorSubsystem(int numFloors, int numElevators) {
-	    super(UtilityInformation.FLOOR_PORT_NUM, "FloorSubsystem");
+	    this(numFloors, numElevators, SimulationConfig.getDefault());
+	}
+
+	/**
+	 * FloorSubsystem
+	 * 
+	 * Constructor
+	 * 
+	 * Create a new FloorSubsystem object that uses the endpoints in the
+	 * given configuration. Waits for the scheduler to publish its port
+	 * if it binds any free port.
+	 * 
+	 * @param 	numFloors 		The number of floors for this system
+	 * @param	numElevators	The number of elevators in the system
+	 * @param	config			Configuration of the simulation instance
+	 * 
+	 * @return None
+	 */
+	public FloorSubsystem(int numFloors, int numElevators, SimulationConfig config) {
+	    super(config.getPort(SimulationConfig.Role.FLOOR), "FloorSubsystem",
+	          config.getTransportType(), UtilityInformation.DEFAULT_RECEIVER_TYPE,
+	          UtilityInformation.FLOOR_WAIT_STRATEGY);
+	    
+	    publishEndpoint(config, SimulationConfig.Role.FLOOR);
 	    
         frequencyTimes = new ArrayList<ArrayList<Long>>();      
-        for (int i = 0; i < 14; i++) {
+        for (int i = 0; i < UtilityInformation.NUM_MODES; i++) {
             frequencyTimes.add(new ArrayList<Long>());
         }
         
         executionDurationTimes = new ArrayList<ArrayList<Long>>();
-        for (int i = 0; i < 14; i++) {
+        for (int i = 0; i < UtilityInformation.NUM_MODES; i++) {
             executionDurationTimes.add(new ArrayList<Long>());
         }
+        
+        batchFrequencyTimes = new ArrayList<Long>();
+        batchDurationTimes = new ArrayList<Long>();
+        batchSizes = new ArrayList<Integer>();
 
 		floors = new ArrayList<Floor>();
-		floorThreads = new ArrayList<Thread>();
+		floorExecutor = SimulationExecutors.create(config.getThreadMode(), "floor");
+		sendLock = new ReentrantLock();
+		clock = config.getClock();
+		wireVersion = config.getWireVersion();
+		dispatchPolicy = config.getDispatchPolicy();
+		maxNumFloors = config.getMaxNumFloors();
+		maxNumElevators = config.getMaxNumElevators();
 
 		this.setNumElevators(numElevators);
 		this.setNumFloors(numFloors);
 
+		sendCodec = new MessageCodec();
+		receiveCodec = new MessageCodec();
+		
+		// Packet reused for every message sent
+		sendPacket = new DatagramPacket(sendCodec.getBuffer(), 0);
+
 		// Initialize GUI
 		gui = new FloorSubsystemGUI(this);
-		// Initialize the DatagramSocket
-		try {
-			sendSocket = new DatagramSocket();
-		} catch (SocketException se) {
-			se.printStackTrace();
-			this.teardown();
-			System.exit(1);
-		}
 
 		// Set the address to send to
 		try {
-			schedulerIP = InetAddress.getLocalHost();
+			schedulerIP = config.getAddress(SimulationConfig.Role.SCHEDULER);
 		} catch (UnknownHostException e) {
-			System.out.println("Error: Unable to get local address.");
+			Log.error("Error: Unable to get scheduler address.");
 			e.printStackTrace();
 			this.teardown();
 			System.exit(1);
 		}
+		
+		schedulerPort = config.resolvePort(SimulationConfig.Role.SCHEDULER);
 	}
 
 	/**
@@ -113,8 +169,9 @@ public class FloorSubsystem extends ServerPattern{
 	 */
 	public void setNumFloors(int newNumFloors) {
 		if ((newNumFloors < UtilityInformation.MIN_NUM_FLOORS) || 
-		    (newNumFloors > UtilityInformation.MAX_NUM_FLOORS)) {
-			System.out.println("Error: Floor value is outside of valid range.");
+		    (newNumFloors > maxNumFloors)) {
+			Log.error("Error: Floor value is outside of valid range (" + UtilityInformation.MIN_NUM_FLOORS +
+			          " to " + maxNumFloors + " with wire.version " + wireVersion + ").");
 			this.teardown();
 			System.exit(1);
 		}
@@ -144,12 +201,6 @@ public class FloorSubsystem extends ServerPattern{
 				floors.remove(currFloor);
 			}
 		}
-		
-		floorThreads.clear();
-		
-		for (Floor currFloor : floors) {
-		    floorThreads.add(new Thread(currFloor));
-		}
 	}
 
 	/**
@@ -165,8 +216,9 @@ public class FloorSubsystem extends ServerPattern{
 	 */
 	public void setNumElevators(int newNumElevators) {
 		if ((newNumElevators < UtilityInformation.MIN_NUM_ELEVATORS) || 
-		    (newNumElevators > UtilityInformation.MAX_NUM_ELEVATORS)) {
-			System.out.println("Error: Elevator value is outside of valid range.");
+		    (newNumElevators > maxNumElevators)) {
+			Log.error("Error: Elevator value is outside of valid range (" + UtilityInformation.MIN_NUM_ELEVATORS +
+			          " to " + maxNumElevators + " with wire.version " + wireVersion + ").");
 			super.teardown();
 			this.teardown();
 			System.exit(1);
@@ -212,7 +264,7 @@ public class FloorSubsystem extends ServerPattern{
 		try {
 			input = new FileReader(pathToFile);
 		} catch (FileNotFoundException e) {
-			System.out.println("Error: File could not be found: " + pathToFile);
+			Log.error("Error: File could not be found: " + pathToFile);
 			e.printStackTrace();
 			this.teardown();
 			System.exit(1);
@@ -220,14 +272,14 @@ public class FloorSubsystem extends ServerPattern{
 
 		BufferedReader bufRead = new BufferedReader(input);
 
-		System.out.println("Parsing test file...");
+		Log.info("Parsing test file...");
 
 		// Get the first line in the file
 		String currLine = "";
 		try {
 			currLine = bufRead.readLine();
 		} catch (IOException e) {
-			System.out.println("Error while reading file: " + pathToFile);
+			Log.error("Error while reading file: " + pathToFile);
 			e.printStackTrace();
 			this.teardown();
 			System.exit(1);
@@ -249,7 +301,7 @@ public class FloorSubsystem extends ServerPattern{
 			// and make the request
 			for (Floor floor : floors) {
 				if (floor.getFloorNumber() == vals[1]) {
-				    System.out.println(String.format("TIME: %d", vals[0] - timeOfFirstRequest));
+				    Log.debug(String.format("TIME: %d", vals[0] - timeOfFirstRequest));
 				    
 				    if (vals[2] == -1) {
 				        floor.createErrorOccuranceRequest(vals[0] - timeOfFirstRequest, 
@@ -268,7 +320,7 @@ public class FloorSubsystem extends ServerPattern{
 			try {
 				currLine = bufRead.readLine();
 			} catch (IOException e) {
-				System.out.println("Error while reading file: " + pathToFile);
+				Log.error("Error while reading file: " + pathToFile);
 				e.printStackTrace();
 				this.teardown();
 				System.exit(1);
@@ -279,13 +331,13 @@ public class FloorSubsystem extends ServerPattern{
 		try {
 			input.close();
 		} catch (IOException e) {
-			System.out.println("Error: Unable to close input file.");
+			Log.error("Error: Unable to close input file.");
 			e.printStackTrace();
 			this.teardown();
 			System.exit(1);
 		}
 
-		System.out.println("Finished parsing test file.");
+		Log.info("Finished parsing test file.");
 	}
 	
 	/**
@@ -302,13 +354,13 @@ public class FloorSubsystem extends ServerPattern{
 	 *     Elevator Request:
 	 *         [Time of request, start floor, final floor, direction]
 	 *     Error Request:
-	 *         [Time of request, error type]
+	 *         [Time of request, error type, -1, -1]
 	 *         
 	 * @param line A line from the input file given as a string
 	 * 
 	 * @return Integer[] containg the information from the line
 	 */
-	private int[] parseInputFileLine(String line) { 
+	static int[] parseInputFileLine(String line) { 
         int[] returnVal = new int[4];
         
         // Set all values in the return array to -1
@@ -355,14 +407,14 @@ public class FloorSubsystem extends ServerPattern{
             try {
                 startFloorInt = Integer.parseInt(startFloorStr);
             } catch (Exception e2) {
-                System.out.println("Error: Start floor must be an integer.");
+                Log.error("Error: Start floor must be an integer.");
             }
 
             int finalFloorInt = 0;
             try {
                 finalFloorInt = Integer.parseInt(finalFloorStr);
             } catch (Exception e3) {
-                System.out.println("Error: Start floor must be an integer.");
+                Log.error("Error: Start floor must be an integer.");
             }
 
             UtilityInformation.ElevatorDirection directionEnum = UtilityInformation.ElevatorDirection.valueOf(directionStr.toUpperCase());
@@ -386,9 +438,11 @@ public class FloorSubsystem extends ServerPattern{
 	 * @return void
 	 */
 	public void teardown() {
+		if (floorExecutor != null) {
+		    floorExecutor.shutdownNow();
+		}
 		sendTeardownSignal();
 		super.teardown();
-		sendSocket.close();
 		
 		printTimingInformation();
 		printFrequencyInformation();
@@ -457,24 +511,28 @@ public class FloorSubsystem extends ServerPattern{
 	 * @return void
 	 */
 	public void sendTeardownSignal() {
-		// Construct a message to send with data from given parameters
-		byte[] msg = new byte[TEARDOWN_SIZE];
-		msg[0] = UtilityInformation.TEARDOWN_MODE;
-		msg[1] = UtilityInformation.END_OF_MESSAGE;
-
 		// Send the signal
-		System.out.println("Sending teardown signal...");
-		sendSignal(msg, UtilityInformation.SCHEDULER_PORT_NUM, schedulerIP);
-		System.out.println("Teardown signal sent...");
+		Log.info("Sending teardown signal...");
+		sendLock.lock();
+		try {
+		    int length = sendCodec.teardown.encode();
+		    sendSignal(sendCodec.getBuffer(), length, schedulerPort, schedulerIP);
+		} finally {
+			sendLock.unlock();
+		}
+		Log.info("Teardown signal sent...");
 	}
 
 	/**
 	 * sendConfigurationSignal
 	 * 
 	 * Sends a configuration signal with the number of elevators
-     * and the number of floors in the system
+     * and the number of floors in the system, offering the configured
+     * version of the message format. Every later message uses the
+     * version accepted in the confirmation. The configured dispatch
+     * policy (if any) is passed on to the Scheduler.
 	 * 
-	 * Format:
+	 * Format (version 1):
 	 *     Byte 0: UtilityInformation.CONFIG_MODE
 	 *     Byte 1: The number of elevators in the system
 	 *     Byte 2: The number of floors in the system
@@ -486,22 +544,36 @@ public class FloorSubsystem extends ServerPattern{
 	 * @return void
 	 */
 	public void sendConfigurationSignal(int numElevators, int numFloors) {
-		// Construct a message to send with data from given parameters
-		byte[] msg = new byte[CONFIG_SIZE];
-		msg[0] = UtilityInformation.CONFIG_MODE;
-		msg[1] = (byte) numElevators;
-		msg[2] = (byte) numFloors;
-		msg[3] = UtilityInformation.END_OF_MESSAGE;
-
 		// Send the signal
-		System.out.println("Sending configuration signal...");
-		sendSignal(msg, UtilityInformation.SCHEDULER_PORT_NUM, schedulerIP);
-		System.out.println("Configuration signal sent...");
+		Log.info("Sending configuration signal...");
+		sendLock.lock();
+		try {
+		    sendCodec.setVersion(wireVersion);
+		    int length = sendCodec.config.encode(numElevators, numFloors, dispatchPolicy);
+		    sendSignal(sendCodec.getBuffer(), length, schedulerPort, schedulerIP);
+		} finally {
+			sendLock.unlock();
+		}
+		Log.info("Configuration signal sent...");
 
 		// Wait for a confirmation from the Scheduler before commencing the program
-		System.out.println("Waiting for response to configuration signal...");
-		this.getNextRequest();
-		System.out.println("Respone to configuration received.");
+		Log.info("Waiting for response to configuration signal...");
+		DatagramPacket confirm = this.getNextRequest();
+		
+		if (MessageCodec.getMode(confirm) == UtilityInformation.CONFIG_CONFIRM_MODE) {
+		    int version = receiveCodec.configConfirm.wrap(confirm).getVersion();
+		    
+		    receiveCodec.setVersion(version);
+		    sendLock.lock();
+		    try {
+		        sendCodec.setVersion(version);
+		    } finally {
+		        sendLock.unlock();
+		    }
+		}
+		
+		this.releaseRequest(confirm);
+		Log.info("Respone to configuration received.");
 	}
 
 	/**
@@ -522,7 +594,7 @@ public class FloorSubsystem extends ServerPattern{
 	 * 
 	 * @return None
 	 */
-	public synchronized void sendElevatorRequest(int sourceFloor, int destFloor, UtilityInformation.ElevatorDirection diRequest) {
+	public void sendElevatorRequest(int sourceFloor, int destFloor, UtilityInformation.ElevatorDirection diRequest) {
 		
 		//Light the gui's elevator request button according to the request
 		if(diRequest == UtilityInformation.ElevatorDirection.DOWN) {
@@ -532,20 +604,18 @@ public class FloorSubsystem extends ServerPattern{
 		}
 		
 		
-		// Construct a message to send with data from given parameters
-		byte[] msg = new byte[REQUEST_SIZE];
-		msg[0] = UtilityInformation.FLOOR_REQUEST_MODE;
-		msg[1] = (byte) sourceFloor;
-		msg[2] = (byte) diRequest.ordinal();
-		msg[3] = (byte) destFloor;
-		msg[4] = UtilityInformation.END_OF_MESSAGE;
-
 		// Send the signal
-		System.out.println("Sending elevator request...");
-		sendSignal(msg, UtilityInformation.SCHEDULER_PORT_NUM, schedulerIP);
-		System.out.println("Elevator request sent...");
-		
-		requestCount -= 1;
+		Log.debug("Sending elevator request...");
+		sendLock.lock();
+		try {
+		    int length = sendCodec.floorRequest.encode(sourceFloor, diRequest, destFloor);
+		    sendSignal(sendCodec.getBuffer(), length, schedulerPort, schedulerIP);
+		    
+		    requestCount -= 1;
+		} finally {
+			sendLock.unlock();
+		}
+		Log.debug("Elevator request sent...");
 	}
 	
 	/**
@@ -561,20 +631,19 @@ public class FloorSubsystem extends ServerPattern{
 	 * 
 	 * @return None
 	 */
-	public synchronized void sendErrorOccursMessage(UtilityInformation.ErrorType type, int elevatorNum) {
-	    // Construct a message to send with data from given parameters
-	    byte[] msg = new byte[REQUEST_SIZE];
-	    msg[0] = UtilityInformation.ERROR_MESSAGE_MODE;
-	    msg[1] = (byte) type.ordinal();
-	    msg[2] = (byte) elevatorNum;
-	    msg[3] = UtilityInformation.END_OF_MESSAGE;
-	    
+	public void sendErrorOccursMessage(UtilityInformation.ErrorType type, int elevatorNum) {
         // Send the signal
-        System.out.println("Sending error occurs message...");
-        sendSignal(msg, UtilityInformation.SCHEDULER_PORT_NUM, schedulerIP);
-        System.out.println("Error occurs message sent...");
-        
-        requestCount -= 1;
+        Log.info("Sending error occurs message...");
+        sendLock.lock();
+        try {
+            int length = sendCodec.error.encode(type, elevatorNum);
+            sendSignal(sendCodec.getBuffer(), length, schedulerPort, schedulerIP);
+            
+            requestCount -= 1;
+        } finally {
+            sendLock.unlock();
+        }
+        Log.info("Error occurs message sent...");
 	}
 
 	/**
@@ -596,49 +665,64 @@ public class FloorSubsystem extends ServerPattern{
 	 */
 	public void runSubsystem() {
 		boolean run = true;
+		ArrayList<DatagramPacket> batch = new ArrayList<DatagramPacket>();
+		
 	    while (run) {
-	        byte data[] = this.getNextRequest().getData();
-	        
-	        long startTime = System.nanoTime();
+	        this.getNextRequests(batch, UtilityInformation.MAX_BATCH_SIZE);
 	        
-	        byte mode = data[0];
+	        long batchStartTime = System.nanoTime();
+	        boolean locationChanged = false;
 	        
-	        if (mode == UtilityInformation.ALL_REQUESTS_FINISHED_MODE) {
-	        	if (requestCount <= 0) {
-	        		run = false;
-	        	}
-	        } else if (mode == UtilityInformation.ELEVATOR_DIRECTION_MODE) {
-	        	// Get the floor number and elevator number
-		        byte floorNum = data[1];
+	        for (DatagramPacket nextReq : batch) {
+		        long startTime = System.nanoTime();
 		        
-		        // Request currently does not contain the elevator number,
-		        // so hardcode the value to 1 for now.
-		        int elevatorNum = data[2]; 
+		        byte mode = MessageCodec.getMode(nextReq);
 		        
-		        // Get the direction of the elevator
-		        UtilityInformation.ElevatorDirection dir = UtilityInformation.ElevatorDirection.values()[data[3]];
-		        
-		        if ((floorNum < 0) || (floorNum >= numFloors)) {
-		            System.out.println("Error: Invalid Floor Number");
-		            System.exit(1);
-		        }
-
-		        // Propagate the information through all Floor
-		        // objects in the FloorSubsystem
-		        gui.updateFloorNum(numFloors, numElevators, floorNum, elevatorNum, dir);
-		        for (Floor currFloor : floors) {
-		            currFloor.updateElevatorLocation(elevatorNum, floorNum, dir, gui);
+		        if (mode == UtilityInformation.ALL_REQUESTS_FINISHED_MODE) {
+		        	if (requestCount <= 0) {
+		        		run = false;
+		        	}
+		        } else if (mode == UtilityInformation.ELEVATOR_DIRECTION_MODE) {
+		        	MessageCodec.DirectionMessage direction = receiveCodec.direction.wrap(nextReq);
+		        	
+		        	// Get the floor number and elevator number
+			        int floorNum = direction.getFloorNum();
+			        int elevatorNum = direction.getElevatorNum(); 
+			        
+			        // Get the direction of the elevator
+			        UtilityInformation.ElevatorDirection dir = direction.getDirection();
+			        
+			        if ((floorNum < 0) || (floorNum >= numFloors)) {
+			            Log.error("Error: Invalid Floor Number");
+			            System.exit(1);
+			        }
+	
+			        // Propagate the information through all Floor
+			        // objects in the FloorSubsystem
+			        gui.updateFloorNum(numFloors, numElevators, floorNum, elevatorNum, dir);
+			        for (Floor currFloor : floors) {
+			            currFloor.updateElevatorLocation(elevatorNum, floorNum, dir, gui);
+			        }
+			        
+			        locationChanged = true;
+		        } else {
+		        	Log.error("Error: Unexpected message type.");
+		        	teardown();
+		        	System.exit(1);
 		        }
 		        
-		        System.out.println(this.toString());
-	        } else {
-	        	System.out.println("Error: Unexpected message type.");
-	        	teardown();
-	        	System.exit(1);
+		        long finishTime = System.nanoTime();
+	            saveTimes(startTime, finishTime, mode);
+	            
+	            this.releaseRequest(nextReq);
 	        }
 	        
-	        long finishTime = System.nanoTime();
-            saveTimes(startTime, finishTime, mode);
+	        saveBatchTimes(batchStartTime, System.nanoTime(), batch.size());
+	        
+	        // Print the floor states once for the whole batch
+	        if (locationChanged) {
+	        	Log.debug(this::toString);
+	        }
 	    }
 	}
 	
@@ -657,6 +741,23 @@ public class FloorSubsystem extends ServerPattern{
         frequencyTimes.get(mode).add(startTime);
         executionDurationTimes.get(mode).add(finishTime - startTime);
     }
+    
+    /**
+     * saveBatchTimes
+     * 
+     * Save the given timing information for a batch of handled messages.
+     * 
+     * @param startTime    Start time of handling the batch
+     * @param finishTime   End time of handling the batch
+     * @param size The number of messages in the batch
+     * 
+     * @return void
+     */
+    public void saveBatchTimes(long startTime, long finishTime, int size) {
+        batchFrequencyTimes.add(startTime);
+        batchDurationTimes.add(finishTime - startTime);
+        batchSizes.add(size);
+    }
 
 	/**
 	 * sendSignal
@@ -672,28 +773,50 @@ public class FloorSubsystem extends ServerPattern{
 	 * @return None
 	 */
 	public void sendSignal(byte[] msg, int portNumber, InetAddress address) {
-	    // Create the DatagramPacket
-		sendPacket = new DatagramPacket(msg, msg.length, address, portNumber);
+	    sendLock.lock();
+	    try {
+	        sendSignal(msg, msg.length, portNumber, address);
+	    } finally {
+	        sendLock.unlock();
+	    }
+	}
+
+	/**
+	 * sendSignal
+	 * 
+	 * Sends the first length bytes of the given message to the port 
+	 * number through the given address. The same packet is reused for
+	 * every message sent, so sendLock must be held while
+	 * calling this. Information about the packet is printed before sending.
+	 * 
+	 * @param msg          byte[] consisting of the message to send
+	 * @param length       Number of bytes in the message
+	 * @param portNumber   The port to send the created packet to
+	 * @param address      The address to send the packet through
+	 * 
+	 * @return None
+	 */
+	private void sendSignal(byte[] msg, int length, int portNumber, InetAddress address) {
+	    // Point the reused DatagramPacket at the message
+		sendPacket.setData(msg, 0, length);
+		sendPacket.setAddress(address);
+		sendPacket.setPort(portNumber);
 
 		// Print out info about the message being sent
-		System.out.println("FloorSubsystem: Sending packet:");
-		System.out.println("To host: " + sendPacket.getAddress());
-		System.out.println("Destination host port: " + sendPacket.getPort());
-		int len = sendPacket.getLength();
-		System.out.println("Length: " + len);
-		System.out.print("Containing (as bytes): ");
-		System.out.println(Arrays.toString(sendPacket.getData()));
+		Log.debug(() -> String.format("FloorSubsystem: Sending packet:\nTo host: %s\nDestination host port: %d\n" +
+		                              "Length: %d\nContaining (as bytes): %s", 
+		                              address, portNumber, length, Arrays.toString(Arrays.copyOf(msg, length))));
 
 		// Send the packet
 		try {
-			sendSocket.send(sendPacket);
+			transmit(sendPacket);
 		} catch (IOException e) {
 			e.printStackTrace();
 			this.teardown();
 			System.exit(1);
 		}
 
-		System.out.println("FloorSubsystem: Packet sent.\n");
+		Log.debug("FloorSubsystem: Packet sent.\n");
 	}
 	
 	/**
@@ -711,20 +834,60 @@ public class FloorSubsystem extends ServerPattern{
 	}
 	
 	/**
-	 * startFloorThread
+	 * startFloorThreads
 	 * 
-	 * Starts all floor threads in that the controller owns
+	 * Starts running all floors that the controller owns on its executor
 	 * 
 	 * @param  None
 	 * 
 	 * @return None
 	 */
 	public void startFloorThreads() {
-	    for (Thread thread : floorThreads) {
-	        thread.start();
+	    for (Floor currFloor : floors) {
+	        floorExecutor.execute(currFloor);
 	    }
 	}
 
+	/**
+	 * getClock
+	 * 
+	 * Returns the clock that the time between requests is measured with
+	 * 
+	 * @param  None
+	 * 
+	 * @return SimulationClock The clock
+	 */
+	public SimulationClock getClock() {
+	    return(clock);
+	}
+
+	/**
+	 * setClock
+	 * 
+	 * Changes the clock that the time between requests is measured with
+	 * 
+	 * @param newClock The new clock
+	 * 
+	 * @return None
+	 */
+	public void setClock(SimulationClock newClock) {
+	    clock = newClock;
+	}
+
+	/**
+	 * setExecutor
+	 * 
+	 * Changes the executor that floors are run on when they are started. 
+	 * The previous executor is not shut down.
+	 * 
+	 * @param executor The executor to run floors on
+	 * 
+	 * @return None
+	 */
+	public void setExecutor(ExecutorService executor) {
+	    floorExecutor = executor;
+	}
+
 	/**
 	 * main
 	 * 
@@ -748,8 +911,13 @@ public class FloorSubsystem extends ServerPattern{
 		// Get basic configuration information to start
 		ui.getNewConfigurationInformation();
 
+		// Refuse a building the configured message format can not describe
+		// before anything is bound or started
+		SimulationConfig config = SimulationConfig.load(args);
+		config.checkBuildingSize(ui.getNumFloors(), ui.getNumElevators());
+
 		// Create a FloorSubsystem with the given information
-		FloorSubsystem floorController = new FloorSubsystem(ui.getNumFloors(), ui.getNumElevators());
+		FloorSubsystem floorController = new FloorSubsystem(ui.getNumFloors(), ui.getNumElevators(), config);
 
 		floorController.sendConfigurationSignal(floorController.getNumElevators(), floorController.getNumFloors());
 
@@ -871,6 +1039,14 @@ public class FloorSubsystem extends ServerPattern{
             writer.println("");
         }
         
+        writer.println("BATCHES (size, duration)");
+        
+        for (int i = 0; i < batchDurationTimes.size(); i++) {
+            writer.println(batchSizes.get(i) + " " + batchDurationTimes.get(i));
+        }
+        
+        writer.println("");
+        
         writer.close();     
     }
     
@@ -933,6 +1109,14 @@ public class FloorSubsystem extends ServerPattern{
             writer.println("");
         }
         
+        writer.println("BATCHES");
+        
+        for (Long time : batchFrequencyTimes) {
+            writer.println(time);
+        }
+        
+        writer.println("");
+        
         writer.close();     
     }
 }
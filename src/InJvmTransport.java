@@ -0,0 +1,156 @@
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * This class exchanges messages between subsystems running in the same JVM.
+ *
+ * Every InJvmTransport is registered under its port. Sending a message
+ * looks up the transport bound to the destination port, copies the message
+ * into a packet from the destination's pool and adds it straight to the
+ * destination's queue, on the sending thread. Nothing goes through the
+ * network stack, and no receiver thread is needed.
+ *
+ * The destination address is ignored. A message to a port nobody is bound
+ * to is dropped, as it would be with UDP. So is a message to a queue that
+ * has stayed full for IN_JVM_SEND_TIMEOUT, so a stalled receiver can not
+ * block its senders.
+ *
+ */
+class InJvmTransport extends Transport {
+    // Ports given out when bound to port 0 count down from the top of the
+    // range, far from the configured ports
+    private final static int FIRST_FREE_PORT = 0xFFFF;
+
+    private final static ConcurrentHashMap<Integer, InJvmTransport> BOUND = new ConcurrentHashMap<Integer, InJvmTransport>();
+    private final static AtomicInteger nextFreePort = new AtomicInteger(FIRST_FREE_PORT);
+
+    private int localPort;
+    private InetAddress localAddress;
+    private volatile boolean bound;
+
+    /**
+     * InJvmTransport
+     *
+     * Creates a new InJvmTransport bound to the given port
+     *
+     * @param portNum  Port number to receive messages on (0 for any free port)
+     * @param controller   The ServerPattern that receives messages from this transport
+     * @param name The name of the ServerPattern
+     *
+     * @return None
+     */
+    public InJvmTransport(int portNum, ServerPattern controller, String name) {
+        super(controller, name);
+
+        localAddress = InetAddress.getLoopbackAddress();
+
+        if (portNum == 0) {
+            do {
+                localPort = nextFreePort.getAndDecrement();
+
+                if (localPort <= 0) {
+                    throw new IllegalStateException(name + ": No free ports left in this JVM");
+                }
+            } while (BOUND.putIfAbsent(localPort, this) != null);
+        } else {
+            localPort = portNum;
+
+            if (BOUND.putIfAbsent(localPort, this) != null) {
+                throw new IllegalStateException(name + ": Port " + portNum + " is already bound in this JVM");
+            }
+        }
+
+        bound = true;
+    }
+
+    /**
+     * start
+     *
+     * Does nothing, since senders add messages straight to the queue
+     * of this transport's ServerPattern
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void start() {
+        // Messages are added to the queue by the sender, so there is nothing to run
+    }
+
+    /**
+     * send
+     *
+     * Copies the message into a packet of the ServerPattern bound to
+     * the destination port and adds it to that ServerPattern's queue.
+     * The message is dropped if nothing is bound to the port or the
+     * queue stays full.
+     *
+     * @param packet   Packet containing the message and its destination
+     *
+     * @return None
+     */
+    public void send(DatagramPacket packet) {
+        InJvmTransport dest = BOUND.get(packet.getPort());
+
+        if ((dest == null) || !dest.bound) {
+            Log.warn(name + ": Nothing bound to port " + packet.getPort() + ", message dropped");
+            return;
+        }
+
+        DatagramPacket copy = dest.controller.getBufferPool().acquire();
+        int length = packet.getLength();
+
+        System.arraycopy(packet.getData(), packet.getOffset(), copy.getData(), 0, length);
+        copy.setLength(length);
+        copy.setAddress(localAddress);
+        copy.setPort(localPort);
+        SignalBufferPool.clearUnused(copy);
+
+        if (!dest.controller.signalReceived(copy, UtilityInformation.IN_JVM_SEND_TIMEOUT)) {
+            Log.warn(name + ": Queue of port " + packet.getPort() + " is full, message dropped");
+        }
+    }
+
+    /**
+     * getLocalPort
+     *
+     * Returns the port this transport is bound to in this JVM
+     *
+     * @param  None
+     *
+     * @return int The port number
+     */
+    public int getLocalPort() {
+        return(localPort);
+    }
+
+    /**
+     * isReliable
+     *
+     * Returns true, since messages are handed over in memory
+     *
+     * @param  None
+     *
+     * @return boolean True
+     */
+    public boolean isReliable() {
+        return(true);
+    }
+
+    /**
+     * teardown
+     *
+     * Unbinds the port so other transports stop sending to it
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void teardown() {
+        bound = false;
+        BOUND.remove(localPort, this);
+    }
+}
@@ -0,0 +1,112 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InJvmTransportTest {
+
+	private ServerPattern sender;
+	private ServerPattern receiver;
+
+	/**
+	 * Create two ServerPatterns that talk over the in-JVM transport
+	 *
+	 * @throws Exception
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		sender = create("sender");
+		receiver = create("receiver");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		sender.teardown();
+		receiver.teardown();
+	}
+
+	private ServerPattern create(String name) {
+		return (new ServerPattern(0, name, UtilityInformation.TransportType.IN_JVM,
+				UtilityInformation.ReceiverType.CHANNEL, UtilityInformation.WaitStrategy.BLOCKING) {
+		});
+	}
+
+	/**
+	 * Test that a message arrives in the queue of the destination, with the
+	 * port of the sender as its source
+	 */
+	@Test
+	void testSend() throws Exception {
+		byte[] message = { UtilityInformation.FLOOR_REQUEST_MODE, 3, 1, UtilityInformation.END_OF_MESSAGE };
+
+		sender.transmit(new DatagramPacket(message, message.length, InetAddress.getLoopbackAddress(),
+				receiver.getLocalPort()));
+
+		DatagramPacket received = receiver.getNextRequest();
+
+		assertArrayEquals(message, Arrays.copyOf(received.getData(), received.getLength()));
+		assertEquals(sender.getLocalPort(), received.getPort());
+		assertEquals(0, receiver.getQueueDepth(UtilityInformation.FLOOR_REQUEST_MODE));
+	}
+
+	/**
+	 * Test that sending to a full queue drops the message after the send
+	 * timeout instead of blocking the sender
+	 */
+	@Test
+	void testFullQueueDrops() throws Exception {
+		byte[] message = { UtilityInformation.FLOOR_REQUEST_MODE, 3, 1, UtilityInformation.END_OF_MESSAGE };
+		// A couple more than the queue holds, since each dropped message
+		// waits for the send timeout
+		int numMessages = 102;
+
+		Thread sendThread = new Thread(() -> {
+			try {
+				for (int i = 0; i < numMessages; i++) {
+					sender.transmit(new DatagramPacket(message, message.length, InetAddress.getLoopbackAddress(),
+							receiver.getLocalPort()));
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		sendThread.start();
+		sendThread.join(UtilityInformation.IN_JVM_SEND_TIMEOUT * numMessages);
+
+		assertFalse(sendThread.isAlive());
+
+		int queued = receiver.getQueueDepth(UtilityInformation.FLOOR_REQUEST_MODE);
+		assertTrue(queued > 0);
+		assertTrue(queued < numMessages);
+
+		// Once there is room again, messages are delivered
+		receiver.getNextRequest();
+		sender.transmit(new DatagramPacket(message, message.length, InetAddress.getLoopbackAddress(),
+				receiver.getLocalPort()));
+		assertEquals(queued, receiver.getQueueDepth(UtilityInformation.FLOOR_REQUEST_MODE));
+	}
+
+	/**
+	 * Test that a port can only be bound once, and can be bound again after
+	 * teardown
+	 */
+	@Test
+	void testRebind() throws Exception {
+		int port = receiver.getLocalPort();
+
+		assertThrows(IllegalStateException.class, () -> new InJvmTransport(port, sender, "duplicate"));
+
+		receiver.teardown();
+		new InJvmTransport(port, sender, "rebound").teardown();
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ *
+ * This class runs the scheduler, elevator and floor subsystems in one JVM.
+ *
+ * Unless a transport is given on the command line, the subsystems exchange messages
+ * with the IN_JVM transport, so messages are passed straight between their
+ * queues instead of going through the loopback interface.
+ *
+ */
+public class LocalSimulation {
+
+    /**
+     * main
+     *
+     * Main method
+     *
+     * Starts the scheduler and elevator subsystem on their own threads,
+     * then runs the floor subsystem (and its user interface) on this one
+     *
+     * @param args Configuration overrides (--key=value)
+     *
+     * @return None
+     */
+    public static void main(String[] args) {
+        String[] localArgs = args;
+
+        if (!hasOverride(args, "transport")) {
+            localArgs = new String[args.length + 1];
+            System.arraycopy(args, 0, localArgs, 0, args.length);
+            localArgs[args.length] = "--transport=" + UtilityInformation.TransportType.IN_JVM.name().toLowerCase();
+        }
+
+        SimulationConfig config = SimulationConfig.load(localArgs);
+
+        // Each constructor waits for the ports of the others if they bind
+        // any free port, so every subsystem is created on its own thread
+        Thread scheduler = new Thread(() -> new Scheduler(config).runSheduler(), "scheduler");
+        Thread elevators = new Thread(() -> new Elevator_Subsystem(config).runElevatorSubsystem(), "elevator subsystem");
+
+        scheduler.start();
+        elevators.start();
+
+        FloorSubsystem.main(localArgs);
+    }
+
+    /**
+     * hasOverride
+     *
+     * Returns whether the given setting is given on the command line
+     *
+     * @param args Command line arguments
+     * @param key  Name of the setting
+     *
+     * @return boolean True if there is a --key= argument
+     */
+    private static boolean hasOverride(String[] args, String key) {
+        for (String arg : args) {
+            if (arg.startsWith("--" + key + "=")) {
+                return(true);
+            }
+        }
+
+        return(false);
+    }
+}
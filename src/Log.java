@@ -0,0 +1,183 @@
+import java.util.function.Supplier;
+
+/**
+ *
+ * This class is used to log messages from every subsystem.
+ *
+ * Messages below the current level are ignored. Messages that are expensive
+ * to build (e.g. packet contents) should be given as a Supplier, so they are
+ * only built when their level is enabled. Enabled messages are printed by an
+ * AsyncLogAppender, so the thread that logs does not wait for the console.
+ *
+ */
+public class Log {
+    private static volatile UtilityInformation.LogLevel level = UtilityInformation.LOG_LEVEL;
+
+    private static AsyncLogAppender appender = createAppender();
+
+    /**
+     * createAppender
+     *
+     * Creates and starts the appender used by all log messages
+     *
+     * @param  None
+     *
+     * @return AsyncLogAppender    The started appender
+     */
+    private static AsyncLogAppender createAppender() {
+        AsyncLogAppender newAppender = new AsyncLogAppender(UtilityInformation.LOG_BUFFER_SIZE, System.out);
+        newAppender.start();
+
+        return(newAppender);
+    }
+
+    /**
+     * setLevel
+     *
+     * Changes the lowest level of message that is printed
+     *
+     * @param newLevel The new level
+     *
+     * @return None
+     */
+    public static void setLevel(UtilityInformation.LogLevel newLevel) {
+        level = newLevel;
+    }
+
+    /**
+     * getLevel
+     *
+     * Returns the lowest level of message that is printed
+     *
+     * @param  None
+     *
+     * @return LogLevel    The current level
+     */
+    public static UtilityInformation.LogLevel getLevel() {
+        return(level);
+    }
+
+    /**
+     * isEnabled
+     *
+     * Returns whether messages of the given level are printed
+     *
+     * @param msgLevel The level to check
+     *
+     * @return boolean True if messages of the level are printed
+     */
+    public static boolean isEnabled(UtilityInformation.LogLevel msgLevel) {
+        return(msgLevel.ordinal() >= level.ordinal());
+    }
+
+    /**
+     * log
+     *
+     * Logs the given message at the given level
+     *
+     * @param msgLevel The level of the message
+     * @param message  The message
+     *
+     * @return None
+     */
+    public static void log(UtilityInformation.LogLevel msgLevel, String message) {
+        if (isEnabled(msgLevel)) {
+            appender.append(message);
+        }
+    }
+
+    /**
+     * log
+     *
+     * Logs the message built by the given Supplier at the given level.
+     * The message is only built if the level is enabled.
+     *
+     * @param msgLevel The level of the message
+     * @param message  Supplier that builds the message
+     *
+     * @return None
+     */
+    public static void log(UtilityInformation.LogLevel msgLevel, Supplier<String> message) {
+        if (isEnabled(msgLevel)) {
+            appender.append(message.get());
+        }
+    }
+
+    /**
+     * debug
+     *
+     * Logs the message built by the given Supplier at DEBUG level
+     *
+     * @param message  Supplier that builds the message
+     *
+     * @return None
+     */
+    public static void debug(Supplier<String> message) {
+        log(UtilityInformation.LogLevel.DEBUG, message);
+    }
+
+    /**
+     * debug
+     *
+     * Logs the given message at DEBUG level
+     *
+     * @param message  The message
+     *
+     * @return None
+     */
+    public static void debug(String message) {
+        log(UtilityInformation.LogLevel.DEBUG, message);
+    }
+
+    /**
+     * info
+     *
+     * Logs the message built by the given Supplier at INFO level
+     *
+     * @param message  Supplier that builds the message
+     *
+     * @return None
+     */
+    public static void info(Supplier<String> message) {
+        log(UtilityInformation.LogLevel.INFO, message);
+    }
+
+    /**
+     * info
+     *
+     * Logs the given message at INFO level
+     *
+     * @param message  The message
+     *
+     * @return None
+     */
+    public static void info(String message) {
+        log(UtilityInformation.LogLevel.INFO, message);
+    }
+
+    /**
+     * warn
+     *
+     * Logs the given message at WARN level
+     *
+     * @param message  The message
+     *
+     * @return None
+     */
+    public static void warn(String message) {
+        log(UtilityInformation.LogLevel.WARN, message);
+    }
+
+    /**
+     * error
+     *
+     * Logs the given message at ERROR level
+     *
+     * @param message  The message
+     *
+     * @return None
+     */
+    public static void error(String message) {
+        log(UtilityInformation.LogLevel.ERROR, message);
+    }
+}
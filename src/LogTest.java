@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LogTest {
+
+	private UtilityInformation.LogLevel oldLevel;
+
+	@BeforeEach
+	void setUp() {
+		oldLevel = Log.getLevel();
+	}
+
+	@AfterEach
+	void tearDown() {
+		Log.setLevel(oldLevel);
+	}
+
+	/**
+	 * Test that only messages at or above the current level are enabled
+	 */
+	@Test
+	void testLevels() {
+		Log.setLevel(UtilityInformation.LogLevel.WARN);
+
+		assertEquals(UtilityInformation.LogLevel.WARN, Log.getLevel());
+		assertFalse(Log.isEnabled(UtilityInformation.LogLevel.DEBUG));
+		assertFalse(Log.isEnabled(UtilityInformation.LogLevel.INFO));
+		assertTrue(Log.isEnabled(UtilityInformation.LogLevel.WARN));
+		assertTrue(Log.isEnabled(UtilityInformation.LogLevel.ERROR));
+	}
+
+	/**
+	 * Test that a message given as a Supplier is only built if its level is
+	 * enabled
+	 */
+	@Test
+	void testSupplierOnlyBuiltWhenEnabled() {
+		AtomicInteger numBuilt = new AtomicInteger(0);
+
+		Log.setLevel(UtilityInformation.LogLevel.INFO);
+		Log.debug(() -> "debug " + numBuilt.incrementAndGet());
+		assertEquals(0, numBuilt.get());
+
+		Log.info(() -> "info " + numBuilt.incrementAndGet());
+		assertEquals(1, numBuilt.get());
+
+		Log.setLevel(UtilityInformation.LogLevel.DEBUG);
+		Log.debug(() -> "debug " + numBuilt.incrementAndGet());
+		assertEquals(2, numBuilt.get());
+	}
+}
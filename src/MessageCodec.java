@@ -0,0 +1,1641 @@
+import java.net.DatagramPacket;
+
+/**
+ *
+ * This class is used to read and write every type of message sent between
+ * the subsystems. It holds one flyweight per mode. A flyweight does not copy
+ * the message, it reads and writes the fields in place in the buffer it is
+ * wrapped over, so encoding and decoding messages allocates nothing.
+ *
+ * A MessageCodec created with a buffer wraps every flyweight over that
+ * buffer, so it can be used to encode messages to send. To decode a received
+ * message, wrap the flyweight for its mode over the received packet.
+ *
+ * Each encode method returns the length of the encoded message, so only
+ * the bytes of the message are sent.
+ *
+ * This is the only class that knows where each field is in a message.
+ *
+ * There are three versions of the format. Version 1 holds floor and elevator
+ * numbers in one signed byte, so it can only describe buildings of up to
+ * 127 floors and elevators. Version 2 holds them in two bytes (unsigned,
+ * high byte first), and puts the elevator number right after the mode in
+ * every message about one elevator. Every other field is a single byte in
+ * both versions. Version 3 is version 2 with a Clear byte in DESTINATION
+ * messages, so a destination can be taken away from an elevator.
+ *
+ * A codec starts in version 1. The version is agreed in the CONFIG_MODE
+ * handshake: the CONFIG message offers a version, every subsystem that
+ * forwards or answers it accepts the lower of that and the latest version
+ * it knows, and the CONFIG_CONFIRM message carries the accepted version
+ * back. Peers that only know version 1 always confirm with 1. They cannot
+ * read a version 2 CONFIG message though, so version 1 must be offered
+ * to them.
+ *
+ */
+public class MessageCodec {
+    // Cached enum values, since values() copies the array each call
+    private final static UtilityInformation.ElevatorDirection[] DIRECTIONS = UtilityInformation.ElevatorDirection.values();
+    private final static UtilityInformation.DoorState[] DOOR_STATES = UtilityInformation.DoorState.values();
+    private final static UtilityInformation.ErrorType[] ERROR_TYPES = UtilityInformation.ErrorType.values();
+
+    // Versions of the message format
+    public final static int VERSION_1 = 1;
+    public final static int VERSION_2 = 2;
+    public final static int VERSION_3 = 3;
+    public final static int LATEST_VERSION = VERSION_3;
+
+    private byte[] buffer;
+    private int version;
+    private Message[] all;
+
+    public final ConfigMessage config;
+    public final FloorSensorMessage floorSensor;
+    public final FloorRequestMessage floorRequest;
+    public final ButtonHitMessage buttonHit;
+    public final DirectionMessage direction;
+    public final DoorMessage door;
+    public final DestinationMessage destination;
+    public final TeardownMessage teardown;
+    public final ConfigConfirmMessage configConfirm;
+    public final ErrorMessage error;
+    public final FixErrorMessage fixError;
+    public final FixDoorMessage fixDoor;
+    public final AllRequestsFinishedMessage allRequestsFinished;
+    public final TimerMessage timer;
+
+    /**
+     * MessageCodec
+     *
+     * Constructor
+     *
+     * Creates a new MessageCodec with its own buffer, large enough
+     * for any message.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public MessageCodec() {
+        this(new byte[UtilityInformation.MAX_BYTE_ARRAY_SIZE]);
+    }
+
+    /**
+     * MessageCodec
+     *
+     * Constructor
+     *
+     * Creates a new MessageCodec with every flyweight wrapped over
+     * the given buffer.
+     *
+     * @param buffer   Buffer that messages are encoded into
+     *
+     * @return None
+     */
+    public MessageCodec(byte[] buffer) {
+        this.buffer = buffer;
+
+        config = new ConfigMessage();
+        floorSensor = new FloorSensorMessage();
+        floorRequest = new FloorRequestMessage();
+        buttonHit = new ButtonHitMessage();
+        direction = new DirectionMessage();
+        door = new DoorMessage();
+        destination = new DestinationMessage();
+        teardown = new TeardownMessage();
+        configConfirm = new ConfigConfirmMessage();
+        error = new ErrorMessage();
+        fixError = new FixErrorMessage();
+        fixDoor = new FixDoorMessage();
+        allRequestsFinished = new AllRequestsFinishedMessage();
+        timer = new TimerMessage();
+
+        all = new Message[] {config, floorSensor, floorRequest, buttonHit, direction, door, destination,
+                             teardown, configConfirm, error, fixError, fixDoor, allRequestsFinished, timer};
+        for (Message msg : all) {
+            msg.wrap(buffer, 0);
+        }
+
+        setVersion(VERSION_1);
+    }
+
+    /**
+     * setVersion
+     *
+     * Changes the version of the format every flyweight of this codec
+     * reads and writes
+     *
+     * @param newVersion   The version of the format
+     *
+     * @return None
+     */
+    public void setVersion(int newVersion) {
+        if ((newVersion < VERSION_1) || (newVersion > LATEST_VERSION)) {
+            throw new IllegalArgumentException("Unsupported message format version: " + newVersion);
+        }
+
+        version = newVersion;
+
+        for (Message msg : all) {
+            msg.version = newVersion;
+        }
+    }
+
+    /**
+     * getVersion
+     *
+     * Returns the version of the format this codec reads and writes
+     *
+     * @param  None
+     *
+     * @return int The version of the format
+     */
+    public int getVersion() {
+        return(version);
+    }
+
+    /**
+     * getMaxNumber
+     *
+     * Static method
+     *
+     * Returns the largest floor or elevator number that the given version
+     * of the format can hold
+     *
+     * @param version  The version of the format
+     *
+     * @return int The largest number
+     */
+    public static int getMaxNumber(int version) {
+        return((version == VERSION_1) ? Byte.MAX_VALUE : 0xFFFF);
+    }
+
+    /**
+     * canClearDestination
+     *
+     * Static method
+     *
+     * Returns whether the given version of the format can take a
+     * destination away from an elevator
+     *
+     * @param version  The version of the format
+     *
+     * @return boolean True if DESTINATION messages hold the Clear byte
+     */
+    public static boolean canClearDestination(int version) {
+        return(version >= VERSION_3);
+    }
+
+    /**
+     * getBuffer
+     *
+     * Returns the buffer that messages are encoded into
+     *
+     * @param  None
+     *
+     * @return byte[]  The buffer
+     */
+    public byte[] getBuffer() {
+        return(buffer);
+    }
+
+    /**
+     * getMode
+     *
+     * Static method
+     *
+     * Returns the mode of the message in the given packet
+     *
+     * @param packet   The packet containing the message
+     *
+     * @return byte    The mode of the message
+     */
+    public static byte getMode(DatagramPacket packet) {
+        return(packet.getData()[packet.getOffset() + UtilityInformation.MODE_BYTE_IND]);
+    }
+
+    /**
+     *
+     * Base class of all flyweights. Reads and writes fields in place
+     * in the buffer it is wrapped over.
+     *
+     */
+    public static abstract class Message {
+        protected byte[] buffer;
+        protected int offset;
+        protected int version = VERSION_1;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message starting at the given
+         * index of the given buffer
+         *
+         * @param buffer   Buffer containing the message
+         * @param offset   Index of the first byte of the message
+         *
+         * @return None
+         */
+        public void wrap(byte[] buffer, int offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        /**
+         * getMode
+         *
+         * Returns the mode of the wrapped message
+         *
+         * @param  None
+         *
+         * @return byte    The mode of the message
+         */
+        public byte getMode() {
+            return(get(UtilityInformation.MODE_BYTE_IND));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public abstract int getLength();
+
+        /**
+         * get
+         *
+         * Returns the byte at the given index of the wrapped message
+         *
+         * @param ind  Index of the byte in the message
+         *
+         * @return byte   The stored byte
+         */
+        protected byte get(int ind) {
+            return(buffer[offset + ind]);
+        }
+
+        /**
+         * put
+         *
+         * Stores the low byte of the given value at the given index
+         * of the wrapped message
+         *
+         * @param ind  Index of the byte in the message
+         * @param value    The value to store
+         *
+         * @return None
+         */
+        protected void put(int ind, int value) {
+            buffer[offset + ind] = (byte) value;
+        }
+
+        /**
+         * at
+         *
+         * Returns the index of a field in the version of the format
+         * being used
+         *
+         * @param ind  Index of the field in version 1
+         * @param wideInd  Index of the field in version 2
+         *
+         * @return int Index of the field
+         */
+        protected int at(int ind, int wideInd) {
+            return((version == VERSION_1) ? ind : wideInd);
+        }
+
+        /**
+         * getNumber
+         *
+         * Returns the floor or elevator number stored at the given index
+         *
+         * @param ind  Index of the field
+         *
+         * @return int The stored number
+         */
+        protected int getNumber(int ind) {
+            if (version == VERSION_1) {
+                return(get(ind));
+            }
+
+            return(getWide(ind));
+        }
+
+        /**
+         * getWide
+         *
+         * Returns the two byte number stored at the given index
+         *
+         * @param ind  Index of the first byte
+         *
+         * @return int The stored number
+         */
+        protected int getWide(int ind) {
+            return(((get(ind) & 0xFF) << 8) | (get(ind + 1) & 0xFF));
+        }
+
+        /**
+         * putNumber
+         *
+         * Stores a floor or elevator number at the given index
+         *
+         * @param ind  Index of the field
+         * @param value    The number to store
+         *
+         * @return None
+         */
+        protected void putNumber(int ind, int value) {
+            if ((value < 0) || (value > getMaxNumber(version))) {
+                throw new IllegalArgumentException("Number " + value + " does not fit in version " +
+                                                   version + " of the message format");
+            }
+
+            if (version == VERSION_1) {
+                put(ind, value);
+            } else {
+                put(ind, value >>> 8);
+                put(ind + 1, value);
+            }
+        }
+
+        /**
+         * lookup
+         *
+         * Returns the enum value stored at the given index
+         *
+         * @param values   All values of the enum
+         * @param ind  Index of the field in the message
+         *
+         * @return T   The stored value, null if the stored ordinal is not valid
+         */
+        protected <T> T lookup(T[] values, int ind) {
+            int ordinal = get(ind);
+
+            if ((ordinal < 0) || (ordinal >= values.length)) {
+                return(null);
+            }
+
+            return(values[ordinal]);
+        }
+
+        /**
+         * begin
+         *
+         * Writes the mode byte of a new message
+         *
+         * @param mode The mode of the message
+         *
+         * @return None
+         */
+        protected void begin(byte mode) {
+            put(UtilityInformation.MODE_BYTE_IND, mode);
+        }
+
+        /**
+         * finish
+         *
+         * Writes the end of message byte and returns the length
+         * of the message
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        protected int finish() {
+            put(getLength() - 1, UtilityInformation.END_OF_MESSAGE);
+
+            return(getLength());
+        }
+    }
+
+    /**
+     *
+     * Base class of messages that are about one elevator.
+     * The elevator number is always in the same place.
+     *
+     */
+    public static abstract class ElevatorMessage extends Message {
+        protected final static int ELEVATOR_NUM_IND = 2;
+        protected final static int WIDE_ELEVATOR_NUM_IND = 1;
+
+        /**
+         * getElevatorNum
+         *
+         * Returns the elevator number of the wrapped message
+         *
+         * @param  None
+         *
+         * @return int The elevator number
+         */
+        public int getElevatorNum() {
+            return(getNumber(at(ELEVATOR_NUM_IND, WIDE_ELEVATOR_NUM_IND)));
+        }
+
+        /**
+         * putElevatorNum
+         *
+         * Stores the elevator number of a new message
+         *
+         * @param elevatorNum  The number of the elevator
+         *
+         * @return None
+         */
+        protected void putElevatorNum(int elevatorNum) {
+            putNumber(at(ELEVATOR_NUM_IND, WIDE_ELEVATOR_NUM_IND), elevatorNum);
+        }
+
+        /**
+         * getElevatorNum
+         *
+         * Static method
+         *
+         * Returns the elevator number of the given message, which
+         * must be one of the modes that extend ElevatorMessage
+         *
+         * @param data Array containing the message
+         * @param version  The version of the format of the message
+         *
+         * @return int The elevator number
+         */
+        public static int getElevatorNum(byte[] data, int version) {
+            if (version == VERSION_1) {
+                return(data[ELEVATOR_NUM_IND]);
+            }
+
+            return(((data[WIDE_ELEVATOR_NUM_IND] & 0xFF) << 8) | (data[WIDE_ELEVATOR_NUM_IND + 1] & 0xFF));
+        }
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return ElevatorMessage This flyweight
+         */
+        public ElevatorMessage wrap(DatagramPacket packet) {
+            wrap(packet.getData(), packet.getOffset());
+
+            return(this);
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {CONFIG_MODE, Number of elevators, Number of floors, -1}
+     *     Version 2: {CONFIG_MODE, 0, Version, Number of elevators (2 bytes),
+     *                 Number of floors (2 bytes), Dispatch policy, -1}
+     *
+     * The version offered is the version of the codec the message is
+     * encoded with. Either form can be decoded whatever the version of the
+     * codec, since a version 1 message never holds 0 elevators.
+     *
+     * The dispatch policy is 0 if the sender has not chosen one, or one
+     * more than the ordinal of the DispatchPolicy. Version 1 messages can
+     * not choose a policy.
+     */
+    public static class ConfigMessage extends Message {
+        private final static int NUM_ELEVATORS_IND = 1;
+        private final static int NUM_FLOORS_IND = 2;
+        private final static int LENGTH = 4;
+
+        private final static int WIDE_MARKER_IND = 1;
+        private final static int WIDE_VERSION_IND = 2;
+        private final static int WIDE_NUM_ELEVATORS_IND = 3;
+        private final static int WIDE_NUM_FLOORS_IND = 5;
+        private final static int WIDE_POLICY_IND = 7;
+        private final static int WIDE_LENGTH = 9;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return ConfigMessage This flyweight
+         */
+        public ConfigMessage wrap(DatagramPacket packet) {
+            wrap(packet.getData(), packet.getOffset());
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a config message giving the size of the building
+         *
+         * @param numElevators The number of elevators
+         * @param numFloors    The number of floors
+         *
+         * @return int Length of the message
+         */
+        public int encode(int numElevators, int numFloors) {
+            return(encode(numElevators, numFloors, null));
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a config message giving the size of the building and the
+         * dispatch policy. Version 1 messages can not give a policy.
+         *
+         * @param numElevators The number of elevators
+         * @param numFloors    The number of floors
+         * @param policy   The dispatch policy, null if none is chosen
+         *
+         * @return int Length of the message
+         */
+        public int encode(int numElevators, int numFloors, UtilityInformation.DispatchPolicy policy) {
+            begin(UtilityInformation.CONFIG_MODE);
+
+            if (version == VERSION_1) {
+                putNumber(NUM_ELEVATORS_IND, numElevators);
+                putNumber(NUM_FLOORS_IND, numFloors);
+            } else {
+                put(WIDE_MARKER_IND, 0);
+                put(WIDE_VERSION_IND, version);
+                putNumber(WIDE_NUM_ELEVATORS_IND, numElevators);
+                putNumber(WIDE_NUM_FLOORS_IND, numFloors);
+                put(WIDE_POLICY_IND, (policy == null) ? 0 : policy.ordinal() + 1);
+            }
+
+            return(finish());
+        }
+
+        /**
+         * getVersion
+         *
+         * Returns the version of the format offered by the wrapped message
+         *
+         * @param  None
+         *
+         * @return int The version offered
+         */
+        public int getVersion() {
+            return(isWide() ? get(WIDE_VERSION_IND) : VERSION_1);
+        }
+
+        /**
+         * getNumElevators
+         *
+         * Returns the number of elevators in the wrapped message
+         *
+         * @param  None
+         *
+         * @return int The number of elevators
+         */
+        public int getNumElevators() {
+            if (isWide()) {
+                return(getWide(WIDE_NUM_ELEVATORS_IND));
+            }
+
+            return(get(NUM_ELEVATORS_IND));
+        }
+
+        /**
+         * getNumFloors
+         *
+         * Returns the number of floors in the wrapped message
+         *
+         * @param  None
+         *
+         * @return int The number of floors
+         */
+        public int getNumFloors() {
+            if (isWide()) {
+                return(getWide(WIDE_NUM_FLOORS_IND));
+            }
+
+            return(get(NUM_FLOORS_IND));
+        }
+
+        /**
+         * getDispatchPolicy
+         *
+         * Returns the dispatch policy chosen by the wrapped message
+         *
+         * @param  None
+         *
+         * @return DispatchPolicy  The policy, or null if none was chosen
+         */
+        public UtilityInformation.DispatchPolicy getDispatchPolicy() {
+            int policy = isWide() ? get(WIDE_POLICY_IND) : 0;
+
+            if ((policy <= 0) || (policy > UtilityInformation.DispatchPolicy.values().length)) {
+                return(null);
+            }
+
+            return(UtilityInformation.DispatchPolicy.values()[policy - 1]);
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(at(LENGTH, WIDE_LENGTH));
+        }
+
+        /**
+         * isWide
+         *
+         * Returns whether the wrapped message is in the wide form, whatever
+         * the version of the codec
+         *
+         * @param  None
+         *
+         * @return boolean True if the message is in the wide form
+         */
+        private boolean isWide() {
+            return(get(WIDE_MARKER_IND) == 0);
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {FLOOR_SENSOR_MODE, Floor number, Elevator number, -1}
+     *     Version 2: {FLOOR_SENSOR_MODE, Elevator number (2 bytes), Floor number (2 bytes), -1}
+     */
+    public static class FloorSensorMessage extends ElevatorMessage {
+        private final static int FLOOR_NUM_IND = 1;
+        private final static int LENGTH = 4;
+
+        private final static int WIDE_FLOOR_NUM_IND = 3;
+        private final static int WIDE_LENGTH = 6;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return FloorSensorMessage This flyweight
+         */
+        public FloorSensorMessage wrap(DatagramPacket packet) {
+            super.wrap(packet);
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message saying the given elevator reached the given floor
+         *
+         * @param floorNum The floor reached
+         * @param elevatorNum  The number of the elevator
+         *
+         * @return int Length of the message
+         */
+        public int encode(int floorNum, int elevatorNum) {
+            begin(UtilityInformation.FLOOR_SENSOR_MODE);
+            putNumber(at(FLOOR_NUM_IND, WIDE_FLOOR_NUM_IND), floorNum);
+            putElevatorNum(elevatorNum);
+
+            return(finish());
+        }
+
+        /**
+         * getFloorNum
+         *
+         * Returns the floor reached
+         *
+         * @param  None
+         *
+         * @return int The floor number
+         */
+        public int getFloorNum() {
+            return(getNumber(at(FLOOR_NUM_IND, WIDE_FLOOR_NUM_IND)));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(at(LENGTH, WIDE_LENGTH));
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {FLOOR_REQUEST_MODE, Source floor, Direction, Destination floor, -1}
+     *     Version 2: {FLOOR_REQUEST_MODE, Source floor (2 bytes), Direction,
+     *                 Destination floor (2 bytes), -1}
+     */
+    public static class FloorRequestMessage extends Message {
+        private final static int SOURCE_FLOOR_IND = 1;
+        private final static int DIRECTION_IND = 2;
+        private final static int DEST_FLOOR_IND = 3;
+        private final static int LENGTH = 5;
+
+        private final static int WIDE_DIRECTION_IND = 3;
+        private final static int WIDE_DEST_FLOOR_IND = 4;
+        private final static int WIDE_LENGTH = 7;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return FloorRequestMessage This flyweight
+         */
+        public FloorRequestMessage wrap(DatagramPacket packet) {
+            wrap(packet.getData(), packet.getOffset());
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a request made at a floor
+         *
+         * @param sourceFloor  The floor the request was made at
+         * @param dir  The direction requested
+         * @param destFloor    The floor the passenger is going to
+         *
+         * @return int Length of the message
+         */
+        public int encode(int sourceFloor, UtilityInformation.ElevatorDirection dir, int destFloor) {
+            begin(UtilityInformation.FLOOR_REQUEST_MODE);
+            putNumber(SOURCE_FLOOR_IND, sourceFloor);
+            put(at(DIRECTION_IND, WIDE_DIRECTION_IND), dir.ordinal());
+            putNumber(at(DEST_FLOOR_IND, WIDE_DEST_FLOOR_IND), destFloor);
+
+            return(finish());
+        }
+
+        /**
+         * getSourceFloor
+         *
+         * Returns the floor the request was made at
+         *
+         * @param  None
+         *
+         * @return int The source floor
+         */
+        public int getSourceFloor() {
+            return(getNumber(SOURCE_FLOOR_IND));
+        }
+
+        /**
+         * getDirection
+         *
+         * Returns the direction requested
+         *
+         * @param  None
+         *
+         * @return ElevatorDirection  The direction, null if the stored ordinal is not valid
+         */
+        public UtilityInformation.ElevatorDirection getDirection() {
+            return(lookup(DIRECTIONS, at(DIRECTION_IND, WIDE_DIRECTION_IND)));
+        }
+
+        /**
+         * getDestFloor
+         *
+         * Returns the floor the passenger is going to
+         *
+         * @param  None
+         *
+         * @return int The destination floor
+         */
+        public int getDestFloor() {
+            return(getNumber(at(DEST_FLOOR_IND, WIDE_DEST_FLOOR_IND)));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(at(LENGTH, WIDE_LENGTH));
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {ELEVATOR_BUTTON_HIT_MODE, Floor number, Elevator number, -1}
+     *     Version 2: {ELEVATOR_BUTTON_HIT_MODE, Elevator number (2 bytes), Floor number (2 bytes), -1}
+     */
+    public static class ButtonHitMessage extends ElevatorMessage {
+        private final static int FLOOR_NUM_IND = 1;
+        private final static int LENGTH = 4;
+
+        private final static int WIDE_FLOOR_NUM_IND = 3;
+        private final static int WIDE_LENGTH = 6;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return ButtonHitMessage This flyweight
+         */
+        public ButtonHitMessage wrap(DatagramPacket packet) {
+            super.wrap(packet);
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message saying a floor button was hit in the given elevator
+         *
+         * @param floorNum The floor of the button
+         * @param elevatorNum  The number of the elevator
+         *
+         * @return int Length of the message
+         */
+        public int encode(int floorNum, int elevatorNum) {
+            begin(UtilityInformation.ELEVATOR_BUTTON_HIT_MODE);
+            putNumber(at(FLOOR_NUM_IND, WIDE_FLOOR_NUM_IND), floorNum);
+            putElevatorNum(elevatorNum);
+
+            return(finish());
+        }
+
+        /**
+         * getFloorNum
+         *
+         * Returns the floor of the button hit
+         *
+         * @param  None
+         *
+         * @return int The floor number
+         */
+        public int getFloorNum() {
+            return(getNumber(at(FLOOR_NUM_IND, WIDE_FLOOR_NUM_IND)));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(at(LENGTH, WIDE_LENGTH));
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {ELEVATOR_DIRECTION_MODE, Floor number, Elevator number, Direction, -1}
+     *     Version 2: {ELEVATOR_DIRECTION_MODE, Elevator number (2 bytes), Floor number (2 bytes),
+     *                 Direction, -1}
+     */
+    public static class DirectionMessage extends ElevatorMessage {
+        private final static int FLOOR_NUM_IND = 1;
+        private final static int DIRECTION_IND = 3;
+        private final static int LENGTH = 5;
+
+        private final static int WIDE_FLOOR_NUM_IND = 3;
+        private final static int WIDE_DIRECTION_IND = 5;
+        private final static int WIDE_LENGTH = 7;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return DirectionMessage This flyweight
+         */
+        public DirectionMessage wrap(DatagramPacket packet) {
+            super.wrap(packet);
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message giving the direction of the given elevator at the given floor
+         *
+         * @param floorNum The floor of the elevator
+         * @param elevatorNum  The number of the elevator
+         * @param dir  The direction of the elevator
+         *
+         * @return int Length of the message
+         */
+        public int encode(int floorNum, int elevatorNum, UtilityInformation.ElevatorDirection dir) {
+            begin(UtilityInformation.ELEVATOR_DIRECTION_MODE);
+            putNumber(at(FLOOR_NUM_IND, WIDE_FLOOR_NUM_IND), floorNum);
+            putElevatorNum(elevatorNum);
+            put(at(DIRECTION_IND, WIDE_DIRECTION_IND), dir.ordinal());
+
+            return(finish());
+        }
+
+        /**
+         * getFloorNum
+         *
+         * Returns the floor of the elevator
+         *
+         * @param  None
+         *
+         * @return int The floor number
+         */
+        public int getFloorNum() {
+            return(getNumber(at(FLOOR_NUM_IND, WIDE_FLOOR_NUM_IND)));
+        }
+
+        /**
+         * getDirection
+         *
+         * Returns the direction of the elevator
+         *
+         * @param  None
+         *
+         * @return ElevatorDirection  The direction, null if the stored ordinal is not valid
+         */
+        public UtilityInformation.ElevatorDirection getDirection() {
+            return(lookup(DIRECTIONS, at(DIRECTION_IND, WIDE_DIRECTION_IND)));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(at(LENGTH, WIDE_LENGTH));
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {ELEVATOR_DOOR_MODE, Door state, Elevator number, -1}
+     *     Version 2: {ELEVATOR_DOOR_MODE, Elevator number (2 bytes), Door state, -1}
+     */
+    public static class DoorMessage extends ElevatorMessage {
+        private final static int DOOR_STATE_IND = 1;
+        private final static int LENGTH = 4;
+
+        private final static int WIDE_DOOR_STATE_IND = 3;
+        private final static int WIDE_LENGTH = 5;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return DoorMessage This flyweight
+         */
+        public DoorMessage wrap(DatagramPacket packet) {
+            super.wrap(packet);
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message giving the door state of the given elevator
+         *
+         * @param state    The state of the door
+         * @param elevatorNum  The number of the elevator
+         *
+         * @return int Length of the message
+         */
+        public int encode(UtilityInformation.DoorState state, int elevatorNum) {
+            begin(UtilityInformation.ELEVATOR_DOOR_MODE);
+            put(at(DOOR_STATE_IND, WIDE_DOOR_STATE_IND), state.ordinal());
+            putElevatorNum(elevatorNum);
+
+            return(finish());
+        }
+
+        /**
+         * getDoorState
+         *
+         * Returns the state of the door
+         *
+         * @param  None
+         *
+         * @return DoorState  The door state, null if the stored ordinal is not valid
+         */
+        public UtilityInformation.DoorState getDoorState() {
+            return(lookup(DOOR_STATES, at(DOOR_STATE_IND, WIDE_DOOR_STATE_IND)));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(at(LENGTH, WIDE_LENGTH));
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {SEND_DESTINATION_TO_ELEVATOR_MODE, Destination floor, Elevator number, -1}
+     *     Version 2: {SEND_DESTINATION_TO_ELEVATOR_MODE, Elevator number (2 bytes),
+     *                 Destination floor (2 bytes), -1}
+     *     Version 3: {SEND_DESTINATION_TO_ELEVATOR_MODE, Elevator number (2 bytes),
+     *                 Destination floor (2 bytes), Clear, -1}
+     *
+     * Clear is CLEAR if the elevator no longer has the destination, and 0
+     * if it has a new one. Earlier versions can only give a destination.
+     */
+    public static class DestinationMessage extends ElevatorMessage {
+        public final static int CLEAR = 1;
+
+        private final static int DEST_FLOOR_IND = 1;
+        private final static int LENGTH = 4;
+
+        private final static int WIDE_DEST_FLOOR_IND = 3;
+        private final static int WIDE_LENGTH = 6;
+
+        private final static int CLEAR_IND = 5;
+        private final static int CLEAR_LENGTH = 7;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return DestinationMessage This flyweight
+         */
+        public DestinationMessage wrap(DatagramPacket packet) {
+            super.wrap(packet);
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message giving the given elevator the given destination
+         *
+         * @param destFloor    The destination floor
+         * @param elevatorNum  The number of the elevator
+         *
+         * @return int Length of the message
+         */
+        public int encode(int destFloor, int elevatorNum) {
+            return(encode(destFloor, elevatorNum, false));
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message giving the given elevator the given destination,
+         * or taking it away
+         *
+         * @param destFloor    The destination floor
+         * @param elevatorNum  The number of the elevator
+         * @param clear    True if the elevator no longer has the destination
+         *
+         * @return int Length of the message
+         *
+         * @throws IllegalArgumentException If clear is true and the version
+         *                                  of the format can not clear
+         */
+        public int encode(int destFloor, int elevatorNum, boolean clear) {
+            begin(UtilityInformation.SEND_DESTINATION_TO_ELEVATOR_MODE);
+            putNumber(at(DEST_FLOOR_IND, WIDE_DEST_FLOOR_IND), destFloor);
+            putElevatorNum(elevatorNum);
+
+            if (canClearDestination(version)) {
+                put(CLEAR_IND, clear ? CLEAR : 0);
+            } else if (clear) {
+                throw new IllegalArgumentException("Version " + version +
+                                                   " of the message format can not clear a destination");
+            }
+
+            return(finish());
+        }
+
+        /**
+         * getDestFloor
+         *
+         * Returns the destination floor
+         *
+         * @param  None
+         *
+         * @return int The destination floor
+         */
+        public int getDestFloor() {
+            return(getNumber(at(DEST_FLOOR_IND, WIDE_DEST_FLOOR_IND)));
+        }
+
+        /**
+         * isClear
+         *
+         * Returns whether the wrapped message takes the destination away.
+         * Always false before version 3 of the format.
+         *
+         * @param  None
+         *
+         * @return boolean True if the elevator no longer has the destination
+         */
+        public boolean isClear() {
+            return(canClearDestination(version) && (get(CLEAR_IND) == CLEAR));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(canClearDestination(version) ? CLEAR_LENGTH : at(LENGTH, WIDE_LENGTH));
+        }
+    }
+
+    /**
+     * Format:
+     *     {TEARDOWN_MODE, -1}
+     */
+    public static class TeardownMessage extends Message {
+        private final static int LENGTH = 2;
+
+        /**
+         * encode
+         *
+         * Encodes a message telling the receiver to shut down
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int encode() {
+            begin(UtilityInformation.TEARDOWN_MODE);
+
+            return(finish());
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(LENGTH);
+        }
+    }
+
+    /**
+     * Format:
+     *     {CONFIG_CONFIRM_MODE, Version, -1}
+     *
+     * The version is the version of the codec the message is encoded with.
+     * Peers that only know version 1 always send 1.
+     */
+    public static class ConfigConfirmMessage extends Message {
+        private final static int VERSION_IND = 1;
+        private final static int LENGTH = 3;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return ConfigConfirmMessage This flyweight
+         */
+        public ConfigConfirmMessage wrap(DatagramPacket packet) {
+            wrap(packet.getData(), packet.getOffset());
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message confirming the config, accepting the version
+         * of the codec
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int encode() {
+            begin(UtilityInformation.CONFIG_CONFIRM_MODE);
+            put(VERSION_IND, version);
+
+            return(finish());
+        }
+
+        /**
+         * getVersion
+         *
+         * Returns the version of the format accepted by the wrapped message
+         *
+         * @param  None
+         *
+         * @return int The version accepted, VERSION_1 if the stored version is not known
+         */
+        public int getVersion() {
+            int accepted = get(VERSION_IND);
+
+            if ((accepted < VERSION_1) || (accepted > LATEST_VERSION)) {
+                return(VERSION_1);
+            }
+
+            return(accepted);
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(LENGTH);
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {ERROR_MESSAGE_MODE, Type of error, Elevator number, -1}
+     *     Version 2: {ERROR_MESSAGE_MODE, Elevator number (2 bytes), Type of error, -1}
+     */
+    public static class ErrorMessage extends ElevatorMessage {
+        private final static int ERROR_TYPE_IND = 1;
+        private final static int LENGTH = 4;
+
+        private final static int WIDE_ERROR_TYPE_IND = 3;
+        private final static int WIDE_LENGTH = 5;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return ErrorMessage This flyweight
+         */
+        public ErrorMessage wrap(DatagramPacket packet) {
+            super.wrap(packet);
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message giving an error in the given elevator
+         *
+         * @param type The type of error
+         * @param elevatorNum  The number of the elevator
+         *
+         * @return int Length of the message
+         */
+        public int encode(UtilityInformation.ErrorType type, int elevatorNum) {
+            begin(UtilityInformation.ERROR_MESSAGE_MODE);
+            put(at(ERROR_TYPE_IND, WIDE_ERROR_TYPE_IND), type.ordinal());
+            putElevatorNum(elevatorNum);
+
+            return(finish());
+        }
+
+        /**
+         * getErrorType
+         *
+         * Returns the type of error
+         *
+         * @param  None
+         *
+         * @return ErrorType  The type of error, null if the stored ordinal is not valid
+         */
+        public UtilityInformation.ErrorType getErrorType() {
+            return(lookup(ERROR_TYPES, at(ERROR_TYPE_IND, WIDE_ERROR_TYPE_IND)));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(at(LENGTH, WIDE_LENGTH));
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {FIX_ERROR_MODE, Type of error, Elevator number, -1}
+     *     Version 2: {FIX_ERROR_MODE, Elevator number (2 bytes), Type of error, -1}
+     */
+    public static class FixErrorMessage extends ElevatorMessage {
+        private final static int ERROR_TYPE_IND = 1;
+        private final static int LENGTH = 4;
+
+        private final static int WIDE_ERROR_TYPE_IND = 3;
+        private final static int WIDE_LENGTH = 5;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return FixErrorMessage This flyweight
+         */
+        public FixErrorMessage wrap(DatagramPacket packet) {
+            super.wrap(packet);
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message fixing an error in the given elevator
+         *
+         * @param type The type of error
+         * @param elevatorNum  The number of the elevator
+         *
+         * @return int Length of the message
+         */
+        public int encode(UtilityInformation.ErrorType type, int elevatorNum) {
+            begin(UtilityInformation.FIX_ERROR_MODE);
+            put(at(ERROR_TYPE_IND, WIDE_ERROR_TYPE_IND), type.ordinal());
+            putElevatorNum(elevatorNum);
+
+            return(finish());
+        }
+
+        /**
+         * getErrorType
+         *
+         * Returns the type of error fixed
+         *
+         * @param  None
+         *
+         * @return ErrorType  The type of error, null if the stored ordinal is not valid
+         */
+        public UtilityInformation.ErrorType getErrorType() {
+            return(lookup(ERROR_TYPES, at(ERROR_TYPE_IND, WIDE_ERROR_TYPE_IND)));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(at(LENGTH, WIDE_LENGTH));
+        }
+    }
+
+    /**
+     * Format:
+     *     Version 1: {FIX_DOOR_MODE, Elevator number, -1}
+     *     Version 2: {FIX_DOOR_MODE, Elevator number (2 bytes), -1}
+     */
+    public static class FixDoorMessage extends Message {
+        private final static int ELEVATOR_NUM_IND = 1;
+        private final static int LENGTH = 3;
+        private final static int WIDE_LENGTH = 4;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return FixDoorMessage This flyweight
+         */
+        public FixDoorMessage wrap(DatagramPacket packet) {
+            wrap(packet.getData(), packet.getOffset());
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message fixing the door of the given elevator
+         *
+         * @param elevatorNum  The number of the elevator
+         *
+         * @return int Length of the message
+         */
+        public int encode(int elevatorNum) {
+            begin(UtilityInformation.FIX_DOOR_MODE);
+            putNumber(ELEVATOR_NUM_IND, elevatorNum);
+
+            return(finish());
+        }
+
+        /**
+         * getElevatorNum
+         *
+         * Returns the number of the elevator with the fixed door
+         *
+         * @param  None
+         *
+         * @return int The elevator number
+         */
+        public int getElevatorNum() {
+            return(getNumber(ELEVATOR_NUM_IND));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(at(LENGTH, WIDE_LENGTH));
+        }
+    }
+
+    /**
+     * Format:
+     *     {ALL_REQUESTS_FINISHED_MODE, -1}
+     */
+    public static class AllRequestsFinishedMessage extends Message {
+        private final static int LENGTH = 2;
+
+        /**
+         * encode
+         *
+         * Encodes a message saying all requests have been served
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int encode() {
+            begin(UtilityInformation.ALL_REQUESTS_FINISHED_MODE);
+
+            return(finish());
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(LENGTH);
+        }
+    }
+
+    /**
+     * Format:
+     *     {TIMER_MODE, Timer, -1}
+     *
+     * Only sent by a subsystem to itself, when one of its timers expires.
+     */
+    public static class TimerMessage extends Message {
+        private final static int TIMER_IND = 1;
+        private final static int LENGTH = 3;
+
+        /**
+         * wrap
+         *
+         * Points this flyweight at the message in the given packet
+         *
+         * @param packet   Packet containing the message
+         *
+         * @return TimerMessage This flyweight
+         */
+        public TimerMessage wrap(DatagramPacket packet) {
+            wrap(packet.getData(), packet.getOffset());
+
+            return(this);
+        }
+
+        /**
+         * encode
+         *
+         * Encodes a message saying the given timer expired
+         *
+         * @param timer    The timer that expired
+         *
+         * @return int Length of the message
+         */
+        public int encode(int timer) {
+            begin(UtilityInformation.TIMER_MODE);
+            put(TIMER_IND, timer);
+
+            return(finish());
+        }
+
+        /**
+         * getTimer
+         *
+         * Returns the timer that expired
+         *
+         * @param  None
+         *
+         * @return int The timer
+         */
+        public int getTimer() {
+            return(get(TIMER_IND));
+        }
+
+        /**
+         * getLength
+         *
+         * Returns the number of bytes in this type of message,
+         * including the end of message byte
+         *
+         * @param  None
+         *
+         * @return int Length of the message
+         */
+        public int getLength() {
+            return(LENGTH);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.DatagramPacket;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MessageCodecTest {
+
+	private MessageCodec sendCodec;
+	private MessageCodec receiveCodec;
+
+	/**
+	 * Create the codecs used to encode and decode messages
+	 *
+	 * @throws Exception
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		sendCodec = new MessageCodec();
+		receiveCodec = new MessageCodec();
+	}
+
+	/**
+	 * Returns a packet containing the first length bytes of the send buffer
+	 *
+	 * @param length Number of bytes in the message
+	 *
+	 * @return DatagramPacket containing a copy of the message
+	 */
+	private DatagramPacket sent(int length) {
+		byte[] buf = Arrays.copyOf(sendCodec.getBuffer(), length);
+		return (new DatagramPacket(buf, buf.length));
+	}
+
+	/**
+	 * Test that encoded messages are right-sized and use the existing layout
+	 */
+	@Test
+	void testEncodedLayout() {
+		int length = sendCodec.direction.encode(3, 1, UtilityInformation.ElevatorDirection.DOWN);
+		byte[] expected = { UtilityInformation.ELEVATOR_DIRECTION_MODE, 3, 1, 2, UtilityInformation.END_OF_MESSAGE };
+		assertArrayEquals(expected, Arrays.copyOf(sendCodec.getBuffer(), length));
+
+		length = sendCodec.teardown.encode();
+		assertEquals(2, length);
+
+		length = sendCodec.fixDoor.encode(2);
+		expected = new byte[] { UtilityInformation.FIX_DOOR_MODE, 2, UtilityInformation.END_OF_MESSAGE };
+		assertArrayEquals(expected, Arrays.copyOf(sendCodec.getBuffer(), length));
+	}
+
+	/**
+	 * Test that decoding an encoded message gives back every field
+	 */
+	@Test
+	void testRoundTrip() {
+		DatagramPacket packet = sent(sendCodec.floorRequest.encode(4, UtilityInformation.ElevatorDirection.UP, 9));
+		MessageCodec.FloorRequestMessage request = receiveCodec.floorRequest.wrap(packet);
+
+		assertEquals(UtilityInformation.FLOOR_REQUEST_MODE, MessageCodec.getMode(packet));
+		assertEquals(4, request.getSourceFloor());
+		assertEquals(UtilityInformation.ElevatorDirection.UP, request.getDirection());
+		assertEquals(9, request.getDestFloor());
+
+		packet = sent(sendCodec.error.encode(UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR, 3));
+		MessageCodec.ErrorMessage error = receiveCodec.error.wrap(packet);
+
+		assertEquals(UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR, error.getErrorType());
+		assertEquals(3, error.getElevatorNum());
+
+		packet = sent(sendCodec.config.encode(4, 22));
+		assertEquals(4, receiveCodec.config.wrap(packet).getNumElevators());
+		assertEquals(22, receiveCodec.config.getNumFloors());
+
+		packet = sent(sendCodec.timer.encode(UtilityInformation.ASSIGNMENT_TIMER));
+		assertEquals(UtilityInformation.TIMER_MODE, MessageCodec.getMode(packet));
+		assertEquals(UtilityInformation.ASSIGNMENT_TIMER, receiveCodec.timer.wrap(packet).getTimer());
+	}
+
+	/**
+	 * Test that version 3 can give a destination or take it away, and that
+	 * earlier versions keep the destination layout peers that only know
+	 * them read, so they can not take one away
+	 */
+	@Test
+	void testDestinationClear() {
+		sendCodec.setVersion(MessageCodec.VERSION_3);
+		receiveCodec.setVersion(MessageCodec.VERSION_3);
+
+		DatagramPacket packet = sent(sendCodec.destination.encode(6, 2, true));
+		assertEquals(7, packet.getLength());
+		assertEquals(6, receiveCodec.destination.wrap(packet).getDestFloor());
+		assertEquals(2, receiveCodec.destination.getElevatorNum());
+		assertTrue(receiveCodec.destination.isClear());
+		assertFalse(receiveCodec.destination.wrap(sent(sendCodec.destination.encode(6, 2))).isClear());
+
+		for (int version = MessageCodec.VERSION_1; version < MessageCodec.VERSION_3; version++) {
+			sendCodec.setVersion(version);
+			receiveCodec.setVersion(version);
+
+			packet = sent(sendCodec.destination.encode(6, 2));
+			assertEquals((version == MessageCodec.VERSION_1) ? 4 : 6, packet.getLength());
+			assertEquals(6, receiveCodec.destination.wrap(packet).getDestFloor());
+			assertFalse(receiveCodec.destination.isClear());
+			assertThrows(IllegalArgumentException.class, () -> sendCodec.destination.encode(6, 2, true));
+		}
+	}
+
+	/**
+	 * Test that an invalid enum value decodes to null
+	 */
+	@Test
+	void testInvalidDirection() {
+		byte[] buf = { UtilityInformation.ELEVATOR_DIRECTION_MODE, 0, 0, 7, UtilityInformation.END_OF_MESSAGE };
+
+		assertNull(receiveCodec.direction.wrap(new DatagramPacket(buf, buf.length)).getDirection());
+	}
+
+	/**
+	 * Test that version 2 holds floor and elevator numbers too large for a
+	 * byte, with the elevator number right after the mode
+	 */
+	@Test
+	void testWideFormat() {
+		sendCodec.setVersion(MessageCodec.VERSION_2);
+		receiveCodec.setVersion(MessageCodec.VERSION_2);
+
+		int length = sendCodec.direction.encode(300, 130, UtilityInformation.ElevatorDirection.UP);
+		byte[] expected = { UtilityInformation.ELEVATOR_DIRECTION_MODE, 0, (byte) 130, 1, 44, 1,
+				UtilityInformation.END_OF_MESSAGE };
+		assertArrayEquals(expected, Arrays.copyOf(sendCodec.getBuffer(), length));
+
+		DatagramPacket packet = sent(sendCodec.floorRequest.encode(1000, UtilityInformation.ElevatorDirection.DOWN, 2));
+		MessageCodec.FloorRequestMessage request = receiveCodec.floorRequest.wrap(packet);
+
+		assertEquals(1000, request.getSourceFloor());
+		assertEquals(UtilityInformation.ElevatorDirection.DOWN, request.getDirection());
+		assertEquals(2, request.getDestFloor());
+
+		packet = sent(sendCodec.error.encode(UtilityInformation.ErrorType.DOOR_STUCK_ERROR, 200));
+		assertEquals(200, MessageCodec.ElevatorMessage.getElevatorNum(packet.getData(), MessageCodec.VERSION_2));
+		assertEquals(UtilityInformation.ErrorType.DOOR_STUCK_ERROR, receiveCodec.error.wrap(packet).getErrorType());
+	}
+
+	/**
+	 * Test that a CONFIG message can be read whatever version it offers,
+	 * and that numbers too large for the version are refused
+	 */
+	@Test
+	void testConfigVersions() {
+		DatagramPacket packet = sent(sendCodec.config.encode(4, 22));
+		MessageCodec.ConfigMessage config = receiveCodec.config.wrap(packet);
+
+		assertEquals(MessageCodec.VERSION_1, config.getVersion());
+		assertEquals(4, config.getNumElevators());
+		assertEquals(22, config.getNumFloors());
+		assertEquals(null, config.getDispatchPolicy());
+		assertThrows(IllegalArgumentException.class, () -> sendCodec.config.encode(64, 150));
+
+		sendCodec.setVersion(MessageCodec.VERSION_2);
+		packet = sent(sendCodec.config.encode(64, 150));
+		config = receiveCodec.config.wrap(packet);
+
+		assertEquals(MessageCodec.VERSION_2, config.getVersion());
+		assertEquals(64, config.getNumElevators());
+		assertEquals(150, config.getNumFloors());
+		assertEquals(null, config.getDispatchPolicy());
+
+		packet = sent(sendCodec.config.encode(64, 150, UtilityInformation.DispatchPolicy.COLLECTIVE_LOOK));
+		config = receiveCodec.config.wrap(packet);
+		assertEquals(UtilityInformation.DispatchPolicy.COLLECTIVE_LOOK, config.getDispatchPolicy());
+		assertEquals(150, config.getNumFloors());
+
+		packet = sent(sendCodec.configConfirm.encode());
+		assertEquals(MessageCodec.VERSION_2, receiveCodec.configConfirm.wrap(packet).getVersion());
+	}
+}
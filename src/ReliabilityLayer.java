@@ -0,0 +1,925 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * This class adds optional reliable delivery under a ServerPattern.
+ *
+ * Messages sent reliably are given a header and kept until they are
+ * acknowledged. Each destination gets its own stream of sequence numbers,
+ * identified by a random stream id. Messages that are not acknowledged in
+ * time are sent again. A message is also sent again as soon as an ack shows
+ * that a later message arrived without it.
+ *
+ * Received reliable messages are acknowledged straight away with a
+ * cumulative ack and a bitmap of the messages received after the first
+ * missing one. Duplicates are dropped, and everything else is handed on
+ * as soon as it arrives, since the signal queue reorders messages by
+ * priority anyway.
+ *
+ * Format of a reliable message:
+ *     {RELIABLE_MODE, Reply port (2 bytes), Stream id (4 bytes),
+ *      Sequence number (4 bytes), Message...}
+ *
+ * Format of an ack:
+ *     {ACK_MODE, Stream id (4 bytes), Next expected sequence number (4 bytes),
+ *      Received after next expected (8 bytes, bit i = next expected + 1 + i), -1}
+ *
+ */
+public class ReliabilityLayer implements Runnable {
+    private final static int REPLY_PORT_IND = 1;
+    private final static int STREAM_ID_IND = 3;
+    private final static int SEQUENCE_IND = 7;
+
+    private final static int ACK_STREAM_ID_IND = 1;
+    private final static int ACK_NEXT_EXPECTED_IND = 5;
+    private final static int ACK_RECEIVED_BITS_IND = 9;
+    private final static int ACK_SIZE = 18;
+
+    // Number of sequence numbers covered by the received bitmap of an ack
+    private final static int ACK_BITS = 64;
+
+    // Retransmit timeouts stop doubling after this many retransmits
+    private final static int MAX_BACKOFF_SHIFT = 6;
+
+    private int replyPort;
+
+    private volatile boolean enabled;
+
+    // Transport that reliable messages, retransmits and acks are sent with,
+    // or null to send them with a socket of this layer
+    private volatile Transport transport;
+    private volatile DatagramSocket socket;
+
+    private ConcurrentHashMap<InetAddress, ConcurrentHashMap<Integer, OutgoingStream>> outgoingByAddress;
+    private ConcurrentHashMap<Integer, OutgoingStream> outgoingById;
+    private ConcurrentHashMap<Integer, IncomingStream> incomingById;
+
+    // Packets that reliable messages are written into
+    private SignalBufferPool framePool;
+
+    // Buffer and packet reused for every ack (guarded by ackPacket)
+    private byte[] ackBuffer;
+    private DatagramPacket ackPacket;
+
+    private Thread retransmitThread;
+    private volatile boolean run;
+
+    // Clock that send times and retransmit timeouts are measured with
+    private volatile SimulationClock clock;
+
+    private AtomicLong numRetransmits;
+    private AtomicLong numDuplicates;
+
+    /**
+     * ReliabilityLayer
+     *
+     * Constructor
+     *
+     * Creates a new ReliabilityLayer for a ServerPattern
+     * that receives on the given port.
+     *
+     * @param replyPort    Port that acks for messages sent by this layer are sent to
+     * @param enabled  Whether messages are sent reliably
+     *
+     * @return None
+     */
+    public ReliabilityLayer(int replyPort, boolean enabled) {
+        this.replyPort = replyPort;
+        this.enabled = enabled;
+
+        outgoingByAddress = new ConcurrentHashMap<InetAddress, ConcurrentHashMap<Integer, OutgoingStream>>();
+        outgoingById = new ConcurrentHashMap<Integer, OutgoingStream>();
+        incomingById = new ConcurrentHashMap<Integer, IncomingStream>();
+
+        framePool = new SignalBufferPool(UtilityInformation.RELIABLE_WINDOW_SIZE, UtilityInformation.MAX_BYTE_ARRAY_SIZE);
+
+        ackBuffer = new byte[ACK_SIZE];
+        ackPacket = new DatagramPacket(ackBuffer, ACK_SIZE);
+
+        numRetransmits = new AtomicLong(0);
+        numDuplicates = new AtomicLong(0);
+
+        clock = SimulationClock.real();
+        run = true;
+    }
+
+    /**
+     * setTransport
+     *
+     * Changes the transport that reliable messages, retransmits and acks
+     * are sent with, so they reach peers that only read that transport
+     *
+     * @param transport    The transport, null to send with a socket of this layer
+     *
+     * @return None
+     */
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * setClock
+     *
+     * Changes the clock that send times and retransmit timeouts are
+     * measured with
+     *
+     * @param newClock The new clock
+     *
+     * @return None
+     */
+    public void setClock(SimulationClock newClock) {
+        clock = newClock;
+    }
+
+    /**
+     * setEnabled
+     *
+     * Changes whether messages are sent reliably
+     *
+     * @param enabled  True to send messages reliably
+     *
+     * @return None
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * isEnabled
+     *
+     * Returns whether messages are sent reliably
+     *
+     * @param  None
+     *
+     * @return boolean True if messages are sent reliably
+     */
+    public boolean isEnabled() {
+        return(enabled);
+    }
+
+    /**
+     * send
+     *
+     * Sends the message in the given packet reliably. Waits if too many
+     * messages to the same destination are still unacknowledged.
+     * Messages too large to fit a header are sent unreliably.
+     *
+     * @param packet   Packet containing the message and its destination
+     *
+     * @return None
+     *
+     * @throws IOException If the message could not be sent, including an
+     *                     InterruptedIOException if the thread was
+     *                     interrupted while waiting to send it
+     */
+    public void send(DatagramPacket packet) throws IOException {
+        if (packet.getLength() > UtilityInformation.MAX_PAYLOAD_SIZE) {
+            Log.warn("Message too large to send reliably, sending it unreliably.");
+            sendFrame(packet);
+            return;
+        }
+
+        startRetransmitting();
+
+        getOutgoingStream(packet.getAddress(), packet.getPort()).send(packet);
+    }
+
+    /**
+     * signalReceived
+     *
+     * Handles a received ack or reliable message.
+     * Acks are applied to the stream they are for.
+     * Reliable messages are acknowledged, and their header is removed so
+     * the packet only contains the message.
+     *
+     * @param packet   The received packet
+     *
+     * @return boolean True if the packet now contains a message to handle,
+     *                 false if it was an ack or a duplicate
+     */
+    public boolean signalReceived(DatagramPacket packet) {
+        byte[] data = packet.getData();
+        int offset = packet.getOffset();
+        byte mode = data[offset + UtilityInformation.MODE_BYTE_IND];
+
+        if (mode == UtilityInformation.ACK_MODE) {
+            if (packet.getLength() >= ACK_SIZE) {
+                OutgoingStream stream = outgoingById.get(getInt(data, offset + ACK_STREAM_ID_IND));
+
+                if (stream != null) {
+                    stream.ackReceived(getInt(data, offset + ACK_NEXT_EXPECTED_IND),
+                                       getLong(data, offset + ACK_RECEIVED_BITS_IND));
+                }
+            }
+
+            return(false);
+        }
+
+        if (packet.getLength() < UtilityInformation.RELIABLE_HEADER_SIZE) {
+            return(false);
+        }
+
+        int senderPort = ((data[offset + REPLY_PORT_IND] & 0xFF) << 8) | (data[offset + REPLY_PORT_IND + 1] & 0xFF);
+        int streamId = getInt(data, offset + STREAM_ID_IND);
+        int seq = getInt(data, offset + SEQUENCE_IND);
+
+        IncomingStream stream = incomingById.get(streamId);
+        if (stream == null) {
+            stream = new IncomingStream();
+            IncomingStream existing = incomingById.putIfAbsent(streamId, stream);
+
+            if (existing != null) {
+                stream = existing;
+            }
+        }
+
+        // Only the receiver thread uses incoming streams
+        boolean isNew = stream.accept(seq);
+
+        sendAck(packet.getAddress(), senderPort, streamId, stream.nextExpected, stream.receivedBits);
+
+        if (!isNew) {
+            numDuplicates.incrementAndGet();
+            return(false);
+        }
+
+        // Move the message to the start of the packet
+        int length = packet.getLength() - UtilityInformation.RELIABLE_HEADER_SIZE;
+        System.arraycopy(data, offset + UtilityInformation.RELIABLE_HEADER_SIZE, data, offset, length);
+        packet.setLength(length);
+        SignalBufferPool.clearUnused(packet);
+
+        return(true);
+    }
+
+    /**
+     * getNumRetransmits
+     *
+     * Returns the number of messages that have been sent again
+     *
+     * @param  None
+     *
+     * @return long    Number of retransmits
+     */
+    public long getNumRetransmits() {
+        return(numRetransmits.get());
+    }
+
+    /**
+     * getNumDuplicates
+     *
+     * Returns the number of duplicate messages that were dropped
+     *
+     * @param  None
+     *
+     * @return long    Number of dropped duplicates
+     */
+    public long getNumDuplicates() {
+        return(numDuplicates.get());
+    }
+
+    /**
+     * teardown
+     *
+     * Stops retransmitting and closes the socket of this layer. The
+     * transport is left to its owner.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void teardown() {
+        run = false;
+
+        for (OutgoingStream stream : outgoingById.values()) {
+            stream.close();
+        }
+
+        if (retransmitThread != null) {
+            retransmitThread.interrupt();
+        }
+
+        DatagramSocket toClose = socket;
+        if (toClose != null) {
+            toClose.close();
+        }
+    }
+
+    /**
+     * run
+     *
+     * Overridden
+     *
+     * Sends again every message that has not been acknowledged in time,
+     * until this layer is torn down.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    @Override
+    public void run() {
+        long tickMillis = Math.max(1, UtilityInformation.RETRANSMIT_TIMEOUT / 4);
+
+        while (run) {
+            try {
+                clock.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            retransmitDue();
+        }
+    }
+
+    /**
+     * retransmitDue
+     *
+     * Sends again every message whose retransmit timeout has passed,
+     * and gives up on messages that have been sent too many times
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    void retransmitDue() {
+        long now = clock.nanoTime();
+
+        for (OutgoingStream stream : outgoingById.values()) {
+            stream.retransmitDue(now);
+        }
+    }
+
+    /**
+     * startRetransmitting
+     *
+     * Starts the thread that sends unacknowledged messages again,
+     * if it is not already running.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    private synchronized void startRetransmitting() {
+        if (retransmitThread == null) {
+            retransmitThread = new Thread(this, "retransmit");
+            retransmitThread.setDaemon(true);
+            retransmitThread.start();
+        }
+    }
+
+    /**
+     * sendFrame
+     *
+     * Sends the given packet with the transport of this layer, or with
+     * its socket if it has no transport
+     *
+     * @param packet   Packet containing the message and its destination
+     *
+     * @return None
+     *
+     * @throws IOException If the message could not be sent
+     */
+    private void sendFrame(DatagramPacket packet) throws IOException {
+        Transport current = transport;
+
+        if (current != null) {
+            current.send(packet);
+        } else {
+            getSocket().send(packet);
+        }
+    }
+
+    /**
+     * getSocket
+     *
+     * Returns the socket used by this layer, creating it if needed
+     *
+     * @param  None
+     *
+     * @return DatagramSocket  The socket
+     *
+     * @throws SocketException If the socket could not be created
+     */
+    private DatagramSocket getSocket() throws SocketException {
+        DatagramSocket current = socket;
+
+        if (current == null) {
+            synchronized (this) {
+                if (socket == null) {
+                    socket = new DatagramSocket();
+                }
+
+                current = socket;
+            }
+        }
+
+        return(current);
+    }
+
+    /**
+     * getOutgoingStream
+     *
+     * Returns the stream used to send messages to the given destination,
+     * creating it if needed
+     *
+     * @param address  Address of the destination
+     * @param port Port of the destination
+     *
+     * @return OutgoingStream  The stream to the destination
+     */
+    private OutgoingStream getOutgoingStream(InetAddress address, int port) {
+        ConcurrentHashMap<Integer, OutgoingStream> byPort = outgoingByAddress.get(address);
+
+        if (byPort == null) {
+            outgoingByAddress.putIfAbsent(address, new ConcurrentHashMap<Integer, OutgoingStream>());
+            byPort = outgoingByAddress.get(address);
+        }
+
+        OutgoingStream stream = byPort.get(port);
+
+        if (stream == null) {
+            synchronized (byPort) {
+                stream = byPort.get(port);
+
+                if (stream == null) {
+                    int streamId;
+                    do {
+                        streamId = ThreadLocalRandom.current().nextInt();
+                    } while (outgoingById.containsKey(streamId));
+
+                    stream = new OutgoingStream(streamId, address, port);
+                    outgoingById.put(streamId, stream);
+                    byPort.put(port, stream);
+                }
+            }
+        }
+
+        return(stream);
+    }
+
+    /**
+     * sendAck
+     *
+     * Sends an ack for the given stream
+     *
+     * @param address  Address to send the ack to
+     * @param port Port to send the ack to
+     * @param streamId The stream being acknowledged
+     * @param nextExpected The next sequence number expected in order
+     * @param receivedBits Bitmap of the messages received after nextExpected
+     *
+     * @return None
+     */
+    private void sendAck(InetAddress address, int port, int streamId, int nextExpected, long receivedBits) {
+        synchronized (ackPacket) {
+            ackBuffer[UtilityInformation.MODE_BYTE_IND] = UtilityInformation.ACK_MODE;
+            putInt(ackBuffer, ACK_STREAM_ID_IND, streamId);
+            putInt(ackBuffer, ACK_NEXT_EXPECTED_IND, nextExpected);
+            putLong(ackBuffer, ACK_RECEIVED_BITS_IND, receivedBits);
+            ackBuffer[ACK_SIZE - 1] = UtilityInformation.END_OF_MESSAGE;
+
+            ackPacket.setAddress(address);
+            ackPacket.setPort(port);
+
+            try {
+                sendFrame(ackPacket);
+            } catch (IOException e) {
+                if (run) {
+                    Log.warn("Failed to send ack: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * putInt
+     *
+     * Static method
+     *
+     * Stores the given int big-endian at the given index
+     *
+     * @param data Array to store into
+     * @param ind  Index of the first byte
+     * @param value    The value to store
+     *
+     * @return None
+     */
+    private static void putInt(byte[] data, int ind, int value) {
+        data[ind] = (byte) (value >>> 24);
+        data[ind + 1] = (byte) (value >>> 16);
+        data[ind + 2] = (byte) (value >>> 8);
+        data[ind + 3] = (byte) value;
+    }
+
+    /**
+     * getInt
+     *
+     * Static method
+     *
+     * Returns the big-endian int at the given index
+     *
+     * @param data Array to read from
+     * @param ind  Index of the first byte
+     *
+     * @return int The stored value
+     */
+    private static int getInt(byte[] data, int ind) {
+        return(((data[ind] & 0xFF) << 24) | ((data[ind + 1] & 0xFF) << 16) |
+               ((data[ind + 2] & 0xFF) << 8) | (data[ind + 3] & 0xFF));
+    }
+
+    /**
+     * putLong
+     *
+     * Static method
+     *
+     * Stores the given long big-endian at the given index
+     *
+     * @param data Array to store into
+     * @param ind  Index of the first byte
+     * @param value    The value to store
+     *
+     * @return None
+     */
+    private static void putLong(byte[] data, int ind, long value) {
+        putInt(data, ind, (int) (value >>> 32));
+        putInt(data, ind + 4, (int) value);
+    }
+
+    /**
+     * getLong
+     *
+     * Static method
+     *
+     * Returns the big-endian long at the given index
+     *
+     * @param data Array to read from
+     * @param ind  Index of the first byte
+     *
+     * @return long    The stored value
+     */
+    private static long getLong(byte[] data, int ind) {
+        return(((long) getInt(data, ind) << 32) | (getInt(data, ind + 4) & 0xFFFFFFFFL));
+    }
+
+    /**
+     *
+     * Messages sent to one destination. Keeps every message that has not
+     * been acknowledged, indexed by sequence number.
+     *
+     */
+    private class OutgoingStream {
+        private int streamId;
+        private InetAddress address;
+        private int port;
+
+        // Next sequence number to send, and oldest unacknowledged one
+        private int nextSeq;
+        private int oldestSeq;
+
+        // Unacknowledged messages and information about each send
+        private DatagramPacket[] frames;
+        private long[] sendTimes;
+        private int[] numSends;
+        private boolean[] fastRetransmitted;
+        private int mask;
+
+        private boolean closed;
+
+        /**
+         * OutgoingStream
+         *
+         * Constructor
+         *
+         * Creates an empty stream of messages to the given destination
+         *
+         * @param streamId Id of the stream, sent in every frame
+         * @param address  Address of the destination
+         * @param port Port of the destination
+         *
+         * @return None
+         */
+        public OutgoingStream(int streamId, InetAddress address, int port) {
+            this.streamId = streamId;
+            this.address = address;
+            this.port = port;
+
+            int window = Integer.highestOneBit(Math.min(UtilityInformation.RELIABLE_WINDOW_SIZE, ACK_BITS));
+            frames = new DatagramPacket[window];
+            sendTimes = new long[window];
+            numSends = new int[window];
+            fastRetransmitted = new boolean[window];
+            mask = window - 1;
+
+            nextSeq = 0;
+            oldestSeq = 0;
+            closed = false;
+        }
+
+        /**
+         * send
+         *
+         * Adds a header to the given message, keeps it until it is
+         * acknowledged, and sends it. Waits while the window is full.
+         *
+         * @param packet   Packet containing the message and its destination
+         *
+         * @return None
+         *
+         * @throws IOException If the message could not be sent
+         * @throws InterruptedIOException If the thread was interrupted while
+         *                                waiting, so the message was not sent
+         */
+        public synchronized void send(DatagramPacket packet) throws IOException {
+            while (!closed && (nextSeq - oldestSeq >= frames.length)) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(
+                            String.format("Interrupted waiting to send to port %d, message not sent", port));
+                }
+            }
+
+            if (closed) {
+                return;
+            }
+
+            DatagramPacket frame = framePool.acquire();
+            byte[] data = frame.getData();
+
+            data[UtilityInformation.MODE_BYTE_IND] = UtilityInformation.RELIABLE_MODE;
+            data[REPLY_PORT_IND] = (byte) (replyPort >>> 8);
+            data[REPLY_PORT_IND + 1] = (byte) replyPort;
+            putInt(data, STREAM_ID_IND, streamId);
+            putInt(data, SEQUENCE_IND, nextSeq);
+            System.arraycopy(packet.getData(), packet.getOffset(), data,
+                             UtilityInformation.RELIABLE_HEADER_SIZE, packet.getLength());
+
+            frame.setLength(UtilityInformation.RELIABLE_HEADER_SIZE + packet.getLength());
+            frame.setAddress(address);
+            frame.setPort(port);
+
+            int slot = nextSeq & mask;
+            frames[slot] = frame;
+            sendTimes[slot] = clock.nanoTime();
+            numSends[slot] = 1;
+            fastRetransmitted[slot] = false;
+
+            nextSeq++;
+
+            sendFrame(frame);
+        }
+
+        /**
+         * ackReceived
+         *
+         * Drops every message covered by the given ack. Messages that are
+         * missing before a message the ack shows as received are sent again.
+         *
+         * @param nextExpected The next sequence number expected in order
+         * @param receivedBits Bitmap of the messages received after nextExpected
+         *
+         * @return None
+         */
+        public synchronized void ackReceived(int nextExpected, long receivedBits) {
+            // Ignore acks for messages that were never sent
+            if (nextExpected - nextSeq > 0) {
+                return;
+            }
+
+            // Cumulative ack
+            while (oldestSeq - nextExpected < 0) {
+                release(oldestSeq);
+                oldestSeq++;
+            }
+
+            // Selective acks
+            int lastReceived = nextExpected;
+            for (int i = 0; i < ACK_BITS; i++) {
+                if ((receivedBits & (1L << i)) != 0) {
+                    int seq = nextExpected + 1 + i;
+
+                    if ((seq - oldestSeq >= 0) && (seq - nextSeq < 0)) {
+                        release(seq);
+                    }
+
+                    lastReceived = seq;
+                }
+            }
+
+            // Send messages missing before the last received one again
+            long now = clock.nanoTime();
+            for (int seq = oldestSeq; seq - lastReceived < 0; seq++) {
+                int slot = seq & mask;
+
+                if ((frames[slot] != null) && !fastRetransmitted[slot]) {
+                    fastRetransmitted[slot] = true;
+                    resend(slot, now);
+                }
+            }
+
+            advanceOldest();
+            notifyAll();
+        }
+
+        /**
+         * retransmitDue
+         *
+         * Sends again every message whose retransmit timeout has passed.
+         * Messages that have been sent too many times are given up on.
+         *
+         * @param now  The current time (in nanoseconds)
+         *
+         * @return None
+         */
+        public synchronized void retransmitDue(long now) {
+            long timeout = UtilityInformation.RETRANSMIT_TIMEOUT * 1000000L;
+
+            for (int seq = oldestSeq; seq - nextSeq < 0; seq++) {
+                int slot = seq & mask;
+
+                if (frames[slot] == null) {
+                    continue;
+                }
+
+                int shift = Math.min(numSends[slot] - 1, MAX_BACKOFF_SHIFT);
+
+                if (now - sendTimes[slot] >= (timeout << shift)) {
+                    if (numSends[slot] > UtilityInformation.MAX_RETRANSMITS) {
+                        Log.warn(String.format("Giving up on message %d to port %d.", seq, port));
+                        release(seq);
+                    } else {
+                        resend(slot, now);
+                    }
+                }
+            }
+
+            advanceOldest();
+            notifyAll();
+        }
+
+        /**
+         * close
+         *
+         * Drops every unacknowledged message and wakes any waiting sender
+         *
+         * @param  None
+         *
+         * @return None
+         */
+        public synchronized void close() {
+            closed = true;
+
+            for (int seq = oldestSeq; seq - nextSeq < 0; seq++) {
+                release(seq);
+            }
+            oldestSeq = nextSeq;
+
+            notifyAll();
+        }
+
+        /**
+         * resend
+         *
+         * Sends the message in the given slot again and records the send
+         *
+         * @param slot Slot of the message in the window
+         * @param now  Time of the send, in nanoseconds
+         *
+         * @return None
+         */
+        private void resend(int slot, long now) {
+            sendTimes[slot] = now;
+            numSends[slot]++;
+            numRetransmits.incrementAndGet();
+
+            try {
+                sendFrame(frames[slot]);
+            } catch (IOException e) {
+                if (run) {
+                    Log.warn("Failed to retransmit: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * release
+         *
+         * Returns the frame of the given sequence number to the pool,
+         * if it is still held
+         *
+         * @param seq  Sequence number of the message
+         *
+         * @return None
+         */
+        private void release(int seq) {
+            int slot = seq & mask;
+
+            if (frames[slot] != null) {
+                framePool.release(frames[slot]);
+                frames[slot] = null;
+            }
+        }
+
+        /**
+         * advanceOldest
+         *
+         * Moves the oldest unacknowledged sequence number past every
+         * message that has been acknowledged
+         *
+         * @param  None
+         *
+         * @return None
+         */
+        private void advanceOldest() {
+            while ((oldestSeq != nextSeq) && (frames[oldestSeq & mask] == null)) {
+                oldestSeq++;
+            }
+        }
+    }
+
+    /**
+     *
+     * Messages received from one stream. Only used by the receiver thread.
+     *
+     */
+    private static class IncomingStream {
+        // Next sequence number expected in order
+        private int nextExpected;
+
+        // Bit i is set if nextExpected + 1 + i has been received
+        private long receivedBits;
+
+        /**
+         * IncomingStream
+         *
+         * Constructor
+         *
+         * Creates a stream that expects sequence number 0 next
+         *
+         * @param  None
+         *
+         * @return None
+         */
+        public IncomingStream() {
+            // Every stream starts at sequence number 0
+            nextExpected = 0;
+            receivedBits = 0;
+        }
+
+        /**
+         * accept
+         *
+         * Records that the given sequence number was received
+         *
+         * @param seq  The received sequence number
+         *
+         * @return boolean True if it had not been received before
+         */
+        public boolean accept(int seq) {
+            int diff = seq - nextExpected;
+
+            if (diff < 0) {
+                return(false);
+            }
+
+            if (diff == 0) {
+                // Move past this message and every message received after it
+                while (true) {
+                    nextExpected++;
+                    boolean next = (receivedBits & 1) != 0;
+                    receivedBits >>>= 1;
+
+                    if (!next) {
+                        break;
+                    }
+                }
+
+                return(true);
+            }
+
+            if (diff > ACK_BITS) {
+                // Too far ahead to track, the sender will send it again
+                return(false);
+            }
+
+            long bit = 1L << (diff - 1);
+            if ((receivedBits & bit) != 0) {
+                return(false);
+            }
+
+            receivedBits |= bit;
+            return(true);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReliabilityLayerTest {
+
+	// Port that acks sent by the layer under test go to (nothing listens there)
+	private static final int ACK_PORT = 7199;
+
+	// Port that messages sent by the layer under test go to
+	private static final int PEER_PORT = 7198;
+
+	private static final int STREAM_ID = 42;
+
+	// Index of the stream id and sequence number in a reliable message
+	private static final int STREAM_ID_IND = 3;
+	private static final int SEQUENCE_IND = 7;
+
+	private ReliabilityLayer layer;
+	private SimulationClock.ManualClock clock;
+
+	// Copies of every packet the layer has sent, in the order they were sent
+	private List<byte[]> sent;
+
+	/**
+	 * Create a reliability layer that sends with a transport recording
+	 * every packet, and measures time with a clock that only moves when
+	 * a test advances it
+	 *
+	 * @throws Exception
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		sent = Collections.synchronizedList(new ArrayList<byte[]>());
+		clock = SimulationClock.manual();
+
+		layer = new ReliabilityLayer(ACK_PORT, true);
+		layer.setClock(clock);
+		layer.setTransport(new Transport(null, "recording") {
+			@Override
+			public void start() {
+			}
+
+			@Override
+			public void send(DatagramPacket packet) throws IOException {
+				sent.add(Arrays.copyOfRange(packet.getData(), packet.getOffset(),
+						packet.getOffset() + packet.getLength()));
+			}
+
+			@Override
+			public int getLocalPort() {
+				return (ACK_PORT);
+			}
+
+			@Override
+			public boolean isReliable() {
+				return (false);
+			}
+
+			@Override
+			public void teardown() {
+			}
+		});
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		layer.teardown();
+	}
+
+	/**
+	 * Create a reliable message with the given sequence number
+	 *
+	 * @param seq     Sequence number of the message
+	 * @param message The message to send reliably
+	 *
+	 * @return DatagramPacket containing the reliable message
+	 */
+	private DatagramPacket frame(int seq, byte[] message) throws Exception {
+		byte[] buf = new byte[UtilityInformation.RELIABLE_HEADER_SIZE + message.length];
+
+		buf[0] = UtilityInformation.RELIABLE_MODE;
+		buf[1] = (byte) (ACK_PORT >>> 8);
+		buf[2] = (byte) ACK_PORT;
+		buf[6] = STREAM_ID;
+		buf[10] = (byte) seq;
+		System.arraycopy(message, 0, buf, UtilityInformation.RELIABLE_HEADER_SIZE, message.length);
+
+		return (new DatagramPacket(buf, buf.length, InetAddress.getLocalHost(), ACK_PORT));
+	}
+
+	/**
+	 * Test that the header is removed from a received message
+	 */
+	@Test
+	void testHeaderRemoved() throws Exception {
+		byte[] message = { UtilityInformation.FLOOR_SENSOR_MODE, 3, 1, UtilityInformation.END_OF_MESSAGE };
+		DatagramPacket packet = frame(0, message);
+
+		assertTrue(layer.signalReceived(packet));
+		assertEquals(message.length, packet.getLength());
+		assertArrayEquals(message, Arrays.copyOf(packet.getData(), packet.getLength()));
+	}
+
+	/**
+	 * Test that duplicates are dropped, including messages received out of
+	 * order
+	 */
+	@Test
+	void testDuplicatesDropped() throws Exception {
+		byte[] message = { UtilityInformation.TEARDOWN_MODE, UtilityInformation.END_OF_MESSAGE };
+
+		assertTrue(layer.signalReceived(frame(0, message)));
+		assertTrue(layer.signalReceived(frame(2, message)));
+		assertFalse(layer.signalReceived(frame(0, message)));
+		assertFalse(layer.signalReceived(frame(2, message)));
+		assertTrue(layer.signalReceived(frame(1, message)));
+		assertFalse(layer.signalReceived(frame(1, message)));
+
+		assertEquals(3, layer.getNumDuplicates());
+	}
+
+	/**
+	 * Test that a sender waits while the window is full, and that a
+	 * cumulative ack opens the window again
+	 */
+	@Test
+	void testCumulativeAckOpensWindow() throws Exception {
+		// The window holds RELIABLE_WINDOW_SIZE messages (a power of 2)
+		int window = UtilityInformation.RELIABLE_WINDOW_SIZE;
+
+		for (int i = 0; i < window; i++) {
+			send(i);
+		}
+
+		Thread sender = new Thread(() -> {
+			try {
+				send(window);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		sender.start();
+
+		awaitWaiting(sender);
+		assertEquals(window, sent.size());
+
+		layer.signalReceived(ack(1, 0));
+		sender.join(1000);
+
+		assertFalse(sender.isAlive());
+		assertEquals(window + 1, sent.size());
+		assertEquals(window, sequenceOf(sent.get(window)));
+
+		// Nothing acknowledged is sent again
+		layer.signalReceived(ack(window + 1, 0));
+		clock.advance(100000);
+		layer.retransmitDue();
+
+		assertEquals(window + 1, sent.size());
+		assertEquals(0, layer.getNumRetransmits());
+	}
+
+	/**
+	 * Test that a sender interrupted while the window is full is told the
+	 * message was not sent, and keeps its interrupt
+	 */
+	@Test
+	void testInterruptedSendThrows() throws Exception {
+		for (int i = 0; i < UtilityInformation.RELIABLE_WINDOW_SIZE; i++) {
+			send(i);
+		}
+
+		Thread.currentThread().interrupt();
+
+		assertThrows(InterruptedIOException.class, () -> send(99));
+		assertTrue(Thread.interrupted());
+		assertEquals(UtilityInformation.RELIABLE_WINDOW_SIZE, sent.size());
+	}
+
+	/**
+	 * Test that messages an ack shows as missing before a received message
+	 * are sent again straight away, and only once for repeated acks
+	 */
+	@Test
+	void testSelectiveAckFastRetransmit() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			send(i);
+		}
+
+		// 0 received in order, then 2 and 4 received without 1 and 3
+		layer.signalReceived(ack(1, 0b101));
+
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 1, 3), sentSequences());
+
+		layer.signalReceived(ack(1, 0b101));
+
+		assertEquals(7, sent.size());
+		assertEquals(2, layer.getNumRetransmits());
+
+		// Only the missing messages are still waiting for an ack
+		clock.advance(UtilityInformation.RETRANSMIT_TIMEOUT * 2);
+		layer.retransmitDue();
+
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 1, 3, 1, 3), sentSequences());
+	}
+
+	/**
+	 * Test that an unacknowledged message is sent again once its timeout has
+	 * passed, that the timeout doubles with each retransmit, and that an
+	 * ack stops the retransmits
+	 */
+	@Test
+	void testTimeoutRetransmitWithBackoff() throws Exception {
+		int timeout = UtilityInformation.RETRANSMIT_TIMEOUT;
+
+		send(0);
+
+		for (int i = 0; i < 3; i++) {
+			clock.advance((timeout << i) - 1);
+			layer.retransmitDue();
+			assertEquals(i + 1, sent.size());
+
+			clock.advance(1);
+			layer.retransmitDue();
+			assertEquals(i + 2, sent.size());
+			assertEquals(0, sequenceOf(sent.get(i + 1)));
+		}
+
+		layer.signalReceived(ack(1, 0));
+		clock.advance(timeout << 4);
+		layer.retransmitDue();
+
+		assertEquals(4, sent.size());
+		assertEquals(3, layer.getNumRetransmits());
+	}
+
+	/**
+	 * Test that a message is given up on after MAX_RETRANSMITS retransmits,
+	 * and that its place in the window is freed for the next message
+	 */
+	@Test
+	void testGiveUpAfterMaxRetransmits() throws Exception {
+		send(0);
+
+		for (int i = 0; i < UtilityInformation.MAX_RETRANSMITS + 5; i++) {
+			clock.advance(UtilityInformation.RETRANSMIT_TIMEOUT << 10);
+			layer.retransmitDue();
+		}
+
+		assertEquals(1 + UtilityInformation.MAX_RETRANSMITS, sent.size());
+		assertEquals(UtilityInformation.MAX_RETRANSMITS, layer.getNumRetransmits());
+
+		send(1);
+		clock.advance(UtilityInformation.RETRANSMIT_TIMEOUT);
+		layer.retransmitDue();
+
+		assertEquals(Arrays.asList(1, 1), sentSequences().subList(sent.size() - 2, sent.size()));
+	}
+
+	/**
+	 * Sends a message reliably to PEER_PORT
+	 *
+	 * @param id   Value used to tell messages apart
+	 *
+	 * @throws IOException
+	 */
+	private void send(int id) throws IOException {
+		byte[] message = { UtilityInformation.FLOOR_SENSOR_MODE, (byte) id, UtilityInformation.END_OF_MESSAGE };
+
+		layer.send(new DatagramPacket(message, message.length, InetAddress.getLoopbackAddress(), PEER_PORT));
+	}
+
+	/**
+	 * Create an ack for the stream the layer sends to PEER_PORT on
+	 *
+	 * @param nextExpected The next sequence number expected in order
+	 * @param receivedBits Bitmap of the messages received after nextExpected
+	 *
+	 * @return DatagramPacket containing the ack
+	 */
+	private DatagramPacket ack(int nextExpected, long receivedBits) {
+		byte[] buf = new byte[18];
+
+		buf[0] = UtilityInformation.ACK_MODE;
+		System.arraycopy(sent.get(0), STREAM_ID_IND, buf, 1, 4);
+		putInt(buf, 5, nextExpected);
+		putInt(buf, 9, (int) (receivedBits >>> 32));
+		putInt(buf, 13, (int) receivedBits);
+		buf[17] = UtilityInformation.END_OF_MESSAGE;
+
+		return (new DatagramPacket(buf, buf.length, InetAddress.getLoopbackAddress(), ACK_PORT));
+	}
+
+	/**
+	 * Returns the sequence number of every reliable message sent so far
+	 */
+	private List<Integer> sentSequences() {
+		ArrayList<Integer> sequences = new ArrayList<Integer>();
+
+		synchronized (sent) {
+			for (byte[] frame : sent) {
+				sequences.add(sequenceOf(frame));
+			}
+		}
+
+		return (sequences);
+	}
+
+	private static int sequenceOf(byte[] frame) {
+		return (((frame[SEQUENCE_IND] & 0xFF) << 24) | ((frame[SEQUENCE_IND + 1] & 0xFF) << 16)
+				| ((frame[SEQUENCE_IND + 2] & 0xFF) << 8) | (frame[SEQUENCE_IND + 3] & 0xFF));
+	}
+
+	private static void putInt(byte[] data, int ind, int value) {
+		data[ind] = (byte) (value >>> 24);
+		data[ind + 1] = (byte) (value >>> 16);
+		data[ind + 2] = (byte) (value >>> 8);
+		data[ind + 3] = (byte) value;
+	}
+
+	/**
+	 * Waits until the given thread is waiting, failing after a second
+	 */
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long end = System.currentTimeMillis() + 1000;
+
+		while (thread.getState() != Thread.State.WAITING) {
+			assertTrue(System.currentTimeMillis() < end);
+			Thread.sleep(1);
+		}
+	}
+}
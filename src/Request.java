@@ -9,9 +9,14 @@ public class Request {
 	private boolean elevatorArrivedDestinationTimeFlag;
 	
 	// Info about request
-	private byte source;
-	private byte destination;
+	private int source;
+	private int destination;
 	private UtilityInformation.ElevatorDirection requestDirection;
+	
+	// Number of times the request was moved to another elevator while
+	// waiting, and the elevator it was last moved away from (-1 if none)
+	private int numRebalances;
+	private int rebalancedFrom;
 
 	/**
 	 * Request
@@ -27,7 +32,7 @@ public class Request {
 	 * 
 	 * @return None
 	 */
-	public Request(long requestArrived, byte source, byte destination,
+	public Request(long requestArrived, int source, int destination,
 			UtilityInformation.ElevatorDirection requestDirection) {
 		elevatorRequestTime = requestArrived;
 		this.source = source;
@@ -37,6 +42,8 @@ public class Request {
 		elevatorArrivedDestinationTime = -1;
 		elevatorPickupTimeFlag = false;
 		elevatorArrivedDestinationTimeFlag = false;
+		numRebalances = 0;
+		rebalancedFrom = -1;
 		// printRequestDetails();
 	}
 
@@ -53,6 +60,20 @@ public class Request {
 		elevatorPickupTimeFlag = true;
 	}
 
+	/**
+	 * setRebalancedFrom
+	 * 
+	 * Record that the request was moved away from the given elevator
+	 * 
+	 * @param elevatorNum  The elevator the request was moved away from
+	 * 
+	 * @return void
+	 */
+	public void setRebalancedFrom(int elevatorNum) {
+		rebalancedFrom = elevatorNum;
+		numRebalances++;
+	}
+
 	/**
 	 * setElevatorArrivedDestinationTimeFlag
 	 * 
@@ -103,21 +124,23 @@ public class Request {
 	 * @return void
 	 */
 	public void printRequestDetails() {
-		System.out.println("\nELEVATOR REQUEST: ");
-		System.out.println("Source: " + source + ", Destination: " + destination + ", Direction: " + requestDirection);
-		System.out.println("Elevator was requested at: " + elevatorRequestTime + "ns.");
-		
-		if (elevatorPickupTime != 0) {
-			System.out.println("It took " + (elevatorPickupTime - elevatorRequestTime)
-					+ "ns for an elevator to pickup the request.");
-		}
-		
-		if (elevatorArrivedDestinationTime != 0) {
-			System.out.println("It took " + (elevatorArrivedDestinationTime - elevatorRequestTime)
-					+ "ns for the passenger to reach their destination from time of request.");
-		}
-		
-		System.out.println();
+		Log.debug(() -> {
+			String toPrint = "\nELEVATOR REQUEST: \n";
+			toPrint += "Source: " + source + ", Destination: " + destination + ", Direction: " + requestDirection + "\n";
+			toPrint += "Elevator was requested at: " + elevatorRequestTime + "ns.\n";
+			
+			if (elevatorPickupTime != 0) {
+				toPrint += "It took " + (elevatorPickupTime - elevatorRequestTime)
+						+ "ns for an elevator to pickup the request.\n";
+			}
+			
+			if (elevatorArrivedDestinationTime != 0) {
+				toPrint += "It took " + (elevatorArrivedDestinationTime - elevatorRequestTime)
+						+ "ns for the passenger to reach their destination from time of request.\n";
+			}
+			
+			return(toPrint);
+		});
 	}
 
 	/**
@@ -127,9 +150,9 @@ public class Request {
 	 * 
 	 * @param  None
 	 * 
-	 * @return byte The source floor of the request
+	 * @return int The source floor of the request
 	 */
-	public byte getSourceFloor() {
+	public int getSourceFloor() {
 		return source;
 	}
 
@@ -140,9 +163,9 @@ public class Request {
 	 * 
 	 * @param  None
 	 * 
-	 * @return byte    The destination floor of the request
+	 * @return int    The destination floor of the request
 	 */
-	public byte getDestinationFloor() {
+	public int getDestinationFloor() {
 		return destination;
 	}
 
@@ -223,4 +246,30 @@ public class Request {
 	public long getElevatorRequestTime() {
 		return(elevatorRequestTime);
 	}
+
+	/**
+	 * getRebalancedFrom
+	 * 
+	 * Return the elevator the request was last moved away from
+	 * 
+	 * @param  None
+	 * 
+	 * @return int The elevator number, -1 if the request was never moved
+	 */
+	public int getRebalancedFrom() {
+		return(rebalancedFrom);
+	}
+
+	/**
+	 * getNumRebalances
+	 * 
+	 * Return the number of times the request was moved to another elevator
+	 * 
+	 * @param  None
+	 * 
+	 * @return int The number of times the request was moved
+	 */
+	public int getNumRebalances() {
+		return(numRebalances);
+	}
 }
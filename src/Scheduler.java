@@ -3,13 +3,12 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
-import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.concurrent.ExecutorService;
 
 public class Scheduler extends ServerPattern {
 
@@ -22,97 +21,375 @@ public class Scheduler extends ServerPattern {
 	public enum Event {
 		MESSAGE_RECIEVED, CONFIG_MESSAGE, BUTTON_PUSHED_IN_ELEVATOR, FLOOR_SENSOR_ACTIVATED, FLOOR_REQUESTED,
 		MOVE_ELEVATOR, TEARDOWN, CONFIRM_CONFIG, ELEVATOR_ERROR, SEND_ELEVATOR_ERROR,
-		FIX_ELEVATOR_ERROR, FIX_DOOR_ERROR
+		FIX_ELEVATOR_ERROR, FIX_DOOR_ERROR, TIMER_EXPIRED, RESPONSE_SENT
+	}
+	
+	// Handles one type of received message, and returns the event
+	// that finishes responding to it
+	private interface MessageHandler {
+		Event handle(DatagramPacket packet);
+	}
+	
+	// Next state for each state (row) and event (column), null if the
+	// event can not happen in that state
+	private final static State[][] TRANSITIONS = new State[State.values().length][Event.values().length];
+	
+	// Event raised by each mode of message, null if the mode is not handled
+	private final static Event[] MODE_EVENTS = new Event[UtilityInformation.NUM_MODES];
+	
+	static {
+		addTransition(State.START, Event.MESSAGE_RECIEVED, State.READING_MESSAGE);
+		addTransition(State.WAITING, Event.MESSAGE_RECIEVED, State.READING_MESSAGE);
+		
+		for (Event event : new Event[] {Event.CONFIG_MESSAGE, Event.FLOOR_SENSOR_ACTIVATED, Event.FLOOR_REQUESTED,
+		                                Event.TEARDOWN, Event.CONFIRM_CONFIG, Event.ELEVATOR_ERROR,
+		                                Event.FIX_ELEVATOR_ERROR, Event.FIX_DOOR_ERROR, Event.TIMER_EXPIRED}) {
+			addTransition(State.READING_MESSAGE, event, State.RESPONDING_TO_MESSAGE);
+		}
+		
+		for (Event event : new Event[] {Event.MOVE_ELEVATOR, Event.CONFIG_MESSAGE, Event.CONFIRM_CONFIG,
+		                                Event.SEND_ELEVATOR_ERROR, Event.RESPONSE_SENT}) {
+			addTransition(State.RESPONDING_TO_MESSAGE, event, State.WAITING);
+		}
+		addTransition(State.RESPONDING_TO_MESSAGE, Event.TEARDOWN, State.END);
+		
+		MODE_EVENTS[UtilityInformation.CONFIG_MODE] = Event.CONFIG_MESSAGE;
+		MODE_EVENTS[UtilityInformation.FLOOR_SENSOR_MODE] = Event.FLOOR_SENSOR_ACTIVATED;
+		MODE_EVENTS[UtilityInformation.FLOOR_REQUEST_MODE] = Event.FLOOR_REQUESTED;
+		MODE_EVENTS[UtilityInformation.TEARDOWN_MODE] = Event.TEARDOWN;
+		MODE_EVENTS[UtilityInformation.CONFIG_CONFIRM_MODE] = Event.CONFIRM_CONFIG;
+		MODE_EVENTS[UtilityInformation.ERROR_MESSAGE_MODE] = Event.ELEVATOR_ERROR;
+		MODE_EVENTS[UtilityInformation.FIX_ERROR_MODE] = Event.FIX_ELEVATOR_ERROR;
+		MODE_EVENTS[UtilityInformation.FIX_DOOR_MODE] = Event.FIX_DOOR_ERROR;
+		MODE_EVENTS[UtilityInformation.TIMER_MODE] = Event.TIMER_EXPIRED;
 	}
 
-	private DatagramSocket sendSocket = null;
 	private DatagramPacket sendPacket;
 	private ArrayList<UtilityInformation.ElevatorDirection> elevatorDirection;
 	private State currentState;
-	private byte numElevators;
+	
+	// Handler of each mode of message, null if the mode is not handled
+	private MessageHandler[] handlers;
+	private int numElevators;
 	private long messageRecieveTime;
 
 	private SchedulerAlgorithm algor;
 	
+	// Clock that request times are measured with
+	private SimulationClock clock;
+	
 	private ArrayList<ArrayList<Long>> frequencyTimes;
 	private ArrayList<ArrayList<Long>> executionDurationTimes;
 	
+	// Timing information for each batch of handled messages
+	private ArrayList<Long> batchFrequencyTimes;
+	private ArrayList<Long> batchDurationTimes;
+	private ArrayList<Integer> batchSizes;
+	
 	private InetAddress floorIP;
 	private InetAddress elevatorIP;
+	private int floorPort;
+	private int elevatorPort;
+	
+	// Commands waiting to be sent to each subsystem in a single frame
+	private CommandFrame elevatorFrame;
+	private CommandFrame floorFrame;
+	
+	// True while commands are being collected into frames
+	private boolean coalesceMessages;
+	
+	// Codec that messages are encoded into before being sent, 
+	// and codec used to read received messages
+	private MessageCodec sendCodec;
+	private MessageCodec receiveCodec;
+	
+	// Time requests are collected for before being given to elevators all
+	// at once (in ms, 0 gives each out as soon as it is made), and whether
+	// the timer that gives them out is running
+	private long assignmentWindow;
+	private boolean assignmentTimerSet;
+	
+	// Time between checks for waiting requests that another elevator would
+	// pick up sooner (in ms, 0 never moves a request), and whether the
+	// timer for the next check is running
+	private long rebalanceInterval;
+	private boolean rebalanceTimerSet;
+	
+	// Runs the threads that wait for timers to expire, created when the
+	// first timer is started
+	private ExecutorService timerExecutor;
+	private UtilityInformation.ThreadMode threadMode;
 
 	/**
 	 * Scheduler
 	 * 
 	 * Constructor
 	 * 
-	 * Create a new Scheduler object
+	 * Create a new Scheduler object using the default configuration
 	 */
 	public Scheduler() {
-		super(UtilityInformation.SCHEDULER_PORT_NUM, "Scheduler");
+		this(SimulationConfig.getDefault());
+	}
+	
+	/**
+	 * Scheduler
+	 * 
+	 * Constructor
+	 * 
+	 * Create a new Scheduler object that uses the endpoints in the given 
+	 * configuration. Waits for the elevator and floor subsystems to publish
+	 * their ports if they bind any free port.
+	 * 
+	 * @param config   Configuration of the simulation instance
+	 */
+	public Scheduler(SimulationConfig config) {
+		this(config, UtilityInformation.DEFAULT_RECEIVER_TYPE);
+	}
+	
+	/**
+	 * Scheduler
+	 * 
+	 * Constructor
+	 * 
+	 * Create a new Scheduler object that uses the endpoints and transport in
+	 * the given configuration and receives messages with the given type of 
+	 * receiver. With ReceiverType.NONE there is no transport, and the 
+	 * scheduler is driven by calling handleMessage (transmit must then be 
+	 * overridden).
+	 * 
+	 * @param config   Configuration of the simulation instance
+	 * @param receiverType Type of receiver to use for incoming messages
+	 */
+	protected Scheduler(SimulationConfig config, UtilityInformation.ReceiverType receiverType) {
+		super(config.getPort(SimulationConfig.Role.SCHEDULER), "Scheduler",
+		      config.getTransportType(), receiverType,
+		      UtilityInformation.SCHEDULER_WAIT_STRATEGY);
+		
+		publishEndpoint(config, SimulationConfig.Role.SCHEDULER);
 		
 		frequencyTimes = new ArrayList<ArrayList<Long>>();		
-		for (int i = 0; i < 14; i++) {
+		for (int i = 0; i < UtilityInformation.NUM_MODES; i++) {
 		    frequencyTimes.add(new ArrayList<Long>());
 		}
 		
 		executionDurationTimes = new ArrayList<ArrayList<Long>>();
-		for (int i = 0; i < 14; i++) {
+		for (int i = 0; i < UtilityInformation.NUM_MODES; i++) {
 		    executionDurationTimes.add(new ArrayList<Long>());
 		}
+		
+		batchFrequencyTimes = new ArrayList<Long>();
+		batchDurationTimes = new ArrayList<Long>();
+		batchSizes = new ArrayList<Integer>();
 
-		algor = new SchedulerAlgorithm((byte) 0);
+		clock = config.getClock();
+		
+		algor = new SchedulerAlgorithm(0);
+		algor.setClock(clock);
+		
+		if (config.getDispatchPolicy() != null) {
+		    algor.setDispatchStrategy(DispatchStrategy.create(config.getDispatchPolicy()));
+		}
+		
+		assignmentWindow = config.getAssignmentWindow();
+		warnIfPolicyUnused(config.getDispatchPolicy());
+		assignmentTimerSet = false;
+		rebalanceInterval = config.getRebalanceInterval();
+		rebalanceTimerSet = false;
+		timerExecutor = null;
+		threadMode = config.getThreadMode();
 
 		elevatorDirection = new ArrayList<UtilityInformation.ElevatorDirection>();
 
 		currentState = State.START;
-
-		try {
-			sendSocket = new DatagramSocket();
-		} catch (SocketException e1) {
-			e1.printStackTrace();
-			System.exit(1);
-		}
+		handlers = createHandlers();
+		
+		elevatorFrame = new CommandFrame(UtilityInformation.MAX_PAYLOAD_SIZE);
+		floorFrame = new CommandFrame(UtilityInformation.MAX_PAYLOAD_SIZE);
+		coalesceMessages = false;
+		
+		sendCodec = new MessageCodec();
+		receiveCodec = new MessageCodec();
+		
+		// Packet reused for every message sent
+		sendPacket = new DatagramPacket(sendCodec.getBuffer(), 0);
 		
 		try {
-            floorIP = InetAddress.getLocalHost();
+            floorIP = config.getAddress(SimulationConfig.Role.FLOOR);
         } catch (UnknownHostException e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
         }
 		
 		try {
-            elevatorIP = InetAddress.getLocalHost();
+            elevatorIP = config.getAddress(SimulationConfig.Role.ELEVATOR);
         } catch (UnknownHostException e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
         }
+		
+		floorPort = config.resolvePort(SimulationConfig.Role.FLOOR);
+		elevatorPort = config.resolvePort(SimulationConfig.Role.ELEVATOR);
 	}
 	
 	/**
      * runScheduler
      * 
      * Runs the scheduler object. Receives and handle packets.
+     * Packets are taken from the queue in batches so that the
+     * printing done after handling is only done once per batch.
+     * Commands sent while handling a batch are collected and sent
+     * to each subsystem in a single frame at the end of the batch.
      * 
      * @param None
      * 
      * @return None
      */
     public void runSheduler() {
+        ArrayList<DatagramPacket> batch = new ArrayList<DatagramPacket>();
+        
+        coalesceMessages = true;
+        
         while (true) {
-            DatagramPacket nextReq = this.getNextRequest();
+            this.getNextRequests(batch, UtilityInformation.MAX_BATCH_SIZE);
+            
+            long batchStartTime = System.nanoTime();
             
-            byte mode = nextReq.getData()[0];            
-            messageRecieveTime = System.nanoTime();
+            for (DatagramPacket nextReq : batch) {
+                byte mode = MessageCodec.getMode(nextReq);
+                messageRecieveTime = System.nanoTime();
+                
+                handleMessage(nextReq);
+                
+                long finishTime = System.nanoTime();
+                saveTimes(messageRecieveTime, finishTime, mode);
+                
+                this.releaseRequest(nextReq);
+            }
             
-            eventOccured(Event.MESSAGE_RECIEVED, nextReq);
+            flushMessages();
             
-            long finishTime = System.nanoTime();
-            saveTimes(messageRecieveTime, finishTime, mode);
+            saveBatchTimes(batchStartTime, System.nanoTime(), batch.size());
             
             printInfo();
         }
     }
     
+    /**
+     * handleMessage
+     * 
+     * Handles a single received message. Any commands it causes are sent
+     * with transmit (or collected into frames while runSheduler is running).
+     * The handler is looked up by the mode of the message, and the state
+     * moves through READING_MESSAGE and RESPONDING_TO_MESSAGE back to
+     * WAITING without recursion.
+     * 
+     * @param packet   DatagramPacket containing the message
+     * 
+     * @return None
+     */
+    public void handleMessage(DatagramPacket packet) {
+        byte mode = MessageCodec.getMode(packet);
+        MessageHandler handler = ((mode >= 0) && (mode < handlers.length)) ? handlers[mode] : null;
+        
+        if (handler == null) {
+            Log.warn(String.format("Error in handleMessage: Undefined mode: %d", mode));
+            return;
+        }
+        
+        eventOccured(Event.MESSAGE_RECIEVED);
+        eventOccured(MODE_EVENTS[mode]);
+        eventOccured(handler.handle(packet));
+    }
+    
+    /**
+     * getAlgorithm
+     * 
+     * Returns the algorithm that decides where each elevator goes
+     * 
+     * @param  None
+     * 
+     * @return SchedulerAlgorithm  The scheduling algorithm
+     */
+    public SchedulerAlgorithm getAlgorithm() {
+        return(algor);
+    }
+    
+    /**
+     * setClock
+     * 
+     * Changes the clock that request times are measured with
+     * 
+     * @param newClock The new clock
+     * 
+     * @return None
+     */
+    public void setClock(SimulationClock newClock) {
+        clock = newClock;
+        algor.setClock(newClock);
+    }
+    
+    /**
+     * setAssignmentWindow
+     * 
+     * Changes how long requests are collected for before being given to
+     * elevators all at once. Requests already collected are given out
+     * when the running window ends. While there is a window, requests are
+     * given out with the lowest total estimated time, not by the dispatch
+     * policy.
+     * 
+     * @param millis   Length of the window (in ms), 0 to give each request 
+     *                 to an elevator as soon as it is made
+     * 
+     * @return None
+     */
+    public void setAssignmentWindow(long millis) {
+        assignmentWindow = millis;
+    }
+    
+    /**
+     * getAssignmentWindow
+     * 
+     * Returns how long requests are collected for before being given to
+     * elevators all at once
+     * 
+     * @param  None
+     * 
+     * @return long    Length of the window (in ms), 0 if requests are given out as they are made
+     */
+    public long getAssignmentWindow() {
+        return(assignmentWindow);
+    }
+    
+    /**
+     * setRebalanceInterval
+     * 
+     * Changes how often waiting requests are checked for an elevator 
+     * that would pick them up sooner. A check already started runs at
+     * the old interval.
+     * 
+     * @param millis   Time between checks (in ms), 0 to never move a request
+     * 
+     * @return None
+     */
+    public void setRebalanceInterval(long millis) {
+        rebalanceInterval = millis;
+        startRebalanceTimer();
+    }
+    
+    /**
+     * getRebalanceInterval
+     * 
+     * Returns how often waiting requests are checked for an elevator 
+     * that would pick them up sooner
+     * 
+     * @param  None
+     * 
+     * @return long    Time between checks (in ms), 0 if requests are never moved
+     */
+    public long getRebalanceInterval() {
+        return(rebalanceInterval);
+    }
+    
     /**
      * printInfo
      * 
@@ -123,7 +400,11 @@ public class Scheduler extends ServerPattern {
      * @return  void
      */
     public void printInfo() {
-    	for (byte i = 0; i < numElevators; i++) {
+        if (!Log.isEnabled(UtilityInformation.LogLevel.DEBUG)) {
+            return;
+        }
+        
+    	for (int i = 0; i < numElevators; i++) {
     		String toPrint = "";
     		
     		toPrint += String.format("Elevator %d: ", i);
@@ -132,7 +413,7 @@ public class Scheduler extends ServerPattern {
     			toPrint += String.format("Request: %d %d ", req.getSourceFloor(), req.getDestinationFloor());
     		}
     		
-    		System.out.println(toPrint);
+    		Log.debug(toPrint);
     	}
     }
     
@@ -151,87 +432,131 @@ public class Scheduler extends ServerPattern {
 	    frequencyTimes.get(mode).add(startTime);
 	    executionDurationTimes.get(mode).add(finishTime - startTime);
     }
+    
+    /**
+     * saveBatchTimes
+     * 
+     * Save the given timing information for a batch of handled messages.
+     * 
+     * @param startTime    Start time of handling the batch
+     * @param finishTime   End time of handling the batch
+     * @param size The number of messages in the batch
+     * 
+     * @return void
+     */
+    public void saveBatchTimes(long startTime, long finishTime, int size) {
+        batchFrequencyTimes.add(startTime);
+        batchDurationTimes.add(finishTime - startTime);
+        batchSizes.add(size);
+    }
 
 	/**
-	 * Based on an event that occurred in a given state, determine what action needs
-	 * to be taken. Also changes the state of the scheduler.
+	 * eventOccured
 	 * 
-	 * @param event
-	 * @param packet
+	 * Changes the state of the scheduler based on an event that occurred
+	 * in the current state, using the transition table.
+	 * 
+	 * @param event    The event that occurred
+	 * 
+	 * @return None
 	 */
-	private void eventOccured(Event event, DatagramPacket packet) {
-		switch (currentState) {
-		case READING_MESSAGE:
-		    currentState = State.RESPONDING_TO_MESSAGE;
-		    
-		    switch(event) {
-		    case CONFIG_MESSAGE:
-		        sendConfigPacketToElevator(packet);
-                eventOccured(Event.CONFIG_MESSAGE, packet);
-                break;
-		    case FLOOR_SENSOR_ACTIVATED:
-		        extractFloorReachedNumberAndGenerateResponseMessageAndActions(packet);
-		        
-		        if(checkForFinish() == true) {
-                    sendAllRequestsFinishedMessage(packet);
-                }
-		        
-		        break;
-		    case FLOOR_REQUESTED:
-		        byte elevatorNum = extractFloorRequestedNumberAndGenerateResponseMessageAndActions(packet);
-                kickStartElevator(packet, elevatorNum);
-                break;
-		    case TEARDOWN:
-		        currentState = State.END;
-                sendTearDownMessage(packet);
-                break;
-		    case CONFIRM_CONFIG:
-		        sendConfigConfirmMessage(packet);
-                eventOccured(Event.CONFIRM_CONFIG, packet);
-                break;
-		    case ELEVATOR_ERROR:
-		        handleError(packet);
-                eventOccured(Event.SEND_ELEVATOR_ERROR, packet);
-                break;
-		    case FIX_ELEVATOR_ERROR:
-		        handleElevatorFixMessage(packet);
-		        break;
-		    case FIX_DOOR_ERROR:
-		        handleDoorFixMessage(packet);
-		        break;
-		    default:
-		        System.out.println("Unknown event.");
-		        System.exit(1);
-		        break;
-		    }
-			
-			currentState = State.WAITING;
+	private void eventOccured(Event event) {
+		State next = TRANSITIONS[currentState.ordinal()][event.ordinal()];
+		
+		if (next == null) {
+			Log.error(String.format("Should never come here! Event %s in state %s", event, currentState));
+			System.exit(1);
+		}
+		
+		currentState = next;
+	}
+	
+	/**
+	 * addTransition
+	 * 
+	 * Adds a transition to the table of state transitions, so the given
+	 * event moves the Scheduler from the given state to the next state
+	 * 
+	 * @param state    The state the Scheduler is in
+	 * @param event    The event that happens in that state
+	 * @param next     The state the event moves the Scheduler to
+	 * 
+	 * @return void
+	 */
+	private static void addTransition(State state, Event event, State next) {
+		TRANSITIONS[state.ordinal()][event.ordinal()] = next;
+	}
+
+	/**
+	 * createHandlers
+	 * 
+	 * Creates the table of handlers, indexed by the mode of the
+	 * message each one handles.
+	 * 
+	 * @param  None
+	 * 
+	 * @return MessageHandler[]    The handler of each mode
+	 */
+	private MessageHandler[] createHandlers() {
+		MessageHandler[] table = new MessageHandler[UtilityInformation.NUM_MODES];
+		
+		table[UtilityInformation.CONFIG_MODE] = packet -> {
+			sendConfigPacketToElevator(packet);
+			return(Event.CONFIG_MESSAGE);
+		};
+		
+		table[UtilityInformation.FLOOR_SENSOR_MODE] = packet -> {
+			extractFloorReachedNumberAndGenerateResponseMessageAndActions(packet);
 			
-			break;
-		case WAITING:
-			if (event.equals(Event.MESSAGE_RECIEVED)) {
-				currentState = State.READING_MESSAGE;
-				readMessage(packet);
+			if (checkForFinish()) {
+				sendAllRequestsFinishedMessage(packet);
 			}
-			break;
-		case RESPONDING_TO_MESSAGE:
-			if (event.equals(Event.MOVE_ELEVATOR) || 
-		        event.equals(Event.CONFIG_MESSAGE) || 
-		        event.equals(Event.CONFIRM_CONFIG) || 
-		        event.equals(Event.SEND_ELEVATOR_ERROR)) {
-				currentState = State.WAITING;
+			
+			return(Event.MOVE_ELEVATOR);
+		};
+		
+		table[UtilityInformation.FLOOR_REQUEST_MODE] = packet -> {
+			if (assignmentWindow > 0) {
+				collectFloorRequest(packet);
+			} else {
+				int elevatorNum = extractFloorRequestedNumberAndGenerateResponseMessageAndActions(packet);
+				kickStartElevator(packet, elevatorNum);
+				startRebalanceTimer();
 			}
-			break;
-		case START:
-			currentState = State.WAITING;
-			eventOccured(event, packet);
-			break;
-		default:
-			System.out.println("Should never come here!\n");
-			System.exit(1);
-			break;
-
-		}
+			return(Event.RESPONSE_SENT);
+		};
+		
+		table[UtilityInformation.TEARDOWN_MODE] = packet -> {
+			sendTearDownMessage(packet);
+			return(Event.TEARDOWN);
+		};
+		
+		table[UtilityInformation.CONFIG_CONFIRM_MODE] = packet -> {
+			sendConfigConfirmMessage(packet);
+			return(Event.CONFIRM_CONFIG);
+		};
+		
+		table[UtilityInformation.ERROR_MESSAGE_MODE] = packet -> {
+			handleError(packet);
+			return(Event.SEND_ELEVATOR_ERROR);
+		};
+		
+		table[UtilityInformation.FIX_ERROR_MODE] = packet -> {
+			handleElevatorFixMessage(packet);
+			return(Event.RESPONSE_SENT);
+		};
+		
+		table[UtilityInformation.FIX_DOOR_MODE] = packet -> {
+			handleDoorFixMessage(packet);
+			return(Event.RESPONSE_SENT);
+		};
+		
+		table[UtilityInformation.TIMER_MODE] = packet -> {
+			handleTimer(packet);
+			return(Event.RESPONSE_SENT);
+		};
+		
+		return(table);
 	}
 
 	/**
@@ -245,10 +570,9 @@ public class Scheduler extends ServerPattern {
 	 * @return void
 	 */
 	private void sendAllRequestsFinishedMessage(DatagramPacket packet) {
-		byte[] message = {UtilityInformation.ALL_REQUESTS_FINISHED_MODE,
-						  UtilityInformation.END_OF_MESSAGE};
+		int length = sendCodec.allRequestsFinished.encode();
 		
-		sendMessage(message, message.length, floorIP, UtilityInformation.FLOOR_PORT_NUM);
+		sendMessage(sendCodec.getBuffer(), length, floorIP, floorPort);
 	}
 
 	/**
@@ -262,67 +586,21 @@ public class Scheduler extends ServerPattern {
 	 * @return boolean True if all requests are completed, false otherwise
 	 */
 	private boolean checkForFinish() {
-		for (byte i = 0; i < numElevators; i++) {
-			for (Request req : algor.getRequests(i)) {
-				if ((req.getElevatorPickupTimeFlag() == false) ||
-					(req.getElevatorArrivedDestinationTimeFlag() == false)) {
-					return(false);
-				}
-			}
-		}
-		
-		return(true);
-		
+		return(algor.getOutstandingRequests() == 0);
 	}
 
 	/**
-	 * Read the message recieved and call the appropriate event
-	 * 
-	 * @param recievedPacket
-	 */
-	private void readMessage(DatagramPacket recievedPacket) {
-		byte mode = recievedPacket.getData()[UtilityInformation.MODE_BYTE_IND];
-
-		if (mode == UtilityInformation.CONFIG_MODE) { // 0		    
-			eventOccured(Event.CONFIG_MESSAGE, recievedPacket);		
-			
-		} else if (mode == UtilityInformation.FLOOR_SENSOR_MODE) { // 1       
-			eventOccured(Event.FLOOR_SENSOR_ACTIVATED, recievedPacket);
-			
-		} else if (mode == UtilityInformation.FLOOR_REQUEST_MODE) { // 2       
-			eventOccured(Event.FLOOR_REQUESTED, recievedPacket);
-			
-		} else if (mode == UtilityInformation.ELEVATOR_BUTTON_HIT_MODE) { // 3        
-			eventOccured(Event.BUTTON_PUSHED_IN_ELEVATOR, recievedPacket);
-			
-		} else if (mode == UtilityInformation.TEARDOWN_MODE) { // 7      
-			eventOccured(Event.TEARDOWN, recievedPacket);
-			
-		} else if (mode == UtilityInformation.CONFIG_CONFIRM_MODE) { // 8       
-			eventOccured(Event.CONFIRM_CONFIG, recievedPacket);
-			
-		} else if (mode == UtilityInformation.ERROR_MESSAGE_MODE) {      
-			eventOccured(Event.ELEVATOR_ERROR, recievedPacket);
-			
-		} else if (mode == UtilityInformation.FIX_ERROR_MODE) {       
-			eventOccured(Event.FIX_ELEVATOR_ERROR, recievedPacket);
-			
-		} else if (mode == UtilityInformation.FIX_DOOR_MODE) {       
-			eventOccured(Event.FIX_DOOR_ERROR, recievedPacket);
-			
-		} else {
-			System.out.println(String.format("Error in readMessage: Undefined mode: %d", mode));
-		}
-	}
-	
-	/**
-     * Send the confimration from the config message to the Floor
+     * Send the confimration from the config message to the Floor. 
+     * From now on messages use the version of the format the Elevator
+     * accepted, which the confirmation passes on to the Floor.
      * 
      * @param packet
      */
     protected void sendConfigConfirmMessage(DatagramPacket packet) {
-        sendMessage(packet.getData(), packet.getData().length, floorIP, UtilityInformation.FLOOR_PORT_NUM);
-
+        setWireVersion(receiveCodec.configConfirm.wrap(packet).getVersion());
+        
+        int length = sendCodec.configConfirm.encode();
+        sendMessage(sendCodec.getBuffer(), length, floorIP, floorPort);
     }
 
     /**
@@ -332,10 +610,58 @@ public class Scheduler extends ServerPattern {
      * @param configPacket
      */
     protected void sendConfigPacketToElevator(DatagramPacket configPacket) {
-        System.out.println("Sending config file to Elevator...\n");
-        setNumElevators(configPacket.getData()[1]);
-        sendMessage(configPacket.getData(), configPacket.getData().length, elevatorIP,
-                UtilityInformation.ELEVATOR_PORT_NUM);
+        Log.info("Sending config file to Elevator...\n");
+        MessageCodec.ConfigMessage config = receiveCodec.config.wrap(configPacket);
+        int newNumElevators = config.getNumElevators();
+        int numFloors = config.getNumFloors();
+        
+        setNumElevators(newNumElevators);
+        
+        // The Floor may choose the dispatch policy for this building
+        UtilityInformation.DispatchPolicy policy = config.getDispatchPolicy();
+        if (policy != null) {
+            algor.setDispatchStrategy(DispatchStrategy.create(policy));
+        }
+        Log.info("Dispatch policy: " + algor.getDispatchStrategy().getPolicy());
+        warnIfPolicyUnused(policy);
+        
+        // Offer the Elevator the newest version both the Floor and this know
+        setWireVersion(Math.min(config.getVersion(), MessageCodec.LATEST_VERSION));
+        
+        int length = sendCodec.config.encode(newNumElevators, numFloors);
+        sendMessage(sendCodec.getBuffer(), length, elevatorIP, elevatorPort);
+    }
+    
+    /**
+     * warnIfPolicyUnused
+     * 
+     * Warns that the given dispatch policy was chosen but is not used,
+     * because requests are given out by the assignment window instead
+     * 
+     * @param policy   The chosen policy, null if none was chosen
+     * 
+     * @return void
+     */
+    private void warnIfPolicyUnused(UtilityInformation.DispatchPolicy policy) {
+        if ((policy != null) && (assignmentWindow > 0)) {
+            Log.warn("Dispatch policy " + policy + " is not used while the assignment window is " + 
+                     assignmentWindow + " ms");
+        }
+    }
+    
+    /**
+     * setWireVersion
+     * 
+     * Changes the version of the message format used to send and 
+     * read messages
+     * 
+     * @param version  The version of the format
+     * 
+     * @return void
+     */
+    private void setWireVersion(int version) {
+        sendCodec.setVersion(version);
+        receiveCodec.setVersion(version);
     }
 
     /**
@@ -344,7 +670,7 @@ public class Scheduler extends ServerPattern {
      * 
      * @param newNumElevators
      */
-    public void setNumElevators(byte newNumElevators) {
+    public void setNumElevators(int newNumElevators) {
         this.numElevators = newNumElevators;
         while (elevatorDirection.size() > numElevators) {
             elevatorDirection.remove(elevatorDirection.size() - 1);
@@ -360,26 +686,209 @@ public class Scheduler extends ServerPattern {
 	 * 
 	 * @param recievedData
 	 */
-	protected byte extractFloorRequestedNumberAndGenerateResponseMessageAndActions(DatagramPacket recievedPacket) {
-		UtilityInformation.ElevatorDirection upOrDown = UtilityInformation.ElevatorDirection.values()[recievedPacket.getData()[2]];
-
-		Request tempRequest = new Request(messageRecieveTime, recievedPacket.getData()[1], recievedPacket.getData()[3],
-				upOrDown);
+	protected int extractFloorRequestedNumberAndGenerateResponseMessageAndActions(DatagramPacket recievedPacket) {
+		int elevatorNum = algor.elevatorRequestMade(readFloorRequest(recievedPacket));
 
-		byte elevatorNum = algor.elevatorRequestMade(tempRequest);
+		sendFirstDestination(elevatorNum);
 
-		// Update elevator destinations
-		LinkedHashSet<Byte> elevatorDestinations = algor.getDestinations(elevatorNum);
+		return (elevatorNum);
+	}
+	
+	/**
+	 * collectFloorRequest
+	 * 
+	 * Holds the request in the given packet until the assignment window
+	 * ends, starting the window if it is not running
+	 * 
+	 * @param recievedPacket   The DatagramPacket containing the request
+	 * 
+	 * @return void
+	 */
+	private void collectFloorRequest(DatagramPacket recievedPacket) {
+	    algor.addPendingRequest(readFloorRequest(recievedPacket));
+	    startAssignmentTimer();
+	}
+	
+	/**
+	 * readFloorRequest
+	 * 
+	 * Creates a Request from the request in the given packet, made now
+	 * 
+	 * @param recievedPacket   The DatagramPacket containing the request
+	 * 
+	 * @return Request The new request
+	 */
+	private Request readFloorRequest(DatagramPacket recievedPacket) {
+	    MessageCodec.FloorRequestMessage request = receiveCodec.floorRequest.wrap(recievedPacket);
+	    
+	    return(new Request(clock.nanoTime(), request.getSourceFloor(), request.getDestFloor(),
+	                       request.getDirection()));
+	}
+	
+	/**
+	 * sendFirstDestination
+	 * 
+	 * Tells the given elevator the destination of its oldest active request
+	 * 
+	 * @param elevatorNum  The number of the elevator
+	 * 
+	 * @return void
+	 */
+	private void sendFirstDestination(int elevatorNum) {
+		LinkedHashSet<Integer> elevatorDestinations = algor.getDestinations(elevatorNum);
 		if (elevatorDestinations.size() > 0) {
-			byte[] destinationFloor = {UtilityInformation.SEND_DESTINATION_TO_ELEVATOR_MODE,
-                    				   elevatorDestinations.iterator().next(), 
-                    				   elevatorNum, 
-                    				   UtilityInformation.END_OF_MESSAGE };
-			sendMessage(destinationFloor, destinationFloor.length, elevatorIP,
-					UtilityInformation.ELEVATOR_PORT_NUM);
+			int length = sendCodec.destination.encode(elevatorDestinations.iterator().next(), elevatorNum);
+			sendMessage(sendCodec.getBuffer(), length, elevatorIP, elevatorPort);
 		}
-
-		return (elevatorNum);
+	}
+	
+	/**
+	 * clearDroppedDestinations
+	 * 
+	 * Tells the given elevator to turn off the lamp of every one of the
+	 * given destinations that it no longer has. Nothing is sent if the
+	 * agreed version of the message format can not clear a destination,
+	 * so those lamps stay on.
+	 * 
+	 * @param elevatorNum  The number of the elevator
+	 * @param oldDestinations  The destinations the elevator had before
+	 * 
+	 * @return void
+	 */
+	private void clearDroppedDestinations(int elevatorNum, LinkedHashSet<Integer> oldDestinations) {
+	    if (!MessageCodec.canClearDestination(sendCodec.getVersion())) {
+	        return;
+	    }
+	    
+	    LinkedHashSet<Integer> destinations = algor.getDestinations(elevatorNum);
+	    
+	    for (int destFloor : oldDestinations) {
+	        if (!destinations.contains(destFloor)) {
+	            int length = sendCodec.destination.encode(destFloor, elevatorNum, true);
+	            sendMessage(sendCodec.getBuffer(), length, elevatorIP, elevatorPort);
+	        }
+	    }
+	}
+	
+	/**
+	 * startAssignmentTimer
+	 * 
+	 * Starts the assignment window if requests are being held and the
+	 * window is not already running
+	 * 
+	 * @param  None
+	 * 
+	 * @return void
+	 */
+	private void startAssignmentTimer() {
+	    if ((algor.getNumPendingRequests() > 0) && !assignmentTimerSet) {
+	        assignmentTimerSet = true;
+	        startTimer(UtilityInformation.ASSIGNMENT_TIMER, assignmentWindow);
+	    }
+	}
+	
+	/**
+	 * startRebalanceTimer
+	 * 
+	 * Starts the timer for the next check for waiting requests that 
+	 * another elevator would pick up sooner, if rebalancing is on, a 
+	 * request could be moved and the timer is not already running
+	 * 
+	 * @param  None
+	 * 
+	 * @return void
+	 */
+	private void startRebalanceTimer() {
+	    if ((rebalanceInterval > 0) && !rebalanceTimerSet && algor.canRebalance()) {
+	        rebalanceTimerSet = true;
+	        startTimer(UtilityInformation.REBALANCE_TIMER, rebalanceInterval);
+	    }
+	}
+	
+	/**
+	 * handleTimer
+	 * 
+	 * Handles the expiry of the timer in the given packet. At the end of
+	 * the assignment window every held request is given to an elevator, 
+	 * and each elevator given one is told its destination and started.
+	 * At each rebalance check waiting requests are moved to elevators that
+	 * would pick them up sooner. Every elevator that lost a request is told
+	 * to turn off the lamps of the destinations it no longer has, every
+	 * elevator that gained or lost one is told its first destination, and
+	 * a usable one is started if it had stopped.
+	 * 
+	 * @param packet   The DatagramPacket containing the timer message
+	 * 
+	 * @return void
+	 */
+	private void handleTimer(DatagramPacket packet) {
+	    int timer = receiveCodec.timer.wrap(packet).getTimer();
+	    
+	    if (timer == UtilityInformation.ASSIGNMENT_TIMER) {
+	        assignmentTimerSet = false;
+	        
+	        // Requests stay held until an elevator is fixed if none are usable
+	        for (int elevatorNum : algor.assignPendingRequests()) {
+	            sendFirstDestination(elevatorNum);
+	            kickStartElevator(packet, elevatorNum);
+	        }
+	        
+	        startRebalanceTimer();
+	    } else if (timer == UtilityInformation.REBALANCE_TIMER) {
+	        rebalanceTimerSet = false;
+	        
+	        ArrayList<LinkedHashSet<Integer>> oldDestinations = new ArrayList<LinkedHashSet<Integer>>(numElevators);
+	        for (int i = 0; i < numElevators; i++) {
+	            oldDestinations.add(algor.getDestinations(i));
+	        }
+	        
+	        for (int elevatorNum : algor.rebalanceRequests()) {
+	            clearDroppedDestinations(elevatorNum, oldDestinations.get(elevatorNum));
+	            sendFirstDestination(elevatorNum);
+	            
+	            // An elevator that is not usable only loses requests, and 
+	            // is not moved until it is fixed
+	            if (algor.isUsable(elevatorNum)) {
+	                kickStartElevator(packet, elevatorNum);
+	            }
+	        }
+	        
+	        // Checks stop once no request is waiting, until the next one is made
+	        startRebalanceTimer();
+	    } else {
+	        Log.warn("Error in Scheduler: Unknown timer: " + timer);
+	    }
+	}
+	
+	/**
+	 * startTimer
+	 * 
+	 * Starts a timer that sends a TIMER_MODE message for the given timer
+	 * to this scheduler once the given time has passed on its clock
+	 * 
+	 * @param timer    The timer to start
+	 * @param delayMillis  Time until the timer expires (in ms)
+	 * 
+	 * @return void
+	 */
+	protected void startTimer(int timer, long delayMillis) {
+	    if (timerExecutor == null) {
+	        timerExecutor = SimulationExecutors.create(threadMode, "timer");
+	    }
+	    
+	    timerExecutor.execute(() -> {
+	        try {
+	            clock.sleep(delayMillis);
+	        } catch (InterruptedException e) {
+	            return;
+	        }
+	        
+	        DatagramPacket expired = getBufferPool().acquire();
+	        int length = new MessageCodec(expired.getData()).timer.encode(timer);
+	        expired.setLength(length);
+	        
+	        signalReceived(expired);
+	    });
 	}
 	
 	/**
@@ -393,13 +902,14 @@ public class Scheduler extends ServerPattern {
 	 * 
 	 * @return void
 	 */
-	protected void kickStartElevator(DatagramPacket packet, byte elevatorNum) {
-	    if (algor.getStopSignalSent(elevatorNum)) {
-            byte[] newData = {UtilityInformation.FLOOR_SENSOR_MODE, 
-                              algor.getCurrentFloor(elevatorNum),
-                              elevatorNum,
-                              -1 };
-            packet.setData(newData);
+	protected void kickStartElevator(DatagramPacket packet, int elevatorNum) {
+	    // An elevator that is still stopping reports its floor when it is
+	    // done, which moves it then. Moving it now as well would queue
+	    // two moves.
+	    if (algor.getStopSignalSent(elevatorNum) && algor.getStopFinished(elevatorNum)) {
+	        // Reuse the packet's buffer for the floor sensor message
+	        receiveCodec.floorSensor.wrap(packet).encode(algor.getCurrentFloor(elevatorNum), elevatorNum);
+	        packet.setLength(receiveCodec.floorSensor.getLength());
             moveToFloor(packet);
         }
 	    
@@ -407,12 +917,12 @@ public class Scheduler extends ServerPattern {
 	}
 
 	/**
-	 * Move the elevator, and trigger the move elevator event
+	 * Move the elevator
 	 * 
 	 * @param packet
 	 */
 	private void moveToFloor(DatagramPacket packet) {
-		byte elevatorNum = packet.getData()[2];
+		int elevatorNum = receiveCodec.floorSensor.wrap(packet).getElevatorNum();
 
 		if (algor.somewhereToGo(elevatorNum)) {
 		    UtilityInformation.ElevatorDirection dir = algor.whatDirectionShouldTravel(elevatorNum);
@@ -427,22 +937,21 @@ public class Scheduler extends ServerPattern {
 		    
 		    if (dir.equals(UtilityInformation.ElevatorDirection.STATIONARY)) {
 		        // Set the time in the requests
-                long updatedTime = System.nanoTime();
-                updateRequestTimes(algor.getRequests(elevatorNum), updatedTime);
+                long updatedTime = clock.nanoTime();
+                algor.updateRequestTimes(elevatorNum, updatedTime);
             }
 		} else {
 		    if (!algor.getStopSignalSent(elevatorNum)) {
     		    changeDoorState(packet, UtilityInformation.DoorState.OPEN);
     		    sendElevatorInDirection(packet, UtilityInformation.ElevatorDirection.STATIONARY);
     		    algor.setStopSignalSent(elevatorNum, true);
+    		    algor.setStopFinished(elevatorNum, false);
     		    
     		    // Set the time in the requests
-                long updatedTime = System.nanoTime();
-                updateRequestTimes(algor.getRequests(elevatorNum), updatedTime);
+                long updatedTime = clock.nanoTime();
+                algor.updateRequestTimes(elevatorNum, updatedTime);
 		    }
 		}
-
-		eventOccured(Event.MOVE_ELEVATOR, packet);
 	}
 	
 	/**
@@ -457,16 +966,12 @@ public class Scheduler extends ServerPattern {
 	 * @return void
 	 */
 	protected void sendElevatorInDirection(DatagramPacket packet, UtilityInformation.ElevatorDirection direction) {
-	    byte elevatorNum = packet.getData()[2];
-        byte[] message = {UtilityInformation.ELEVATOR_DIRECTION_MODE, 
-                          algor.getCurrentFloor(elevatorNum), 
-                          elevatorNum,
-                          (byte) direction.ordinal(), 
-                          UtilityInformation.END_OF_MESSAGE};
+	    int elevatorNum = receiveCodec.floorSensor.wrap(packet).getElevatorNum();
+	    int length = sendCodec.direction.encode(algor.getCurrentFloor(elevatorNum), elevatorNum, direction);
         
-        System.out.println(String.format("Sending elevator %s... \n", direction.toString()));
-        sendMessage(message, message.length, elevatorIP, UtilityInformation.ELEVATOR_PORT_NUM);
-        sendMessage(message, message.length, floorIP, UtilityInformation.FLOOR_PORT_NUM);
+        Log.debug(() -> String.format("Sending elevator %s... \n", direction.toString()));
+        sendMessage(sendCodec.getBuffer(), length, elevatorIP, elevatorPort);
+        sendMessage(sendCodec.getBuffer(), length, floorIP, floorPort);
         
         elevatorDirection.set(elevatorNum, direction);
         
@@ -487,12 +992,9 @@ public class Scheduler extends ServerPattern {
 	 * @return void
 	 */
 	protected void changeDoorState(DatagramPacket packet, UtilityInformation.DoorState state) {
-	    byte elevatorNum = packet.getData()[2];
-        byte[] closeDoor = {UtilityInformation.ELEVATOR_DOOR_MODE, 
-                            (byte) state.ordinal(), 
-                            elevatorNum,
-                            UtilityInformation.END_OF_MESSAGE};
-        sendMessage(closeDoor, closeDoor.length, elevatorIP, UtilityInformation.ELEVATOR_PORT_NUM);
+	    int elevatorNum = receiveCodec.floorSensor.wrap(packet).getElevatorNum();
+	    int length = sendCodec.door.encode(state, elevatorNum);
+        sendMessage(sendCodec.getBuffer(), length, elevatorIP, elevatorPort);
 	}
 
 	/**
@@ -501,9 +1003,9 @@ public class Scheduler extends ServerPattern {
 	 * @param recievedPacket
 	 */
 	private void extractFloorReachedNumberAndGenerateResponseMessageAndActions(DatagramPacket recievedPacket) {
-		byte floorNum = recievedPacket.getData()[1];
-		byte elevatorNum = recievedPacket.getData()[2];
-		algor.elevatorHasReachedFloor(floorNum, elevatorNum);
+		MessageCodec.FloorSensorMessage sensor = receiveCodec.floorSensor.wrap(recievedPacket);
+		algor.elevatorHasReachedFloor(sensor.getFloorNum(), sensor.getElevatorNum());
+		algor.setStopFinished(sensor.getElevatorNum(), true);
 
 		// Continue moving elevator
 		moveToFloor(recievedPacket);
@@ -519,20 +1021,23 @@ public class Scheduler extends ServerPattern {
 	 * @return void
 	 */
 	private void handleError(DatagramPacket packet) {
-	    byte errorType = packet.getData()[1];
-	    byte elevatorNum = packet.getData()[2];
-        sendMessage(packet.getData(), 
-                    packet.getData().length, 
-                    elevatorIP,
-                    UtilityInformation.ELEVATOR_PORT_NUM);
-        
-        if (errorType == UtilityInformation.ErrorType.DOOR_STUCK_ERROR.ordinal()) {
+	    MessageCodec.ErrorMessage error = receiveCodec.error.wrap(packet);
+	    UtilityInformation.ErrorType errorType = error.getErrorType();
+	    int elevatorNum = error.getElevatorNum();
+	    
+	    int length = sendCodec.error.encode(errorType, elevatorNum);
+        sendMessage(sendCodec.getBuffer(), length, elevatorIP, elevatorPort);
+        
+        if (errorType == UtilityInformation.ErrorType.DOOR_STUCK_ERROR) {
             algor.pauseElevator(elevatorNum);
-        } else if (errorType == UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR.ordinal()) {
+        } else if (errorType == UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR) {
             algor.stopUsingElevator(elevatorNum);
         } else {
-            System.out.println("Error in Shceduler: Unknown error type.");
+            Log.warn("Error in Shceduler: Unknown error type.");
         }
+        
+        // Requests waiting for a paused elevator can be moved to another
+        startRebalanceTimer();
 	}
 
 	/**
@@ -546,7 +1051,9 @@ public class Scheduler extends ServerPattern {
 	 * @return None
 	 */
 	private void handleDoorFixMessage(DatagramPacket recievedPacket) {
-		algor.resumeUsingElevator(recievedPacket.getData()[1]);
+		algor.resumeUsingElevator(receiveCodec.fixDoor.wrap(recievedPacket).getElevatorNum());
+		startAssignmentTimer();
+		startRebalanceTimer();
 	}
 
 	/**
@@ -555,67 +1062,148 @@ public class Scheduler extends ServerPattern {
 	 * @param receivedPacket
 	 */
 	private void handleElevatorFixMessage(DatagramPacket receivedPacket) {
-		byte elevatorNum = receivedPacket.getData()[2];
-		sendMessage(receivedPacket.getData(), receivedPacket.getData().length, elevatorIP,
-				UtilityInformation.ELEVATOR_PORT_NUM);
+		MessageCodec.FixErrorMessage fix = receiveCodec.fixError.wrap(receivedPacket);
+		int elevatorNum = fix.getElevatorNum();
+		
+		// Relay only the bytes of the message, which may not start at the
+		// beginning of the packet's buffer
+		sendMessage(receivedPacket.getData(), receivedPacket.getOffset(), fix.getLength(), elevatorIP, elevatorPort);
 		algor.resumeUsingElevator(elevatorNum);
+		startAssignmentTimer();
+		startRebalanceTimer();
 	}
 
 	/**
-	 * updateRequestTimes
+	 * Send a message
+	 * 
+	 * If commands are being collected, the message is added to the frame for
+	 * its destination instead of being sent right away.
+	 * 
+	 * @param responseData
+	 * @param packetLength
+	 * @param destAddress
+	 * @param destPortNum
+	 */
+	private void sendMessage(byte[] responseData, int packetLength, InetAddress destAddress, int destPortNum) {
+	    sendMessage(responseData, 0, packetLength, destAddress, destPortNum);
+	}
+	
+	/**
+	 * Send a message that starts at the given index of the array
 	 * 
-	 * Updates the times of all requests based on their flag values
-	 * and whether or not their times have already been set.
+	 * If commands are being collected, the message is added to the frame for
+	 * its destination instead of being sent right away.
 	 * 
-	 * @param request  ArrayList of all requests to update
-	 * @param updatedTime  The time to update the requests to
+	 * @param responseData
+	 * @param offset
+	 * @param packetLength
+	 * @param destAddress
+	 * @param destPortNum
+	 */
+	private void sendMessage(byte[] responseData, int offset, int packetLength, InetAddress destAddress, int destPortNum) {
+	    CommandFrame frame = getPendingFrame(destAddress, destPortNum);
+	    
+	    if (coalesceMessages && (frame != null)) {
+	        if (frame.add(responseData, offset, packetLength)) {
+	            return;
+	        }
+	        
+	        // Frame is full, so send what is in it and start a new one
+	        flushFrame(frame, destAddress, destPortNum);
+	        
+	        if (frame.add(responseData, offset, packetLength)) {
+                return;
+            }
+	    }
+	    
+	    transmit(responseData, offset, packetLength, destAddress, destPortNum);
+	}
+	
+	/**
+	 * getPendingFrame
+	 * 
+	 * Returns the frame that collects commands for the given destination.
+	 * 
+	 * @param destAddress
+	 * @param destPortNum
+	 * 
+	 * @return CommandFrame    The frame for the destination, null if there is none
+	 */
+	private CommandFrame getPendingFrame(InetAddress destAddress, int destPortNum) {
+	    if ((destPortNum == elevatorPort) && destAddress.equals(elevatorIP)) {
+	        return(elevatorFrame);
+	    } else if ((destPortNum == floorPort) && destAddress.equals(floorIP)) {
+	        return(floorFrame);
+	    }
+	    
+	    return(null);
+	}
+	
+	/**
+	 * flushMessages
+	 * 
+	 * Sends all collected commands. Each subsystem receives at most
+	 * one datagram.
+	 * 
+	 * @param  None
 	 * 
 	 * @return void
 	 */
-	private void updateRequestTimes(ArrayList<Request> request, long updatedTime) {
-		for (Request temp : request) {
-			if (temp.getElevatorPickupTimeFlag() && 
-			   (temp.getElevatorPickupTime() == -1)) {
-				temp.setElevatorPickupTime(updatedTime);
-			}
-			
-			if (temp.getElevatorArrivedDestinationTimeFlag() && 
-			   (temp.getElevatorArrivedDestinationTime() == -1)) {
-				temp.setElevatorArrivedDestinationTime(updatedTime);
-			}
-		}
+	private void flushMessages() {
+	    flushFrame(elevatorFrame, elevatorIP, elevatorPort);
+	    flushFrame(floorFrame, floorIP, floorPort);
 	}
-
+	
 	/**
-	 * Send a message
+	 * flushFrame
+	 * 
+	 * Sends the commands in the given frame and empties it.
+	 * A frame with a single command is sent as that command alone.
+	 * 
+	 * @param frame    The frame to send
+	 * @param destAddress
+	 * @param destPortNum
+	 * 
+	 * @return void
+	 */
+	private void flushFrame(CommandFrame frame, InetAddress destAddress, int destPortNum) {
+	    if (frame.getNumCommands() > 0) {
+	        transmit(frame.getData(), frame.getOffset(), frame.getLength(), destAddress, destPortNum);
+	        frame.clear();
+	    }
+	}
+	
+	/**
+	 * transmit
+	 * 
+	 * Send the given bytes in a single datagram
 	 * 
 	 * @param responseData
+	 * @param offset
 	 * @param packetLength
 	 * @param destAddress
 	 * @param destPortNum
 	 */
-	private void sendMessage(byte[] responseData, int packetLength, InetAddress destAddress, int destPortNum) {
-		sendPacket = new DatagramPacket(responseData, packetLength, destAddress, destPortNum);
+	protected void transmit(byte[] responseData, int offset, int packetLength, InetAddress destAddress, int destPortNum) {
+		sendPacket.setData(responseData, offset, packetLength);
+		sendPacket.setAddress(destAddress);
+		sendPacket.setPort(destPortNum);
 
 		// Print out info about the message being sent
-		System.out.println("Scheduler: Sending packet:");
-		System.out.println("To host: " + sendPacket.getAddress());
-		System.out.println("Destination host port: " + sendPacket.getPort());
-		int len = sendPacket.getLength();
-		System.out.println("Length: " + len);
-		System.out.print("Containing (as bytes): ");
-		System.out.println(Arrays.toString(sendPacket.getData()));
+		Log.debug(() -> String.format("Scheduler: Sending packet:\nTo host: %s\nDestination host port: %d\n" +
+		                              "Length: %d\nContaining (as bytes): %s", 
+		                              destAddress, destPortNum, packetLength, 
+		                              Arrays.toString(Arrays.copyOfRange(responseData, offset, offset + packetLength))));
 
 		try {
-			System.out.println("Scheduler is sending data...");
-			sendSocket.send(sendPacket);
+			transmit(sendPacket);
 		} catch (IOException e) {
-			System.out.println("Send socket failure!");
+			Log.error("Send socket failure!");
 			e.printStackTrace();
 			System.exit(1);
 		}
 
-		System.out.println("Scheduler: Packet sent.\n");
+		Log.debug("Scheduler: Packet sent.\n");
 	}
 	
     /**
@@ -625,9 +1213,10 @@ public class Scheduler extends ServerPattern {
      * @param packet
      */
     private void sendTearDownMessage(DatagramPacket packet) {
-        byte[] tearDown = { UtilityInformation.TEARDOWN_MODE, UtilityInformation.END_OF_MESSAGE };
-        sendMessage(tearDown, tearDown.length, elevatorIP, UtilityInformation.ELEVATOR_PORT_NUM);
-        System.out.println("\n\nTEARING DOWN!\n\n");
+        int length = sendCodec.teardown.encode();
+        sendMessage(sendCodec.getBuffer(), length, elevatorIP, elevatorPort);
+        flushMessages();
+        Log.info("TEARING DOWN!");
         socketTearDown();
         printTimingInformation();
         printFrequencyInformation();
@@ -684,6 +1273,8 @@ public class Scheduler extends ServerPattern {
                 writer.println("FIX_DOOR_MODE");
             } else if (i == 12) {
                 writer.println("ALL_REQUESTS_FINISHED_MODE");
+            } else if (i == 16) {
+                writer.println("TIMER_MODE");
             }
             
             for (Long time : executionDurationTimes.get(i)) {
@@ -693,9 +1284,35 @@ public class Scheduler extends ServerPattern {
             writer.println("");
         }
         
+        writer.println("BATCHES (size, duration)");
+        
+        for (int i = 0; i < batchDurationTimes.size(); i++) {
+            writer.println(batchSizes.get(i) + " " + batchDurationTimes.get(i));
+        }
+        
+        writer.println("");
+        
+        writer.println("OUTSTANDING REQUESTS (elevator, outstanding)");
+        
+        for (int i = 0; i < numElevators; i++) {
+            writer.println(i + " " + algor.getOutstandingRequests(i));
+        }
+        
+        writer.println("Peak: " + algor.getMaxOutstandingRequests());
+        writer.println("");
+        
+        writer.println("ASSIGNMENT WINDOW (window, average delay, max delay in ms)");
+        writer.println(assignmentWindow + " " + algor.getAverageAssignmentDelay() + " " + algor.getMaxAssignmentDelay());
+        writer.println("");
+        
+        writer.println("REBALANCING (interval in ms, requests moved, moves)");
+        writer.println(rebalanceInterval + " " + algor.getNumDistinctRebalancedRequests() + " " + 
+                       algor.getNumRebalancedRequests());
+        writer.println("");
+        
         writer.println("Finish Request Times: ");
         
-        for (byte i = 0; i < numElevators; i++) {
+        for (int i = 0; i < numElevators; i++) {
         	for (Request req : algor.getRequests(i)) {
         		writer.println(req.getElevatorArrivedDestinationTime());
         	}
@@ -756,6 +1373,8 @@ public class Scheduler extends ServerPattern {
                 writer.println("FIX_DOOR_MODE");
             } else if (i == 12) {
                 writer.println("ALL_REQUESTS_FINISHED_MODE");
+            } else if (i == 16) {
+                writer.println("TIMER_MODE");
             }
             
             for (Long time : frequencyTimes.get(i)) {
@@ -765,17 +1384,25 @@ public class Scheduler extends ServerPattern {
             writer.println("");
         }
         
+        writer.println("BATCHES");
+        
+        for (Long time : batchFrequencyTimes) {
+            writer.println(time);
+        }
+        
+        writer.println("");
+        
         writer.close();     
     }
 
 	/**
-     * Close send and reciever sockets
+     * Close the transport used to send and receive messages
      */
     protected void socketTearDown() {
-        if (sendSocket != null) {
-            sendSocket.close();
+        if (timerExecutor != null) {
+            timerExecutor.shutdownNow();
         }
-
+        
         super.teardown();
     }
 
@@ -786,12 +1413,12 @@ public class Scheduler extends ServerPattern {
 	 * 
 	 * Creates and runs a new scheduler
 	 * 
-	 * @param args
+	 * @param args Configuration overrides (--key=value)
 	 * 
 	 * @return None
 	 */
 	public static void main(String[] args) {
-		Scheduler scheduler = new Scheduler();
+		Scheduler scheduler = new Scheduler(SimulationConfig.load(args));
 		scheduler.runSheduler();
 	}
 }
\ No newline at end of file
@@ -1,8 +1,40 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 
 public class SchedulerAlgorithm {	
 	private ArrayList<AlgorithmElevator> elevatorInfo;
+	
+	// Clock that request times are measured with
+	private SimulationClock clock;
+	
+	// Requests of every elevator waiting to be picked up and riding to their
+	// destination, and the most that have been outstanding at once.
+	// Only changed by the thread running the algorithm, but read by others
+	private volatile int numWaiting;
+	private volatile int numRiding;
+	private volatile int maxOutstanding;
+	
+	// Estimates when each elevator will reach a floor
+	private EtaEngine etaEngine;
+	
+	// Decides which elevator is given each new request
+	private DispatchStrategy dispatchStrategy;
+	
+	// Requests waiting to be given to elevators all at once, and how long
+	// requests given out that way waited for it (in nanoseconds)
+	private ArrayList<Request> pendingRequests;
+	private long totalAssignmentDelay;
+	private long maxAssignmentDelay;
+	private int numAssignedTogether;
+	
+	// Number of times a request was moved to an elevator that would pick
+	// it up sooner, and number of different requests moved
+	private int numRebalanced;
+	private int numRequestsRebalanced;
 
 	/**
 	 * SchedulerAlgorithm
@@ -13,26 +45,79 @@ public class SchedulerAlgorithm {
 	 * 
 	 * @param numElevators Number of elevators that the algorithm should control
 	 */
-	public SchedulerAlgorithm(byte numElevators) {
+	public SchedulerAlgorithm(int numElevators) {
 	    elevatorInfo = new ArrayList<AlgorithmElevator>();
+	    clock = SimulationClock.real();
+	    numWaiting = 0;
+	    numRiding = 0;
+	    maxOutstanding = 0;
+	    etaEngine = new EtaEngine();
+	    dispatchStrategy = DispatchStrategy.create(UtilityInformation.DEFAULT_DISPATCH_POLICY);
+	    pendingRequests = new ArrayList<Request>();
+	    totalAssignmentDelay = 0;
+	    maxAssignmentDelay = 0;
+	    numAssignedTogether = 0;
+	    numRebalanced = 0;
+	    numRequestsRebalanced = 0;
 	    
 		setNumberOfElevators(numElevators);
 	}
 
+	/**
+	 * setClock
+	 * 
+	 * Changes the clock that request times are measured with
+	 * 
+	 * @param newClock The new clock
+	 * 
+	 * @return None
+	 */
+	public void setClock(SimulationClock newClock) {
+	    clock = newClock;
+	}
+	
+	/**
+	 * setDispatchStrategy
+	 * 
+	 * Changes the strategy that decides which elevator is given each 
+	 * new request. Requests already given to an elevator stay there.
+	 * 
+	 * @param strategy The new strategy
+	 * 
+	 * @return None
+	 */
+	public void setDispatchStrategy(DispatchStrategy strategy) {
+	    dispatchStrategy = strategy;
+	}
+	
+	/**
+	 * getDispatchStrategy
+	 * 
+	 * Returns the strategy that decides which elevator is given each 
+	 * new request
+	 * 
+	 * @param  None
+	 * 
+	 * @return DispatchStrategy    The current strategy
+	 */
+	public DispatchStrategy getDispatchStrategy() {
+	    return(dispatchStrategy);
+	}
+
 	/**
 	 * Called when someone on the floor has requested an elevator
 	 * 
 	 * @param request
 	 * @return
 	 */
-	public byte elevatorRequestMade(Request request) {
-		Byte source = request.getSourceFloor();
-		Byte destination = request.getDestinationFloor();
+	public int elevatorRequestMade(Request request) {
+		int source = request.getSourceFloor();
+		int destination = request.getDestinationFloor();
 		UtilityInformation.ElevatorDirection upOrDown = request.getRequestDirection();
-		System.out.println("Elevator was requested at: " + source + " in the direction " + upOrDown
+		Log.debug(() -> "Elevator was requested at: " + source + " in the direction " + upOrDown
 				+ " with destination " + destination);
 
-		byte elevatorNum = determineElevatorToGiveRequest(request);
+		int elevatorNum = determineElevatorToGiveRequest(request);
 		addRequestToElevator(elevatorNum, request);
 
 		return (elevatorNum);
@@ -41,67 +126,410 @@ public class SchedulerAlgorithm {
 	/**
 	 * determineElevatorToGiveRequest
 	 * 
-	 * Determines which elevator in the system should be given the request with the
-	 * given start floor.
+	 * Determines which elevator in the system should be given the request,
+	 * using the current dispatch strategy.
 	 * 
-	 * @param startFloor Floor number where request was made
+	 * @param request  The new request
 	 * 
-	 * @return byte containg the elevator number that was given teh request
+	 * @return int containg the elevator number that was given teh request
 	 */
-	private byte determineElevatorToGiveRequest(Request request) {
-	    byte chosenElevator = -1;
+	private int determineElevatorToGiveRequest(Request request) {
+		return(dispatchStrategy.chooseElevator(this, request));
+	}
+	
+	/**
+	 * addPendingRequest
+	 * 
+	 * Holds the given request until assignPendingRequests is called,
+	 * instead of giving it to an elevator now. The request counts as
+	 * waiting while it is held.
+	 * 
+	 * @param request  The new request
+	 * 
+	 * @return None
+	 */
+	public void addPendingRequest(Request request) {
+	    pendingRequests.add(request);
+	    
+	    numWaiting++;
+	    maxOutstanding = Math.max(maxOutstanding, numWaiting + numRiding);
+	}
+	
+	/**
+	 * getNumPendingRequests
+	 * 
+	 * Returns the number of requests held by addPendingRequest that have
+	 * not been given to an elevator
+	 * 
+	 * @param  None
+	 * 
+	 * @return int Number of held requests
+	 */
+	public int getNumPendingRequests() {
+	    return(pendingRequests.size());
+	}
+	
+	/**
+	 * assignPendingRequests
+	 * 
+	 * Gives every held request to an elevator. The requests are given out
+	 * together, MAX_ASSIGNMENT_BATCH at a time, so that their total 
+	 * estimated cost is as low as possible (the dispatch strategy is not
+	 * used). Requests stay held if no elevator is usable.
+	 * 
+	 * @param  None
+	 * 
+	 * @return LinkedHashSet<Integer>  The elevators that were given requests
+	 */
+	public LinkedHashSet<Integer> assignPendingRequests() {
+	    LinkedHashSet<Integer> given = new LinkedHashSet<Integer>();
+	    ArrayList<Integer> usable = new ArrayList<Integer>();
 	    
-	    int shortestTime = -1;
-	    int smallestQueue = -1;
+	    for (int i = 0; i < elevatorInfo.size(); i++) {
+	        if (elevatorInfo.get(i).isUsable()) {
+	            usable.add(i);
+	        }
+	    }
 	    
-	    int time;
-	    int queue;
-
-		// Add destination to closest elevator
-		for (byte i = 0; i < elevatorInfo.size(); i++) {
-			if (elevatorInfo.get(i).isUsable()) {
-			    time = howLongUntilRequestWouldBeServed(i, request);
-	            queue = elevatorInfo.get(i).howManyMoreActiveRequests();
+	    if (usable.isEmpty()) {
+	        return(given);
+	    }
+	    
+	    while (!pendingRequests.isEmpty()) {
+	        List<Request> batch = pendingRequests.subList(0, Math.min(pendingRequests.size(), 
+	                                                                  UtilityInformation.MAX_ASSIGNMENT_BATCH));
+	        int[] chosen = chooseElevators(batch, usable);
+	        long now = clock.nanoTime();
+	        
+	        for (int i = 0; i < batch.size(); i++) {
+	            Request req = batch.get(i);
+	            long delay = now - req.getElevatorRequestTime();
 	            
-    			if (((shortestTime == -1) || 
-    			    ((time < shortestTime) && (queue <= smallestQueue)) || 
-    			     (queue < smallestQueue))) {
-    				chosenElevator = i;
-    				shortestTime = time;
-    				smallestQueue = queue;
-    			}
-			}
-		}
-
-		return (chosenElevator);
+	            totalAssignmentDelay += delay;
+	            maxAssignmentDelay = Math.max(maxAssignmentDelay, delay);
+	            numAssignedTogether++;
+	            
+	            // Counted as waiting again by the elevator
+	            numWaiting--;
+	            addRequestToElevator(chosen[i], req);
+	            given.add(chosen[i]);
+	        }
+	        
+	        batch.clear();
+	    }
+	    
+	    return(given);
+	}
+	
+	/**
+	 * chooseElevators
+	 * 
+	 * Chooses the elevator given each of the given requests. Requests made
+	 * on the same floor in the same direction are one call, answered by one
+	 * stop, so they are given to the same elevator. Each request costs the
+	 * estimated time until the elevator picks it up plus the estimated time
+	 * until it drops it off, so waiting counts twice as much as riding.
+	 * Each call also costs the time of one stop for every other call the
+	 * elevator is given before it. The calls are given out with the lowest
+	 * total cost.
+	 * 
+	 * @param batch    The requests to give out
+	 * @param usable   The numbers of the elevators that can be given requests
+	 * 
+	 * @return int[]   The elevator chosen for each request
+	 */
+	private int[] chooseElevators(List<Request> batch, ArrayList<Integer> usable) {
+	    ArrayList<Request> calls = new ArrayList<Request>();
+	    int[] callOfRequest = new int[batch.size()];
+	    
+	    for (int i = 0; i < batch.size(); i++) {
+	        Request req = batch.get(i);
+	        int call = 0;
+	        
+	        while ((call < calls.size()) && 
+	               ((calls.get(call).getSourceFloor() != req.getSourceFloor()) || 
+	                (calls.get(call).getRequestDirection() != req.getRequestDirection()))) {
+	            call++;
+	        }
+	        
+	        if (call == calls.size()) {
+	            calls.add(req);
+	        }
+	        
+	        callOfRequest[i] = call;
+	    }
+	    
+	    int numElevators = usable.size();
+	    long[][] callCost = new long[calls.size()][numElevators];
+	    
+	    for (int i = 0; i < batch.size(); i++) {
+	        Request req = batch.get(i);
+	        
+	        for (int j = 0; j < numElevators; j++) {
+	            callCost[callOfRequest[i]][j] += getEstimatedPickupTime(usable.get(j), req.getSourceFloor()) +
+	                                            getEstimatedDropOffTime(usable.get(j), req.getSourceFloor(), 
+	                                                                    req.getDestinationFloor());
+	        }
+	    }
+	    
+	    // Each elevator can be given up to this many calls, one for each slot
+	    int slots = Math.max(Math.min(calls.size(), UtilityInformation.MAX_ASSIGNMENTS_PER_ELEVATOR),
+	                         (calls.size() + numElevators - 1) / numElevators);
+	    long[][] cost = new long[calls.size()][numElevators * slots];
+	    
+	    for (int call = 0; call < calls.size(); call++) {
+	        for (int j = 0; j < numElevators; j++) {
+	            for (int slot = 0; slot < slots; slot++) {
+	                cost[call][j * slots + slot] = callCost[call][j] + (long) slot * EtaEngine.STOP_TIME;
+	            }
+	        }
+	    }
+	    
+	    int[] slotOfCall = AssignmentSolver.solve(cost);
+	    int[] chosen = new int[batch.size()];
+	    
+	    for (int i = 0; i < batch.size(); i++) {
+	        chosen[i] = usable.get(slotOfCall[callOfRequest[i]] / slots);
+	    }
+	    
+	    return(chosen);
+	}
+	
+	/**
+	 * getAverageAssignmentDelay
+	 * 
+	 * Returns the mean time requests given out by assignPendingRequests
+	 * were held before being given to an elevator
+	 * 
+	 * @param  None
+	 * 
+	 * @return double  Mean time held (in milliseconds), 0 if none were held
+	 */
+	public double getAverageAssignmentDelay() {
+	    if (numAssignedTogether == 0) {
+	        return(0);
+	    }
+	    
+	    return(totalAssignmentDelay / 1e6 / numAssignedTogether);
+	}
+	
+	/**
+	 * getMaxAssignmentDelay
+	 * 
+	 * Returns the longest time a request given out by assignPendingRequests
+	 * was held before being given to an elevator
+	 * 
+	 * @param  None
+	 * 
+	 * @return double  Longest time held (in milliseconds)
+	 */
+	public double getMaxAssignmentDelay() {
+	    return(maxAssignmentDelay / 1e6);
+	}
+	
+	/**
+	 * rebalanceRequests
+	 * 
+	 * Moves requests that are waiting to be picked up to another elevator
+	 * if it would pick them up at least MIN_REBALANCE_GAIN sooner. Every
+	 * request waiting on one floor of an elevator is one stop, so they are
+	 * moved together, to the usable elevator that would reach the floor
+	 * soonest. Requests of an elevator that is not usable are moved to 
+	 * any usable elevator.
+	 * So that requests do not bounce between elevators, a request of a
+	 * usable elevator is moved at most once per check, and never back to
+	 * the elevator it was last moved away from.
+	 * 
+	 * @param  None
+	 * 
+	 * @return LinkedHashSet<Integer>  The elevators that were given or lost requests
+	 */
+	public LinkedHashSet<Integer> rebalanceRequests() {
+	    LinkedHashSet<Integer> changed = new LinkedHashSet<Integer>();
+	    HashSet<Request> moved = new HashSet<Request>();
+	    
+	    for (int from = 0; from < elevatorInfo.size(); from++) {
+	        AlgorithmElevator elevator = elevatorInfo.get(from);
+	        
+	        for (int floorNum = 0; (floorNum < elevator.pickupsByFloor.size()) && (elevator.numWaiting > 0); floorNum++) {
+	            ArrayList<Request> pickups = elevator.pickupsByFloor.get(floorNum);
+	            
+	            if (pickups.isEmpty()) {
+	                continue;
+	            }
+	            
+	            boolean usable = elevator.isUsable();
+	            
+	            if (usable && !Collections.disjoint(pickups, moved)) {
+	                continue;
+	            }
+	            
+	            long currentTime = usable ? getEstimatedPickupTime(from, floorNum) : Long.MAX_VALUE;
+	            long bestTime = currentTime - UtilityInformation.MIN_REBALANCE_GAIN;
+	            int to = -1;
+	            
+	            for (int i = 0; i < elevatorInfo.size(); i++) {
+	                if ((i != from) && elevatorInfo.get(i).isUsable() && (!usable || !wasRebalancedFrom(pickups, i))) {
+	                    long time = getEstimatedPickupTime(i, floorNum);
+	                    
+	                    if (time <= bestTime) {
+	                        bestTime = time;
+	                        to = i;
+	                    }
+	                }
+	            }
+	            
+	            if (to != -1) {
+	                for (Request req : elevator.removePickups(floorNum)) {
+	                    if (req.getNumRebalances() == 0) {
+	                        numRequestsRebalanced++;
+	                    }
+	                    
+	                    req.setRebalancedFrom(from);
+	                    moved.add(req);
+	                    addRequestToElevator(to, req);
+	                    numRebalanced++;
+	                }
+	                
+	                changed.add(from);
+	                changed.add(to);
+	            }
+	        }
+	    }
+	    
+	    return(changed);
 	}
 	
 	/**
-	 * howLongUntilRequestWouldBeServed
+	 * wasRebalancedFrom
 	 * 
-	 * Determines how long it would take for the current elevator to start
-	 * the given request (i.e. to pick the person up)
+	 * Returns whether any of the given requests was last moved away from
+	 * the given elevator
 	 * 
+	 * @param requests The requests to check
 	 * @param elevatorNum  The number of the elevator
-	 * @param req  The Request to service
 	 * 
-	 * @return int Time in milliseconds it would take the current elevator to service the request
+	 * @return boolean True if a request was last moved away from the elevator
 	 */
-	private int howLongUntilRequestWouldBeServed(byte elevatorNum, Request req) {
-		int currFloor = elevatorInfo.get(elevatorNum).getCurrFloor();
-		UtilityInformation.ElevatorDirection dir = elevatorInfo.get(elevatorNum).getDir();
-		int nextFloor = determineNextFloor(elevatorNum);
-		
-		int sourceFloor = req.getSourceFloor();
-		
-		int diff = Math.abs(sourceFloor - currFloor);
-		
-		if ((dir.equals(UtilityInformation.ElevatorDirection.UP) && (sourceFloor < currFloor)) || 
-		    (dir.equals(UtilityInformation.ElevatorDirection.DOWN) && (sourceFloor > currFloor))) {
-			diff = Math.abs((nextFloor - currFloor)) + Math.abs((nextFloor - sourceFloor));
-		}
-		
-		return(diff * UtilityInformation.TIME_UP_ONE_FLOOR);
+	private static boolean wasRebalancedFrom(ArrayList<Request> requests, int elevatorNum) {
+	    for (Request req : requests) {
+	        if (req.getRebalancedFrom() == elevatorNum) {
+	            return(true);
+	        }
+	    }
+	    
+	    return(false);
+	}
+	
+	/**
+	 * canRebalance
+	 * 
+	 * Returns whether rebalanceRequests could move any request: some 
+	 * elevator has a request waiting to be picked up and some elevator
+	 * is usable
+	 * 
+	 * @param  None
+	 * 
+	 * @return boolean True if a request might be moved
+	 */
+	public boolean canRebalance() {
+	    boolean waiting = false;
+	    boolean usable = false;
+	    
+	    for (AlgorithmElevator elevator : elevatorInfo) {
+	        waiting |= (elevator.numWaiting > 0);
+	        usable |= elevator.isUsable();
+	    }
+	    
+	    return(waiting && usable);
+	}
+	
+	/**
+	 * getNumRebalancedRequests
+	 * 
+	 * Returns the number of times rebalanceRequests has moved a request
+	 * to another elevator
+	 * 
+	 * @param  None
+	 * 
+	 * @return int Number of moves
+	 */
+	public int getNumRebalancedRequests() {
+	    return(numRebalanced);
+	}
+	
+	/**
+	 * getNumDistinctRebalancedRequests
+	 * 
+	 * Returns the number of different requests rebalanceRequests has moved
+	 * to another elevator at least once
+	 * 
+	 * @param  None
+	 * 
+	 * @return int Number of requests moved
+	 */
+	public int getNumDistinctRebalancedRequests() {
+	    return(numRequestsRebalanced);
+	}
+	
+	/**
+	 * getEstimatedPickupTime
+	 * 
+	 * Returns how long the given elevator would take to reach the given
+	 * floor if it were given a request there now
+	 * 
+	 * @param elevatorNum  The number of the elevator to check
+	 * @param floorNum The floor to reach
+	 * 
+	 * @return long    Time until the elevator reaches the floor (in milliseconds)
+	 */
+	public long getEstimatedPickupTime(int elevatorNum, int floorNum) {
+	    return(etaEngine.getPickupTime(elevatorInfo.get(elevatorNum), floorNum));
+	}
+	
+	/**
+	 * getEstimatedDropOffTime
+	 * 
+	 * Returns how long a request from the given source floor to the given
+	 * destination floor would take to finish if it were given to the given
+	 * elevator now
+	 * 
+	 * @param elevatorNum  The number of the elevator to check
+	 * @param sourceFloor  The floor the request is made on
+	 * @param destFloor    The destination floor of the request
+	 * 
+	 * @return long    Time until the request would be dropped off (in milliseconds)
+	 */
+	public long getEstimatedDropOffTime(int elevatorNum, int sourceFloor, int destFloor) {
+	    return(etaEngine.getDropOffTime(elevatorInfo.get(elevatorNum), sourceFloor, destFloor));
+	}
+	
+	/**
+	 * getEstimatedFinishTime
+	 * 
+	 * Returns how long the given elevator would take to finish every request
+	 * it has now
+	 * 
+	 * @param elevatorNum  The number of the elevator to check
+	 * 
+	 * @return long    Time until the elevator has nothing left to do (in milliseconds)
+	 */
+	public long getEstimatedFinishTime(int elevatorNum) {
+	    return(etaEngine.getFinishTime(elevatorInfo.get(elevatorNum)));
+	}
+	
+	/**
+	 * getNumPlansBuilt
+	 * 
+	 * Returns the number of times an elevator's plan has been simulated
+	 * to estimate times, rather than reused
+	 * 
+	 * @param  None
+	 * 
+	 * @return int Number of plans simulated
+	 */
+	public int getNumPlansBuilt() {
+	    return(etaEngine.getNumPlansBuilt());
 	}
 	
 	/**
@@ -118,7 +546,7 @@ public class SchedulerAlgorithm {
 	 * 
 	 * @return Byte The index in the list where the request was placed
 	 */
-	private void addRequestToElevator(byte elevatorNum, Request request) {
+	private void addRequestToElevator(int elevatorNum, Request request) {
 		elevatorInfo.get(elevatorNum).addRequest(request);		
 	}
 
@@ -129,28 +557,18 @@ public class SchedulerAlgorithm {
 	 * @param floorNum
 	 * @param elevatorNum
 	 */
-	public void elevatorHasReachedFloor(Byte floorNum, Byte elevatorNum) {
-		System.out.println("Elevator " + elevatorNum + " has reached floor: " + floorNum);
+	public void elevatorHasReachedFloor(int floorNum, int elevatorNum) {
+		Log.debug(() -> "Elevator " + elevatorNum + " has reached floor: " + floorNum);
 		
-		boolean stopElevator = false;
+		AlgorithmElevator elevator = elevatorInfo.get(elevatorNum);
+		boolean stopElevator = elevator.arriveAtFloor(floorNum);
 		
-		for (Request req : elevatorInfo.get(elevatorNum).getRequests()) {
-		    if ((req.getElevatorPickupTimeFlag() == false) && 
-		        (req.getSourceFloor() == floorNum)) {
-		        req.setElevatorPickupTimeFlag();
-		        elevatorInfo.get(elevatorNum).setDir(UtilityInformation.ElevatorDirection.STATIONARY);
-		        stopElevator = true;
-		    } else if ((req.getElevatorPickupTimeFlag() == true) && 
-    		           (req.getElevatorArrivedDestinationTimeFlag() == false) && 
-    		           (req.getDestinationFloor() == floorNum)) {
-		        req.setElevatorArrivedDestinationTimeFlag();
-		        elevatorInfo.get(elevatorNum).setDir(UtilityInformation.ElevatorDirection.STATIONARY);
-		        stopElevator = true;
-		    }
+		if (stopElevator) {
+		    elevator.setDir(UtilityInformation.ElevatorDirection.STATIONARY);
 		}
 
-		elevatorInfo.get(elevatorNum).setStopElevator(stopElevator);
-		elevatorInfo.get(elevatorNum).setCurrFloor(floorNum);
+		elevator.setStopElevator(stopElevator);
+		elevator.setCurrFloor(floorNum);
 	}
 
 	/**
@@ -159,8 +577,8 @@ public class SchedulerAlgorithm {
 	 * @param elevatorNum
 	 * @return
 	 */
-	public UtilityInformation.ElevatorDirection whatDirectionShouldTravel(byte elevatorNum) {
-		if ((elevatorInfo.get(elevatorNum).getRequests().size() != 0) && (elevatorInfo.get(elevatorNum).isUsable())) {
+	public UtilityInformation.ElevatorDirection whatDirectionShouldTravel(int elevatorNum) {
+		if ((elevatorInfo.get(elevatorNum).howManyMoreActiveRequests() != 0) && (elevatorInfo.get(elevatorNum).isUsable())) {
 			int currFloor = elevatorInfo.get(elevatorNum).getCurrFloor();
 			int nextFloor = determineNextFloor(elevatorNum);
 			
@@ -187,11 +605,11 @@ public class SchedulerAlgorithm {
 	 * 
 	 * @return int The next floor number
 	 */
-	private int determineNextFloor(byte elevatorNum) {
+	private int determineNextFloor(int elevatorNum) {
         int nextFloor = -1;
         
 	    if (!elevatorInfo.get(elevatorNum).getStopElevator() && 
-	       (elevatorInfo.get(elevatorNum).getRequests().size() != 0) && 
+	       (elevatorInfo.get(elevatorNum).howManyMoreActiveRequests() != 0) && 
 	       (elevatorInfo.get(elevatorNum).isUsable())) {
             UtilityInformation.ElevatorDirection currDir = elevatorInfo.get(elevatorNum).getDir();            
             
@@ -236,41 +654,82 @@ public class SchedulerAlgorithm {
 	 * @return int The closest floor in the given direction.
 	 *             Returns the current floor if nothing else available
 	 */
-	private int getNextClosestFloorInDirection(byte elevatorNum, UtilityInformation.ElevatorDirection dir) {
-	    int currFloor = elevatorInfo.get(elevatorNum).getCurrFloor();
-        int nextFloor = currFloor;
-        int currDiff;
-        int closestDiff = -1;        
-        int currFloorToCompare;
-        
-        for (Request req : elevatorInfo.get(elevatorNum).getRequests()) {
-            currFloorToCompare = -1;
-            
-            if (req.getElevatorPickupTimeFlag() == false) {
-                currFloorToCompare = req.getSourceFloor();
-            } else if ((req.getElevatorPickupTimeFlag() == true) && (req.getElevatorArrivedDestinationTimeFlag() == false)) {
-                currFloorToCompare = req.getDestinationFloor();
-            }
-            
-            if (currFloorToCompare != -1) {
-                if (((dir.equals(UtilityInformation.ElevatorDirection.UP)) && (currFloorToCompare > currFloor)) || 
-                    ((dir.equals(UtilityInformation.ElevatorDirection.DOWN)) && (currFloorToCompare < currFloor)) || 
-                    (dir.equals(UtilityInformation.ElevatorDirection.STATIONARY))) {
-                    currDiff = Math.abs(currFloor - currFloorToCompare);
-                    if ((closestDiff == -1) || (currDiff < closestDiff)) {
-                        closestDiff = currDiff;
-                        nextFloor = currFloorToCompare;
-                    }
-                    
-                }
-            }
-        }
-        
-        if (nextFloor == currFloor) {
-            nextFloor = -1;
-        }
-        
-        return(nextFloor);
+	private int getNextClosestFloorInDirection(int elevatorNum, UtilityInformation.ElevatorDirection dir) {
+	    AlgorithmElevator elevator = elevatorInfo.get(elevatorNum);
+	    int currFloor = elevator.getCurrFloor();
+	    
+	    if (dir.equals(UtilityInformation.ElevatorDirection.UP)) {
+	        return(elevator.getNextStopAbove(currFloor));
+	    } else if (dir.equals(UtilityInformation.ElevatorDirection.DOWN)) {
+	        return(elevator.getNextStopBelow(currFloor));
+	    } else if (!elevator.hasStopAt(currFloor)) {
+	        // Closest stop on either side. If there is a stop at the current
+	        // floor the elevator should not move at all.
+	        int above = elevator.getNextStopAbove(currFloor);
+	        int below = elevator.getNextStopBelow(currFloor);
+	        
+	        if ((above == -1) || ((below != -1) && ((currFloor - below) < (above - currFloor)))) {
+	            return(below);
+	        } else if ((below == -1) || ((above - currFloor) < (currFloor - below))) {
+	            return(above);
+	        }
+	        
+	        return(elevator.getFirstRequestedFloor(below, above));
+	    }
+	    
+	    return(-1);
+	}
+
+	/**
+	 * getNumberOfElevators
+	 * 
+	 * Returns the number of elevators the algorithm controls
+	 * 
+	 * @param  None
+	 * 
+	 * @return int Number of elevators
+	 */
+	public int getNumberOfElevators() {
+	    return(elevatorInfo.size());
+	}
+	
+	/**
+	 * isUsable
+	 * 
+	 * Returns whether the given elevator can be given requests
+	 * 
+	 * @param elevatorNum  The number of the elevator to check
+	 * 
+	 * @return boolean True if the elevator is usable
+	 */
+	public boolean isUsable(int elevatorNum) {
+	    return(elevatorInfo.get(elevatorNum).isUsable());
+	}
+	
+	/**
+	 * getDirection
+	 * 
+	 * Returns the direction the given elevator was last sent in
+	 * 
+	 * @param elevatorNum  The number of the elevator to check
+	 * 
+	 * @return ElevatorDirection   The current direction of the elevator
+	 */
+	public UtilityInformation.ElevatorDirection getDirection(int elevatorNum) {
+	    return(elevatorInfo.get(elevatorNum).getDir());
+	}
+	
+	/**
+	 * getPreviousDirection
+	 * 
+	 * Returns the direction the given elevator was last moving in
+	 * 
+	 * @param elevatorNum  The number of the elevator to check
+	 * 
+	 * @return ElevatorDirection   The previous direction of the elevator
+	 */
+	public UtilityInformation.ElevatorDirection getPreviousDirection(int elevatorNum) {
+	    return(elevatorInfo.get(elevatorNum).getPreviousDir());
 	}
 
 	/**
@@ -279,15 +738,79 @@ public class SchedulerAlgorithm {
 	 * @param elevatorNum
 	 * @return
 	 */
-	public boolean somewhereToGo(byte elevatorNum) {
-		for (Request req : elevatorInfo.get(elevatorNum).getRequests()) {
-		    if ((req.getElevatorPickupTimeFlag() == false) ||
-		        (req.getElevatorArrivedDestinationTimeFlag() == false)) {
-		        return(true);
-		    }
-		}
-		
-		return(false);
+	public boolean somewhereToGo(int elevatorNum) {
+		return(elevatorInfo.get(elevatorNum).howManyMoreActiveRequests() != 0);
+	}
+
+	/**
+	 * getOutstandingRequests
+	 * 
+	 * Returns the number of requests of every elevator that have not been
+	 * dropped off yet
+	 * 
+	 * @param  None
+	 * 
+	 * @return int Number of outstanding requests
+	 */
+	public int getOutstandingRequests() {
+	    return(numWaiting + numRiding);
+	}
+	
+	/**
+	 * getOutstandingRequests
+	 * 
+	 * Returns the number of requests of the given elevator that have not
+	 * been dropped off yet
+	 * 
+	 * @param elevatorNum  The number of the elevator to check
+	 * 
+	 * @return int Number of outstanding requests
+	 */
+	public int getOutstandingRequests(int elevatorNum) {
+	    AlgorithmElevator elevator = elevatorInfo.get(elevatorNum);
+	    
+	    return(elevator.numWaiting + elevator.numRiding);
+	}
+	
+	/**
+	 * getWaitingRequests
+	 * 
+	 * Returns the number of requests of every elevator that are waiting
+	 * to be picked up, and requests held to be given to an elevator
+	 * 
+	 * @param  None
+	 * 
+	 * @return int Number of waiting requests
+	 */
+	public int getWaitingRequests() {
+	    return(numWaiting);
+	}
+	
+	/**
+	 * getRidingRequests
+	 * 
+	 * Returns the number of requests of every elevator that have been
+	 * picked up but not dropped off
+	 * 
+	 * @param  None
+	 * 
+	 * @return int Number of requests in an elevator
+	 */
+	public int getRidingRequests() {
+	    return(numRiding);
+	}
+	
+	/**
+	 * getMaxOutstandingRequests
+	 * 
+	 * Returns the most requests that have been outstanding at once
+	 * 
+	 * @param  None
+	 * 
+	 * @return int Highest number of outstanding requests
+	 */
+	public int getMaxOutstandingRequests() {
+	    return(maxOutstanding);
 	}
 
 	/**
@@ -297,26 +820,26 @@ public class SchedulerAlgorithm {
 	 * 
 	 * @param numElevators
 	 */
-	public void setNumberOfElevators(byte numElevators) {
+	public void setNumberOfElevators(int numElevators) {
 		while (elevatorInfo.size() > numElevators) {
-			elevatorInfo.remove(elevatorInfo.size() - 1);
+			elevatorInfo.remove(elevatorInfo.size() - 1).clearRequests();
 		}
 
 		while (elevatorInfo.size() < numElevators) {
-			elevatorInfo.add(new AlgorithmElevator((byte) elevatorInfo.size()));
+			elevatorInfo.add(new AlgorithmElevator(elevatorInfo.size()));
 		}
 	}
 
 	/**
-	 * Get an elevators destinations
+	 * Get the destinations of an elevators active requests, oldest first
 	 * 
 	 * @param elevatorNum
 	 * @return
 	 */
-	public LinkedHashSet<Byte> getDestinations(byte elevatorNum) {
-	    LinkedHashSet<Byte> dests = new LinkedHashSet<Byte>();
+	public LinkedHashSet<Integer> getDestinations(int elevatorNum) {
+	    LinkedHashSet<Integer> dests = new LinkedHashSet<Integer>();
 	    
-	    for (Request req : elevatorInfo.get(elevatorNum).getRequests()) {
+	    for (Request req : elevatorInfo.get(elevatorNum).getActiveRequests()) {
 	        dests.add(req.getDestinationFloor());
 	    }
 	    
@@ -329,7 +852,7 @@ public class SchedulerAlgorithm {
 	 * @param elevatorNum
 	 * @return
 	 */
-	public byte getCurrentFloor(byte elevatorNum) {
+	public int getCurrentFloor(int elevatorNum) {
 		return elevatorInfo.get(elevatorNum).getCurrFloor();
 	}
 
@@ -339,7 +862,7 @@ public class SchedulerAlgorithm {
 	 * @param elevatorNum
 	 * @return
 	 */
-	public boolean getStopElevator(byte elevatorNum) {
+	public boolean getStopElevator(int elevatorNum) {
 		return elevatorInfo.get(elevatorNum).getStopElevator();
 	}
 
@@ -349,7 +872,7 @@ public class SchedulerAlgorithm {
 	 * @param elevatorNum
 	 * @param newVal
 	 */
-	public void setStopElevator(byte elevatorNum, boolean newVal) {
+	public void setStopElevator(int elevatorNum, boolean newVal) {
 		elevatorInfo.get(elevatorNum).setStopElevator(newVal);
 	}
 
@@ -372,19 +895,22 @@ public class SchedulerAlgorithm {
 	 * 
 	 * @return None
 	 */
-	public void stopUsingElevator(byte elevatorNum) {
+	public void stopUsingElevator(int elevatorNum) {
 
-		// Move all stops from the broken elevator to the elevator with the shortest
-		// queuse
-		ArrayList<Request> currReqs = elevatorInfo.get(elevatorNum).getRequests();
-		byte currFloor = elevatorInfo.get(elevatorNum).getCurrFloor();
+		// Move all outstanding stops from the broken elevator to the elevator with 
+		// the shortest queuse
+		ArrayList<Request> currReqs = new ArrayList<Request>(elevatorInfo.get(elevatorNum).getActiveRequests());
+		int currFloor = elevatorInfo.get(elevatorNum).getCurrFloor();
 		Request tempReq;
-		byte startFloor;
-		byte destFloor;
+		int startFloor;
+		int destFloor;
 		UtilityInformation.ElevatorDirection dir;
 		
 		pauseElevator(elevatorNum);
 		
+		// Cleared first so the moved requests are never counted twice
+		elevatorInfo.get(elevatorNum).clearRequests();
+		
 		for (Request req : currReqs) {
 		    if (req.getElevatorPickupTimeFlag()) {
 		        startFloor = currFloor;
@@ -396,15 +922,13 @@ public class SchedulerAlgorithm {
 		            dir = UtilityInformation.ElevatorDirection.DOWN;
 		        }
 		        
-		        tempReq = new Request(System.nanoTime(), startFloor, destFloor, dir);
+		        tempReq = new Request(clock.nanoTime(), startFloor, destFloor, dir);
 		    } else {
 		        tempReq = req;
 		    }
 		    
 		    elevatorRequestMade(tempReq);
 		}
-
-		elevatorInfo.get(elevatorNum).clearRequests();		
 	}
 
 	/**
@@ -417,7 +941,7 @@ public class SchedulerAlgorithm {
 	 * 
 	 * @return None
 	 */
-	public void pauseElevator(byte elevatorNum) {
+	public void pauseElevator(int elevatorNum) {
 		elevatorInfo.get(elevatorNum).setUsable(false);
 
 		elevatorInfo.get(elevatorNum).setStopElevator(true);
@@ -434,7 +958,7 @@ public class SchedulerAlgorithm {
 	 * 
 	 * @return None
 	 */
-	public void resumeUsingElevator(byte elevatorNum) {
+	public void resumeUsingElevator(int elevatorNum) {
 		elevatorInfo.get(elevatorNum).setUsable(true);
 		elevatorInfo.get(elevatorNum).setStopElevator(false);
 	}
@@ -448,10 +972,39 @@ public class SchedulerAlgorithm {
 	 * 
 	 * @return ArrayList<Request>  Containing all of the elevator's past and current requests
 	 */
-    public ArrayList<Request> getRequests(byte elevatorNum) {
+    public ArrayList<Request> getRequests(int elevatorNum) {
         return(elevatorInfo.get(elevatorNum).getRequests());
     }
     
+    /**
+     * updateRequestTimes
+     * 
+     * Sets the pickup and arrival times of every request of the given
+     * elevator that has been picked up or dropped off since the last update
+     * 
+     * @param elevatorNum  The number of the elevator that has stopped
+     * @param updatedTime  The time to update the requests to
+     * 
+     * @return void
+     */
+    public void updateRequestTimes(int elevatorNum, long updatedTime) {
+        ArrayList<Request> untimed = elevatorInfo.get(elevatorNum).untimedRequests;
+        
+        for (Request temp : untimed) {
+            if (temp.getElevatorPickupTimeFlag() && 
+               (temp.getElevatorPickupTime() == -1)) {
+                temp.setElevatorPickupTime(updatedTime);
+            }
+            
+            if (temp.getElevatorArrivedDestinationTimeFlag() && 
+               (temp.getElevatorArrivedDestinationTime() == -1)) {
+                temp.setElevatorArrivedDestinationTime(updatedTime);
+            }
+        }
+        
+        untimed.clear();
+    }
+    
     /**
      * getStopSignalSent
      * 
@@ -461,7 +1014,7 @@ public class SchedulerAlgorithm {
      * 
      * @return  boolean Current value for stopSignalSent
      */
-    public boolean getStopSignalSent(byte elevatorNum) {
+    public boolean getStopSignalSent(int elevatorNum) {
         return(elevatorInfo.get(elevatorNum).getStopSignalSent());
     }
     
@@ -475,9 +1028,38 @@ public class SchedulerAlgorithm {
      * 
      * @return  void
      */
-    public void setStopSignalSent(byte elevatorNum, boolean newVal) {
+    public void setStopSignalSent(int elevatorNum, boolean newVal) {
         elevatorInfo.get(elevatorNum).setStopSignalSent(newVal);
     }
+    
+    /**
+     * getStopFinished
+     * 
+     * Returns whether the given elevator has reported its floor since it
+     * was last told to stop with nothing left to do
+     * 
+     * @param elevatorNum   The number of the elevator to check
+     * 
+     * @return  boolean True if the elevator is not still stopping
+     */
+    public boolean getStopFinished(int elevatorNum) {
+        return(elevatorInfo.get(elevatorNum).stopFinished);
+    }
+    
+    /**
+     * setStopFinished
+     * 
+     * Sets whether the given elevator has reported its floor since it 
+     * was last told to stop with nothing left to do
+     * 
+     * @param elevatorNum   Number of the elevator to change
+     * @param newVal    The new value for stopFinished
+     * 
+     * @return  void
+     */
+    public void setStopFinished(int elevatorNum, boolean newVal) {
+        elevatorInfo.get(elevatorNum).stopFinished = newVal;
+    }
 	    
     /**
      * AlgorithmElevator
@@ -488,11 +1070,35 @@ public class SchedulerAlgorithm {
      */
 	public class AlgorithmElevator {
 	    // Info about elevator
-	    public byte elevatorNum;
-        public byte currFloor;
+	    public int elevatorNum;
+        public int currFloor;
+        
+        // Requests given to the elevator that are not finished (oldest first), 
+        // and requests that are finished
+        public ArrayList<Request> activeRequests;
+        public ArrayList<Request> completedRequests;
+        
+        // Active requests waiting to be picked up at each floor, and
+        // requests waiting to be dropped off at each floor
+        public ArrayList<ArrayList<Request>> pickupsByFloor;
+        public ArrayList<ArrayList<Request>> dropOffsByFloor;
         
-        // Requests given to the eelvator
-        public ArrayList<Request> elevatorRequests;
+        // One bit for each floor (64 floors to a word), set while the
+        // list for that floor in the matching index is not empty
+        public long[] pickupStops;
+        public long[] dropOffStops;
+        
+        // Requests picked up or dropped off whose times are not set yet
+        public ArrayList<Request> untimedRequests;
+        
+        // Active requests waiting to be picked up and riding in the elevator
+        // (only changed by the thread running the algorithm, but read by others)
+        public volatile int numWaiting;
+        public volatile int numRiding;
+        
+        // Changed every time the stops, direction or condition of the
+        // elevator change, so a plan made from them can be recognized as old
+        public int planVersion;
         
         // Condition of elevator
 	    public boolean stopElevator;
@@ -504,6 +1110,10 @@ public class SchedulerAlgorithm {
 	    
 	    public boolean stopSignalSent;
 	    
+	    // False from when the elevator is told to stop with nothing left to
+	    // do until it reports its floor again
+	    public boolean stopFinished;
+	    
 	    /**
 	     * AlgorithmElevator
 	     * 
@@ -513,11 +1123,20 @@ public class SchedulerAlgorithm {
 	     * 
 	     * @return None
 	     */
-	    public AlgorithmElevator(byte elevatorNum) {
+	    public AlgorithmElevator(int elevatorNum) {
 	        this.elevatorNum = elevatorNum;
 	        currFloor = 0;
 	        
-            elevatorRequests = new ArrayList<Request>();
+            activeRequests = new ArrayList<Request>();
+            completedRequests = new ArrayList<Request>();
+            pickupsByFloor = new ArrayList<ArrayList<Request>>();
+            dropOffsByFloor = new ArrayList<ArrayList<Request>>();
+            pickupStops = new long[0];
+            dropOffStops = new long[0];
+            untimedRequests = new ArrayList<Request>();
+            numWaiting = 0;
+            numRiding = 0;
+            planVersion = 0;
 	        
 	        stopElevator = true;
 	        elevatorUsable = true;
@@ -526,6 +1145,7 @@ public class SchedulerAlgorithm {
 	        previousDir = dir;
 	        
 	        stopSignalSent = true;
+	        stopFinished = true;
 
 	    }
 	    
@@ -581,8 +1201,12 @@ public class SchedulerAlgorithm {
 	        if (dir != UtilityInformation.ElevatorDirection.STATIONARY) {
 	            previousDir = dir;
 	        }
+	        
+	        if (newDir != dir) {
+	            planVersion++;
+	        }
 	    	
-            dir = newDir;            
+            dir = newDir;
         }
 
 	    /**
@@ -608,34 +1232,340 @@ public class SchedulerAlgorithm {
          * @return  void
          */
         public void addRequest(Request request) {
-            elevatorRequests.add(request);            
+            activeRequests.add(request);
+            planVersion++;
+            
+            if (request.getElevatorPickupTimeFlag()) {
+                getFloorList(dropOffsByFloor, request.getDestinationFloor()).add(request);
+                setStop(dropOffStops, request.getDestinationFloor());
+                countRequests(0, 1);
+            } else {
+                getFloorList(pickupsByFloor, request.getSourceFloor()).add(request);
+                setStop(pickupStops, request.getSourceFloor());
+                countRequests(1, 0);
+            }
         }
 
         /**
          * getRequests
          * 
-         * Returns the current list of requests
+         * Returns a new list of the finished requests followed by the
+         * active requests
          * 
          * @param   None
          * 
          * @return  ArrayList<Request> List of past and current requests
          */
         public ArrayList<Request> getRequests() {
-            return(elevatorRequests);
+            ArrayList<Request> requests = new ArrayList<Request>(completedRequests.size() + activeRequests.size());
+            
+            requests.addAll(completedRequests);
+            requests.addAll(activeRequests);
+            
+            return(requests);
+        }
+        
+        /**
+         * getActiveRequests
+         * 
+         * Returns the requests that have not been finished, oldest first
+         * 
+         * @param   None
+         * 
+         * @return  ArrayList<Request> List of active requests
+         */
+        public ArrayList<Request> getActiveRequests() {
+            return(activeRequests);
         }
 
         /**
          * clearRequests
          * 
-         * Empties the list of requests
+         * Removes every active request. Finished requests are kept.
          * 
          * @param   None
          * 
          * @return  void
          */
         public void clearRequests() {
-	        elevatorRequests.clear();
+            countRequests(-numWaiting, -numRiding);
+            activeRequests.clear();
+            planVersion++;
+            untimedRequests.clear();
+            
+            for (int i = 0; i < pickupsByFloor.size(); i++) {
+                pickupsByFloor.get(i).clear();
+                dropOffsByFloor.get(i).clear();
+            }
+            
+            Arrays.fill(pickupStops, 0);
+            Arrays.fill(dropOffStops, 0);
 	    }
+        
+        /**
+         * removePickups
+         * 
+         * Removes every active request waiting to be picked up at the
+         * given floor
+         * 
+         * @param floorNum  The floor the requests are waiting on
+         * 
+         * @return  ArrayList<Request> The removed requests, oldest first
+         */
+        public ArrayList<Request> removePickups(int floorNum) {
+            ArrayList<Request> pickups = getFloorList(pickupsByFloor, floorNum);
+            ArrayList<Request> removed = new ArrayList<Request>(pickups);
+            
+            if (!removed.isEmpty()) {
+                activeRequests.removeAll(removed);
+                countRequests(-removed.size(), 0);
+                pickups.clear();
+                clearStop(pickupStops, floorNum);
+                planVersion++;
+            }
+            
+            return(removed);
+        }
+        
+        /**
+         * arriveAtFloor
+         * 
+         * Drops off every request going to the given floor, then picks up
+         * every request waiting there
+         * 
+         * @param floorNum  The floor the elevator has reached
+         * 
+         * @return  boolean True if anyone got on or off
+         */
+        public boolean arriveAtFloor(int floorNum) {
+            ArrayList<Request> dropOffs = getFloorList(dropOffsByFloor, floorNum);
+            ArrayList<Request> pickups = getFloorList(pickupsByFloor, floorNum);
+            boolean stop = !dropOffs.isEmpty() || !pickups.isEmpty();
+            
+            for (Request req : dropOffs) {
+                req.setElevatorArrivedDestinationTimeFlag();
+                untimedRequests.add(req);
+                activeRequests.remove(req);
+                completedRequests.add(req);
+            }
+            countRequests(0, -dropOffs.size());
+            dropOffs.clear();
+            clearStop(dropOffStops, floorNum);
+            
+            // A request picked up at its own destination is only dropped
+            // off the next time the elevator arrives here
+            for (Request req : pickups) {
+                req.setElevatorPickupTimeFlag();
+                untimedRequests.add(req);
+                getFloorList(dropOffsByFloor, req.getDestinationFloor()).add(req);
+                setStop(dropOffStops, req.getDestinationFloor());
+            }
+            countRequests(-pickups.size(), pickups.size());
+            pickups.clear();
+            clearStop(pickupStops, floorNum);
+            
+            if (stop) {
+                planVersion++;
+            }
+            
+            return(stop);
+        }
+        
+        /**
+         * hasStopAt
+         * 
+         * Returns whether any active request is waiting to be picked up
+         * or dropped off at the given floor
+         * 
+         * @param floorNum  The floor to check
+         * 
+         * @return  boolean True if the elevator needs to stop at the floor
+         */
+        public boolean hasStopAt(int floorNum) {
+            if ((floorNum < 0) || ((floorNum >> 6) >= pickupStops.length)) {
+                return(false);
+            }
+            
+            return((getStopWord(floorNum >> 6) & (1L << floorNum)) != 0);
+        }
+        
+        /**
+         * getNextStopAbove
+         * 
+         * Returns the lowest floor above the given floor that the elevator
+         * needs to stop at
+         * 
+         * @param floorNum  The floor to search up from
+         * 
+         * @return  int The next stop above the floor, -1 if there is none
+         */
+        public int getNextStopAbove(int floorNum) {
+            int from = Math.max(floorNum + 1, 0);
+            int word = from >> 6;
+            
+            if (word >= pickupStops.length) {
+                return(-1);
+            }
+            
+            // Ignore the floors in the first word below the starting floor
+            long stops = getStopWord(word) & (-1L << from);
+            
+            while (stops == 0) {
+                if (++word == pickupStops.length) {
+                    return(-1);
+                }
+                
+                stops = getStopWord(word);
+            }
+            
+            return((word << 6) + Long.numberOfTrailingZeros(stops));
+        }
+        
+        /**
+         * getNextStopBelow
+         * 
+         * Returns the highest floor below the given floor that the elevator
+         * needs to stop at
+         * 
+         * @param floorNum  The floor to search down from
+         * 
+         * @return  int The next stop below the floor, -1 if there is none
+         */
+        public int getNextStopBelow(int floorNum) {
+            int from = Math.min(floorNum - 1, (pickupStops.length << 6) - 1);
+            
+            if (from < 0) {
+                return(-1);
+            }
+            
+            // Ignore the floors in the first word above the starting floor
+            int word = from >> 6;
+            long stops = getStopWord(word) & (-1L >>> (63 - (from & 63)));
+            
+            while (stops == 0) {
+                if (--word < 0) {
+                    return(-1);
+                }
+                
+                stops = getStopWord(word);
+            }
+            
+            return((word << 6) + 63 - Long.numberOfLeadingZeros(stops));
+        }
+        
+        /**
+         * getFirstRequestedFloor
+         * 
+         * Returns whichever of the two given floors is the next stop of
+         * the oldest active request
+         * 
+         * @param floorA    The first floor
+         * @param floorB    The second floor
+         * 
+         * @return  int The floor the oldest request is waiting on
+         */
+        public int getFirstRequestedFloor(int floorA, int floorB) {
+            for (Request req : activeRequests) {
+                int floor = req.getElevatorPickupTimeFlag() ? req.getDestinationFloor() : req.getSourceFloor();
+                
+                if ((floor == floorA) || (floor == floorB)) {
+                    return(floor);
+                }
+            }
+            
+            return(floorA);
+        }
+        
+        /**
+         * getFloorList
+         * 
+         * Returns the list of requests on the given floor in the given
+         * index, first growing both indexes and both stop bitsets to
+         * cover the floor if needed
+         * 
+         * @param index     pickupsByFloor or dropOffsByFloor
+         * @param floorNum  The floor to get the list of
+         * 
+         * @return  ArrayList<Request> The requests in the index on the floor
+         */
+        private ArrayList<Request> getFloorList(ArrayList<ArrayList<Request>> index, int floorNum) {
+            // Both indexes and both bitsets always cover the same floors
+            while (pickupsByFloor.size() <= floorNum) {
+                pickupsByFloor.add(new ArrayList<Request>());
+                dropOffsByFloor.add(new ArrayList<Request>());
+            }
+            
+            if ((floorNum >> 6) >= pickupStops.length) {
+                pickupStops = Arrays.copyOf(pickupStops, (floorNum >> 6) + 1);
+                dropOffStops = Arrays.copyOf(dropOffStops, (floorNum >> 6) + 1);
+            }
+            
+            return(index.get(floorNum));
+        }
+        
+        /**
+         * countRequests
+         * 
+         * Changes the number of waiting and riding requests of this
+         * elevator and of the whole algorithm, and records a new peak
+         * of outstanding requests
+         * 
+         * @param waitingChange The change in the number of waiting requests
+         * @param ridingChange  The change in the number of riding requests
+         * 
+         * @return  void
+         */
+        private void countRequests(int waitingChange, int ridingChange) {
+            numWaiting += waitingChange;
+            numRiding += ridingChange;
+            
+            SchedulerAlgorithm.this.numWaiting += waitingChange;
+            SchedulerAlgorithm.this.numRiding += ridingChange;
+            maxOutstanding = Math.max(maxOutstanding, SchedulerAlgorithm.this.numWaiting + SchedulerAlgorithm.this.numRiding);
+        }
+        
+        /**
+         * getStopWord
+         * 
+         * Returns one 64 floor word of the floors this elevator has to
+         * stop at, for a pickup or a drop off
+         * 
+         * @param word  Index of the word (floor number / 64)
+         * 
+         * @return  long Bit i is set if floor word * 64 + i is a stop
+         */
+        private long getStopWord(int word) {
+            return(pickupStops[word] | dropOffStops[word]);
+        }
+        
+        /**
+         * setStop
+         * 
+         * Marks the given floor as a stop in the given bitset. Only called
+         * once getFloorList has grown the bitsets to cover the floor.
+         * 
+         * @param stops     pickupStops or dropOffStops
+         * @param floorNum  The floor to stop at
+         * 
+         * @return  void
+         */
+        private void setStop(long[] stops, int floorNum) {
+            stops[floorNum >> 6] |= (1L << floorNum);
+        }
+        
+        /**
+         * clearStop
+         * 
+         * Marks the given floor as no longer a stop in the given bitset
+         * 
+         * @param stops     pickupStops or dropOffStops
+         * @param floorNum  The floor that is no longer a stop
+         * 
+         * @return  void
+         */
+        private void clearStop(long[] stops, int floorNum) {
+            stops[floorNum >> 6] &= ~(1L << floorNum);
+        }
 
         /**
          * getStopElevator
@@ -660,7 +1590,8 @@ public class SchedulerAlgorithm {
          * @return  void
          */
         public void setUsable(boolean newVal) {
-            elevatorUsable = newVal;            
+            elevatorUsable = newVal;
+            planVersion++;
         }
 
         /**
@@ -672,7 +1603,7 @@ public class SchedulerAlgorithm {
          * 
          * @return  void
          */
-        public void setCurrFloor(Byte floorNum) {
+        public void setCurrFloor(int floorNum) {
             currFloor = floorNum;            
         }
 
@@ -709,9 +1640,9 @@ public class SchedulerAlgorithm {
          * 
          * @param   None
          * 
-         * @return  byte    The current floor of the elevator
+         * @return  int    The current floor of the elevator
          */
-        public byte getCurrFloor() {
+        public int getCurrFloor() {
             return(currFloor);
         }
         
@@ -726,15 +1657,7 @@ public class SchedulerAlgorithm {
          * @return  int The number of active requests
          */
         public int howManyMoreActiveRequests() {
-            int count = 0;
-            
-            for (Request req : elevatorRequests) {
-                if (!req.getElevatorPickupTimeFlag() || !req.getElevatorArrivedDestinationTimeFlag()) {
-                    count += 1;
-                }
-            }
-            
-            return(count);
+            return(activeRequests.size());
         }
         
         /**
@@ -1,8 +1,12 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Properties;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -250,6 +254,140 @@ class SchedulerTest {
 		scheduler.changeDoorState(packet, UtilityInformation.DoorState.CLOSE);
 	}
 
+	/**
+	 * Test that an elevator given a new request while it is still doing its
+	 * final stop is only sent one move. The floor sensor message at the end
+	 * of the stop moves it, so it must not be kick started as well.
+	 */
+	@Test
+	void testNoSecondMoveWhileStopping() {
+		ArrayList<byte[]> commands = new ArrayList<byte[]>();
+		Scheduler stopping = recordingScheduler(commands);
+
+		MessageCodec messageCodec = new MessageCodec();
+		messageCodec.setVersion(MessageCodec.LATEST_VERSION);
+		DatagramPacket message = new DatagramPacket(messageCodec.getBuffer(), 0);
+
+		// Take a passenger from floor 0 to floor 3, where the elevator stops
+		message.setLength(messageCodec.floorRequest.encode(0, UtilityInformation.ElevatorDirection.UP, 3));
+		stopping.handleMessage(message);
+		for (int floor = 0; floor <= 3; floor++) {
+			message.setLength(messageCodec.floorSensor.encode(floor, 0));
+			stopping.handleMessage(message);
+		}
+
+		ArrayList<UtilityInformation.ElevatorDirection> moves = directionsIn(commands);
+		assertEquals(UtilityInformation.ElevatorDirection.STATIONARY, moves.get(moves.size() - 1));
+		commands.clear();
+
+		// A request comes in before the elevator reports the end of its stop
+		message.setLength(messageCodec.floorRequest.encode(5, UtilityInformation.ElevatorDirection.UP, 7));
+		stopping.handleMessage(message);
+		message.setLength(messageCodec.floorSensor.encode(3, 0));
+		stopping.handleMessage(message);
+
+		moves = directionsIn(commands);
+		assertEquals(1, moves.size());
+		assertEquals(UtilityInformation.ElevatorDirection.UP, moves.get(0));
+	}
+
+	/**
+	 * Test that a fix message that does not start at the beginning of its
+	 * packet's buffer is relayed to the elevator unchanged
+	 */
+	@Test
+	void testFixRelayedFromOffset() {
+		ArrayList<byte[]> commands = new ArrayList<byte[]>();
+		Scheduler relaying = recordingScheduler(commands);
+
+		MessageCodec messageCodec = new MessageCodec();
+		messageCodec.setVersion(MessageCodec.LATEST_VERSION);
+		int length = messageCodec.fixError.encode(UtilityInformation.ErrorType.ELEVATOR_STUCK_ERROR, 0);
+		byte[] fix = Arrays.copyOf(messageCodec.getBuffer(), length);
+
+		// The message follows other bytes, as it would inside a frame
+		int offset = 5;
+		byte[] buffer = new byte[offset + length];
+		Arrays.fill(buffer, UtilityInformation.END_OF_MESSAGE);
+		System.arraycopy(fix, 0, buffer, offset, length);
+
+		commands.clear();
+		relaying.handleMessage(new DatagramPacket(buffer, offset, length));
+
+		ArrayList<byte[]> relayed = new ArrayList<byte[]>();
+		for (byte[] command : commands) {
+			if (command[UtilityInformation.MODE_BYTE_IND] == UtilityInformation.FIX_ERROR_MODE) {
+				relayed.add(command);
+			}
+		}
+
+		assertEquals(1, relayed.size());
+		assertArrayEquals(fix, relayed.get(0));
+	}
+
+	/**
+	 * Create a scheduler for one elevator that records the commands it sends
+	 * to the elevator instead of sending them. Nothing is bound to the ports
+	 * it is configured with.
+	 *
+	 * @param commands List that a copy of each command to the elevator is
+	 *                 added to
+	 *
+	 * @return Scheduler   The configured scheduler
+	 */
+	private Scheduler recordingScheduler(ArrayList<byte[]> commands) {
+		Properties properties = new Properties();
+		properties.setProperty("scheduler.port", "3");
+		properties.setProperty("elevator.port", "1");
+		properties.setProperty("floor.port", "2");
+		properties.setProperty("scheduler.host", "127.0.0.1");
+		properties.setProperty("elevator.host", "127.0.0.1");
+		properties.setProperty("floor.host", "127.0.0.1");
+
+		Scheduler recording = new Scheduler(new SimulationConfig(properties), UtilityInformation.ReceiverType.NONE) {
+			@Override
+			protected void transmit(byte[] responseData, int offset, int packetLength, InetAddress destAddress,
+					int destPortNum) {
+				if (destPortNum == 1) {
+					commands.add(Arrays.copyOfRange(responseData, offset, offset + packetLength));
+				}
+			}
+		};
+
+		MessageCodec messageCodec = new MessageCodec();
+		messageCodec.setVersion(MessageCodec.LATEST_VERSION);
+		DatagramPacket message = new DatagramPacket(messageCodec.getBuffer(), 0);
+
+		message.setLength(messageCodec.config.encode(1, 10));
+		recording.handleMessage(message);
+		message.setLength(messageCodec.configConfirm.encode());
+		recording.handleMessage(message);
+
+		return (recording);
+	}
+
+	/**
+	 * Returns the direction of each direction command in the given list
+	 *
+	 * @param commands Commands recorded by a recording scheduler
+	 *
+	 * @return ArrayList<ElevatorDirection> The directions, in order
+	 */
+	private ArrayList<UtilityInformation.ElevatorDirection> directionsIn(ArrayList<byte[]> commands) {
+		ArrayList<UtilityInformation.ElevatorDirection> directions = new ArrayList<UtilityInformation.ElevatorDirection>();
+		MessageCodec commandCodec = new MessageCodec();
+		commandCodec.setVersion(MessageCodec.LATEST_VERSION);
+
+		for (byte[] command : commands) {
+			if (command[UtilityInformation.MODE_BYTE_IND] == UtilityInformation.ELEVATOR_DIRECTION_MODE) {
+				commandCodec.direction.wrap(command, 0);
+				directions.add(commandCodec.direction.getDirection());
+			}
+		}
+
+		return (directions);
+	}
+
 	/**
 	 * Test to make sure the algorithm will add requests as expected.
 	 */
@@ -377,4 +515,276 @@ class SchedulerTest {
 		assertEquals(algor.whatDirectionShouldTravel((byte) 0), UtilityInformation.ElevatorDirection.UP);
 	}
 
+	/**
+	 * Test to make sure that served requests are moved out of the outstanding
+	 * requests but are still reported, and are not handed to another elevator
+	 * when their elevator is taken out of service.
+	 */
+	@Test
+	void testCompletedRequestsArchived() {
+		SchedulerAlgorithm algor = new SchedulerAlgorithm((byte) 2);
+
+		algor.elevatorRequestMade(
+				new Request(System.nanoTime(), (byte) 0, (byte) 3, UtilityInformation.ElevatorDirection.UP));
+		algor.elevatorHasReachedFloor((byte) 0, (byte) 0);
+		assertEquals(algor.somewhereToGo((byte) 0), true);
+
+		algor.elevatorHasReachedFloor((byte) 3, (byte) 0);
+		assertEquals(algor.somewhereToGo((byte) 0), false);
+		assertEquals(algor.getDestinations((byte) 0).size(), 0);
+		assertEquals(algor.getRequests((byte) 0).size(), 1);
+
+		algor.stopUsingElevator((byte) 0);
+		assertEquals(algor.somewhereToGo((byte) 1), false);
+		assertEquals(algor.getRequests((byte) 0).size(), 1);
+	}
+
+	/**
+	 * Test to make sure the next stop is found on either side of the elevator,
+	 * including stops more than 64 floors apart, and that served stops are
+	 * cleared.
+	 */
+	@Test
+	void testNextStopSearch() {
+		SchedulerAlgorithm algor = new SchedulerAlgorithm((byte) 1);
+		SchedulerAlgorithm.AlgorithmElevator elevator = algor.new AlgorithmElevator((byte) 0);
+
+		elevator.addRequest(new Request(0, (byte) 3, (byte) 100, UtilityInformation.ElevatorDirection.UP));
+		elevator.addRequest(new Request(0, (byte) 120, (byte) 64, UtilityInformation.ElevatorDirection.DOWN));
+
+		assertEquals(elevator.getNextStopAbove(0), 3);
+		assertEquals(elevator.getNextStopAbove(3), 120);
+		assertEquals(elevator.getNextStopBelow(127), 120);
+		assertEquals(elevator.getNextStopBelow(120), 3);
+		assertEquals(elevator.getNextStopBelow(3), -1);
+
+		elevator.arriveAtFloor(3);
+		assertEquals(elevator.hasStopAt(3), false);
+		assertEquals(elevator.getNextStopAbove(3), 100);
+
+		elevator.arriveAtFloor(120);
+		assertEquals(elevator.getNextStopBelow(120), 100);
+		assertEquals(elevator.getNextStopBelow(100), 64);
+
+		elevator.arriveAtFloor(100);
+		elevator.arriveAtFloor(64);
+		assertEquals(elevator.getNextStopAbove(0), -1);
+		assertEquals(elevator.getNextStopBelow(127), -1);
+	}
+
+	/**
+	 * Test to make sure the outstanding request counts follow requests as
+	 * they are made, picked up, dropped off and moved to another elevator.
+	 */
+	@Test
+	void testOutstandingRequestCounts() {
+		SchedulerAlgorithm algor = new SchedulerAlgorithm((byte) 2);
+
+		algor.elevatorRequestMade(
+				new Request(0, (byte) 0, (byte) 3, UtilityInformation.ElevatorDirection.UP));
+		algor.elevatorRequestMade(
+				new Request(0, (byte) 5, (byte) 1, UtilityInformation.ElevatorDirection.DOWN));
+		assertEquals(algor.getOutstandingRequests(), 2);
+		assertEquals(algor.getWaitingRequests(), 2);
+
+		algor.elevatorHasReachedFloor((byte) 0, (byte) 0);
+		assertEquals(algor.getWaitingRequests(), 1);
+		assertEquals(algor.getRidingRequests(), 1);
+
+		algor.stopUsingElevator((byte) 0);
+		assertEquals(algor.getOutstandingRequests((byte) 0), 0);
+		assertEquals(algor.getOutstandingRequests((byte) 1), 2);
+		assertEquals(algor.getWaitingRequests(), 2);
+
+		algor.elevatorHasReachedFloor((byte) 0, (byte) 1);
+		algor.elevatorHasReachedFloor((byte) 3, (byte) 1);
+		algor.elevatorHasReachedFloor((byte) 5, (byte) 1);
+		algor.elevatorHasReachedFloor((byte) 1, (byte) 1);
+		assertEquals(algor.getOutstandingRequests(), 0);
+		assertEquals(algor.getMaxOutstandingRequests(), 2);
+	}
+
+	/**
+	 * Test to make sure estimated times include the stops an elevator makes
+	 * on the way, and that a plan is reused while the elevator only moves
+	 * towards its next stop.
+	 */
+	@Test
+	void testEstimatedTimes() {
+		SchedulerAlgorithm algor = new SchedulerAlgorithm(1);
+		long floorTime = UtilityInformation.TIME_UP_ONE_FLOOR;
+
+		algor.elevatorRequestMade(new Request(0, 5, 10, UtilityInformation.ElevatorDirection.UP));
+		assertEquals(algor.getEstimatedPickupTime(0, 5), 5 * floorTime);
+		assertEquals(algor.getEstimatedPickupTime(0, 8), 8 * floorTime + EtaEngine.STOP_TIME);
+		assertEquals(algor.getEstimatedPickupTime(0, 12), 12 * floorTime + 2 * EtaEngine.STOP_TIME);
+		assertEquals(algor.getEstimatedFinishTime(0), 10 * floorTime + 2 * EtaEngine.STOP_TIME);
+
+		// Picked up at 8 on the way up, then back down to 2 after the stop at 10
+		assertEquals(algor.getEstimatedDropOffTime(0, 8, 2), 18 * floorTime + 3 * EtaEngine.STOP_TIME);
+
+		int plansBuilt = algor.getNumPlansBuilt();
+		algor.elevatorHasReachedFloor(1, 0);
+		assertEquals(algor.getEstimatedPickupTime(0, 5), 4 * floorTime);
+		assertEquals(algor.getNumPlansBuilt(), plansBuilt);
+
+		algor.elevatorHasReachedFloor(5, 0);
+		assertEquals(algor.getEstimatedPickupTime(0, 10), 5 * floorTime);
+		assertEquals(algor.getNumPlansBuilt(), plansBuilt + 1);
+	}
+
+	/**
+	 * Test to make sure every dispatch policy chooses an elevator already on
+	 * its way past a request, that the direction of the request decides
+	 * which elevator can collect it, and that the algorithm uses the
+	 * strategy it is given.
+	 */
+	@Test
+	void testDispatchPolicies() {
+		SchedulerAlgorithm algor = new SchedulerAlgorithm(2);
+
+		// Elevator 0 at floor 6 going up to 9, elevator 1 at floor 4 going down to 0 twice
+		algor.elevatorHasReachedFloor(6, 0);
+		algor.elevatorHasReachedFloor(4, 1);
+		algor.setStopElevator(0, false);
+		algor.setStopElevator(1, false);
+		algor.elevatorRequestMade(new Request(0, 9, 10, UtilityInformation.ElevatorDirection.UP));
+		algor.elevatorRequestMade(new Request(0, 0, 1, UtilityInformation.ElevatorDirection.UP));
+		algor.elevatorRequestMade(new Request(0, 1, 0, UtilityInformation.ElevatorDirection.DOWN));
+		algor.whatDirectionShouldTravel(0);
+		algor.whatDirectionShouldTravel(1);
+		assertEquals(algor.getOutstandingRequests(0), 1);
+		assertEquals(algor.getOutstandingRequests(1), 2);
+
+		Request request = new Request(0, 7, 8, UtilityInformation.ElevatorDirection.UP);
+		UtilityInformation.DispatchPolicy[] policies = UtilityInformation.DispatchPolicy.values();
+
+		for (UtilityInformation.DispatchPolicy policy : policies) {
+			DispatchStrategy strategy = DispatchStrategy.create(policy);
+
+			assertEquals(strategy.getPolicy(), policy);
+			assertEquals(strategy.chooseElevator(algor, request), 0);
+		}
+
+		// Going down from 3 only suits elevator 1, which is on its way down
+		request = new Request(0, 3, 2, UtilityInformation.ElevatorDirection.DOWN);
+		assertEquals(DispatchStrategy.create(UtilityInformation.DispatchPolicy.NEAREST_CAR).chooseElevator(algor, request), 1);
+		assertEquals(DispatchStrategy.create(UtilityInformation.DispatchPolicy.COLLECTIVE_LOOK).chooseElevator(algor, request), 1);
+
+		algor.pauseElevator(1);
+		assertEquals(DispatchStrategy.create(UtilityInformation.DispatchPolicy.COLLECTIVE_LOOK).chooseElevator(algor, request), 0);
+
+		algor.setDispatchStrategy(DispatchStrategy.create(UtilityInformation.DispatchPolicy.NEAREST_CAR));
+		assertEquals(algor.elevatorRequestMade(request), 0);
+	}
+
+	/**
+	 * Test that held requests are given out together, calls on the same floor
+	 * in the same direction to the same elevator, and that held requests count
+	 * as waiting
+	 */
+	@Test
+	void testPendingRequests() {
+		SchedulerAlgorithm algor = new SchedulerAlgorithm(2);
+		SimulationClock.ManualClock clock = SimulationClock.manual();
+		algor.setClock(clock);
+
+		algor.elevatorHasReachedFloor(10, 1);
+		algor.addPendingRequest(new Request(clock.nanoTime(), 9, 5, UtilityInformation.ElevatorDirection.DOWN));
+		algor.addPendingRequest(new Request(clock.nanoTime(), 1, 4, UtilityInformation.ElevatorDirection.UP));
+		algor.addPendingRequest(new Request(clock.nanoTime(), 9, 2, UtilityInformation.ElevatorDirection.DOWN));
+		assertEquals(algor.getNumPendingRequests(), 3);
+		assertEquals(algor.getWaitingRequests(), 3);
+		assertEquals(algor.getOutstandingRequests(0), 0);
+
+		// Nothing is given out while no elevator is usable
+		algor.pauseElevator(0);
+		algor.pauseElevator(1);
+		assertEquals(algor.assignPendingRequests().size(), 0);
+		assertEquals(algor.getNumPendingRequests(), 3);
+		algor.resumeUsingElevator(0);
+		algor.resumeUsingElevator(1);
+
+		clock.advance(20);
+		assertEquals(new ArrayList<Integer>(algor.assignPendingRequests()), Arrays.asList(1, 0));
+		assertEquals(algor.getNumPendingRequests(), 0);
+		assertEquals(algor.getOutstandingRequests(0), 1);
+		assertEquals(algor.getOutstandingRequests(1), 2);
+		assertEquals(algor.getWaitingRequests(), 3);
+		assertEquals(algor.getMaxOutstandingRequests(), 3);
+		assertEquals(algor.getAverageAssignmentDelay(), 20.0);
+		assertEquals(algor.getMaxAssignmentDelay(), 20.0);
+	}
+
+	/**
+	 * Test that waiting requests are moved to an elevator that would pick them
+	 * up much sooner, or away from an elevator that is not usable, and that
+	 * requests that have been picked up are never moved
+	 */
+	@Test
+	void testRebalanceRequests() {
+		SchedulerAlgorithm algor = new SchedulerAlgorithm(2);
+		
+		assertEquals(algor.canRebalance(), false);
+		assertEquals(algor.elevatorRequestMade(new Request(System.nanoTime(), 9, 5, UtilityInformation.ElevatorDirection.DOWN)), 0);
+		assertEquals(algor.canRebalance(), true);
+		
+		// Neither elevator would be sooner
+		assertEquals(algor.rebalanceRequests().size(), 0);
+		
+		algor.elevatorHasReachedFloor(9, 1);
+		assertEquals(new ArrayList<Integer>(algor.rebalanceRequests()), Arrays.asList(0, 1));
+		assertEquals(algor.getOutstandingRequests(0), 0);
+		assertEquals(algor.getOutstandingRequests(1), 1);
+		assertEquals(algor.getWaitingRequests(), 1);
+		assertEquals(algor.getDestinations(0).size(), 0);
+		assertEquals(algor.getDestinations(1).iterator().next(), Integer.valueOf(5));
+		assertEquals(algor.getNumRebalancedRequests(), 1);
+		assertEquals(algor.rebalanceRequests().size(), 0);
+		
+		// A request that has been picked up stays in its elevator
+		algor.elevatorHasReachedFloor(9, 1);
+		algor.elevatorHasReachedFloor(6, 0);
+		assertEquals(algor.canRebalance(), false);
+		assertEquals(algor.rebalanceRequests().size(), 0);
+		assertEquals(algor.getOutstandingRequests(1), 1);
+		
+		assertEquals(algor.elevatorRequestMade(new Request(System.nanoTime(), 2, 0, UtilityInformation.ElevatorDirection.DOWN)), 0);
+		algor.pauseElevator(0);
+		assertEquals(new ArrayList<Integer>(algor.rebalanceRequests()), Arrays.asList(0, 1));
+		assertEquals(algor.getOutstandingRequests(0), 0);
+		assertEquals(algor.getOutstandingRequests(1), 2);
+		assertEquals(algor.getNumRebalancedRequests(), 2);
+		
+		// Nowhere to move requests while no elevator is usable
+		algor.pauseElevator(1);
+		assertEquals(algor.canRebalance(), false);
+	}
+
+	/**
+	 * Test that a request is never moved back to the elevator it was moved
+	 * away from, and that moves and moved requests are counted separately
+	 */
+	@Test
+	void testRebalanceDoesNotMoveBack() {
+		SchedulerAlgorithm algor = new SchedulerAlgorithm(3);
+		
+		assertEquals(algor.elevatorRequestMade(new Request(System.nanoTime(), 9, 5, UtilityInformation.ElevatorDirection.DOWN)), 0);
+		algor.elevatorHasReachedFloor(9, 1);
+		assertEquals(new ArrayList<Integer>(algor.rebalanceRequests()), Arrays.asList(0, 1));
+		
+		// Elevator 0 would now be much sooner, but the request just left it
+		algor.elevatorHasReachedFloor(9, 0);
+		algor.elevatorHasReachedFloor(0, 1);
+		assertEquals(algor.rebalanceRequests().size(), 0);
+		assertEquals(algor.getOutstandingRequests(1), 1);
+		
+		// Any other elevator can still take it
+		algor.elevatorHasReachedFloor(9, 2);
+		assertEquals(new ArrayList<Integer>(algor.rebalanceRequests()), Arrays.asList(1, 2));
+		assertEquals(algor.getOutstandingRequests(2), 1);
+		assertEquals(algor.getNumRebalancedRequests(), 2);
+		assertEquals(algor.getNumDistinctRebalancedRequests(), 1);
+	}
+
 }
@@ -1,12 +1,8 @@
 import java.io.IOException;
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.SocketException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 
@@ -15,15 +11,50 @@ import java.util.HashMap;
  *
  */
 public abstract class ServerPattern {
-	private PriorityQueue<DatagramPacket> receivedSignals;
+	private SignalQueue receivedSignals;
 
-	private SignalReceiver receiver;
+	private Transport transport;
 
-	private boolean receivedSignalsEmpty;
+	private SignalBufferPool bufferPool;
+	
+	private ReliabilityLayer reliability;
+	
+	// Configuration the bound port was published to, if any
+	private SimulationConfig publishedConfig;
+	private SimulationConfig.Role publishedRole;
 
 	private final int MAX_NUM_SIGNALS = 100;
 	
-	private Map<Byte, Integer> messagePriorities;
+	// Priority of each message type, indexed by mode byte
+	// Lower Number = Handled First (the order of the original comparator)
+	// Modes not listed are handled last
+	private final static int LAST_PRIORITY = 12;
+	private final static int[] MESSAGE_PRIORITIES = new int[UtilityInformation.NUM_MODES];
+	
+	// SignalQueue lane of each mode (the queue serves its highest lane first)
+	private final static int[] MESSAGE_LANES = new int[UtilityInformation.NUM_MODES];
+	
+	static {
+	    Arrays.fill(MESSAGE_PRIORITIES, LAST_PRIORITY);
+	    MESSAGE_PRIORITIES[UtilityInformation.ALL_REQUESTS_FINISHED_MODE] = 12;
+	    MESSAGE_PRIORITIES[UtilityInformation.FIX_DOOR_MODE] = 11;
+	    MESSAGE_PRIORITIES[UtilityInformation.CONFIG_CONFIRM_MODE] = 10;
+	    MESSAGE_PRIORITIES[UtilityInformation.ERROR_MESSAGE_MODE] = 9;
+	    MESSAGE_PRIORITIES[UtilityInformation.CONFIG_MODE] = 8;
+	    MESSAGE_PRIORITIES[UtilityInformation.TEARDOWN_MODE] = 7;
+	    MESSAGE_PRIORITIES[UtilityInformation.ELEVATOR_DOOR_MODE] = 6;
+	    MESSAGE_PRIORITIES[UtilityInformation.FLOOR_SENSOR_MODE] = 5;
+	    MESSAGE_PRIORITIES[UtilityInformation.ELEVATOR_DIRECTION_MODE] = 4;
+	    MESSAGE_PRIORITIES[UtilityInformation.FLOOR_REQUEST_MODE] = 3;
+	    MESSAGE_PRIORITIES[UtilityInformation.TIMER_MODE] = 3;
+	    MESSAGE_PRIORITIES[UtilityInformation.SEND_DESTINATION_TO_ELEVATOR_MODE] = 2;
+	    MESSAGE_PRIORITIES[UtilityInformation.ELEVATOR_BUTTON_HIT_MODE] = 1;
+	    MESSAGE_PRIORITIES[UtilityInformation.FIX_ERROR_MODE] = 0;
+	    
+	    for (int mode = 0; mode < UtilityInformation.NUM_MODES; mode++) {
+	        MESSAGE_LANES[mode] = LAST_PRIORITY - MESSAGE_PRIORITIES[mode];
+	    }
+	}
 
 	/**
 	 * ServerPattern
@@ -31,7 +62,7 @@ public abstract class ServerPattern {
 	 * Constructor
 	 * 
 	 * Create a new ServerPattern object. Also creates a new SignalReceiver object
-	 * and runs it.
+	 * of the default receiver type and runs it.
 	 * 
 	 * @param portNum  Port number to receive requests on
 	 * @param name Name of the ServerPattern
@@ -39,82 +70,205 @@ public abstract class ServerPattern {
 	 * @return None
 	 */
 	public ServerPattern(int portNum, String name) {
-	    messagePriorities = new HashMap<Byte, Integer>();
-	    
-	    // Assign priorities
-	    // Higher Number = Higher Priority
-	    messagePriorities.put(UtilityInformation.ALL_REQUESTS_FINISHED_MODE, 11);
-	    messagePriorities.put(UtilityInformation.FIX_DOOR_MODE, 10);
-	    messagePriorities.put(UtilityInformation.CONFIG_CONFIRM_MODE, 9);
-	    messagePriorities.put(UtilityInformation.ERROR_MESSAGE_MODE, 8);
-	    messagePriorities.put(UtilityInformation.CONFIG_MODE, 7);
-	    messagePriorities.put(UtilityInformation.TEARDOWN_MODE, 6);
-	    messagePriorities.put(UtilityInformation.ELEVATOR_DOOR_MODE, 5);	    
-	    messagePriorities.put(UtilityInformation.FLOOR_SENSOR_MODE, 4);
-	    messagePriorities.put(UtilityInformation.ELEVATOR_DIRECTION_MODE, 3);
-	    messagePriorities.put(UtilityInformation.FLOOR_REQUEST_MODE, 2);
-	    messagePriorities.put(UtilityInformation.SEND_DESTINATION_TO_ELEVATOR_MODE, 1);
-        messagePriorities.put(UtilityInformation.FIX_ERROR_MODE, 0);
-        messagePriorities.put(UtilityInformation.ELEVATOR_BUTTON_HIT_MODE, 0);
-        
-		receivedSignals = new PriorityQueue<DatagramPacket>(MAX_NUM_SIGNALS, new Comparator<DatagramPacket>() {
+	    this(portNum, name, UtilityInformation.DEFAULT_RECEIVER_TYPE, UtilityInformation.DEFAULT_WAIT_STRATEGY);
+	}
+
+	/**
+	 * ServerPattern
+	 * 
+	 * Constructor
+	 * 
+	 * Create a new ServerPattern object that exchanges messages over UDP.
+	 * Also creates a new SignalReceiver object of the given type and runs it.
+	 * 
+	 * @param portNum  Port number to receive requests on (0 for any free port)
+	 * @param name Name of the ServerPattern
+	 * @param receiverType Type of receiver to use for incoming signals
+	 * @param waitStrategy How getNextRequest waits for a signal to arrive
+	 * 
+	 * @return None
+	 */
+	public ServerPattern(int portNum, String name, 
+	                     UtilityInformation.ReceiverType receiverType, 
+	                     UtilityInformation.WaitStrategy waitStrategy) {
+	    this(portNum, name, UtilityInformation.TransportType.UDP, receiverType, waitStrategy);
+	}
 
-            @Override
-            public int compare(DatagramPacket packet1, DatagramPacket packet2) {
-                byte messageType1 = packet1.getData()[UtilityInformation.MODE_BYTE_IND];
-                byte messageType2 = packet2.getData()[UtilityInformation.MODE_BYTE_IND];
-                
-                int priority1 = messagePriorities.get(messageType1);
-                int priority2 = messagePriorities.get(messageType2);
-                
-                if (priority1 < priority2) {
-                    return(-1);
-                } else if (priority1 > priority2) {
-                    return(1);
-                } else {
-                    return(0);
-                }
-            }
-		    
-		});
+	/**
+	 * ServerPattern
+	 * 
+	 * Constructor
+	 * 
+	 * Create a new ServerPattern object that exchanges messages with the
+	 * given type of transport, and starts the transport. With
+	 * ReceiverType.NONE there is no transport, and signals are only added
+	 * by calling signalReceived.
+	 * 
+	 * @param portNum  Port number to receive requests on (0 for any free port)
+	 * @param name Name of the ServerPattern
+	 * @param transportType    Type of transport to send and receive signals with
+	 * @param receiverType Type of receiver to use for incoming UDP signals
+	 * @param waitStrategy How getNextRequest waits for a signal to arrive
+	 * 
+	 * @return None
+	 */
+	public ServerPattern(int portNum, String name, 
+	                     UtilityInformation.TransportType transportType,
+	                     UtilityInformation.ReceiverType receiverType, 
+	                     UtilityInformation.WaitStrategy waitStrategy) {
+		receivedSignals = new SignalQueue(MAX_NUM_SIGNALS, MESSAGE_LANES, waitStrategy);
 		
-		receivedSignalsEmpty = true;
+		// Let fault messages age so sensor traffic can not starve them
+		for (byte mode : UtilityInformation.AGING_MODES) {
+		    receivedSignals.setAgingLane(receivedSignals.getLaneOfMode(mode), true);
+		}
+		receivedSignals.setAgingThreshold(UtilityInformation.SIGNAL_AGING_THRESHOLD);
 
-		receiver = new SignalReceiver(portNum, this, name);
+		// Packets are recycled between the receiver and the handlers,
+		// so keep enough around to fill the queue
+		bufferPool = new SignalBufferPool(MAX_NUM_SIGNALS, UtilityInformation.MAX_BYTE_ARRAY_SIZE);
+		
+		if (receiverType != UtilityInformation.ReceiverType.NONE) {
+		    transport = Transport.create(transportType, portNum, this, name, receiverType);
+		} else {
+		    // Driven in-process, so nothing is sent or received
+		    transport = null;
+		}
+		
+		// Acks are sent to the bound port, which differs from portNum if it is 0
+		reliability = new ReliabilityLayer(getLocalPort(), UtilityInformation.RELIABLE_DELIVERY);
+		
+		// Reliable messages and acks must reach peers that only read the transport
+		reliability.setTransport(transport);
 
-		Thread receiverThread = new Thread(receiver, "receiver");
-		receiverThread.start();
+		if (transport != null) {
+		    transport.start();
+		}
 	}
 
 	/**
 	 * signalReceived
 	 * 
-	 * Synchronized
-	 * 
 	 * Add a new signal to the list of received signals. Waits until
 	 * the list of received signals is not full before adding the received
-	 * signal.
+	 * signal. Does not lock, so any number of threads can add signals
+	 * without blocking the thread handling them.
+	 * Reliable messages are acknowledged and duplicates are dropped.
+	 * MULTI_COMMAND_MODE frames are split up, and each command in the
+	 * frame is added as its own signal.
 	 * 
 	 * @param newSignal    DatagramPacket containing the received signal
-	 * @param priority     Priority of the received signal
 	 * 
 	 * @return None
 	 */
-	public synchronized void signalReceived(DatagramPacket newSignal) {
-		// Wait while queue is not full
-		while (receivedSignals.size() >= MAX_NUM_SIGNALS) {
-			try {
-				wait();
-			} catch (InterruptedException e) {
-				System.out.println("Error waiting in synchronized signalRecieved method in ServerPattern.");
-				e.printStackTrace();
-			}
-		}
-		
-		receivedSignals.add(newSignal);
+	public void signalReceived(DatagramPacket newSignal) {
+	    signalReceived(newSignal, -1);
+	}
 
-		receivedSignalsEmpty = false;
-		notifyAll();
+	/**
+	 * signalReceived
+	 * 
+	 * Add a new signal to the list of received signals, waiting at most
+	 * the given time for the list to have room. A signal that still does
+	 * not fit is dropped and its packet is returned to the pool.
+	 * Otherwise the same as signalReceived(newSignal).
+	 * 
+	 * @param newSignal    DatagramPacket containing the received signal
+	 * @param timeout      Longest time to wait for room (in ms).
+	 *                     Negative to wait as long as needed.
+	 * 
+	 * @return boolean True unless a signal was dropped because the list was full
+	 */
+	public boolean signalReceived(DatagramPacket newSignal, long timeout) {
+	    byte mode = newSignal.getData()[newSignal.getOffset() + UtilityInformation.MODE_BYTE_IND];
+	    long timeoutNanos = (timeout < 0) ? -1 : TimeUnit.MILLISECONDS.toNanos(timeout);
+	    
+	    // Acks and reliable messages are handled by the reliability layer first
+	    if ((mode == UtilityInformation.RELIABLE_MODE) || (mode == UtilityInformation.ACK_MODE)) {
+	        if (!reliability.signalReceived(newSignal)) {
+	            bufferPool.release(newSignal);
+	            return(true);
+	        }
+	        
+	        mode = newSignal.getData()[newSignal.getOffset() + UtilityInformation.MODE_BYTE_IND];
+	    }
+	    
+	    if (mode == UtilityInformation.MULTI_COMMAND_MODE) {
+	        return(unpackFrame(newSignal, timeoutNanos));
+	    } else {
+	        return(queueSignal(newSignal, timeoutNanos));
+	    }
+	}
+
+	/**
+	 * queueSignal
+	 * 
+	 * Adds the given signal to the list of received signals, or returns
+	 * its packet to the pool if there is no room within the given time.
+	 * 
+	 * @param signal   DatagramPacket containing the signal
+	 * @param timeoutNanos Longest time to wait for room (negative for no limit)
+	 * 
+	 * @return boolean True if the signal was added
+	 */
+	private boolean queueSignal(DatagramPacket signal, long timeoutNanos) {
+	    if (!receivedSignals.put(signal, timeoutNanos)) {
+	        bufferPool.release(signal);
+	        return(false);
+	    }
+	    
+	    return(true);
+	}
+
+	/**
+	 * unpackFrame
+	 * 
+	 * Copies every command in the given MULTI_COMMAND_MODE frame into
+	 * its own packet from the pool and adds it to the list of received
+	 * signals, so each command is queued with its own priority.
+	 * The frame's packet is then returned to the pool.
+	 * Stops at the first command there is no room for within the given time.
+	 * 
+	 * @param frame    DatagramPacket containing the frame
+	 * @param timeoutNanos Longest time to wait for room for each command
+	 *                     (negative for no limit)
+	 * 
+	 * @return boolean True if every command was added
+	 */
+	private boolean unpackFrame(DatagramPacket frame, long timeoutNanos) {
+	    byte[] data = frame.getData();
+	    int frameEnd = frame.getOffset() + frame.getLength();
+	    int numCommands = data[frame.getOffset() + UtilityInformation.FRAME_COUNT_IND] & 0xFF;
+	    int ind = frame.getOffset() + UtilityInformation.FRAME_HEADER_SIZE;
+	    boolean allQueued = true;
+	    
+	    for (int i = 0; i < numCommands; i++) {
+	        int length = (ind < frameEnd) ? (data[ind] & 0xFF) : frameEnd;
+	        ind += 1;
+	        
+	        if (ind + length > frameEnd) {
+	            Log.warn("Error: Truncated command frame.");
+	            break;
+	        }
+	        
+	        DatagramPacket command = bufferPool.acquire();
+	        System.arraycopy(data, ind, command.getData(), 0, length);
+	        command.setLength(length);
+	        command.setAddress(frame.getAddress());
+	        command.setPort(frame.getPort());
+	        SignalBufferPool.clearUnused(command);
+	        
+	        if (!queueSignal(command, timeoutNanos)) {
+	            allQueued = false;
+	            break;
+	        }
+	        
+	        ind += length;
+	    }
+	    
+	    bufferPool.release(frame);
+	    
+	    return(allQueued);
 	}
 
 	/**
@@ -122,159 +276,254 @@ public abstract class ServerPattern {
 	 * 
 	 * Returns the next request in the list of requests and removes
 	 * it from the list.
-	 * Waits until the list of requests is not empty.
+	 * Waits until the list of requests is not empty, using the
+	 * wait strategy this ServerPattern was configured with.
+	 * Requests must only be taken by one thread at a time.
 	 * 
 	 * @param  None
 	 * 
 	 * @return DatagramPacket containing the next received signal
 	 */
-	public synchronized DatagramPacket getNextRequest() {
-		// Wait while queue is empty
-		while (receivedSignalsEmpty) {
-			try {
-				wait();
-			} catch (InterruptedException e) {
-				System.out.println("Error waiting in synchronized getNextRequest method in ServerPattern.");
-				e.printStackTrace();
-			}
-		}
-
-		DatagramPacket toReturn = receivedSignals.poll();
-
-		if (receivedSignals.size() == 0) {
-			receivedSignalsEmpty = true;
-		}
-		notifyAll();
-
-		return (toReturn);
+	public DatagramPacket getNextRequest() {
+		return(receivedSignals.take());
 	}
 
 	/**
-	 * teardown
+	 * getNextRequests
 	 * 
-	 * Tears down this ServerPattern object
+	 * Returns every request in the list of requests, up to the given
+	 * maximum, and removes them from the list. Requests are in the order
+	 * getNextRequest would return them.
+	 * Waits until the list of requests is not empty.
+	 * Requests must only be taken by one thread at a time.
+	 * 
+	 * @param max  Maximum number of requests to return
+	 * 
+	 * @return ArrayList<DatagramPacket>   The next received signals
 	 */
-	public void teardown() {
-		receiver.teardown();
-
+	public ArrayList<DatagramPacket> getNextRequests(int max) {
+	    ArrayList<DatagramPacket> batch = new ArrayList<DatagramPacket>();
+	    
+	    getNextRequests(batch, max);
+	    
+	    return(batch);
 	}
 
-}
-
-/**
- * 
- * This class is used to recieve messages using DatagramSockets
- *
- */
-
-class SignalReceiver implements Runnable {
-	private DatagramPacket receivePacket;
-	private DatagramSocket receiveSocket;
-
-	private ServerPattern controller;
-	private boolean run;
-
-	private String name;
+	/**
+	 * getNextRequests
+	 * 
+	 * Clears the given list and fills it with every request in the list
+	 * of requests, up to the given maximum. The requests are removed from
+	 * the list of requests. Lets a run loop reuse one list for every batch.
+	 * Waits until the list of requests is not empty.
+	 * Requests must only be taken by one thread at a time.
+	 * 
+	 * @param batch    List to fill with the next received signals
+	 * @param max      Maximum number of requests to return
+	 * 
+	 * @return int Number of requests added to the list
+	 */
+	public int getNextRequests(ArrayList<DatagramPacket> batch, int max) {
+	    batch.clear();
+	    
+	    return(receivedSignals.takeBatch(batch, max));
+	}
 
 	/**
-	 * signalReceiver
+	 * setAgingThreshold
 	 * 
-	 * Creates a new SignalReceiver object
+	 * Sets how many higher priority messages can be handled while a
+	 * FLOOR_REQUEST_MODE or FIX_ERROR_MODE message is waiting.
+	 * 0 disables aging.
 	 * 
-	 * @param portNum  The port number to receive messages on
-	 * @param controller   The ServerPattern that controls this SignalReceiver object
-	 * @param name The name of this ServerPattern object
+	 * @param threshold    The new aging threshold
 	 * 
 	 * @return None
 	 */
-	public SignalReceiver(int portNum, ServerPattern controller, String name) {
-		run = true;
-
-		this.controller = controller;
-		this.name = name;
-
-		// Initialize the DatagramSocket
-		try {
-			receiveSocket = new DatagramSocket(portNum);
-		} catch (SocketException se) {
-			se.printStackTrace();
-			this.teardown();
-			System.exit(1);
-		}
+	public void setAgingThreshold(int threshold) {
+	    receivedSignals.setAgingThreshold(threshold);
 	}
 
 	/**
-	 * teardown
+	 * getQueueDepth
+	 * 
+	 * Returns the number of received messages waiting in the same
+	 * priority lane as the given mode.
+	 * 
+	 * @param mode The mode of message to check
 	 * 
-	 * Tears down this SignalReceiver object
+	 * @return int Number of messages waiting in the lane
 	 */
-	public void teardown() {
-		run = false;
-		receiveSocket.close();
-		receiveSocket = null;
+	public int getQueueDepth(byte mode) {
+	    return(receivedSignals.getLaneDepth(receivedSignals.getLaneOfMode(mode)));
+	}
 
+	/**
+	 * getQueueDepths
+	 * 
+	 * Returns the number of received messages waiting in each
+	 * priority lane. Higher lanes are handled first.
+	 * 
+	 * @param  None
+	 * 
+	 * @return int[]   Number of messages waiting in each lane
+	 */
+	public int[] getQueueDepths() {
+	    int[] depths = new int[receivedSignals.getNumLanes()];
+	    
+	    for (int i = 0; i < depths.length; i++) {
+	        depths[i] = receivedSignals.getLaneDepth(i);
+	    }
+	    
+	    return(depths);
 	}
 
 	/**
-	 * waitForSignal
+	 * getLocalPort
 	 * 
-	 * Waits for a packet of the given size to be sent by the Scheduler. When the
-	 * packet is received, information about the packet is printed. The message
-	 * (byte[]) in the packet is then returned.
+	 * Returns the port requests are received on
 	 * 
-	 * @param expectedMsgSize The expected size of the message to receive
+	 * @param  None
 	 * 
-	 * @return The byte[] send in the DatagramPacket
+	 * @return int The port number, 0 if nothing is received from the network
 	 */
-	public DatagramPacket waitForSignal() {
-		// Create the receive packet
-		int expectedMsgSize = 100;
+	public int getLocalPort() {
+	    if (transport == null) {
+	        return(0);
+	    }
+	    
+	    return(transport.getLocalPort());
+	}
 
-		byte data[] = new byte[expectedMsgSize];
-		receivePacket = new DatagramPacket(data, data.length);
+	/**
+	 * publishEndpoint
+	 * 
+	 * Publishes the port requests are received on, so the other subsystems
+	 * of the same simulation instance can find it. The port is removed
+	 * again when this ServerPattern is torn down.
+	 * 
+	 * @param config   Configuration of the simulation instance
+	 * @param role The subsystem this ServerPattern is
+	 * 
+	 * @return None
+	 */
+	protected void publishEndpoint(SimulationConfig config, SimulationConfig.Role role) {
+	    config.publish(role, getLocalPort());
+	    
+	    publishedConfig = config;
+	    publishedRole = role;
+	}
 
-		System.out.println(String.format("%s: Waiting for message...", name));
+	/**
+	 * setReliableDelivery
+	 * 
+	 * Changes whether messages sent with transmit are sent reliably
+	 * (sequenced, acknowledged and retransmitted until acknowledged).
+	 * Reliable messages received are always acknowledged. Has no effect
+	 * if the transport can not lose messages.
+	 * 
+	 * @param reliable True to send messages reliably
+	 * 
+	 * @return None
+	 */
+	public void setReliableDelivery(boolean reliable) {
+	    reliability.setEnabled(reliable);
+	}
 
-		try {
-			// Block until a datagram is received via sendSocket.
-			receiveSocket.receive(receivePacket);
-		} catch (IOException e) {
-			if (run) {
-				e.printStackTrace();
-				this.teardown();
-				System.exit(1);
-			}
-		}
+	/**
+	 * getReliabilityLayer
+	 * 
+	 * Returns the layer used to send and receive messages reliably
+	 * 
+	 * @param  None
+	 * 
+	 * @return ReliabilityLayer    The reliability layer
+	 */
+	public ReliabilityLayer getReliabilityLayer() {
+	    return(reliability);
+	}
 
-		// Print out information about the response
-		System.out.println(String.format("%s: Packet received:", name));
-		System.out.println("From host: " + receivePacket.getAddress());
-		System.out.println("Host port: " + receivePacket.getPort());
-		int len = receivePacket.getLength();
-		System.out.println("Length: " + len);
-		System.out.print("Containing (as bytes): ");
-		System.out.println(Arrays.toString(receivePacket.getData()) + "\n");
+	/**
+	 * transmit
+	 * 
+	 * Sends the given packet. If reliable delivery is on and the transport
+	 * can lose messages, the packet is sent through the reliability layer,
+	 * otherwise it is sent with the transport.
+	 * 
+	 * @param packet   Packet containing the message and its destination
+	 * 
+	 * @return None
+	 * 
+	 * @throws IOException If the message could not be sent
+	 */
+	protected void transmit(DatagramPacket packet) throws IOException {
+	    if (transport == null) {
+	        throw new IOException("Nothing can be sent without a transport");
+	    }
+	    
+	    if (reliability.isEnabled() && !transport.isReliable()) {
+	        reliability.send(packet);
+	    } else {
+	        transport.send(packet);
+	    }
+	}
 
-		return (receivePacket);
+	/**
+	 * setWaitStrategy
+	 * 
+	 * Changes how getNextRequest waits for a signal to arrive
+	 * 
+	 * @param newStrategy  The new wait strategy
+	 * 
+	 * @return None
+	 */
+	public void setWaitStrategy(UtilityInformation.WaitStrategy newStrategy) {
+	    receivedSignals.setWaitStrategy(newStrategy);
 	}
 
 	/**
-	 * run
+	 * releaseRequest
 	 * 
-	 * Overridden
+	 * Returns a packet retrieved with getNextRequest to the pool of
+	 * packets used by the receiver. Must only be called once the
+	 * handler is finished with the packet and its data.
 	 * 
-	 * Runs this SignalReceiver object.
-	 * Waits for signals and adds them to the list of received signals.
+	 * @param packet   DatagramPacket that is no longer needed
+	 * 
+	 * @return None
+	 */
+	public void releaseRequest(DatagramPacket packet) {
+	    bufferPool.release(packet);
+	}
+
+	/**
+	 * getBufferPool
+	 * 
+	 * Returns the pool of packets that received signals are read into
 	 * 
 	 * @param  None
 	 * 
-	 * @return None
+	 * @return SignalBufferPool    The pool used by the receiver
 	 */
-	@Override
-	public void run() {
-		while (run) {
-			DatagramPacket signal = waitForSignal();
-			controller.signalReceived(signal);
+	public SignalBufferPool getBufferPool() {
+	    return(bufferPool);
+	}
+
+	/**
+	 * teardown
+	 * 
+	 * Tears down this ServerPattern object
+	 */
+	public void teardown() {
+		if (transport != null) {
+		    transport.teardown();
+		}
+		reliability.teardown();
+		
+		if (publishedConfig != null) {
+		    publishedConfig.unpublish(publishedRole);
+		    publishedConfig = null;
 		}
 	}
+
 }
\ No newline at end of file
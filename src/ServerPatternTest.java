@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.DatagramPacket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ServerPatternTest {
+
+	private ServerPattern server;
+
+	/**
+	 * Create a ServerPattern without a transport, so signals are only added
+	 * by the tests
+	 *
+	 * @throws Exception
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		server = new ServerPattern(0, "server", UtilityInformation.TransportType.UDP,
+				UtilityInformation.ReceiverType.NONE, UtilityInformation.WaitStrategy.BLOCKING) {
+		};
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		server.teardown();
+	}
+
+	/**
+	 * Create a signal with the given mode and id
+	 *
+	 * @param mode The mode byte of the signal
+	 * @param id   Value used to tell signals apart
+	 *
+	 * @return DatagramPacket containing the signal
+	 */
+	private static DatagramPacket signal(byte mode, int id) {
+		byte[] buf = new byte[] { mode, (byte) id, UtilityInformation.END_OF_MESSAGE };
+		return (new DatagramPacket(buf, buf.length));
+	}
+
+	/**
+	 * Test that floor requests and fixes are handled before sensor messages
+	 * that arrived earlier
+	 */
+	@Test
+	void testRequestsAndFixesBeforeSensors() {
+		for (int i = 0; i < 10; i++) {
+			server.signalReceived(signal(UtilityInformation.FLOOR_SENSOR_MODE, i));
+		}
+		server.signalReceived(signal(UtilityInformation.FLOOR_REQUEST_MODE, 10));
+		server.signalReceived(signal(UtilityInformation.FIX_ERROR_MODE, 11));
+
+		assertEquals(UtilityInformation.FIX_ERROR_MODE, server.getNextRequest().getData()[0]);
+		assertEquals(UtilityInformation.FLOOR_REQUEST_MODE, server.getNextRequest().getData()[0]);
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, server.getNextRequest().getData()[1]);
+		}
+	}
+
+	/**
+	 * Test that each aging mode is handled once passed over by the aging
+	 * threshold number of sensor messages, instead of after all of them
+	 */
+	@Test
+	void testAgingModesDoNotStarve() {
+		int threshold = UtilityInformation.SIGNAL_AGING_THRESHOLD;
+
+		for (byte mode : UtilityInformation.AGING_MODES) {
+			server.signalReceived(signal(mode, 99));
+			for (int i = 0; i < threshold * 2; i++) {
+				server.signalReceived(signal(UtilityInformation.FLOOR_SENSOR_MODE, i));
+			}
+
+			for (int i = 0; i < threshold; i++) {
+				assertEquals(UtilityInformation.FLOOR_SENSOR_MODE, server.getNextRequest().getData()[0]);
+			}
+
+			DatagramPacket aged = server.getNextRequest();
+			assertEquals(mode, aged.getData()[0]);
+			assertEquals(99, aged.getData()[1]);
+
+			for (int i = threshold; i < threshold * 2; i++) {
+				assertEquals(i, server.getNextRequest().getData()[1]);
+			}
+		}
+	}
+}
@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *
+ * This class is a ring of messages kept in a memory-mapped file, so that
+ * one process can pass messages to another on the same host without a
+ * system call per message.
+ *
+ * Each ring has exactly one producer and one consumer. The producer only
+ * moves the head and the consumer only moves the tail, so neither needs a
+ * lock. A message is written before the head is moved past it (with
+ * release ordering), and the consumer reads the head with acquire ordering
+ * before reading the message, so a message is never seen half written.
+ * Space is handed back to the producer the same way through the tail.
+ *
+ * Layout of the file:
+ *     Bytes 0-7:      Head, total number of bytes ever written
+ *     Bytes 64-71:    Tail, total number of bytes ever read
+ *     Bytes 128-:     Records
+ *
+ * The head and tail are on separate cache lines so the producer and
+ * consumer do not slow each other down. Each record is the length of the
+ * message (4 bytes) followed by the message, padded to a multiple of 4
+ * bytes. A record never wraps around the end of the ring. If it does not
+ * fit, the rest of the ring is skipped with a padding record.
+ *
+ */
+public class SharedMemoryRing {
+    private final static int HEAD_OFFSET = 0;
+    private final static int TAIL_OFFSET = 64;
+    private final static int DATA_OFFSET = 128;
+
+    private final static int RECORD_HEADER_SIZE = 4;
+    private final static int RECORD_ALIGNMENT = 4;
+
+    // Length written in a record that only fills the end of the ring
+    private final static int PADDING = -1;
+
+    private final static VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int mask;
+
+    /**
+     * SharedMemoryRing
+     *
+     * Constructor
+     *
+     * Maps the ring in the given file, creating the file if it does not
+     * exist. A new file is an empty ring.
+     *
+     * @param file The file the ring is kept in
+     * @param capacity Bytes of records the ring holds (a power of two)
+     *
+     * @return None
+     *
+     * @throws IOException If the file could not be mapped, or holds a ring of another size
+     */
+    public SharedMemoryRing(Path file, int capacity) throws IOException {
+        if ((capacity < RECORD_ALIGNMENT) || (Integer.bitCount(capacity) != 1)) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+
+        this.capacity = capacity;
+        mask = capacity - 1;
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            if (channel.size() > DATA_OFFSET + capacity) {
+                throw new IOException("Ring in " + file + " is larger than " + capacity + " bytes");
+            }
+
+            // Grows the file to the size of the ring (with zeros) if needed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET + capacity);
+            buffer.order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * offer
+     *
+     * Adds a message to the ring. Must only be called by the producer.
+     *
+     * @param data Array holding the message
+     * @param offset   Index of the first byte of the message
+     * @param length   Number of bytes in the message
+     *
+     * @return boolean True if the message was added, false if the ring is too full
+     */
+    public boolean offer(byte[] data, int offset, int length) {
+        int recordSize = recordSize(length);
+
+        if (recordSize > capacity) {
+            throw new IllegalArgumentException("Message of " + length + " bytes does not fit in the ring");
+        }
+
+        long head = (long) LONGS.get(buffer, HEAD_OFFSET);
+        long tail = (long) LONGS.getAcquire(buffer, TAIL_OFFSET);
+        int index = (int) (head & mask);
+        int untilEnd = capacity - index;
+        int skipped = (untilEnd < recordSize) ? untilEnd : 0;
+
+        if ((head + skipped + recordSize - tail) > capacity) {
+            return(false);
+        }
+
+        if (skipped > 0) {
+            buffer.putInt(DATA_OFFSET + index, PADDING);
+            index = 0;
+        }
+
+        buffer.putInt(DATA_OFFSET + index, length);
+        buffer.put(DATA_OFFSET + index + RECORD_HEADER_SIZE, data, offset, length);
+
+        // Publish the record (and any padding) to the consumer
+        LONGS.setRelease(buffer, HEAD_OFFSET, head + skipped + recordSize);
+
+        return(true);
+    }
+
+    /**
+     * poll
+     *
+     * Removes the oldest message from the ring and copies it into the
+     * given array. Must only be called by the consumer.
+     *
+     * @param dest Array to copy the message into
+     *
+     * @return int Number of bytes in the message, or -1 if the ring is empty
+     */
+    public int poll(byte[] dest) {
+        long tail = (long) LONGS.get(buffer, TAIL_OFFSET);
+        long head = (long) LONGS.getAcquire(buffer, HEAD_OFFSET);
+
+        if (tail == head) {
+            return(-1);
+        }
+
+        int index = (int) (tail & mask);
+        int length = buffer.getInt(DATA_OFFSET + index);
+
+        if (length == PADDING) {
+            // The producer moved the head past the padding and the record
+            // after it together, so that record is ready too
+            tail += capacity - index;
+            index = 0;
+            length = buffer.getInt(DATA_OFFSET);
+        }
+
+        if ((length < 0) || (length > dest.length) || (recordSize(length) > capacity)) {
+            throw new IllegalStateException("Corrupt record of length " + length + " in shared memory ring");
+        }
+
+        buffer.get(DATA_OFFSET + index + RECORD_HEADER_SIZE, dest, 0, length);
+
+        // Hand the space back to the producer
+        LONGS.setRelease(buffer, TAIL_OFFSET, tail + recordSize(length));
+
+        return(length);
+    }
+
+    /**
+     * clear
+     *
+     * Drops every message in the ring. Must only be called by the consumer.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void clear() {
+        LONGS.setRelease(buffer, TAIL_OFFSET, (long) LONGS.getAcquire(buffer, HEAD_OFFSET));
+    }
+
+    /**
+     * isEmpty
+     *
+     * Returns whether the ring holds no messages
+     *
+     * @param  None
+     *
+     * @return boolean True if the ring is empty
+     */
+    public boolean isEmpty() {
+        return((long) LONGS.getAcquire(buffer, TAIL_OFFSET) == (long) LONGS.getAcquire(buffer, HEAD_OFFSET));
+    }
+
+    /**
+     * close
+     *
+     * Closes the file the ring is kept in. The ring must not be used after
+     * this is called.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.warn("Unable to close shared memory ring: " + e.getMessage());
+        }
+    }
+
+    /**
+     * recordSize
+     *
+     * Returns the space a message of the given length takes in the ring,
+     * including its header and padding
+     *
+     * @param length   Length of the message
+     *
+     * @return int Size of the record
+     */
+    private static int recordSize(int length) {
+        return((RECORD_HEADER_SIZE + length + RECORD_ALIGNMENT - 1) & -RECORD_ALIGNMENT);
+    }
+}
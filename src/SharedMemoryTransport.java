@@ -0,0 +1,470 @@
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * This class exchanges messages between processes on the same host through
+ * memory-mapped SharedMemoryRings, one for each direction between each
+ * pair of subsystems.
+ *
+ * A port is bound by holding a lock on the file <port>.lock in the ring
+ * directory. Messages from port A to port B go through the ring in the
+ * file <A>-<B>.ring, which A creates the first time it sends to B. The
+ * receiver thread of B polls every ring sent to it, and looks for rings
+ * from new senders every SHARED_MEMORY_SCAN_INTERVAL. Each message is
+ * copied into a packet from the ServerPattern's pool and added to its
+ * queue, so it is prioritised exactly like a message received over UDP.
+ *
+ * The destination address is ignored, since every peer must be on this
+ * host. A message to a receiver that has stopped reading is dropped once
+ * its ring has been full for SHARED_MEMORY_SEND_TIMEOUT.
+ *
+ */
+class SharedMemoryTransport extends Transport {
+    private final static String RING_SUFFIX = ".ring";
+    private final static String LOCK_SUFFIX = ".lock";
+
+    // Ports given out when bound to port 0 count down from the top of the range
+    private final static int FIRST_FREE_PORT = 0xFFFF;
+
+    // Time to wait for the receiver thread to stop (in milliseconds)
+    private final static long RECEIVER_STOP_TIMEOUT = 1000;
+
+    private Path dir;
+    private int localPort;
+    private InetAddress localAddress;
+    private FileChannel lockChannel;
+    private FileLock portLock;
+
+    // Rings this transport produces into, by destination port
+    private ConcurrentHashMap<Integer, SharedMemoryRing> outbound;
+
+    // Rings this transport consumes from (only used by the receiver thread)
+    private SharedMemoryRing[] inbound;
+    private int[] inboundPorts;
+    private int numInbound;
+
+    private volatile boolean run;
+    private Thread receiverThread;
+
+    /**
+     * SharedMemoryTransport
+     *
+     * Creates a new SharedMemoryTransport bound to the given port, in the
+     * default ring directory
+     *
+     * @param portNum  Port number to receive messages on (0 for any free port)
+     * @param controller   The ServerPattern that receives messages from this transport
+     * @param name The name of the ServerPattern
+     *
+     * @return None
+     */
+    public SharedMemoryTransport(int portNum, ServerPattern controller, String name) {
+        this(getDefaultDirectory(), portNum, controller, name);
+    }
+
+    /**
+     * SharedMemoryTransport
+     *
+     * Creates a new SharedMemoryTransport bound to the given port. Messages
+     * left in rings to this port by an earlier process are dropped.
+     *
+     * @param dir  Directory the ring files are kept in
+     * @param portNum  Port number to receive messages on (0 for any free port)
+     * @param controller   The ServerPattern that receives messages from this transport
+     * @param name The name of the ServerPattern
+     *
+     * @return None
+     */
+    public SharedMemoryTransport(Path dir, int portNum, ServerPattern controller, String name) {
+        super(controller, name);
+
+        this.dir = dir;
+        localAddress = InetAddress.getLoopbackAddress();
+        outbound = new ConcurrentHashMap<Integer, SharedMemoryRing>();
+        inbound = new SharedMemoryRing[4];
+        inboundPorts = new int[4];
+        numInbound = 0;
+
+        try {
+            Files.createDirectories(dir);
+
+            if (portNum == 0) {
+                for (localPort = FIRST_FREE_PORT; !bind(localPort); localPort--) {
+                    if (localPort == 1) {
+                        throw new IllegalStateException(name + ": No free shared memory ports left in " + dir);
+                    }
+                }
+            } else if (bind(portNum)) {
+                localPort = portNum;
+            } else {
+                throw new IllegalStateException(name + ": Port " + portNum + " is already bound in " + dir);
+            }
+
+            scanForRings(true);
+        } catch (IOException e) {
+            teardown();
+            throw new IllegalStateException(name + ": Unable to bind shared memory transport in " + dir, e);
+        }
+    }
+
+    /**
+     * start
+     *
+     * Starts the thread that polls the inbound rings
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void start() {
+        run = true;
+        receiverThread = new Thread(this::receive, "receiver");
+        receiverThread.start();
+    }
+
+    /**
+     * send
+     *
+     * Writes the message into the ring to the destination port. If the
+     * ring stays full for SHARED_MEMORY_SEND_TIMEOUT the message is dropped.
+     *
+     * @param packet   Packet containing the message and its destination
+     *
+     * @return None
+     *
+     * @throws IOException If the ring to the destination could not be created
+     */
+    public void send(DatagramPacket packet) throws IOException {
+        SharedMemoryRing ring = getOutboundRing(packet.getPort());
+
+        // Several threads of one subsystem may send to the same peer,
+        // but each ring only has one producer
+        synchronized (ring) {
+            if (ring.offer(packet.getData(), packet.getOffset(), packet.getLength())) {
+                return;
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(UtilityInformation.SHARED_MEMORY_SEND_TIMEOUT);
+
+            while (!ring.offer(packet.getData(), packet.getOffset(), packet.getLength())) {
+                if (System.nanoTime() >= deadline) {
+                    Log.warn(name + ": Ring to port " + packet.getPort() + " is full, message dropped");
+                    return;
+                }
+
+                LockSupport.parkNanos(UtilityInformation.SHARED_MEMORY_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * getLocalPort
+     *
+     * Returns the port this transport holds the lock of
+     *
+     * @param  None
+     *
+     * @return int The port number
+     */
+    public int getLocalPort() {
+        return(localPort);
+    }
+
+    /**
+     * isReliable
+     *
+     * Returns false, since a message is dropped if the ring stays full
+     *
+     * @param  None
+     *
+     * @return boolean False
+     */
+    public boolean isReliable() {
+        return(false);
+    }
+
+    /**
+     * teardown
+     *
+     * Stops the receiver thread, closes every ring and releases the
+     * lock on the port
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void teardown() {
+        run = false;
+
+        if ((receiverThread != null) && (Thread.currentThread() != receiverThread)) {
+            try {
+                receiverThread.join(RECEIVER_STOP_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for (SharedMemoryRing ring : outbound.values()) {
+            ring.close();
+        }
+        outbound.clear();
+
+        // Closed by the receiver thread if it was started
+        if (receiverThread == null) {
+            closeInbound();
+        }
+
+        try {
+            if (portLock != null) {
+                portLock.release();
+            }
+
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            Log.warn(name + ": Unable to release shared memory port " + localPort + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * getDefaultDirectory
+     *
+     * Returns the directory ring files are kept in unless another is given.
+     * Uses /dev/shm where it exists so the rings are never written to disk.
+     *
+     * @param  None
+     *
+     * @return Path    The ring directory
+     */
+    public static Path getDefaultDirectory() {
+        Path shm = Paths.get(UtilityInformation.SHARED_MEMORY_DIR);
+
+        if (!Files.isDirectory(shm)) {
+            shm = Paths.get(System.getProperty("java.io.tmpdir"));
+        }
+
+        return(shm.resolve(UtilityInformation.SHARED_MEMORY_SUBDIR));
+    }
+
+    /**
+     * receive
+     *
+     * Polls every inbound ring and gives each message to the ServerPattern
+     * until the transport is torn down. Spins while messages keep arriving
+     * (unless there is only one processor, where spinning would keep the
+     * sender from running), yields once the rings have been empty for a
+     * while, and parks between polls after that.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    private void receive() {
+        SignalBufferPool pool = controller.getBufferPool();
+        DatagramPacket packet = pool.acquire();
+        long nextScan = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(UtilityInformation.SHARED_MEMORY_SCAN_INTERVAL);
+        int spinLimit = (Runtime.getRuntime().availableProcessors() > 1) ? UtilityInformation.SHARED_MEMORY_SPIN_LIMIT : 0;
+        int yieldLimit = spinLimit + UtilityInformation.SHARED_MEMORY_YIELD_LIMIT;
+        int idlePolls = 0;
+
+        try {
+            while (run) {
+                boolean received = false;
+
+                for (int i = 0; i < numInbound; i++) {
+                    int length;
+
+                    while ((length = inbound[i].poll(packet.getData())) >= 0) {
+                        packet.setLength(length);
+                        packet.setAddress(localAddress);
+                        packet.setPort(inboundPorts[i]);
+                        SignalBufferPool.clearUnused(packet);
+
+                        controller.signalReceived(packet);
+                        packet = pool.acquire();
+                        received = true;
+                    }
+                }
+
+                if (received) {
+                    idlePolls = 0;
+                } else if (idlePolls < spinLimit) {
+                    idlePolls++;
+                    Thread.onSpinWait();
+                } else if (idlePolls < yieldLimit) {
+                    idlePolls++;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(UtilityInformation.SHARED_MEMORY_PARK_NANOS);
+                }
+
+                if (System.nanoTime() >= nextScan) {
+                    scanForRings(false);
+                    nextScan = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(UtilityInformation.SHARED_MEMORY_SCAN_INTERVAL);
+                }
+            }
+        } catch (IOException e) {
+            Log.warn(name + ": Unable to read shared memory rings: " + e.getMessage());
+        } finally {
+            pool.release(packet);
+            closeInbound();
+        }
+    }
+
+    /**
+     * bind
+     *
+     * Tries to take the lock on the given port
+     *
+     * @param port The port to bind
+     *
+     * @return boolean True if the port was bound, false if another transport holds it
+     *
+     * @throws IOException If the lock file could not be opened
+     */
+    private boolean bind(int port) throws IOException {
+        FileChannel channel = FileChannel.open(dir.resolve(port + LOCK_SUFFIX),
+                                               StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = null;
+
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Already bound by another transport in this JVM
+        }
+
+        if (lock == null) {
+            channel.close();
+            return(false);
+        }
+
+        lockChannel = channel;
+        portLock = lock;
+
+        return(true);
+    }
+
+    /**
+     * scanForRings
+     *
+     * Opens every ring sent to this port that is not open yet
+     *
+     * @param dropOld  True to drop the messages already in the rings
+     *
+     * @return None
+     *
+     * @throws IOException If the ring directory could not be read
+     */
+    private void scanForRings(boolean dropOld) throws IOException {
+        try (DirectoryStream<Path> rings = Files.newDirectoryStream(dir, "*-" + localPort + RING_SUFFIX)) {
+            for (Path file : rings) {
+                String fileName = file.getFileName().toString();
+                int sourcePort;
+
+                try {
+                    sourcePort = Integer.parseInt(fileName.substring(0, fileName.indexOf('-')));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+
+                if (isInbound(sourcePort)) {
+                    continue;
+                }
+
+                SharedMemoryRing ring = new SharedMemoryRing(file, UtilityInformation.SHARED_MEMORY_RING_CAPACITY);
+
+                if (dropOld) {
+                    ring.clear();
+                }
+
+                if (numInbound == inbound.length) {
+                    inbound = Arrays.copyOf(inbound, numInbound * 2);
+                    inboundPorts = Arrays.copyOf(inboundPorts, numInbound * 2);
+                }
+
+                inbound[numInbound] = ring;
+                inboundPorts[numInbound] = sourcePort;
+                numInbound++;
+            }
+        }
+    }
+
+    /**
+     * isInbound
+     *
+     * Returns whether the ring from the given port is already polled
+     *
+     * @param sourcePort   Port of the sender of the ring
+     *
+     * @return boolean True if the ring is polled
+     */
+    private boolean isInbound(int sourcePort) {
+        for (int i = 0; i < numInbound; i++) {
+            if (inboundPorts[i] == sourcePort) {
+                return(true);
+            }
+        }
+
+        return(false);
+    }
+
+    /**
+     * getOutboundRing
+     *
+     * Returns the ring to the given port, creating it on first use
+     *
+     * @param port Port of the destination
+     *
+     * @return SharedMemoryRing    The ring
+     *
+     * @throws IOException If the ring file could not be created
+     */
+    private SharedMemoryRing getOutboundRing(int port) throws IOException {
+        SharedMemoryRing ring = outbound.get(port);
+
+        if (ring == null) {
+            synchronized (outbound) {
+                ring = outbound.get(port);
+
+                if (ring == null) {
+                    ring = new SharedMemoryRing(dir.resolve(localPort + "-" + port + RING_SUFFIX),
+                                                UtilityInformation.SHARED_MEMORY_RING_CAPACITY);
+                    outbound.put(port, ring);
+                }
+            }
+        }
+
+        return(ring);
+    }
+
+    /**
+     * closeInbound
+     *
+     * Closes every inbound ring
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    private void closeInbound() {
+        for (int i = 0; i < numInbound; i++) {
+            inbound[i].close();
+        }
+        numInbound = 0;
+    }
+}
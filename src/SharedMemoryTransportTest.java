@@ -0,0 +1,150 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class SharedMemoryTransportTest {
+
+	// Smallest ring that still needs to wrap around for these tests
+	private static final int RING_CAPACITY = 64;
+
+	/**
+	 * Test that messages come out of a ring in order, including messages
+	 * that had to skip the end of the ring
+	 */
+	@Test
+	void testRingWrapsAround() throws Exception {
+		Path file = Files.createTempFile("ring", ".ring");
+		SharedMemoryRing producer = new SharedMemoryRing(file, RING_CAPACITY);
+		SharedMemoryRing consumer = new SharedMemoryRing(file, RING_CAPACITY);
+		byte[] received = new byte[UtilityInformation.MAX_BYTE_ARRAY_SIZE];
+
+		try {
+			for (int i = 0; i < 20; i++) {
+				byte[] message = new byte[1 + (i % 7) * 3];
+				Arrays.fill(message, (byte) i);
+
+				assertTrue(producer.offer(message, 0, message.length));
+
+				int length = consumer.poll(received);
+
+				assertArrayEquals(message, Arrays.copyOf(received, length));
+			}
+
+			assertEquals(-1, consumer.poll(received));
+		} finally {
+			producer.close();
+			consumer.close();
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Test that a full ring refuses messages until the consumer frees space
+	 */
+	@Test
+	void testRingFull() throws Exception {
+		Path file = Files.createTempFile("ring", ".ring");
+		SharedMemoryRing ring = new SharedMemoryRing(file, RING_CAPACITY);
+		byte[] message = new byte[12];
+		byte[] received = new byte[UtilityInformation.MAX_BYTE_ARRAY_SIZE];
+
+		try {
+			// Each record is the message plus its 4 byte length
+			for (int i = 0; i < RING_CAPACITY / 16; i++) {
+				assertTrue(ring.offer(message, 0, message.length));
+			}
+
+			assertFalse(ring.offer(message, 0, message.length));
+			assertEquals(message.length, ring.poll(received));
+			assertTrue(ring.offer(message, 0, message.length));
+		} finally {
+			ring.close();
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Test that a message sent between two ServerPatterns arrives with the
+	 * port of the sender as its source
+	 */
+	@Test
+	void testSend() throws Exception {
+		ServerPattern sender = create("sender");
+		ServerPattern receiver = create("receiver");
+
+		try {
+			byte[] message = { UtilityInformation.FLOOR_REQUEST_MODE, 3, 1, UtilityInformation.END_OF_MESSAGE };
+
+			sender.transmit(new DatagramPacket(message, message.length, InetAddress.getLoopbackAddress(),
+					receiver.getLocalPort()));
+
+			DatagramPacket received = receiver.getNextRequest();
+
+			assertArrayEquals(message, Arrays.copyOf(received.getData(), received.getLength()));
+			assertEquals(sender.getLocalPort(), received.getPort());
+		} finally {
+			sender.teardown();
+			receiver.teardown();
+		}
+	}
+
+	/**
+	 * Test that reliable messages and their acks go through the rings, so more
+	 * messages than fit the unacknowledged window all arrive in order
+	 */
+	@Test
+	void testReliableSend() throws Exception {
+		ServerPattern sender = create("sender");
+		ServerPattern receiver = create("receiver");
+		int numMessages = UtilityInformation.RELIABLE_WINDOW_SIZE * 2 + 1;
+
+		try {
+			sender.setReliableDelivery(true);
+
+			// Sending waits for acks once the window is full
+			Thread sending = new Thread(() -> {
+				try {
+					for (int i = 0; i < numMessages; i++) {
+						byte[] message = { UtilityInformation.FLOOR_REQUEST_MODE, (byte) i, 1,
+								UtilityInformation.END_OF_MESSAGE };
+
+						sender.transmit(new DatagramPacket(message, message.length,
+								InetAddress.getLoopbackAddress(), receiver.getLocalPort()));
+					}
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			});
+			sending.start();
+
+			for (int i = 0; i < numMessages; i++) {
+				DatagramPacket received = receiver.getNextRequest();
+
+				assertEquals(4, received.getLength());
+				assertEquals((byte) i, received.getData()[received.getOffset() + 1]);
+				receiver.releaseRequest(received);
+			}
+
+			sending.join(5000);
+			assertFalse(sending.isAlive());
+		} finally {
+			sender.teardown();
+			receiver.teardown();
+		}
+	}
+
+	private ServerPattern create(String name) {
+		return (new ServerPattern(0, name, UtilityInformation.TransportType.SHARED_MEMORY,
+				UtilityInformation.ReceiverType.CHANNEL, UtilityInformation.WaitStrategy.BLOCKING) {
+		});
+	}
+}
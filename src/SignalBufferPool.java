@@ -0,0 +1,128 @@
+import java.net.DatagramPacket;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ *
+ * This class is used to recycle the DatagramPackets that received signals
+ * are read into. Packets are taken from the pool by a SignalReceiver and
+ * given back once the handler that processed the signal is finished with it.
+ *
+ */
+public class SignalBufferPool {
+    private ArrayBlockingQueue<DatagramPacket> freePackets;
+
+    private int bufferSize;
+
+    /**
+     * SignalBufferPool
+     *
+     * Constructor
+     *
+     * Creates a new SignalBufferPool and fills it with packets.
+     *
+     * @param capacity     Maximum number of free packets kept in the pool
+     * @param bufferSize   Size of the buffer backing each packet
+     *
+     * @return None
+     */
+    public SignalBufferPool(int capacity, int bufferSize) {
+        this.bufferSize = bufferSize;
+
+        freePackets = new ArrayBlockingQueue<DatagramPacket>(capacity);
+
+        for (int i = 0; i < capacity; i++) {
+            freePackets.offer(createPacket());
+        }
+    }
+
+    /**
+     * acquire
+     *
+     * Returns a free packet from the pool. A new packet is created
+     * if the pool is empty.
+     *
+     * @param  None
+     *
+     * @return DatagramPacket  A packet ready to receive a signal
+     */
+    public DatagramPacket acquire() {
+        DatagramPacket packet = freePackets.poll();
+
+        if (packet == null) {
+            packet = createPacket();
+        }
+
+        return(packet);
+    }
+
+    /**
+     * release
+     *
+     * Returns the given packet to the pool. Packets that no longer use
+     * a buffer of the pool's size (i.e. their data was replaced) are
+     * left for the garbage collector.
+     *
+     * @param packet   The packet to return to the pool
+     *
+     * @return None
+     */
+    public void release(DatagramPacket packet) {
+        if ((packet == null) || (packet.getData().length != bufferSize)) {
+            return;
+        }
+
+        packet.setLength(bufferSize);
+        freePackets.offer(packet);
+    }
+
+    /**
+     * getNumFree
+     *
+     * Returns the number of packets currently available in the pool
+     *
+     * @param  None
+     *
+     * @return int Number of free packets
+     */
+    public int getNumFree() {
+        return(freePackets.size());
+    }
+
+    /**
+     * clearUnused
+     *
+     * Static method
+     *
+     * Zeroes the part of the given packet's buffer that is past the
+     * received length, so that a reused buffer does not contain bytes
+     * from a previous signal.
+     *
+     * @param packet   The packet to clear
+     *
+     * @return None
+     */
+    public static void clearUnused(DatagramPacket packet) {
+        byte[] data = packet.getData();
+        int end = packet.getOffset() + packet.getLength();
+
+        if (end < data.length) {
+            Arrays.fill(data, end, data.length, (byte) 0);
+        }
+    }
+
+    /**
+     * createPacket
+     *
+     * Creates a new packet backed by a buffer of the pool's size
+     *
+     * @param  None
+     *
+     * @return DatagramPacket  The created packet
+     */
+    private DatagramPacket createPacket() {
+        byte[] data = new byte[bufferSize];
+
+        return(new DatagramPacket(data, data.length));
+    }
+}
@@ -0,0 +1,576 @@
+import java.net.DatagramPacket;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * This class is the queue of received signals used by a ServerPattern.
+ *
+ * Any number of threads can add signals. Signals are handed to the consumer
+ * through a bounded lock-free ring buffer, so producers never take a lock
+ * and never wake anything but the consumer. The consumer moves the signals
+ * into one FIFO lane per priority class (found directly from the mode byte)
+ * and always takes from the highest priority lane that is not empty, so
+ * signals of the same priority are handled in the order they arrived.
+ * Only one thread may take signals out of the queue at a time.
+ *
+ * Lanes can be marked as aging lanes. A signal waiting in an aging lane is
+ * handled once it has been passed over by a set number of higher priority
+ * signals, so it can not starve.
+ *
+ * How the consumer waits for signals is controlled by its WaitStrategy.
+ *
+ */
+public class SignalQueue {
+    // Spin and yield counts used by PARK_BACKOFF before parking
+    private final static int SPIN_TRIES = 100;
+    private final static int YIELD_TRIES = 10;
+
+    // Bounds for the park time used while backing off (in nanoseconds)
+    private final static long MIN_PARK_NANOS = 1000;
+    private final static long MAX_PARK_NANOS = 1000000;
+
+    // Ring buffer used to hand signals from the producers to the consumer
+    private AtomicReferenceArray<DatagramPacket> ring;
+    private AtomicLongArray sequences;
+    private int mask;
+
+    // Next slot to be claimed by a producer
+    private AtomicLong tail;
+
+    // Next slot to be read by the consumer (only used by the consumer)
+    private long head;
+
+    // Signals already taken off the ring, one FIFO lane per priority
+    // (lanes, nonEmptyLanes and bypassCounts are only used by the consumer)
+    private ArrayDeque<DatagramPacket>[] lanes;
+    private int[] laneOfMode;
+
+    // Bit i is set when lane i is not empty
+    private int nonEmptyLanes;
+
+    // Number of signals in each lane, including signals still in the ring
+    private AtomicIntegerArray laneDepths;
+
+    // Aging lanes and how many times each has been passed over
+    private boolean[] agingLanes;
+    private int[] bypassCounts;
+    private volatile int agingThreshold;
+
+    // Number of signals in the ring and in the lanes
+    private AtomicInteger size;
+    private int capacity;
+
+    private volatile UtilityInformation.WaitStrategy waitStrategy;
+
+    // Consumer currently parked waiting for a signal, if any
+    private volatile Thread waitingConsumer;
+
+    /**
+     * SignalQueue
+     *
+     * Constructor
+     *
+     * Creates a new, empty SignalQueue.
+     *
+     * @param capacity         Maximum number of signals in the queue
+     * @param laneOfMode       Lane (priority) of each mode, indexed by mode byte.
+     *                         Higher Number = Higher Priority.
+     *                         Unknown modes use lane 0.
+     * @param waitStrategy     How the consumer waits when the queue is empty
+     *
+     * @return None
+     */
+    public SignalQueue(int capacity, int[] laneOfMode, UtilityInformation.WaitStrategy waitStrategy) {
+        this.capacity = capacity;
+        this.waitStrategy = waitStrategy;
+
+        // Ring size must be a power of two so slots can be found with a mask
+        int ringSize = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        mask = ringSize - 1;
+
+        ring = new AtomicReferenceArray<DatagramPacket>(ringSize);
+        sequences = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            sequences.set(i, i);
+        }
+
+        tail = new AtomicLong(0);
+        head = 0;
+
+        this.laneOfMode = laneOfMode.clone();
+
+        int numLanes = 1;
+        for (int lane : laneOfMode) {
+            numLanes = Math.max(numLanes, lane + 1);
+        }
+
+        if (numLanes > Integer.SIZE) {
+            throw new IllegalArgumentException("Too many priority lanes: " + numLanes);
+        }
+
+        lanes = newLanes(numLanes);
+        nonEmptyLanes = 0;
+
+        laneDepths = new AtomicIntegerArray(numLanes);
+
+        agingLanes = new boolean[numLanes];
+        bypassCounts = new int[numLanes];
+        agingThreshold = 0;
+
+        size = new AtomicInteger(0);
+    }
+
+    /**
+     * newLanes
+     *
+     * Creates the given number of empty lanes.
+     *
+     * @param numLanes Number of lanes to create
+     *
+     * @return ArrayDeque<DatagramPacket>[]    The new lanes
+     */
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<DatagramPacket>[] newLanes(int numLanes) {
+        ArrayDeque<DatagramPacket>[] newLanes = (ArrayDeque<DatagramPacket>[]) new ArrayDeque<?>[numLanes];
+
+        for (int i = 0; i < numLanes; i++) {
+            newLanes[i] = new ArrayDeque<DatagramPacket>();
+        }
+
+        return(newLanes);
+    }
+
+    /**
+     * put
+     *
+     * Adds the given signal to the queue. Waits while the queue is full.
+     * Safe to call from any number of threads.
+     *
+     * @param signal   DatagramPacket containing the signal
+     *
+     * @return None
+     */
+    public void put(DatagramPacket signal) {
+        put(signal, -1);
+    }
+
+    /**
+     * put
+     *
+     * Adds the given signal to the queue. Waits up to the given time while
+     * the queue is full, and gives up if there is still no room.
+     * Safe to call from any number of threads.
+     *
+     * @param signal   DatagramPacket containing the signal
+     * @param timeoutNanos Longest time to wait for room (in nanoseconds).
+     *                     Negative to wait as long as needed.
+     *
+     * @return boolean True if the signal was added, false if it timed out
+     */
+    public boolean put(DatagramPacket signal, long timeoutNanos) {
+        // Reserve room for the signal, backing off while the queue is full
+        long deadline = System.nanoTime() + timeoutNanos;
+        long parkNanos = MIN_PARK_NANOS;
+        int currSize = size.get();
+
+        while ((currSize >= capacity) || !size.compareAndSet(currSize, currSize + 1)) {
+            if (currSize >= capacity) {
+                if ((timeoutNanos >= 0) && (System.nanoTime() - deadline >= 0)) {
+                    return(false);
+                }
+
+                LockSupport.parkNanos(this, parkNanos);
+                parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+            }
+
+            currSize = size.get();
+        }
+
+        laneDepths.incrementAndGet(getLane(signal));
+
+        // There is always a free slot once room is reserved
+        while (!offer(signal)) {
+            Thread.onSpinWait();
+        }
+
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+
+        return(true);
+    }
+
+    /**
+     * take
+     *
+     * Returns the next signal in the queue and removes it. This is the oldest
+     * signal in the highest priority lane, unless an aging lane has been
+     * passed over too many times.
+     * Waits according to the wait strategy until a signal is available.
+     * Must only be called by one thread at a time.
+     *
+     * @param  None
+     *
+     * @return DatagramPacket  The next signal
+     */
+    public DatagramPacket take() {
+        int idleCount = 0;
+
+        while (true) {
+            drainRing();
+
+            if (nonEmptyLanes != 0) {
+                return(removeFromLane(chooseLane()));
+            }
+
+            idle(idleCount);
+            idleCount++;
+        }
+    }
+
+    /**
+     * takeBatch
+     *
+     * Removes up to the given number of signals from the queue and adds them
+     * to the given list, in the same order that take would return them.
+     * Waits according to the wait strategy until at least one signal is
+     * available. Must only be called by one thread at a time.
+     *
+     * @param batch    List that the removed signals are added to
+     * @param max      Maximum number of signals to remove
+     *
+     * @return int Number of signals added to the list
+     */
+    public int takeBatch(List<DatagramPacket> batch, int max) {
+        int idleCount = 0;
+
+        while (true) {
+            drainRing();
+
+            if (nonEmptyLanes != 0) {
+                int count = 0;
+
+                while ((count < max) && (nonEmptyLanes != 0)) {
+                    batch.add(removeFromLane(chooseLane()));
+                    count++;
+                }
+
+                return(count);
+            }
+
+            idle(idleCount);
+            idleCount++;
+        }
+    }
+
+    /**
+     * size
+     *
+     * Returns the number of signals currently in the queue
+     *
+     * @param  None
+     *
+     * @return int Number of signals in the queue
+     */
+    public int size() {
+        return(size.get());
+    }
+
+    /**
+     * setAgingLane
+     *
+     * Marks the given lane as an aging lane (or not)
+     *
+     * @param lane     The lane to change
+     * @param aging    True if signals in the lane should age
+     *
+     * @return None
+     */
+    public void setAgingLane(int lane, boolean aging) {
+        agingLanes[lane] = aging;
+    }
+
+    /**
+     * setAgingThreshold
+     *
+     * Sets how many higher priority signals can be handled while a
+     * signal waits in an aging lane. 0 disables aging.
+     *
+     * @param threshold    The new aging threshold
+     *
+     * @return None
+     */
+    public void setAgingThreshold(int threshold) {
+        agingThreshold = threshold;
+    }
+
+    /**
+     * getLaneOfMode
+     *
+     * Returns the lane that signals of the given mode are placed in
+     *
+     * @param mode The mode byte of a signal
+     *
+     * @return int The lane used for the mode
+     */
+    public int getLaneOfMode(byte mode) {
+        if ((mode < 0) || (mode >= laneOfMode.length)) {
+            return(0);
+        }
+
+        return(laneOfMode[mode]);
+    }
+
+    /**
+     * getNumLanes
+     *
+     * Returns the number of priority lanes in the queue
+     *
+     * @param  None
+     *
+     * @return int Number of lanes
+     */
+    public int getNumLanes() {
+        return(lanes.length);
+    }
+
+    /**
+     * getLaneDepth
+     *
+     * Returns the number of signals currently waiting in the given lane.
+     * Can be called from any thread.
+     *
+     * @param lane The lane to check
+     *
+     * @return int Number of signals waiting in the lane
+     */
+    public int getLaneDepth(int lane) {
+        return(laneDepths.get(lane));
+    }
+
+    /**
+     * setWaitStrategy
+     *
+     * Changes how the consumer waits for signals
+     *
+     * @param newStrategy  The new wait strategy
+     *
+     * @return None
+     */
+    public void setWaitStrategy(UtilityInformation.WaitStrategy newStrategy) {
+        waitStrategy = newStrategy;
+
+        // Make sure a parked consumer picks up the new strategy
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * getWaitStrategy
+     *
+     * Returns the wait strategy used by the consumer
+     *
+     * @param  None
+     *
+     * @return WaitStrategy    The current wait strategy
+     */
+    public UtilityInformation.WaitStrategy getWaitStrategy() {
+        return(waitStrategy);
+    }
+
+    /**
+     * offer
+     *
+     * Tries to add the given signal to the ring buffer.
+     *
+     * @param signal   The signal to add
+     *
+     * @return boolean True if the signal was added, false if the ring is full
+     */
+    private boolean offer(DatagramPacket signal) {
+        while (true) {
+            long pos = tail.get();
+            int slot = (int) (pos & mask);
+            long diff = sequences.get(slot) - pos;
+
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    ring.lazySet(slot, signal);
+
+                    // Publish the slot to the consumer
+                    sequences.set(slot, pos + 1);
+                    return(true);
+                }
+            } else if (diff < 0) {
+                return(false);
+            }
+        }
+    }
+
+    /**
+     * drainRing
+     *
+     * Moves every published signal from the ring buffer into the
+     * lane for its priority.
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    private void drainRing() {
+        while (true) {
+            int slot = (int) (head & mask);
+
+            if (sequences.get(slot) != head + 1) {
+                return;
+            }
+
+            DatagramPacket signal = ring.get(slot);
+            ring.lazySet(slot, null);
+
+            int lane = getLane(signal);
+            lanes[lane].addLast(signal);
+            nonEmptyLanes |= (1 << lane);
+
+            // Hand the slot back to the producers
+            sequences.set(slot, head + mask + 1);
+            head++;
+        }
+    }
+
+    /**
+     * chooseLane
+     *
+     * Returns the lane the next signal should be taken from. Only
+     * called when at least one lane is not empty.
+     *
+     * @param  None
+     *
+     * @return int The lane to take the next signal from
+     */
+    private int chooseLane() {
+        int highestLane = (Integer.SIZE - 1) - Integer.numberOfLeadingZeros(nonEmptyLanes);
+        int threshold = agingThreshold;
+
+        if (threshold <= 0) {
+            return(highestLane);
+        }
+
+        int chosenLane = highestLane;
+
+        // Serve the highest aging lane that has waited long enough
+        for (int lane = highestLane - 1; lane >= 0; lane--) {
+            if (agingLanes[lane] && ((nonEmptyLanes & (1 << lane)) != 0)) {
+                if ((chosenLane == highestLane) && (bypassCounts[lane] >= threshold)) {
+                    chosenLane = lane;
+                } else {
+                    bypassCounts[lane]++;
+                }
+            }
+        }
+
+        bypassCounts[chosenLane] = 0;
+
+        return(chosenLane);
+    }
+
+    /**
+     * removeFromLane
+     *
+     * Removes the oldest signal from the given lane
+     *
+     * @param lane The lane to take the signal from
+     *
+     * @return DatagramPacket  The removed signal
+     */
+    private DatagramPacket removeFromLane(int lane) {
+        DatagramPacket signal = lanes[lane].pollFirst();
+
+        if (lanes[lane].isEmpty()) {
+            nonEmptyLanes &= ~(1 << lane);
+        }
+
+        laneDepths.decrementAndGet(lane);
+        size.decrementAndGet();
+
+        return(signal);
+    }
+
+    /**
+     * getLane
+     *
+     * Returns the lane that the given signal belongs in
+     *
+     * @param signal   The signal to check
+     *
+     * @return int The lane for the signal
+     */
+    private int getLane(DatagramPacket signal) {
+        return(getLaneOfMode(MessageCodec.getMode(signal)));
+    }
+
+    /**
+     * isRingEmpty
+     *
+     * Returns whether the consumer has nothing left to read from the ring
+     *
+     * @param  None
+     *
+     * @return boolean True if no published signal is waiting in the ring
+     */
+    private boolean isRingEmpty() {
+        return(sequences.get((int) (head & mask)) != head + 1);
+    }
+
+    /**
+     * idle
+     *
+     * Waits for a signal according to the current wait strategy.
+     *
+     * @param idleCount    Number of times the consumer has already idled
+     *                     while waiting for this signal
+     *
+     * @return None
+     */
+    private void idle(int idleCount) {
+        switch (waitStrategy) {
+        case BUSY_SPIN:
+            Thread.onSpinWait();
+            break;
+        case YIELDING:
+            Thread.yield();
+            break;
+        case PARK_BACKOFF:
+            if (idleCount < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                int shift = Math.min(idleCount - SPIN_TRIES - YIELD_TRIES, 10);
+                LockSupport.parkNanos(this, Math.min(MIN_PARK_NANOS << shift, MAX_PARK_NANOS));
+            }
+            break;
+        case BLOCKING:
+        default:
+            waitingConsumer = Thread.currentThread();
+
+            // Check again now that producers can see the waiting consumer
+            if (isRingEmpty()) {
+                LockSupport.park(this);
+            }
+
+            waitingConsumer = null;
+            break;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.DatagramPacket;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SignalQueueTest {
+
+	private SignalQueue queue;
+
+	// Lane of each mode used by the tests (mode 2 = lowest, mode 1 = highest)
+	private int[] laneOfMode = { 1, 2, 0 };
+
+	/**
+	 * Create an empty queue with aging disabled
+	 *
+	 * @throws Exception
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		queue = new SignalQueue(100, laneOfMode, UtilityInformation.WaitStrategy.BUSY_SPIN);
+	}
+
+	/**
+	 * Create a signal with the given mode and id
+	 *
+	 * @param mode The mode byte of the signal
+	 * @param id   Value used to tell signals apart
+	 *
+	 * @return DatagramPacket containing the signal
+	 */
+	private DatagramPacket signal(int mode, int id) {
+		byte[] buf = new byte[] { (byte) mode, (byte) id, -1 };
+		return (new DatagramPacket(buf, buf.length));
+	}
+
+	/**
+	 * Test that the highest priority lane is always served first
+	 */
+	@Test
+	void testHighestPriorityFirst() {
+		queue.put(signal(2, 0));
+		queue.put(signal(0, 1));
+		queue.put(signal(1, 2));
+
+		assertEquals(1, queue.take().getData()[0]);
+		assertEquals(0, queue.take().getData()[0]);
+		assertEquals(2, queue.take().getData()[0]);
+	}
+
+	/**
+	 * Test that signals with the same priority are taken in the order they
+	 * arrived
+	 */
+	@Test
+	void testFifoWithinLane() {
+		for (int i = 0; i < 10; i++) {
+			queue.put(signal(1, i));
+		}
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, queue.take().getData()[1]);
+		}
+	}
+
+	/**
+	 * Test that the lane depth counters follow puts and takes
+	 */
+	@Test
+	void testLaneDepths() {
+		queue.put(signal(1, 0));
+		queue.put(signal(1, 1));
+		queue.put(signal(2, 2));
+
+		assertEquals(2, queue.getLaneDepth(queue.getLaneOfMode((byte) 1)));
+		assertEquals(1, queue.getLaneDepth(queue.getLaneOfMode((byte) 2)));
+		assertEquals(3, queue.size());
+
+		queue.take();
+
+		assertEquals(1, queue.getLaneDepth(queue.getLaneOfMode((byte) 1)));
+		assertEquals(2, queue.size());
+	}
+
+	/**
+	 * Test that a signal at an offset in its buffer is queued in the lane of
+	 * its own mode, not that of the byte at the start of the buffer
+	 */
+	@Test
+	void testLaneOfSignalAtOffset() {
+		byte[] buf = new byte[] { 2, 2, 2, 1, 7, -1 };
+
+		queue.put(new DatagramPacket(buf, 3, 3));
+
+		assertEquals(1, queue.getLaneDepth(queue.getLaneOfMode((byte) 1)));
+		assertEquals(0, queue.getLaneDepth(queue.getLaneOfMode((byte) 2)));
+		assertEquals(3, queue.take().getOffset());
+	}
+
+	/**
+	 * Test that a signal in an aging lane is taken after being passed over
+	 * by the threshold number of higher priority signals
+	 */
+	@Test
+	void testAgingLaneDoesNotStarve() {
+		queue.setAgingLane(queue.getLaneOfMode((byte) 2), true);
+		queue.setAgingThreshold(3);
+
+		queue.put(signal(2, 99));
+		for (int i = 0; i < 10; i++) {
+			queue.put(signal(1, i));
+		}
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(1, queue.take().getData()[0]);
+		}
+
+		assertEquals(99, queue.take().getData()[1]);
+		assertEquals(3, queue.take().getData()[1]);
+	}
+
+	/**
+	 * Test that a batch larger than the queue takes every signal and
+	 * leaves the queue and its lanes empty
+	 */
+	@Test
+	void testBatchDrainsQueue() {
+		ArrayList<DatagramPacket> batch = new ArrayList<DatagramPacket>();
+
+		for (int i = 0; i < 10; i++) {
+			queue.put(signal(i % 3, i));
+		}
+
+		assertEquals(10, queue.takeBatch(batch, 100));
+		assertEquals(10, batch.size());
+		assertEquals(0, queue.size());
+
+		for (int lane = 0; lane < queue.getNumLanes(); lane++) {
+			assertEquals(0, queue.getLaneDepth(lane));
+		}
+	}
+
+	/**
+	 * Test that a batch holds its signals highest priority lane first, and
+	 * in arrival order within each lane
+	 */
+	@Test
+	void testBatchLaneOrder() {
+		ArrayList<DatagramPacket> batch = new ArrayList<DatagramPacket>();
+
+		queue.put(signal(2, 0));
+		queue.put(signal(0, 1));
+		queue.put(signal(1, 2));
+		queue.put(signal(2, 3));
+		queue.put(signal(1, 4));
+		queue.put(signal(0, 5));
+
+		queue.takeBatch(batch, 6);
+
+		int[] expectedIds = { 2, 4, 1, 5, 0, 3 };
+		for (int i = 0; i < expectedIds.length; i++) {
+			assertEquals(expectedIds[i], batch.get(i).getData()[1]);
+		}
+	}
+
+	/**
+	 * Test that a batch smaller than the queue takes only the first signals,
+	 * and the next batch carries on from where it stopped
+	 */
+	@Test
+	void testPartialBatch() {
+		ArrayList<DatagramPacket> batch = new ArrayList<DatagramPacket>();
+
+		for (int i = 0; i < 10; i++) {
+			queue.put(signal(1, i));
+		}
+
+		assertEquals(4, queue.takeBatch(batch, 4));
+		assertEquals(6, queue.size());
+		assertEquals(6, queue.getLaneDepth(queue.getLaneOfMode((byte) 1)));
+
+		batch.clear();
+		assertEquals(6, queue.takeBatch(batch, 10));
+
+		for (int i = 0; i < 6; i++) {
+			assertEquals(i + 4, batch.get(i).getData()[1]);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+import java.net.DatagramPacket;
+import java.util.Arrays;
+
+/**
+ * 
+ * This class is the base for all classes used to receive messages
+ * for a ServerPattern. Received signals are read into packets taken
+ * from the ServerPattern's pool.
+ *
+ */
+abstract class SignalReceiver implements Runnable {
+	protected ServerPattern controller;
+	protected volatile boolean run;
+
+	protected String name;
+
+	/**
+	 * SignalReceiver
+	 * 
+	 * Creates a new SignalReceiver object
+	 * 
+	 * @param controller   The ServerPattern that controls this SignalReceiver object
+	 * @param name The name of this ServerPattern object
+	 * 
+	 * @return None
+	 */
+	public SignalReceiver(ServerPattern controller, String name) {
+		run = true;
+
+		this.controller = controller;
+		this.name = name;
+	}
+
+	/**
+	 * teardown
+	 * 
+	 * Tears down this SignalReceiver object
+	 */
+	public abstract void teardown();
+
+	/**
+	 * waitForSignal
+	 * 
+	 * Waits for the next signal to arrive and returns it.
+	 * 
+	 * @param  None
+	 * 
+	 * @return DatagramPacket containing the signal, null if the receiver was torn down
+	 */
+	public abstract DatagramPacket waitForSignal();
+
+	/**
+	 * getLocalPort
+	 * 
+	 * Returns the port signals are received on. If the receiver was
+	 * created with port 0, this is the port that was picked.
+	 * 
+	 * @param  None
+	 * 
+	 * @return int The port number
+	 */
+	public abstract int getLocalPort();
+
+	/**
+	 * printSignal
+	 * 
+	 * Prints information about the given received packet.
+	 * 
+	 * @param receivePacket    The received packet
+	 * 
+	 * @return None
+	 */
+	protected void printSignal(DatagramPacket receivePacket) {
+		Log.debug(() -> String.format("%s: Packet received:\nFrom host: %s\nHost port: %d\n" +
+		                              "Length: %d\nContaining (as bytes): %s\n", 
+		                              name, receivePacket.getAddress(), receivePacket.getPort(), 
+		                              receivePacket.getLength(), 
+		                              Arrays.toString(Arrays.copyOfRange(receivePacket.getData(), 
+		                                                                 receivePacket.getOffset(), 
+		                                                                 receivePacket.getOffset() + receivePacket.getLength()))));
+	}
+
+	/**
+	 * run
+	 * 
+	 * Overridden
+	 * 
+	 * Runs this SignalReceiver object.
+	 * Waits for signals and adds them to the list of received signals.
+	 * 
+	 * @param  None
+	 * 
+	 * @return None
+	 */
+	@Override
+	public void run() {
+		while (run) {
+			DatagramPacket signal = waitForSignal();
+			
+			if (signal != null) {
+			    controller.signalReceived(signal);
+			}
+		}
+	}
+}
@@ -0,0 +1,324 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *
+ * This class is the source of time for the simulation.
+ *
+ * Every simulated delay (moving between floors, opening doors, waiting for
+ * the next request) goes through a clock instead of calling Thread.sleep.
+ * Times given to and returned by a clock are simulated times.
+ *
+ * A REAL clock runs at wall-clock speed. A SCALED clock runs faster than
+ * the wall clock by a fixed factor, so a day of traffic can be replayed in
+ * minutes. A MANUAL clock only moves when advance is called, which lets
+ * tests control exactly when simulated delays end.
+ *
+ */
+public abstract class SimulationClock {
+
+    /**
+     * nanoTime
+     *
+     * Returns the current simulated time. Like System.nanoTime, only the
+     * difference between two values is meaningful.
+     *
+     * @param  None
+     *
+     * @return long    Current simulated time (in nanoseconds)
+     */
+    public abstract long nanoTime();
+
+    /**
+     * sleep
+     *
+     * Waits until the given amount of simulated time has passed
+     *
+     * @param millis   Simulated time to wait (in milliseconds)
+     *
+     * @return None
+     *
+     * @throws InterruptedException    If the thread is interrupted while waiting
+     */
+    public abstract void sleep(long millis) throws InterruptedException;
+
+    /**
+     * currentTimeMillis
+     *
+     * Returns the current simulated time in milliseconds
+     *
+     * @param  None
+     *
+     * @return long    Current simulated time (in milliseconds)
+     */
+    public long currentTimeMillis() {
+        return(TimeUnit.NANOSECONDS.toMillis(nanoTime()));
+    }
+
+    /**
+     * create
+     *
+     * Creates a clock of the given type
+     *
+     * @param mode The type of clock
+     * @param scale    Simulated time per unit of real time (SCALED clocks only)
+     *
+     * @return SimulationClock The new clock
+     */
+    public static SimulationClock create(UtilityInformation.ClockMode mode, double scale) {
+        switch (mode) {
+        case SCALED:
+            return(scaled(scale));
+        case MANUAL:
+            return(manual());
+        default:
+            return(real());
+        }
+    }
+
+    /**
+     * real
+     *
+     * Creates a clock that runs at wall-clock speed
+     *
+     * @param  None
+     *
+     * @return SimulationClock The new clock
+     */
+    public static SimulationClock real() {
+        return(new ScaledClock(1.0));
+    }
+
+    /**
+     * scaled
+     *
+     * Creates a clock that runs the given number of times faster than
+     * the wall clock
+     *
+     * @param scale    Simulated time per unit of real time
+     *
+     * @return SimulationClock The new clock
+     */
+    public static SimulationClock scaled(double scale) {
+        return(new ScaledClock(scale));
+    }
+
+    /**
+     * manual
+     *
+     * Creates a clock that only moves when it is advanced
+     *
+     * @param  None
+     *
+     * @return ManualClock The new clock
+     */
+    public static ManualClock manual() {
+        return(new ManualClock());
+    }
+
+    /**
+     *
+     * Clock that runs at a fixed multiple of wall-clock speed
+     *
+     */
+    private static class ScaledClock extends SimulationClock {
+        private double scale;
+        private long origin;
+
+        /**
+         * ScaledClock
+         *
+         * Constructor
+         *
+         * Creates a clock that starts at the current wall-clock time
+         *
+         * @param scale    Simulated time per unit of real time
+         *
+         * @return None
+         *
+         * @throws IllegalArgumentException If the scale is not positive
+         */
+        public ScaledClock(double scale) {
+            if (!(scale > 0)) {
+                throw new IllegalArgumentException("Clock scale must be positive: " + scale);
+            }
+
+            this.scale = scale;
+            origin = System.nanoTime();
+        }
+
+        /**
+         * nanoTime
+         *
+         * Returns the wall-clock time scaled from when the clock was created
+         *
+         * @param  None
+         *
+         * @return long    Current simulated time (in nanoseconds)
+         */
+        @Override
+        public long nanoTime() {
+            long now = System.nanoTime();
+
+            if (scale == 1.0) {
+                return(now);
+            }
+
+            return(origin + (long) ((now - origin) * scale));
+        }
+
+        /**
+         * sleep
+         *
+         * Sleeps for the wall-clock time the given simulated time takes
+         *
+         * @param millis   Simulated time to wait (in milliseconds)
+         *
+         * @return None
+         *
+         * @throws InterruptedException    If the thread is interrupted while waiting
+         */
+        @Override
+        public void sleep(long millis) throws InterruptedException {
+            if (millis <= 0) {
+                return;
+            }
+
+            TimeUnit.NANOSECONDS.sleep((long) (TimeUnit.MILLISECONDS.toNanos(millis) / scale));
+        }
+    }
+
+    /**
+     *
+     * Clock that only moves when it is advanced. Threads sleeping on the
+     * clock wake once it has been advanced past the end of their sleep.
+     *
+     */
+    public static class ManualClock extends SimulationClock {
+        private ReentrantLock lock;
+        private Condition timeChanged;
+        private long now;
+        private int numSleeping;
+
+        /**
+         * ManualClock
+         *
+         * Constructor
+         *
+         * Creates a clock stopped at time 0
+         *
+         * @param  None
+         *
+         * @return None
+         */
+        public ManualClock() {
+            lock = new ReentrantLock();
+            timeChanged = lock.newCondition();
+            now = 0;
+            numSleeping = 0;
+        }
+
+        /**
+         * nanoTime
+         *
+         * Returns the time the clock has been advanced to
+         *
+         * @param  None
+         *
+         * @return long    Current simulated time (in nanoseconds)
+         */
+        @Override
+        public long nanoTime() {
+            lock.lock();
+            try {
+                return(now);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * sleep
+         *
+         * Waits until the clock has been advanced past the end of the sleep
+         *
+         * @param millis   Simulated time to wait (in milliseconds)
+         *
+         * @return None
+         *
+         * @throws InterruptedException    If the thread is interrupted while waiting
+         */
+        @Override
+        public void sleep(long millis) throws InterruptedException {
+            lock.lock();
+            try {
+                long wakeTime = now + TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+
+                numSleeping++;
+                timeChanged.signalAll();
+
+                try {
+                    while (now < wakeTime) {
+                        timeChanged.await();
+                    }
+                } finally {
+                    numSleeping--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * advance
+         *
+         * Moves the clock forward, waking every thread whose sleep has ended
+         *
+         * @param millis   Time to move forward (in milliseconds)
+         *
+         * @return None
+         */
+        public void advance(long millis) {
+            lock.lock();
+            try {
+                now += TimeUnit.MILLISECONDS.toNanos(millis);
+                timeChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * awaitSleepers
+         *
+         * Waits until at least the given number of threads are sleeping on
+         * this clock, so a test can advance it without racing them
+         *
+         * @param count    Number of sleeping threads to wait for
+         * @param timeoutMillis    Longest real time to wait (in milliseconds)
+         *
+         * @return boolean True if that many threads are sleeping
+         *
+         * @throws InterruptedException    If the thread is interrupted while waiting
+         */
+        public boolean awaitSleepers(int count, long timeoutMillis) throws InterruptedException {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+            lock.lock();
+            try {
+                while (numSleeping < count) {
+                    if (remaining <= 0) {
+                        return(false);
+                    }
+
+                    remaining = timeChanged.awaitNanos(remaining);
+                }
+
+                return(true);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
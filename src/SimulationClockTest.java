@@ -0,0 +1,54 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SimulationClockTest {
+
+	/**
+	 * Test that a thread sleeping on a manual clock only wakes once the
+	 * clock has been advanced past the end of its sleep
+	 */
+	@Test
+	void testManualClock() throws Exception {
+		SimulationClock.ManualClock clock = SimulationClock.manual();
+
+		Thread sleeper = new Thread(() -> {
+			try {
+				clock.sleep(5000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		sleeper.start();
+
+		assertTrue(clock.awaitSleepers(1, 1000));
+
+		clock.advance(4999);
+		sleeper.join(100);
+		assertTrue(sleeper.isAlive());
+
+		clock.advance(1);
+		sleeper.join(1000);
+		assertFalse(sleeper.isAlive());
+
+		assertEquals(5000, clock.currentTimeMillis());
+	}
+
+	/**
+	 * Test that a scaled clock sleeps for a fraction of the simulated time
+	 */
+	@Test
+	void testScaledClock() throws Exception {
+		SimulationClock clock = SimulationClock.scaled(1000);
+
+		long start = System.nanoTime();
+		clock.sleep(5000);
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(elapsed < 1000);
+	}
+}
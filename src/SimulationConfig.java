@@ -0,0 +1,593 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ *
+ * This class holds the endpoints used by one simulation instance.
+ *
+ * Values are read from a properties file (simulation.properties in the
+ * working directory, or the file given with --config=<file>), and can be
+ * overridden on the command line with --<key>=<value>. Any value not given
+ * uses the defaults in UtilityInformation.
+ *
+ * Keys:
+ *     scheduler.host, elevator.host, floor.host  Host each subsystem runs on
+ *     scheduler.port, elevator.port, floor.port  Port each subsystem receives on
+ *     instance                                   Number of this simulation instance
+ *     transport                                  udp, in_jvm if every subsystem
+ *                                                runs in this JVM, or shared_memory
+ *                                                if they all run on this host
+ *     discovery.dir                              Directory used to find bound ports
+ *     discovery.timeout                          Time to wait for a port (in ms)
+ *     thread.mode                                platform or virtual threads for
+ *                                                elevators and floors
+ *     clock.mode                                 real, scaled or manual clock
+ *     clock.scale                                Speed-up of a scaled clock
+ *     wire.version                               Version of the message format offered
+ *                                                by the floor subsystem (1 to talk to
+ *                                                subsystems that only know version 1,
+ *                                                which limits the building to 127 floors
+ *                                                and 127 elevators)
+ *     dispatch.policy                            Policy the scheduler gives requests to
+ *                                                elevators with (see DispatchStrategy).
+ *                                                The floor subsystem passes its policy on
+ *                                                in the CONFIG_MODE message, if it has one.
+ *                                                Not used while assignment.window is set
+ *     assignment.window                          Time the scheduler collects requests for
+ *                                                before giving them to elevators all at
+ *                                                once (in ms, 0 to give each out at once).
+ *                                                Requests are then given out with the
+ *                                                lowest total estimated time instead of
+ *                                                by dispatch.policy
+ *     rebalance.interval                         Time between checks for waiting requests
+ *                                                that another elevator would pick up
+ *                                                sooner (in ms, 0 to never move them)
+ *
+ * Several simulations can share one machine by giving each a different
+ * instance number. Every port is moved up by PORT_INSTANCE_STRIDE per
+ * instance. A port of 0 binds any free port. The bound port is then written
+ * to the discovery directory, and the other subsystems of the same instance
+ * read it from there.
+ *
+ */
+public class SimulationConfig {
+    // The subsystems that make up one simulation instance
+    public enum Role {
+        SCHEDULER, ELEVATOR, FLOOR
+    }
+
+    private Properties properties;
+
+    /**
+     * SimulationConfig
+     *
+     * Constructor
+     *
+     * Creates a new SimulationConfig from the given properties
+     *
+     * @param properties   The configured values
+     *
+     * @return None
+     */
+    public SimulationConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * getDefault
+     *
+     * Returns a configuration read from the default properties file,
+     * or the defaults in UtilityInformation if there is no such file.
+     *
+     * @param  None
+     *
+     * @return SimulationConfig    The default configuration
+     */
+    public static SimulationConfig getDefault() {
+        return(load(new String[0]));
+    }
+
+    /**
+     * load
+     *
+     * Reads the configuration from a properties file and the given command
+     * line arguments. Arguments of the form --key=value override the
+     * file, and --config=<file> chooses the file to read.
+     * Other arguments are ignored.
+     *
+     * @param args Command line arguments
+     *
+     * @return SimulationConfig    The configuration
+     */
+    public static SimulationConfig load(String[] args) {
+        Properties overrides = new Properties();
+
+        for (String arg : args) {
+            if (arg.startsWith("--") && (arg.indexOf('=') > 2)) {
+                int split = arg.indexOf('=');
+                overrides.setProperty(arg.substring(2, split).trim(), arg.substring(split + 1).trim());
+            }
+        }
+
+        Properties properties = new Properties();
+        String file = overrides.getProperty("config");
+        Path path = Paths.get((file != null) ? file : UtilityInformation.DEFAULT_CONFIG_FILE);
+
+        if ((file != null) || Files.exists(path)) {
+            try (InputStream in = new FileInputStream(path.toFile())) {
+                properties.load(in);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Unable to read config file " + path, e);
+            }
+        }
+
+        properties.putAll(overrides);
+
+        return(new SimulationConfig(properties));
+    }
+
+    /**
+     * getInstance
+     *
+     * Returns the number of this simulation instance
+     *
+     * @param  None
+     *
+     * @return int The instance number
+     */
+    public int getInstance() {
+        return(getInt("instance", 0));
+    }
+
+    /**
+     * getTransportType
+     *
+     * Returns the way the subsystems exchange messages
+     *
+     * @param  None
+     *
+     * @return TransportType   The type of transport
+     */
+    public UtilityInformation.TransportType getTransportType() {
+        String value = properties.getProperty("transport");
+
+        if ((value == null) || value.isEmpty()) {
+            return(UtilityInformation.DEFAULT_TRANSPORT_TYPE);
+        }
+
+        try {
+            return(UtilityInformation.TransportType.valueOf(value.trim().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for transport: " + value);
+        }
+    }
+
+    /**
+     * getThreadMode
+     *
+     * Returns the type of thread elevators and floors are run on
+     *
+     * @param  None
+     *
+     * @return ThreadMode  The type of thread
+     */
+    public UtilityInformation.ThreadMode getThreadMode() {
+        String value = properties.getProperty("thread.mode");
+
+        if ((value == null) || value.isEmpty()) {
+            return(UtilityInformation.DEFAULT_THREAD_MODE);
+        }
+
+        try {
+            return(UtilityInformation.ThreadMode.valueOf(value.trim().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for thread.mode: " + value);
+        }
+    }
+
+    /**
+     * getWireVersion
+     *
+     * Returns the version of the message format to offer in the
+     * CONFIG_MODE handshake
+     *
+     * @param  None
+     *
+     * @return int The version of the format
+     */
+    public int getWireVersion() {
+        int version = getInt("wire.version", UtilityInformation.DEFAULT_WIRE_VERSION);
+
+        if ((version < MessageCodec.VERSION_1) || (version > MessageCodec.LATEST_VERSION)) {
+            throw new IllegalArgumentException("Invalid value for wire.version: " + version);
+        }
+
+        return(version);
+    }
+
+    /**
+     * getMaxNumFloors
+     *
+     * Returns the most floors a building can have with the configured
+     * version of the message format
+     *
+     * @param  None
+     *
+     * @return int The most floors
+     */
+    public int getMaxNumFloors() {
+        return(Math.min(UtilityInformation.MAX_NUM_FLOORS, MessageCodec.getMaxNumber(getWireVersion())));
+    }
+
+    /**
+     * getMaxNumElevators
+     *
+     * Returns the most elevators a building can have with the configured
+     * version of the message format
+     *
+     * @param  None
+     *
+     * @return int The most elevators
+     */
+    public int getMaxNumElevators() {
+        return(Math.min(UtilityInformation.MAX_NUM_ELEVATORS, MessageCodec.getMaxNumber(getWireVersion())));
+    }
+
+    /**
+     * checkBuildingSize
+     *
+     * Checks that a building with the given number of floors and elevators
+     * can be described with the configured version of the message format,
+     * so a building that is too large is refused at startup instead of
+     * when its first message is encoded.
+     *
+     * @param numFloors    Number of floors in the building
+     * @param numElevators Number of elevators in the building
+     *
+     * @return None
+     *
+     * @throws IllegalArgumentException    If either number is out of range
+     */
+    public void checkBuildingSize(int numFloors, int numElevators) {
+        if ((numFloors < UtilityInformation.MIN_NUM_FLOORS) || (numFloors > getMaxNumFloors())) {
+            throw new IllegalArgumentException("Invalid number of floors for wire.version " + getWireVersion() +
+                                               ": " + numFloors + " (" + UtilityInformation.MIN_NUM_FLOORS +
+                                               " to " + getMaxNumFloors() + ")");
+        }
+
+        if ((numElevators < UtilityInformation.MIN_NUM_ELEVATORS) || (numElevators > getMaxNumElevators())) {
+            throw new IllegalArgumentException("Invalid number of elevators for wire.version " + getWireVersion() +
+                                               ": " + numElevators + " (" + UtilityInformation.MIN_NUM_ELEVATORS +
+                                               " to " + getMaxNumElevators() + ")");
+        }
+    }
+
+    /**
+     * getDispatchPolicy
+     *
+     * Returns the policy the scheduler gives requests to elevators with
+     *
+     * @param  None
+     *
+     * @return DispatchPolicy  The policy, or null if none is configured
+     */
+    public UtilityInformation.DispatchPolicy getDispatchPolicy() {
+        String value = properties.getProperty("dispatch.policy");
+
+        if ((value == null) || value.isEmpty()) {
+            return(null);
+        }
+
+        try {
+            return(UtilityInformation.DispatchPolicy.valueOf(value.trim().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for dispatch.policy: " + value);
+        }
+    }
+
+    /**
+     * getAssignmentWindow
+     *
+     * Returns how long the scheduler collects requests for before giving
+     * them to elevators all at once
+     *
+     * @param  None
+     *
+     * @return int Length of the window (in milliseconds), 0 if requests are given out as they are made
+     */
+    public int getAssignmentWindow() {
+        int window = getInt("assignment.window", UtilityInformation.DEFAULT_ASSIGNMENT_WINDOW);
+
+        if (window < 0) {
+            throw new IllegalArgumentException("Invalid value for assignment.window: " + window);
+        }
+
+        return(window);
+    }
+
+    /**
+     * getRebalanceInterval
+     *
+     * Returns how often the scheduler checks whether a request waiting to
+     * be picked up would be picked up sooner by another elevator
+     *
+     * @param  None
+     *
+     * @return int Time between checks (in milliseconds), 0 if requests are never moved
+     */
+    public int getRebalanceInterval() {
+        int interval = getInt("rebalance.interval", UtilityInformation.DEFAULT_REBALANCE_INTERVAL);
+
+        if (interval < 0) {
+            throw new IllegalArgumentException("Invalid value for rebalance.interval: " + interval);
+        }
+
+        return(interval);
+    }
+
+    /**
+     * getClock
+     *
+     * Creates the clock that simulated time is measured with
+     *
+     * @param  None
+     *
+     * @return SimulationClock The new clock
+     */
+    public SimulationClock getClock() {
+        String mode = properties.getProperty("clock.mode");
+        String scale = properties.getProperty("clock.scale");
+        UtilityInformation.ClockMode clockMode = UtilityInformation.DEFAULT_CLOCK_MODE;
+        double clockScale = UtilityInformation.DEFAULT_CLOCK_SCALE;
+
+        try {
+            if ((mode != null) && !mode.isEmpty()) {
+                clockMode = UtilityInformation.ClockMode.valueOf(mode.trim().toUpperCase());
+            }
+
+            if ((scale != null) && !scale.isEmpty()) {
+                clockScale = Double.parseDouble(scale.trim());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid clock configuration: " + mode + ", " + scale);
+        }
+
+        return(SimulationClock.create(clockMode, clockScale));
+    }
+
+    /**
+     * getPort
+     *
+     * Returns the port the given subsystem receives on, moved up for this
+     * instance. Returns 0 if the subsystem binds any free port.
+     *
+     * @param role The subsystem
+     *
+     * @return int The port number
+     */
+    public int getPort(Role role) {
+        int port = getInt(key(role, "port"), getDefaultPort(role));
+
+        if (port == 0) {
+            return(0);
+        }
+
+        port += getInstance() * UtilityInformation.PORT_INSTANCE_STRIDE;
+
+        if ((port < 0) || (port > 0xFFFF)) {
+            throw new IllegalArgumentException("Invalid port for " + role + ": " + port);
+        }
+
+        return(port);
+    }
+
+    /**
+     * getAddress
+     *
+     * Returns the address of the host the given subsystem runs on.
+     * Uses the local host if no host is configured.
+     *
+     * @param role The subsystem
+     *
+     * @return InetAddress The address of the subsystem
+     *
+     * @throws UnknownHostException    If the host could not be found
+     */
+    public InetAddress getAddress(Role role) throws UnknownHostException {
+        String host = properties.getProperty(key(role, "host"));
+
+        if ((host == null) || host.isEmpty()) {
+            return(InetAddress.getLocalHost());
+        }
+
+        return(InetAddress.getByName(host));
+    }
+
+    /**
+     * publish
+     *
+     * Records the port the given subsystem is bound to. The port is only
+     * written to the discovery directory if the configured port is 0.
+     *
+     * @param role The subsystem
+     * @param boundPort    The port the subsystem is bound to
+     *
+     * @return None
+     */
+    public void publish(Role role, int boundPort) {
+        if (getPort(role) != 0) {
+            return;
+        }
+
+        Path file = getDiscoveryFile(role);
+
+        try {
+            Files.createDirectories(file.getParent());
+
+            // Write to a temporary file first so a reader never sees a partial port
+            Path temp = Files.createTempFile(file.getParent(), role.name(), ".tmp");
+            Files.write(temp, Integer.toString(boundPort).getBytes(StandardCharsets.US_ASCII));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to publish port of " + role + " to " + file, e);
+        }
+    }
+
+    /**
+     * unpublish
+     *
+     * Removes the port of the given subsystem from the discovery directory
+     *
+     * @param role The subsystem
+     *
+     * @return None
+     */
+    public void unpublish(Role role) {
+        if (getPort(role) != 0) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(getDiscoveryFile(role));
+        } catch (IOException e) {
+            Log.warn("Unable to remove discovery file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * resolvePort
+     *
+     * Returns the port to send to the given subsystem on. If the configured
+     * port is 0, waits until the subsystem has written its bound port to the
+     * discovery directory.
+     *
+     * @param role The subsystem
+     *
+     * @return int The port number
+     */
+    public int resolvePort(Role role) {
+        int port = getPort(role);
+
+        if (port != 0) {
+            return(port);
+        }
+
+        Path file = getDiscoveryFile(role);
+        long deadline = System.currentTimeMillis() + getInt("discovery.timeout", UtilityInformation.DISCOVERY_TIMEOUT);
+
+        while (true) {
+            try {
+                String contents = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+
+                if (!contents.isEmpty()) {
+                    return(Integer.parseInt(contents));
+                }
+            } catch (NoSuchFileException e) {
+                // Not published yet
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read port of " + role + " from " + file, e);
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IllegalStateException("Timed out waiting for the port of " + role + " in " + file);
+            }
+
+            try {
+                Thread.sleep(UtilityInformation.DISCOVERY_POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for the port of " + role);
+            }
+        }
+    }
+
+    /**
+     * getDiscoveryFile
+     *
+     * Returns the file the bound port of the given subsystem is written to.
+     * Each instance has its own directory.
+     *
+     * @param role The subsystem
+     *
+     * @return Path    The discovery file
+     */
+    public Path getDiscoveryFile(Role role) {
+        String dir = properties.getProperty("discovery.dir");
+
+        if ((dir == null) || dir.isEmpty()) {
+            dir = Paths.get(System.getProperty("java.io.tmpdir"), UtilityInformation.DEFAULT_DISCOVERY_DIR).toString();
+        }
+
+        return(Paths.get(dir, "instance-" + getInstance(), role.name().toLowerCase() + ".port"));
+    }
+
+    /**
+     * getDefaultPort
+     *
+     * Returns the port the given subsystem receives on when it is not configured
+     *
+     * @param role The subsystem
+     *
+     * @return int The default port
+     */
+    private static int getDefaultPort(Role role) {
+        switch (role) {
+        case SCHEDULER:
+            return(UtilityInformation.SCHEDULER_PORT_NUM);
+        case ELEVATOR:
+            return(UtilityInformation.ELEVATOR_PORT_NUM);
+        default:
+            return(UtilityInformation.FLOOR_PORT_NUM);
+        }
+    }
+
+    /**
+     * key
+     *
+     * Returns the property key of the given setting of the given subsystem
+     *
+     * @param role The subsystem
+     * @param name Name of the setting
+     *
+     * @return String  The property key
+     */
+    private static String key(Role role, String name) {
+        return(role.name().toLowerCase() + "." + name);
+    }
+
+    /**
+     * getInt
+     *
+     * Returns the integer value of the given property
+     *
+     * @param key  The property key
+     * @param defaultValue Value returned if the property is not set
+     *
+     * @return int The value of the property
+     *
+     * @throws IllegalArgumentException If the value is not an integer
+     */
+    private int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+
+        if ((value == null) || value.isEmpty()) {
+            return(defaultValue);
+        }
+
+        try {
+            return(Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+class SimulationConfigTest {
+
+	/**
+	 * Test that the defaults are used when nothing is configured, and that
+	 * each instance moves every port up
+	 */
+	@Test
+	void testInstancePorts() {
+		SimulationConfig config = SimulationConfig.load(new String[0]);
+
+		assertEquals(UtilityInformation.SCHEDULER_PORT_NUM, config.getPort(SimulationConfig.Role.SCHEDULER));
+
+		config = SimulationConfig.load(new String[] { "--instance=2", "--elevator.port=5000" });
+
+		assertEquals(UtilityInformation.SCHEDULER_PORT_NUM + 2 * UtilityInformation.PORT_INSTANCE_STRIDE,
+				config.getPort(SimulationConfig.Role.SCHEDULER));
+		assertEquals(5000 + 2 * UtilityInformation.PORT_INSTANCE_STRIDE,
+				config.getPort(SimulationConfig.Role.ELEVATOR));
+	}
+
+	/**
+	 * Test that a port bound with port 0 can be found through the discovery
+	 * directory
+	 */
+	@Test
+	void testDiscovery() throws Exception {
+		Path dir = Files.createTempDirectory("discovery");
+		SimulationConfig config = SimulationConfig.load(new String[] { "--floor.port=0", "--discovery.dir=" + dir });
+
+		assertEquals(0, config.getPort(SimulationConfig.Role.FLOOR));
+
+		config.publish(SimulationConfig.Role.FLOOR, 12345);
+		assertEquals(12345, config.resolvePort(SimulationConfig.Role.FLOOR));
+
+		config.unpublish(SimulationConfig.Role.FLOOR);
+		assertFalse(Files.exists(config.getDiscoveryFile(SimulationConfig.Role.FLOOR)));
+	}
+
+	/**
+	 * Test that the dispatch policy is only chosen when it is configured
+	 */
+	@Test
+	void testDispatchPolicy() {
+		assertEquals(null, SimulationConfig.load(new String[0]).getDispatchPolicy());
+		assertEquals(UtilityInformation.DispatchPolicy.NEAREST_CAR,
+				SimulationConfig.load(new String[] { "--dispatch.policy=nearest_car" }).getDispatchPolicy());
+		assertThrows(IllegalArgumentException.class,
+				() -> SimulationConfig.load(new String[] { "--dispatch.policy=fastest" }).getDispatchPolicy());
+	}
+
+	/**
+	 * Test that the assignment window is off unless it is configured
+	 */
+	@Test
+	void testAssignmentWindow() {
+		assertEquals(UtilityInformation.DEFAULT_ASSIGNMENT_WINDOW, SimulationConfig.load(new String[0]).getAssignmentWindow());
+		assertEquals(500, SimulationConfig.load(new String[] { "--assignment.window=500" }).getAssignmentWindow());
+		assertThrows(IllegalArgumentException.class,
+				() -> SimulationConfig.load(new String[] { "--assignment.window=-1" }).getAssignmentWindow());
+	}
+	
+	/**
+	 * Test that requests are never moved unless rebalancing is configured
+	 */
+	@Test
+	void testRebalanceInterval() {
+		assertEquals(UtilityInformation.DEFAULT_REBALANCE_INTERVAL, SimulationConfig.load(new String[0]).getRebalanceInterval());
+		assertEquals(2000, SimulationConfig.load(new String[] { "--rebalance.interval=2000" }).getRebalanceInterval());
+		assertThrows(IllegalArgumentException.class,
+				() -> SimulationConfig.load(new String[] { "--rebalance.interval=-1" }).getRebalanceInterval());
+	}
+
+	/**
+	 * Test that a building larger than version 1 of the message format can
+	 * describe is refused when version 1 is configured, and allowed with
+	 * version 2
+	 */
+	@Test
+	void testBuildingSizeForWireVersion() {
+		SimulationConfig version1 = SimulationConfig.load(new String[] { "--wire.version=1" });
+		SimulationConfig version2 = SimulationConfig.load(new String[] { "--wire.version=2" });
+
+		assertEquals(127, version1.getMaxNumFloors());
+		assertEquals(127, version1.getMaxNumElevators());
+		assertEquals(UtilityInformation.MAX_NUM_FLOORS, version2.getMaxNumFloors());
+
+		version1.checkBuildingSize(127, 127);
+		assertThrows(IllegalArgumentException.class, () -> version1.checkBuildingSize(128, 4));
+		assertThrows(IllegalArgumentException.class, () -> version1.checkBuildingSize(22, 128));
+		assertThrows(IllegalArgumentException.class, () -> version1.checkBuildingSize(0, 4));
+
+		version2.checkBuildingSize(1000, 200);
+	}
+}
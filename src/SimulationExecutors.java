@@ -0,0 +1,117 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * This class creates the executors that run elevators and floors.
+ *
+ * Elevators and floors spend almost all of their time sleeping, so large
+ * buildings are best run on virtual threads. Virtual threads are looked up
+ * at run time, so the simulation still runs on JVMs without them, using
+ * platform threads instead.
+ *
+ */
+public class SimulationExecutors {
+    private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+
+    /**
+     * create
+     *
+     * Creates an executor that runs every task on its own thread
+     * of the given type.
+     *
+     * @param mode The type of thread to run tasks on
+     * @param name Prefix of the name of every platform thread
+     *
+     * @return ExecutorService The new executor
+     */
+    public static ExecutorService create(UtilityInformation.ThreadMode mode, String name) {
+        if (mode == UtilityInformation.ThreadMode.VIRTUAL) {
+            if (NEW_VIRTUAL_EXECUTOR != null) {
+                try {
+                    return((ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null));
+                } catch (ReflectiveOperationException e) {
+                    Log.warn("Unable to create virtual threads: " + e);
+                }
+            }
+
+            Log.warn("Virtual threads are not supported by this JVM, using platform threads.");
+        }
+
+        return(Executors.newCachedThreadPool(new NamedThreadFactory(name)));
+    }
+
+    /**
+     * isVirtualThreadSupported
+     *
+     * Returns whether this JVM can run tasks on virtual threads
+     *
+     * @param  None
+     *
+     * @return boolean True if virtual threads are supported
+     */
+    public static boolean isVirtualThreadSupported() {
+        return(NEW_VIRTUAL_EXECUTOR != null);
+    }
+
+    /**
+     * findVirtualExecutorFactory
+     *
+     * Returns the factory method of virtual thread executors
+     *
+     * @param  None
+     *
+     * @return Method  The factory method, null if this JVM has no virtual threads
+     */
+    private static Method findVirtualExecutorFactory() {
+        try {
+            return(Executors.class.getMethod("newVirtualThreadPerTaskExecutor"));
+        } catch (NoSuchMethodException e) {
+            return(null);
+        }
+    }
+
+    /**
+     *
+     * Creates platform threads named after the tasks they run
+     *
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private String name;
+        private AtomicInteger count;
+
+        /**
+         * NamedThreadFactory
+         *
+         * Constructor
+         *
+         * Creates a factory of threads named after the given task
+         *
+         * @param name Name of the task run by the threads
+         *
+         * @return None
+         */
+        public NamedThreadFactory(String name) {
+            this.name = name;
+            count = new AtomicInteger(0);
+        }
+
+        /**
+         * newThread
+         *
+         * Creates a thread that runs the given task, numbered after
+         * the threads created before it
+         *
+         * @param task The task to run
+         *
+         * @return Thread  The new thread
+         */
+        @Override
+        public Thread newThread(Runnable task) {
+            return(new Thread(task, name + "-" + count.getAndIncrement()));
+        }
+    }
+}
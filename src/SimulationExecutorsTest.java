@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SimulationExecutorsTest {
+
+	/**
+	 * Returns whether the given thread is a virtual thread, false on JVMs
+	 * without virtual threads
+	 *
+	 * @param thread The thread to check
+	 *
+	 * @return boolean True if the thread is virtual
+	 */
+	private boolean isVirtual(Thread thread) throws Exception {
+		try {
+			Method isVirtual = Thread.class.getMethod("isVirtual");
+
+			return ((Boolean) isVirtual.invoke(thread));
+		} catch (NoSuchMethodException e) {
+			return (false);
+		}
+	}
+
+	/**
+	 * Test that platform threads are named after the executor, and that
+	 * every task gets its own thread so sleeping tasks do not hold up others
+	 */
+	@Test
+	void testPlatformThreads() throws Exception {
+		ExecutorService executor = SimulationExecutors.create(UtilityInformation.ThreadMode.PLATFORM, "test");
+		CountDownLatch allStarted = new CountDownLatch(3);
+
+		try {
+			Future<?>[] tasks = new Future<?>[3];
+
+			for (int i = 0; i < tasks.length; i++) {
+				tasks[i] = executor.submit(() -> {
+					assertTrue(Thread.currentThread().getName().startsWith("test-"));
+					assertFalse(isVirtual(Thread.currentThread()));
+
+					// Only finishes if every task is running at once
+					allStarted.countDown();
+					assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+					return (null);
+				});
+			}
+
+			for (Future<?> task : tasks) {
+				task.get(10, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test that the virtual mode runs tasks on virtual threads where the JVM
+	 * has them, and falls back to platform threads where it does not
+	 */
+	@Test
+	void testVirtualThreads() throws Exception {
+		ExecutorService executor = SimulationExecutors.create(UtilityInformation.ThreadMode.VIRTUAL, "test");
+		boolean supported = SimulationExecutors.isVirtualThreadSupported();
+
+		try {
+			assertEquals(supported, executor.submit(() -> isVirtual(Thread.currentThread())).get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+
+		boolean hasFactory = true;
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			hasFactory = false;
+		}
+		assertEquals(hasFactory, supported);
+	}
+}
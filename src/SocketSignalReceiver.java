@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketException;
+
+/**
+ * 
+ * This class is used to recieve messages using DatagramSockets
+ *
+ */
+class SocketSignalReceiver extends SignalReceiver {
+	private volatile DatagramSocket receiveSocket;
+	
+	private int localPort;
+
+	/**
+	 * SocketSignalReceiver
+	 * 
+	 * Creates a new SocketSignalReceiver object
+	 * 
+	 * @param portNum  The port number to receive messages on
+	 * @param controller   The ServerPattern that controls this SignalReceiver object
+	 * @param name The name of this ServerPattern object
+	 * 
+	 * @return None
+	 */
+	public SocketSignalReceiver(int portNum, ServerPattern controller, String name) {
+		super(controller, name);
+
+		// Initialize the DatagramSocket
+		try {
+			receiveSocket = new DatagramSocket(portNum);
+			localPort = receiveSocket.getLocalPort();
+		} catch (SocketException se) {
+			se.printStackTrace();
+			this.teardown();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * teardown
+	 * 
+	 * Tears down this SignalReceiver object
+	 */
+	public void teardown() {
+		run = false;
+		
+		if (receiveSocket != null) {
+		    receiveSocket.close();
+		    receiveSocket = null;
+		}
+	}
+
+	/**
+	 * getLocalPort
+	 * 
+	 * Returns the port the socket is bound to
+	 * 
+	 * @param  None
+	 * 
+	 * @return int The port number
+	 */
+	public int getLocalPort() {
+		return(localPort);
+	}
+
+	/**
+	 * waitForSignal
+	 * 
+	 * Waits for a packet to be sent to the socket. The packet is read into
+	 * a packet from the pool. When the packet is received, information about
+	 * the packet is printed. The packet is then returned.
+	 * 
+	 * @param  None
+	 * 
+	 * @return The received DatagramPacket, null if the receiver was torn down
+	 */
+	public DatagramPacket waitForSignal() {
+		DatagramSocket socket = receiveSocket;
+		
+		if (socket == null) {
+		    return(null);
+		}
+		
+		DatagramPacket receivePacket = controller.getBufferPool().acquire();
+
+		Log.debug(() -> String.format("%s: Waiting for message...", name));
+
+		try {
+			// Block until a datagram is received via sendSocket.
+			socket.receive(receivePacket);
+		} catch (IOException e) {
+			controller.releaseRequest(receivePacket);
+			
+			if (run) {
+				e.printStackTrace();
+				this.teardown();
+				System.exit(1);
+			}
+			
+			return(null);
+		}
+
+		// Clear anything left in the pooled buffer from a previous signal
+		SignalBufferPool.clearUnused(receivePacket);
+
+		// Print out information about the response
+		printSignal(receivePacket);
+
+		return (receivePacket);
+	}
+}
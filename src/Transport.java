@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.net.DatagramPacket;
+
+/**
+ *
+ * This class is the base for all ways that a ServerPattern exchanges
+ * messages with the other subsystems.
+ *
+ * A transport is bound to a port when it is created. Once started, every
+ * message sent to that port is given to the ServerPattern's signalReceived
+ * in a packet from the ServerPattern's pool. Messages are sent to the
+ * address and port set in the packet given to send.
+ *
+ */
+public abstract class Transport {
+    protected ServerPattern controller;
+    protected String name;
+
+    /**
+     * Transport
+     *
+     * Constructor
+     *
+     * Creates a new Transport for the given ServerPattern
+     *
+     * @param controller   The ServerPattern that receives messages from this transport
+     * @param name The name of the ServerPattern
+     *
+     * @return None
+     */
+    public Transport(ServerPattern controller, String name) {
+        this.controller = controller;
+        this.name = name;
+    }
+
+    /**
+     * create
+     *
+     * Creates a transport of the given type bound to the given port
+     *
+     * @param type The type of transport
+     * @param portNum  Port number to receive messages on (0 for any free port)
+     * @param controller   The ServerPattern that receives messages from the transport
+     * @param name The name of the ServerPattern
+     * @param receiverType Type of receiver used by a UDP transport
+     *
+     * @return Transport   The new transport
+     */
+    public static Transport create(UtilityInformation.TransportType type, int portNum, ServerPattern controller,
+                                   String name, UtilityInformation.ReceiverType receiverType) {
+        switch (type) {
+        case IN_JVM:
+            return(new InJvmTransport(portNum, controller, name));
+        case SHARED_MEMORY:
+            return(new SharedMemoryTransport(portNum, controller, name));
+        default:
+            return(new UdpTransport(portNum, controller, name, receiverType));
+        }
+    }
+
+    /**
+     * start
+     *
+     * Starts giving received messages to the ServerPattern
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public abstract void start();
+
+    /**
+     * send
+     *
+     * Sends the message in the given packet to the address and port set
+     * in the packet. The packet can be reused once this returns.
+     *
+     * @param packet   Packet containing the message and its destination
+     *
+     * @return None
+     *
+     * @throws IOException If the message could not be sent
+     */
+    public abstract void send(DatagramPacket packet) throws IOException;
+
+    /**
+     * getLocalPort
+     *
+     * Returns the port messages are received on. If the transport was
+     * created with port 0, this is the port that was picked.
+     *
+     * @param  None
+     *
+     * @return int The port number
+     */
+    public abstract int getLocalPort();
+
+    /**
+     * isReliable
+     *
+     * Returns whether every message sent is received exactly once and in
+     * order, so there is no need to send messages through a ReliabilityLayer
+     *
+     * @param  None
+     *
+     * @return boolean True if messages can not be lost
+     */
+    public abstract boolean isReliable();
+
+    /**
+     * teardown
+     *
+     * Stops receiving messages and releases the port
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public abstract void teardown();
+}
@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketException;
+
+/**
+ *
+ * This class exchanges messages as UDP datagrams, so the subsystems can run
+ * on different hosts. Messages are received by a SignalReceiver on its own
+ * thread, and sent on a separate socket.
+ *
+ */
+class UdpTransport extends Transport {
+    // Time to wait for the receiver thread to stop (in milliseconds)
+    private final static long RECEIVER_STOP_TIMEOUT = 1000;
+
+    private SignalReceiver receiver;
+    private Thread receiverThread;
+
+    private DatagramSocket sendSocket;
+
+    /**
+     * UdpTransport
+     *
+     * Creates a new UdpTransport bound to the given port
+     *
+     * @param portNum  Port number to receive messages on (0 for any free port)
+     * @param controller   The ServerPattern that receives messages from this transport
+     * @param name The name of the ServerPattern
+     * @param receiverType Type of receiver to read datagrams with
+     *
+     * @return None
+     */
+    public UdpTransport(int portNum, ServerPattern controller, String name,
+                        UtilityInformation.ReceiverType receiverType) {
+        super(controller, name);
+
+        if (receiverType == UtilityInformation.ReceiverType.SOCKET) {
+            receiver = new SocketSignalReceiver(portNum, controller, name);
+        } else {
+            receiver = new ChannelSignalReceiver(portNum, controller, name);
+        }
+
+        try {
+            sendSocket = new DatagramSocket();
+        } catch (SocketException e) {
+            e.printStackTrace();
+            receiver.teardown();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * start
+     *
+     * Starts the thread that receives datagrams
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void start() {
+        receiverThread = new Thread(receiver, "receiver");
+        receiverThread.start();
+    }
+
+    /**
+     * send
+     *
+     * Sends the message in the given packet as a datagram
+     *
+     * @param packet   Packet containing the message and its destination
+     *
+     * @return None
+     *
+     * @throws IOException If the datagram could not be sent
+     */
+    public void send(DatagramPacket packet) throws IOException {
+        sendSocket.send(packet);
+    }
+
+    /**
+     * getLocalPort
+     *
+     * Returns the port the receiver is bound to
+     *
+     * @param  None
+     *
+     * @return int The port number
+     */
+    public int getLocalPort() {
+        return(receiver.getLocalPort());
+    }
+
+    /**
+     * isReliable
+     *
+     * Returns false, since datagrams can be lost or reordered
+     *
+     * @param  None
+     *
+     * @return boolean False
+     */
+    public boolean isReliable() {
+        return(false);
+    }
+
+    /**
+     * teardown
+     *
+     * Closes the sockets and waits for the receiver thread to stop
+     *
+     * @param  None
+     *
+     * @return None
+     */
+    public void teardown() {
+        receiver.teardown();
+        sendSocket.close();
+
+        // A closed channel keeps its port until the thread blocked
+        // receiving on it leaves, so wait for the receiver to stop
+        if ((receiverThread != null) && (Thread.currentThread() != receiverThread)) {
+            try {
+                receiverThread.join(RECEIVER_STOP_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
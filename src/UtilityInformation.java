@@ -26,6 +26,44 @@ public class UtilityInformation {
 	    CLOSE, OPEN
 	}
 	
+	// Ways that a ServerPattern can receive signals
+	// NONE receives nothing, signals are only added by calling signalReceived
+	public enum ReceiverType {
+		SOCKET, CHANNEL, NONE
+	}
+	
+	// Ways that a ServerPattern can exchange messages with the other subsystems
+	public enum TransportType {
+		UDP, IN_JVM, SHARED_MEMORY
+	}
+	
+	// Ways that a ServerPattern can wait for its next signal
+	// (ordered from least to most CPU used while waiting)
+	public enum WaitStrategy {
+		BLOCKING, PARK_BACKOFF, YIELDING, BUSY_SPIN
+	}
+	
+	// Types of thread that elevators and floors are run on
+	public enum ThreadMode {
+		PLATFORM, VIRTUAL
+	}
+	
+	// Types of clock that simulated time is measured with
+	public enum ClockMode {
+		REAL, SCALED, MANUAL
+	}
+	
+	// Ways that the scheduler can decide which elevator is given a request
+	// (see DispatchStrategy)
+	public enum DispatchPolicy {
+		GREEDY, NEAREST_CAR, COLLECTIVE_LOOK, ESTIMATED_TIME
+	}
+	
+	// Levels of log messages (ordered from most to least detailed)
+	public enum LogLevel {
+		DEBUG, INFO, WARN, ERROR, OFF
+	}
+	
 	// Byte in messages used to indicate the type of message
 	public final static int MODE_BYTE_IND = 0;
 
@@ -43,16 +81,159 @@ public class UtilityInformation {
 	public final static byte FIX_ERROR_MODE = 10;
 	public final static byte FIX_DOOR_MODE = 11;
 	public final static byte ALL_REQUESTS_FINISHED_MODE = 12;
+	public final static byte MULTI_COMMAND_MODE = 13;
+	public final static byte RELIABLE_MODE = 14;
+	public final static byte ACK_MODE = 15;
+	public final static byte TIMER_MODE = 16;
+	
+	// Number of modes (one more than the largest mode byte)
+	public final static int NUM_MODES = 17;
+	
+	// Timers that a TIMER_MODE message can say have expired
+	public final static int ASSIGNMENT_TIMER = 0;
+	public final static int REBALANCE_TIMER = 1;
+	
+	// Layout of a MULTI_COMMAND_MODE frame:
+	//     {MULTI_COMMAND_MODE, Number of commands, 
+	//      Length of command 1, Command 1..., 
+	//      Length of command 2, Command 2..., ..., -1}
+	public final static int FRAME_COUNT_IND = 1;
+	public final static int FRAME_HEADER_SIZE = 2;
 
 	// Messages (End of Message Indicator)
 	public final static byte END_OF_MESSAGE = -1;
 
-	// Ports
-	public final static int SCHEDULER_PORT_NUM = 420;
-	public final static int ELEVATOR_PORT_NUM = 69;
-	public final static int FLOOR_PORT_NUM = 666;
+	// Default ports (used unless SimulationConfig gives others)
+	public final static int SCHEDULER_PORT_NUM = 4200;
+	public final static int ELEVATOR_PORT_NUM = 4201;
+	public final static int FLOOR_PORT_NUM = 4202;
+	
+	// Amount every port is moved up by for each simulation instance
+	public final static int PORT_INSTANCE_STRIDE = 3;
+	
+	// Properties file read by SimulationConfig if it exists
+	public final static String DEFAULT_CONFIG_FILE = "simulation.properties";
+	
+	// Directory (under the temporary directory) that bound ports are written
+	// to if no discovery directory is configured
+	public final static String DEFAULT_DISCOVERY_DIR = "elevator-discovery";
+	
+	// Time to wait for another subsystem to publish its port, 
+	// and time between checks (in ms)
+	public final static int DISCOVERY_TIMEOUT = 30000;
+	public final static int DISCOVERY_POLL_INTERVAL = 50;
+	
+	// Version of the message format offered in the CONFIG_MODE handshake
+	// unless configured otherwise (see MessageCodec)
+	public final static int DEFAULT_WIRE_VERSION = MessageCodec.LATEST_VERSION;
+	
+	// Transport used unless configured otherwise (IN_JVM only works
+	// when every subsystem runs in the same JVM)
+	public final static TransportType DEFAULT_TRANSPORT_TYPE = TransportType.UDP;
+	
+	// Directory the SHARED_MEMORY transport keeps its ring files in
+	// (the temporary directory is used instead if this does not exist)
+	public final static String SHARED_MEMORY_DIR = "/dev/shm";
+	public final static String SHARED_MEMORY_SUBDIR = "elevator-rings";
+	
+	// Bytes of messages each shared memory ring can hold (a power of two)
+	public final static int SHARED_MEMORY_RING_CAPACITY = 1 << 16;
+	
+	// Empty polls a shared memory receiver spins for (on hosts with more
+	// than one processor) and then yields for before parking, time parked
+	// between polls after that (in ns), and time between checks for rings
+	// from new senders (in ms)
+	public final static int SHARED_MEMORY_SPIN_LIMIT = 10000;
+	public final static int SHARED_MEMORY_YIELD_LIMIT = 1000;
+	public final static long SHARED_MEMORY_PARK_NANOS = 20000;
+	public final static long SHARED_MEMORY_SCAN_INTERVAL = 100;
+	
+	// Time a sender waits for space in a full ring before dropping
+	// the message (in ms)
+	public final static long SHARED_MEMORY_SEND_TIMEOUT = 1000;
+	
+	// Time an in-JVM sender waits for space in a full queue before
+	// dropping the message (in ms)
+	public final static long IN_JVM_SEND_TIMEOUT = 1000;
+	
+	// Fewest actions that can wait for one elevator before they overflow
+	// into a slower list (queues are larger for buildings with more floors)
+	public final static int ACTION_QUEUE_CAPACITY = 64;
+	
+	// Receiver used by ServerPatterns unless another type is given
+	public final static ReceiverType DEFAULT_RECEIVER_TYPE = ReceiverType.CHANNEL;
+	
+	// Wait strategy used by each subsystem while waiting for signals
+	public final static WaitStrategy DEFAULT_WAIT_STRATEGY = WaitStrategy.BLOCKING;
+	public final static WaitStrategy SCHEDULER_WAIT_STRATEGY = WaitStrategy.BLOCKING;
+	public final static WaitStrategy ELEVATOR_WAIT_STRATEGY = WaitStrategy.BLOCKING;
+	public final static WaitStrategy FLOOR_WAIT_STRATEGY = WaitStrategy.BLOCKING;
+	
+	// Type of thread elevators and floors run on unless configured otherwise
+	public final static ThreadMode DEFAULT_THREAD_MODE = ThreadMode.PLATFORM;
+	
+	// Clock used for simulated time unless configured otherwise, and how much
+	// faster than real time a SCALED clock runs by default
+	public final static ClockMode DEFAULT_CLOCK_MODE = ClockMode.REAL;
+	public final static double DEFAULT_CLOCK_SCALE = 1000.0;
+	
+	// Dispatch policy used by the scheduler unless configured otherwise
+	public final static DispatchPolicy DEFAULT_DISPATCH_POLICY = DispatchPolicy.GREEDY;
+	
+	// Time the scheduler collects requests for before giving them to
+	// elevators all at once unless configured otherwise (in milliseconds,
+	// 0 gives each request to an elevator as soon as it is made)
+	public final static int DEFAULT_ASSIGNMENT_WINDOW = 0;
+	
+	// Most requests given to elevators at once, and most of them one
+	// elevator is given at once (unless there are too few elevators)
+	public final static int MAX_ASSIGNMENT_BATCH = 32;
+	public final static int MAX_ASSIGNMENTS_PER_ELEVATOR = 4;
+	
+	// Time between checks for requests that another elevator would pick up
+	// sooner unless configured otherwise (in milliseconds, 0 never moves 
+	// a request), and how much sooner it must be to move them (in milliseconds)
+	public final static int DEFAULT_REBALANCE_INTERVAL = 0;
+	public final static int MIN_REBALANCE_GAIN = 10000;
+	
+	// Modes handled after sensor and door messages that are handled anyway
+	// once passed over by SIGNAL_AGING_THRESHOLD higher priority messages,
+	// so fault reports can not starve behind a flood of sensor messages
+	// (0 disables aging)
+	public final static byte[] AGING_MODES = {ERROR_MESSAGE_MODE, FIX_DOOR_MODE};
+	public final static int SIGNAL_AGING_THRESHOLD = 8;
+	
+	// Maximum number of messages a subsystem handles per batch
+	public final static int MAX_BATCH_SIZE = 32;
+	
+	// Whether messages are sent with sequence numbers, acknowledged and
+	// retransmitted until acknowledged (received messages are always 
+	// acknowledged if the sender asked for it)
+	public final static boolean RELIABLE_DELIVERY = false;
+	
+	// Bytes added in front of a message sent reliably
+	public final static int RELIABLE_HEADER_SIZE = 11;
+	
+	// Largest message that can be sent reliably
+	public final static int MAX_PAYLOAD_SIZE = MAX_BYTE_ARRAY_SIZE - RELIABLE_HEADER_SIZE;
+	
+	// Number of unacknowledged messages that can be sent to one subsystem
+	// (at most 64, the number of messages covered by selective acks)
+	public final static int RELIABLE_WINDOW_SIZE = 64;
+	
+	// Time before an unacknowledged message is sent again (in milliseconds),
+	// doubled after each retransmit, and how many times it is sent again
+	public final static int RETRANSMIT_TIMEOUT = 200;
+	public final static int MAX_RETRANSMITS = 10;
+	
+	// Log messages below this level are not built or printed
+	public final static LogLevel LOG_LEVEL = LogLevel.INFO;
+	
+	// Number of log messages that can wait to be printed (must be a power of 2)
+	public final static int LOG_BUFFER_SIZE = 4096;
 
-	// Information to configure times for important actions (in milliseconds)
+	// Information to configure times for important actions 
+	// (in simulated milliseconds, measured with a SimulationClock)
 	public final static int OPEN_DOOR_TIME = 1500;
 	public final static int CLOSE_DOOR_TIME = 1500;
 	public final static int TIME_UP_ONE_FLOOR = 5000;
@@ -61,9 +242,14 @@ public class UtilityInformation {
 
 	// Valid ranges for the number of
 	// floors and number of elevators
+	// (the most that version 2 of the message format can hold)
 	public final static int MIN_NUM_FLOORS = 1;
-	public final static int MAX_NUM_FLOORS = 22;
+	public final static int MAX_NUM_FLOORS = 0xFFFF;
 
 	public final static int MIN_NUM_ELEVATORS = 1;
-	public final static int MAX_NUM_ELEVATORS = 4;
+	public final static int MAX_NUM_ELEVATORS = 0xFFFF;
+	
+	// Building simulated unless another size is given
+	public final static int DEFAULT_NUM_FLOORS = 22;
+	public final static int DEFAULT_NUM_ELEVATORS = 4;
 }